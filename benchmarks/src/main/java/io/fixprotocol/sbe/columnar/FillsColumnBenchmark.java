@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.columnar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fixprotocol.sbe.capture.SofhCaptureReader;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder.FillsGrpDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+
+/**
+ * Summing FillQty of {@value #MESSAGES} ExecutionReports by replaying a capture with the generated
+ * decoders versus scanning the FillQty column exported from it
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FillsColumnBenchmark {
+
+  static final int MESSAGES = 1024 * 1024;
+
+  private SofhCaptureReader capture;
+  private FillsColumnReader columns;
+  private Path directory;
+  private final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private long sum;
+
+  @Benchmark
+  public long replayCapture() throws IOException {
+    sum = 0;
+    capture.seek(0);
+    capture.replay(this::onFrame);
+    return sum;
+  }
+
+  @Benchmark
+  public long scanColumn() {
+    return columns.sumFillQty();
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("fills");
+    final Path capturePath = directory.resolve("capture.bin");
+    final ExampleDumper dumper = new ExampleDumper();
+    final byte[] frame = new byte[128];
+    final int frameLength = dumper.encodeExecutionReport(frame);
+    final ByteBuffer block = ByteBuffer.allocate(frameLength * 1024);
+    for (int i = 0; i < 1024; i++) {
+      block.put(frame, 0, frameLength);
+    }
+    try (FileChannel channel =
+        FileChannel.open(capturePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      for (int i = 0; i < MESSAGES / 1024; i++) {
+        block.flip();
+        while (block.hasRemaining()) {
+          channel.write(block);
+        }
+        block.limit(block.capacity());
+      }
+    }
+    final Path columnPath = directory.resolve("fills.col");
+    FillsColumnWriter.export(capturePath, columnPath);
+    capture = new SofhCaptureReader(capturePath);
+    columns = new FillsColumnReader(columnPath);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    capture.close();
+    columns.close();
+    Files.delete(directory.resolve("capture.bin"));
+    Files.delete(directory.resolve("fills.col"));
+    Files.delete(directory);
+  }
+
+  private void onFrame(DirectBuffer buffer, int offset, int length) {
+    mhDecoder.wrap(buffer, offset + 6);
+    erDecoder.wrap(buffer, offset + 6 + mhDecoder.encodedLength(), mhDecoder.blockLength(),
+        mhDecoder.version());
+    for (final FillsGrpDecoder fill : erDecoder.fillsGrp()) {
+      sum += fill.fillQty().mantissa();
+    }
+  }
+}
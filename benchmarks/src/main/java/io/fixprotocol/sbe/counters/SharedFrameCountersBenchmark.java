@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.counters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.agrona.concurrent.status.CountersReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.SofhFrameDeframer;
+
+/**
+ * Cost per frame of deframing with and without {@link SharedFrameCounters}
+ * <p>
+ * Each invocation delivers {@value #FRAMES} NewOrderSingle frames in one buffer, so the
+ * difference between the two scores is the cost of counting a frame and its bytes.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharedFrameCountersBenchmark {
+
+  static final int FRAMES = 256;
+
+  private Blackhole blackhole;
+  private SofhFrameDeframer deframer;
+  private UnsafeBuffer stream;
+
+  @Param({"false", "true"})
+  boolean counted;
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public int deframe(Blackhole blackhole) throws IOException {
+    this.blackhole = blackhole;
+    return deframer.onBytes(stream, 0, stream.capacity());
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    final ExampleDumper dumper = new ExampleDumper();
+    final byte[] frame = new byte[128];
+    final int frameLength = dumper.encodeOrderMsg(frame);
+    stream = new UnsafeBuffer(ByteBuffer.allocateDirect(frameLength * FRAMES));
+    for (int i = 0; i < FRAMES; i++) {
+      stream.putBytes(i * frameLength, frame, 0, frameLength);
+    }
+    FrameCounters counters = FrameCounters.NONE;
+    if (counted) {
+      final int maxCounters = 32;
+      final CountersManager manager = new CountersManager(
+          new UnsafeBuffer(
+              ByteBuffer.allocateDirect(maxCounters * CountersReader.METADATA_LENGTH)),
+          new UnsafeBuffer(ByteBuffer.allocateDirect(maxCounters * CountersReader.COUNTER_LENGTH)),
+          StandardCharsets.US_ASCII);
+      counters = new SharedFrameCounters(manager, 97, 98, 99);
+    }
+    deframer = new SofhFrameDeframer(64 * 1024, this::onFrame, counters);
+  }
+
+  private void onFrame(DirectBuffer buffer, int offset, int length) {
+    blackhole.consume(buffer.getByte(offset + length - 1));
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.examples;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fixprotocol.sbe.examples.messages.BusinessMessageRejectDecoder;
+import io.fixprotocol.sbe.examples.messages.BusinessMessageRejectEncoder;
+import io.fixprotocol.sbe.examples.messages.BusinessRejectReasonEnum;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+
+/**
+ * Encode and decode of a framed BusinessMessageReject, including the SOFH and SBE message header
+ * <p>
+ * Run with {@code -prof gc} to see allocation per operation.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusinessMessageRejectBenchmark {
+
+  private static final byte[] REF_ID = "ORD00001".getBytes(StandardCharsets.ISO_8859_1);
+  private static final byte[] TEXT =
+      "Not authorized to trade that instrument".getBytes(StandardCharsets.ISO_8859_1);
+
+  private final BusinessMessageRejectDecoder bmrDecoder = new BusinessMessageRejectDecoder();
+  private final BusinessMessageRejectEncoder bmrEncoder = new BusinessMessageRejectEncoder();
+  private final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(128));
+  private final byte[] field = new byte[8];
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+  private final byte[] text = new byte[128];
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    sofhDecoder.wrap(buffer, 0);
+    blackhole.consume(sofhDecoder.messageLength());
+    blackhole.consume(sofhDecoder.encoding());
+    int offset = sofhDecoder.encodedLength();
+    mhDecoder.wrap(buffer, offset);
+    blackhole.consume(mhDecoder.templateId());
+    blackhole.consume(mhDecoder.schemaId());
+    offset += mhDecoder.encodedLength();
+    bmrDecoder.wrap(buffer, offset, mhDecoder.blockLength(), mhDecoder.version());
+    blackhole.consume(bmrDecoder.getBusinesRejectRefId(field, 0));
+    blackhole.consume(field);
+    blackhole.consume(bmrDecoder.businessRejectReason());
+    blackhole.consume(bmrDecoder.getText(text, 0, text.length));
+    blackhole.consume(text);
+  }
+
+  @Benchmark
+  public int encode() {
+    int offset = 0;
+    sofhEncoder.wrap(buffer, offset).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+    offset += sofhEncoder.encodedLength();
+    mhEncoder.wrap(buffer, offset).blockLength(bmrEncoder.sbeBlockLength())
+        .templateId(bmrEncoder.sbeTemplateId()).schemaId(bmrEncoder.sbeSchemaId())
+        .version(bmrEncoder.sbeSchemaVersion()).numGroups(0).numVarDataFields(1);
+    offset += mhEncoder.encodedLength();
+    bmrEncoder.wrap(buffer, offset).putBusinesRejectRefId(REF_ID, 0)
+        .businessRejectReason(BusinessRejectReasonEnum.NotAuthorized)
+        .putText(TEXT, 0, TEXT.length);
+    offset += bmrEncoder.encodedLength();
+    sofhEncoder.messageLength(offset);
+    return offset;
+  }
+
+  @Setup
+  public void setUp() {
+    encode();
+  }
+}
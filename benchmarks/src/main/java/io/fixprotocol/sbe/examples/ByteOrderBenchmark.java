@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.examples;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fixprotocol.sbe.examples.messages.ExecTypeEnum;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportEncoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.OrdStatusEnum;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+
+/**
+ * Encode and decode of a framed ExecutionReport in little-endian and big-endian byte order, with
+ * the flyweights generated for each
+ * <p>
+ * On x86, every multi-byte field of a big-endian message costs a byte swap, so the difference
+ * between the two is the price of cross-endian traffic. Compare each {@code bigEndian} result with
+ * its {@code littleEndian} counterpart at the same number of fills.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteOrderBenchmark {
+
+  private static final byte[] EXEC_ID = "EXEC0000".getBytes(StandardCharsets.ISO_8859_1);
+  private static final byte[] ORDER_ID = "O0000001".getBytes(StandardCharsets.ISO_8859_1);
+  private static final byte[] SYMBOL =
+      "GEM4\u0000\u0000\u0000\u0000".getBytes(StandardCharsets.ISO_8859_1);
+
+  private final UnsafeBuffer beBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+  private final io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportDecoder beErDecoder =
+      new io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportDecoder();
+  private final io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportEncoder beErEncoder =
+      new io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportEncoder();
+  private final io.fixprotocol.sbe.examples.messages.bigendian.MessageHeaderDecoder beMhDecoder =
+      new io.fixprotocol.sbe.examples.messages.bigendian.MessageHeaderDecoder();
+  private final io.fixprotocol.sbe.examples.messages.bigendian.MessageHeaderEncoder beMhEncoder =
+      new io.fixprotocol.sbe.examples.messages.bigendian.MessageHeaderEncoder();
+  private final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+  private final ExecutionReportEncoder erEncoder = new ExecutionReportEncoder();
+  private final byte[] field = new byte[8];
+
+  @Param({"0", "2", "64"})
+  int fills;
+
+  private final UnsafeBuffer leBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+
+  @Benchmark
+  public void decodeBigEndian(Blackhole blackhole) {
+    sofhDecoder.wrap(beBuffer, 0);
+    blackhole.consume(sofhDecoder.encoding());
+    beMhDecoder.wrap(beBuffer, sofhDecoder.encodedLength());
+    beErDecoder.wrap(beBuffer, sofhDecoder.encodedLength() + beMhDecoder.encodedLength(),
+        beMhDecoder.blockLength(), beMhDecoder.version());
+    blackhole.consume(beErDecoder.getOrderID(field, 0));
+    blackhole.consume(beErDecoder.execType());
+    blackhole.consume(beErDecoder.maturityMonthYear().year());
+    blackhole.consume(beErDecoder.leavesQty().mantissa());
+    blackhole.consume(beErDecoder.cumQty().mantissa());
+    blackhole.consume(beErDecoder.tradeDate());
+    final io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportDecoder.FillsGrpDecoder
+        fillsGrp = beErDecoder.fillsGrp();
+    while (fillsGrp.hasNext()) {
+      fillsGrp.next();
+      blackhole.consume(fillsGrp.fillPx().mantissa());
+      blackhole.consume(fillsGrp.fillQty().mantissa());
+    }
+  }
+
+  @Benchmark
+  public void decodeLittleEndian(Blackhole blackhole) {
+    sofhDecoder.wrap(leBuffer, 0);
+    blackhole.consume(sofhDecoder.encoding());
+    mhDecoder.wrap(leBuffer, sofhDecoder.encodedLength());
+    erDecoder.wrap(leBuffer, sofhDecoder.encodedLength() + mhDecoder.encodedLength(),
+        mhDecoder.blockLength(), mhDecoder.version());
+    blackhole.consume(erDecoder.getOrderID(field, 0));
+    blackhole.consume(erDecoder.execType());
+    blackhole.consume(erDecoder.maturityMonthYear().year());
+    blackhole.consume(erDecoder.leavesQty().mantissa());
+    blackhole.consume(erDecoder.cumQty().mantissa());
+    blackhole.consume(erDecoder.tradeDate());
+    final ExecutionReportDecoder.FillsGrpDecoder fillsGrp = erDecoder.fillsGrp();
+    while (fillsGrp.hasNext()) {
+      fillsGrp.next();
+      blackhole.consume(fillsGrp.fillPx().mantissa());
+      blackhole.consume(fillsGrp.fillQty().mantissa());
+    }
+  }
+
+  @Benchmark
+  public int encodeBigEndian() {
+    sofhEncoder.wrap(beBuffer, 0).encoding(SofhFrameEncoder.SBE_1_0_BIG_ENDIAN);
+    beErEncoder.wrapAndApplyHeader(beBuffer, sofhEncoder.encodedLength(), beMhEncoder)
+        .putOrderID(ORDER_ID, 0).putExecID(EXEC_ID, 0)
+        .execType(io.fixprotocol.sbe.examples.messages.bigendian.ExecTypeEnum.Trade)
+        .ordStatus(io.fixprotocol.sbe.examples.messages.bigendian.OrdStatusEnum.PartialFilled)
+        .putSymbol(SYMBOL, 0).side(io.fixprotocol.sbe.examples.messages.bigendian.SideEnum.Buy)
+        .tradeDate(15989);
+    beErEncoder.maturityMonthYear().year(2014).month((short) 6);
+    beErEncoder.leavesQty().mantissa(1);
+    beErEncoder.cumQty().mantissa(6);
+    final io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportEncoder.FillsGrpEncoder
+        fillsGrp = beErEncoder.fillsGrpCount(fills);
+    for (int i = 0; i < fills; i++) {
+      fillsGrp.next();
+      fillsGrp.fillPx().mantissa(99610 + i);
+      fillsGrp.fillQty().mantissa(2);
+    }
+    final int length =
+        sofhEncoder.encodedLength() + beMhEncoder.encodedLength() + beErEncoder.encodedLength();
+    sofhEncoder.messageLength(length);
+    return length;
+  }
+
+  @Benchmark
+  public int encodeLittleEndian() {
+    sofhEncoder.wrap(leBuffer, 0).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+    erEncoder.wrapAndApplyHeader(leBuffer, sofhEncoder.encodedLength(), mhEncoder)
+        .putOrderID(ORDER_ID, 0).putExecID(EXEC_ID, 0).execType(ExecTypeEnum.Trade)
+        .ordStatus(OrdStatusEnum.PartialFilled).putSymbol(SYMBOL, 0).side(SideEnum.Buy)
+        .tradeDate(15989);
+    erEncoder.maturityMonthYear().year(2014).month((short) 6);
+    erEncoder.leavesQty().mantissa(1);
+    erEncoder.cumQty().mantissa(6);
+    final ExecutionReportEncoder.FillsGrpEncoder fillsGrp = erEncoder.fillsGrpCount(fills);
+    for (int i = 0; i < fills; i++) {
+      fillsGrp.next();
+      fillsGrp.fillPx().mantissa(99610 + i);
+      fillsGrp.fillQty().mantissa(2);
+    }
+    final int length =
+        sofhEncoder.encodedLength() + mhEncoder.encodedLength() + erEncoder.encodedLength();
+    sofhEncoder.messageLength(length);
+    return length;
+  }
+
+  @Setup
+  public void setUp() {
+    encodeBigEndian();
+    encodeLittleEndian();
+  }
+}
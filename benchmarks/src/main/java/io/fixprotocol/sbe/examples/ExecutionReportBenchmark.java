@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.examples;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fixprotocol.sbe.examples.messages.ExecTypeEnum;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder.FillsGrpDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportEncoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportEncoder.FillsGrpEncoder;
+import io.fixprotocol.sbe.examples.messages.MONTH_YEARDecoder;
+import io.fixprotocol.sbe.examples.messages.MONTH_YEAREncoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.OrdStatusEnum;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+
+/**
+ * Encode and decode of a framed ExecutionReport with a varying number of fills, including the SOFH
+ * and SBE message header
+ * <p>
+ * Run with {@code -prof gc} to see allocation per operation.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutionReportBenchmark {
+
+  private static final byte[] EXEC_ID = "EXEC0000".getBytes(StandardCharsets.ISO_8859_1);
+  private static final byte[] ORDER_ID = "O0000001".getBytes(StandardCharsets.ISO_8859_1);
+  private static final byte[] SYMBOL =
+      "GEM4\u0000\u0000\u0000\u0000".getBytes(StandardCharsets.ISO_8859_1);
+
+  private final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+  private final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+  private final ExecutionReportEncoder erEncoder = new ExecutionReportEncoder();
+  private final byte[] field = new byte[8];
+
+  @Param({"0", "2", "64"})
+  int fills;
+
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    sofhDecoder.wrap(buffer, 0);
+    blackhole.consume(sofhDecoder.messageLength());
+    blackhole.consume(sofhDecoder.encoding());
+    int offset = sofhDecoder.encodedLength();
+    mhDecoder.wrap(buffer, offset);
+    blackhole.consume(mhDecoder.templateId());
+    blackhole.consume(mhDecoder.schemaId());
+    offset += mhDecoder.encodedLength();
+    erDecoder.wrap(buffer, offset, mhDecoder.blockLength(), mhDecoder.version());
+    blackhole.consume(erDecoder.getOrderID(field, 0));
+    blackhole.consume(erDecoder.getExecID(field, 0));
+    blackhole.consume(erDecoder.execType());
+    blackhole.consume(erDecoder.ordStatus());
+    blackhole.consume(erDecoder.getSymbol(field, 0));
+    blackhole.consume(field);
+    final MONTH_YEARDecoder monthYear = erDecoder.maturityMonthYear();
+    blackhole.consume(monthYear.year());
+    blackhole.consume(monthYear.month());
+    blackhole.consume(erDecoder.side());
+    blackhole.consume(erDecoder.leavesQty().mantissa());
+    blackhole.consume(erDecoder.cumQty().mantissa());
+    blackhole.consume(erDecoder.tradeDate());
+    final FillsGrpDecoder fillsGrp = erDecoder.fillsGrp();
+    while (fillsGrp.hasNext()) {
+      fillsGrp.next();
+      blackhole.consume(fillsGrp.fillPx().mantissa());
+      blackhole.consume(fillsGrp.fillQty().mantissa());
+    }
+  }
+
+  @Benchmark
+  public int encode() {
+    int offset = 0;
+    sofhEncoder.wrap(buffer, offset).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+    offset += sofhEncoder.encodedLength();
+    mhEncoder.wrap(buffer, offset).blockLength(erEncoder.sbeBlockLength())
+        .templateId(erEncoder.sbeTemplateId()).schemaId(erEncoder.sbeSchemaId())
+        .version(erEncoder.sbeSchemaVersion()).numGroups(1).numVarDataFields(0);
+    offset += mhEncoder.encodedLength();
+    erEncoder.wrap(buffer, offset).putOrderID(ORDER_ID, 0).putExecID(EXEC_ID, 0)
+        .execType(ExecTypeEnum.Trade).ordStatus(OrdStatusEnum.PartialFilled).putSymbol(SYMBOL, 0);
+    final MONTH_YEAREncoder monthYear = erEncoder.maturityMonthYear();
+    monthYear.year(2014).month((short) 6).day(MONTH_YEAREncoder.dayNullValue())
+        .week(MONTH_YEAREncoder.weekNullValue());
+    erEncoder.side(SideEnum.Buy);
+    erEncoder.leavesQty().mantissa(1);
+    erEncoder.cumQty().mantissa(6);
+    erEncoder.tradeDate(15989);
+    final FillsGrpEncoder fillsGrp = erEncoder.fillsGrpCount(fills);
+    for (int i = 0; i < fills; i++) {
+      fillsGrp.next();
+      fillsGrp.fillPx().mantissa(99610 + i);
+      fillsGrp.fillQty().mantissa(2);
+    }
+    offset += erEncoder.encodedLength();
+    sofhEncoder.messageLength(offset);
+    return offset;
+  }
+
+  @Setup
+  public void setUp() {
+    encode();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.examples;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fixprotocol.sbe.examples.messages.DecimalEncodingDecoder;
+import io.fixprotocol.sbe.examples.messages.DecimalEncodingEncoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.OrdTypeEnum;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+
+/**
+ * Encode and decode of a framed NewOrderSingle, including the SOFH and SBE message header
+ * <p>
+ * {@link #exampleDumperEncode()} measures the existing {@link ExampleDumper#encodeOrderMsg(byte[])}
+ * path for comparison. Run with {@code -prof gc} to see allocation per operation.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NewOrderSingleBenchmark {
+
+  private static final byte[] ACCOUNT = "ACCT01\u0000\u0000".getBytes(StandardCharsets.ISO_8859_1);
+  private static final byte[] CL_ORD_ID = "ORD00001".getBytes(StandardCharsets.ISO_8859_1);
+  private static final byte[] SYMBOL =
+      "GEM4\u0000\u0000\u0000\u0000".getBytes(StandardCharsets.ISO_8859_1);
+
+  private final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(128));
+  private final byte[] bytes = new byte[128];
+  private final ExampleDumper dumper = new ExampleDumper();
+  private final byte[] field = new byte[8];
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+  private final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+  private final NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+  private long transactTime = 1_560_000_000_000_000_000L;
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    sofhDecoder.wrap(buffer, 0);
+    blackhole.consume(sofhDecoder.messageLength());
+    blackhole.consume(sofhDecoder.encoding());
+    int offset = sofhDecoder.encodedLength();
+    mhDecoder.wrap(buffer, offset);
+    blackhole.consume(mhDecoder.templateId());
+    blackhole.consume(mhDecoder.schemaId());
+    offset += mhDecoder.encodedLength();
+    nosDecoder.wrap(buffer, offset, mhDecoder.blockLength(), mhDecoder.version());
+    blackhole.consume(nosDecoder.getClOrdId(field, 0));
+    blackhole.consume(nosDecoder.getAccount(field, 0));
+    blackhole.consume(nosDecoder.getSymbol(field, 0));
+    blackhole.consume(field);
+    blackhole.consume(nosDecoder.side());
+    blackhole.consume(nosDecoder.transactTime().time());
+    blackhole.consume(nosDecoder.orderQty().mantissa());
+    blackhole.consume(nosDecoder.ordType());
+    DecimalEncodingDecoder decimalDecoder = nosDecoder.price();
+    blackhole.consume(decimalDecoder.mantissa());
+    blackhole.consume(decimalDecoder.exponent());
+    decimalDecoder = nosDecoder.stopPx();
+    blackhole.consume(decimalDecoder.mantissa());
+  }
+
+  @Benchmark
+  public int encode() {
+    int offset = 0;
+    sofhEncoder.wrap(buffer, offset).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+    offset += sofhEncoder.encodedLength();
+    mhEncoder.wrap(buffer, offset).blockLength(nosEncoder.sbeBlockLength())
+        .templateId(nosEncoder.sbeTemplateId()).schemaId(nosEncoder.sbeSchemaId())
+        .version(nosEncoder.sbeSchemaVersion()).numGroups(0).numVarDataFields(0);
+    offset += mhEncoder.encodedLength();
+    nosEncoder.wrap(buffer, offset).putClOrdId(CL_ORD_ID, 0).putAccount(ACCOUNT, 0)
+        .putSymbol(SYMBOL, 0).side(SideEnum.Buy);
+    nosEncoder.transactTime().time(transactTime++);
+    nosEncoder.orderQty().mantissa(7);
+    nosEncoder.ordType(OrdTypeEnum.Limit);
+    nosEncoder.price().mantissa(99610);
+    nosEncoder.stopPx().mantissa(DecimalEncodingEncoder.mantissaNullValue());
+    offset += nosEncoder.encodedLength();
+    sofhEncoder.messageLength(offset);
+    return offset;
+  }
+
+  @Benchmark
+  public int exampleDumperEncode() throws UnsupportedEncodingException {
+    return dumper.encodeOrderMsg(bytes);
+  }
+
+  @Setup
+  public void setUp() {
+    encode();
+  }
+}
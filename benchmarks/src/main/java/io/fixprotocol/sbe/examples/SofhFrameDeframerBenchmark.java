@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.examples;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of {@link SofhFrameDeframer} when a read delivers 1, 16 or 256 frames
+ * <p>
+ * Each invocation deframes {@value #FRAMES} NewOrderSingle frames, so the score is in frames per
+ * second regardless of how many frames arrive per read.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SofhFrameDeframerBenchmark {
+
+  /**
+   * Serves a fixed number of frames per read from a replayed stream
+   */
+  static final class FrameChannel implements ReadableByteChannel {
+    private final int bytesPerRead;
+    private final ByteBuffer stream;
+
+    FrameChannel(ByteBuffer stream, int bytesPerRead) {
+      this.stream = stream;
+      this.bytesPerRead = bytesPerRead;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+      if (!stream.hasRemaining()) {
+        stream.clear();
+      }
+      final int length = Math.min(Math.min(bytesPerRead, dst.remaining()), stream.remaining());
+      final int limit = stream.limit();
+      stream.limit(stream.position() + length);
+      dst.put(stream);
+      stream.limit(limit);
+      return length;
+    }
+  }
+
+  static final int FRAMES = 256;
+
+  private FrameChannel channel;
+  private SofhFrameDeframer deframer;
+
+  @Param({"1", "16", "256"})
+  int framesPerRead;
+
+  private Blackhole blackhole;
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public int deframe(Blackhole blackhole) throws IOException {
+    this.blackhole = blackhole;
+    int frames = 0;
+    while (frames < FRAMES) {
+      frames += deframer.read(channel);
+    }
+    return frames;
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    final ExampleDumper dumper = new ExampleDumper();
+    final byte[] frame = new byte[128];
+    final int frameLength = dumper.encodeOrderMsg(frame);
+    final ByteBuffer stream = ByteBuffer.allocateDirect(frameLength * FRAMES);
+    for (int i = 0; i < FRAMES; i++) {
+      stream.put(frame, 0, frameLength);
+    }
+    stream.flip();
+    channel = new FrameChannel(stream, frameLength * framesPerRead);
+    deframer = new SofhFrameDeframer(64 * 1024, this::onFrame);
+  }
+
+  private void onFrame(DirectBuffer buffer, int offset, int length) {
+    blackhole.consume(buffer.getByte(offset + length - 1));
+  }
+}
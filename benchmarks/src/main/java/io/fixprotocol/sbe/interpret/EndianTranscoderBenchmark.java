@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fixprotocol.sbe.examples.ExampleDumper;
+
+/**
+ * In-place conversion of framed messages between byte orders, one ExecutionReport at a time and in
+ * bulk over 16 MB of NewOrderSingle, ExecutionReport and BusinessMessageReject frames
+ * <p>
+ * Each invocation converts to the byte order opposite to the previous one, so every frame is
+ * always swapped. The bulk benchmark reports its rate in bytes per second in the {@code bytes}
+ * column.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndianTranscoderBenchmark {
+
+  /**
+   * Bytes converted, reported as a rate
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Bytes {
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+    }
+  }
+
+  private static final int CAPTURE_LENGTH = 16 * 1024 * 1024;
+
+  private final UnsafeBuffer capture = new UnsafeBuffer(ByteBuffer.allocateDirect(CAPTURE_LENGTH));
+  private int captureLength;
+  private final UnsafeBuffer executionReport = new UnsafeBuffer(new byte[128]);
+  private int executionReportLength;
+  private boolean toBig = true;
+  private EndianTranscoder toBigEndian;
+  private EndianTranscoder toLittleEndian;
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public long bulk(Bytes bytes) {
+    final EndianTranscoder transcoder = next();
+    int offset = 0;
+    while (offset < captureLength) {
+      offset += transcoder.transcodeFrame(capture, offset, capture.getShort(offset + 2,
+          ByteOrder.BIG_ENDIAN) & 0xFFFF);
+    }
+    bytes.bytes += offset;
+    return transcoder.framesTranscoded();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public int executionReport() {
+    return next().transcodeFrame(executionReport, 0, executionReportLength);
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    toBigEndian =
+        EndianTranscoder.fromResource(MessageInterpreter.EXAMPLES_SCHEMA, ByteOrder.BIG_ENDIAN);
+    toLittleEndian =
+        EndianTranscoder.fromResource(MessageInterpreter.EXAMPLES_SCHEMA, ByteOrder.LITTLE_ENDIAN);
+    final ExampleDumper dumper = new ExampleDumper();
+    executionReportLength = dumper.encodeExecutionReport(executionReport.byteArray());
+    final byte[] frame = new byte[128];
+    int offset = 0;
+    for (int i = 0;; i++) {
+      final int length;
+      switch (i % 3) {
+        case 0:
+          length = dumper.encodeOrderMsg(frame);
+          break;
+        case 1:
+          length = dumper.encodeExecutionReport(frame);
+          break;
+        default:
+          length = dumper.encodeBusinessMessageReject(frame);
+      }
+      if (offset + length > CAPTURE_LENGTH) {
+        break;
+      }
+      capture.putBytes(offset, frame, 0, length);
+      offset += length;
+    }
+    captureLength = offset;
+  }
+
+  private EndianTranscoder next() {
+    toBig = !toBig;
+    return toBig ? toLittleEndian : toBigEndian;
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.messages.DecimalEncodingDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder.FillsGrpDecoder;
+import io.fixprotocol.sbe.examples.messages.MONTH_YEARDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+
+/**
+ * Schema-driven interpretation compared to decoding the same rows with generated flyweights and
+ * converting them to strings, as the hand-written interpreters did, without printing
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageInterpreterBenchmark {
+
+  private static final int SOFH_LENGTH = 6;
+
+  private Blackhole blackhole;
+  private final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+  private final UnsafeBuffer executionReport = new UnsafeBuffer(new byte[128]);
+  private final InterpretationHandler handler = new InterpretationHandler() {
+    @Override
+    public void onRow(DirectBuffer buffer, int wireOffset, int fieldId, String name, int offset,
+        int length, DirectBuffer value, int valueLength) {
+      blackhole.consume(value.getByte(0));
+      blackhole.consume(valueLength);
+    }
+  };
+  private MessageInterpreter interpreter;
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final UnsafeBuffer newOrderSingle = new UnsafeBuffer(new byte[128]);
+  private final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+
+  @Benchmark
+  public void handWrittenExecutionReport(Blackhole blackhole) {
+    headers(executionReport, blackhole);
+    erDecoder.wrap(executionReport, SOFH_LENGTH + mhDecoder.encodedLength(),
+        mhDecoder.blockLength(), mhDecoder.version());
+    blackhole.consume(erDecoder.orderID());
+    blackhole.consume(erDecoder.execID());
+    blackhole.consume(erDecoder.execType().name());
+    blackhole.consume(erDecoder.ordStatus().name());
+    blackhole.consume(erDecoder.symbol());
+    final MONTH_YEARDecoder monthYear = erDecoder.maturityMonthYear();
+    blackhole.consume("year=" + monthYear.year() + " month=" + monthYear.month());
+    blackhole.consume(erDecoder.side().name());
+    blackhole.consume(BigDecimal.valueOf(erDecoder.leavesQty().mantissa(), 0).toString());
+    blackhole.consume(BigDecimal.valueOf(erDecoder.cumQty().mantissa(), 0).toString());
+    blackhole.consume(LocalDate.ofEpochDay(erDecoder.tradeDate()).toString());
+    final int groupHeader = erDecoder.limit();
+    final FillsGrpDecoder fillsGrp = erDecoder.fillsGrp();
+    blackhole.consume(Integer.toString(executionReport.getShort(groupHeader)));
+    blackhole.consume(Integer.toString(fillsGrp.count()));
+    blackhole.consume(Integer.toString(executionReport.getShort(groupHeader + 4)));
+    blackhole.consume(Integer.toString(executionReport.getShort(groupHeader + 6)));
+    for (final FillsGrpDecoder fills : fillsGrp) {
+      final DecimalEncodingDecoder fillPx = fills.fillPx();
+      blackhole.consume(BigDecimal.valueOf(fillPx.mantissa(), -fillPx.exponent()).toString());
+      blackhole.consume(BigDecimal.valueOf(fills.fillQty().mantissa(), 0).toString());
+    }
+  }
+
+  @Benchmark
+  public void handWrittenNewOrderSingle(Blackhole blackhole) {
+    headers(newOrderSingle, blackhole);
+    nosDecoder.wrap(newOrderSingle, SOFH_LENGTH + mhDecoder.encodedLength(),
+        mhDecoder.blockLength(), mhDecoder.version());
+    blackhole.consume(nosDecoder.clOrdId());
+    blackhole.consume(nosDecoder.account());
+    blackhole.consume(nosDecoder.symbol());
+    blackhole.consume(nosDecoder.side().name());
+    blackhole.consume(Instant
+        .ofEpochMilli(TimeUnit.NANOSECONDS.toMillis(nosDecoder.transactTime().time())).toString());
+    blackhole.consume(BigDecimal.valueOf(nosDecoder.orderQty().mantissa(), 0).toString());
+    blackhole.consume(nosDecoder.ordType().name());
+    final DecimalEncodingDecoder price = nosDecoder.price();
+    blackhole.consume(BigDecimal.valueOf(price.mantissa(), -price.exponent()).toString());
+    final long stopPx = nosDecoder.stopPx().mantissa();
+    blackhole.consume(stopPx == DecimalEncodingDecoder.mantissaNullValue() ? "null"
+        : BigDecimal.valueOf(stopPx, 3).toString());
+  }
+
+  @Benchmark
+  public int interpretExecutionReport() {
+    return interpreter.interpretFrame(executionReport, 0, handler);
+  }
+
+  @Benchmark
+  public int interpretNewOrderSingle() {
+    return interpreter.interpretFrame(newOrderSingle, 0, handler);
+  }
+
+  /**
+   * Framing and message header rows, as interpreted by the hand-written path
+   */
+  private void headers(DirectBuffer buffer, Blackhole blackhole) {
+    sofhDecoder.wrap(buffer, 0);
+    blackhole.consume(Long.toString(sofhDecoder.messageLength()));
+    blackhole.consume(sofhDecoder.encoding() == SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN
+        ? "SBE little-endian" : "SBE big-endian");
+    mhDecoder.wrap(buffer, SOFH_LENGTH);
+    blackhole.consume(Integer.toString(mhDecoder.blockLength()));
+    blackhole.consume(Integer.toString(mhDecoder.templateId()));
+    blackhole.consume(Integer.toString(mhDecoder.schemaId()));
+    blackhole.consume(Integer.toString(mhDecoder.version()));
+    blackhole.consume(Integer.toString(mhDecoder.numGroups()));
+    blackhole.consume(Integer.toString(mhDecoder.numVarDataFields()));
+  }
+
+  @Setup
+  public void setUp(Blackhole blackhole) throws IOException {
+    this.blackhole = blackhole;
+    interpreter = MessageInterpreter.fromResource(MessageInterpreter.EXAMPLES_SCHEMA);
+    final ExampleDumper dumper = new ExampleDumper();
+    dumper.encodeOrderMsg(newOrderSingle.byteArray());
+    dumper.encodeExecutionReport(executionReport.byteArray());
+  }
+}
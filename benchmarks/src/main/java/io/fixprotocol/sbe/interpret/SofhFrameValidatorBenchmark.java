@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fixprotocol.sbe.examples.ExampleDumper;
+
+/**
+ * Cost per frame of {@link SofhFrameValidator} on valid NewOrderSingle, ExecutionReport and
+ * BusinessMessageReject frames, and on a stream that has a corrupt frame to resynchronize after
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SofhFrameValidatorBenchmark {
+
+  static final int FRAMES = 300;
+
+  private Blackhole blackhole;
+  private UnsafeBuffer corrupt;
+  private UnsafeBuffer stream;
+  private int streamLength;
+  private SofhFrameValidator validator;
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public int resync(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    return validator.scan(corrupt, 0, streamLength);
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    validator = SofhFrameValidator.fromResource(MessageInterpreter.EXAMPLES_SCHEMA, 1024,
+        this::onFrame);
+    final ExampleDumper dumper = new ExampleDumper();
+    final byte[] frame = new byte[128];
+    stream = new UnsafeBuffer(ByteBuffer.allocateDirect(128 * FRAMES));
+    int offset = 0;
+    for (int i = 0; i < FRAMES; i++) {
+      final int length;
+      switch (i % 3) {
+        case 0:
+          length = dumper.encodeOrderMsg(frame);
+          break;
+        case 1:
+          length = dumper.encodeExecutionReport(frame);
+          break;
+        default:
+          length = dumper.encodeBusinessMessageReject(frame);
+      }
+      stream.putBytes(offset, frame, 0, length);
+      offset += length;
+    }
+    streamLength = offset;
+    corrupt = new UnsafeBuffer(ByteBuffer.allocateDirect(streamLength));
+    corrupt.putBytes(0, stream, 0, streamLength);
+    // a bad encoding code in the middle of the stream
+    corrupt.putByte(streamLength / 2, (byte) 0xFF);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public int valid(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    return validator.scan(stream, 0, streamLength);
+  }
+
+  private void onFrame(DirectBuffer buffer, int offset, int length) {
+    blackhole.consume(length);
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder.FillsGrpDecoder;
+import io.fixprotocol.sbe.examples.messages.MONTH_YEARDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+
+/**
+ * Decoders specialized at run time from the schema compared to the generated flyweights, both
+ * reading every field as a primitive and passing it on without boxing
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecializedDecoderBenchmark {
+
+  private static final int SOFH_LENGTH = 6;
+
+  private Blackhole blackhole;
+  private final FieldConsumer consumer = new FieldConsumer() {
+
+    @Override
+    public void onBytes(int fieldId, DirectBuffer buffer, int index, int length) {
+      blackhole.consume(index);
+      blackhole.consume(length);
+    }
+
+    @Override
+    public void onDecimal(int fieldId, long mantissa, int exponent) {
+      blackhole.consume(mantissa);
+      blackhole.consume(exponent);
+    }
+
+    @Override
+    public void onGroupBegin(int groupId, int numInGroup) {
+      blackhole.consume(numInGroup);
+    }
+
+    @Override
+    public void onInteger(int fieldId, long value) {
+      blackhole.consume(value);
+    }
+
+    @Override
+    public void onMember(int fieldId, int member, long value) {
+      blackhole.consume(value);
+    }
+
+    @Override
+    public void onTimestamp(int fieldId, long time, int unit) {
+      blackhole.consume(time);
+      blackhole.consume(unit);
+    }
+  };
+  private SpecializedDecoders decoders;
+  private final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+  private final UnsafeBuffer executionReport = new UnsafeBuffer(new byte[128]);
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final UnsafeBuffer newOrderSingle = new UnsafeBuffer(new byte[128]);
+  private final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+
+  @Benchmark
+  public int generatedExecutionReport() {
+    mhDecoder.wrap(executionReport, SOFH_LENGTH);
+    final int offset = SOFH_LENGTH + mhDecoder.encodedLength();
+    erDecoder.wrap(executionReport, offset, mhDecoder.blockLength(), mhDecoder.version());
+    consumer.onBytes(37, executionReport, offset, ExecutionReportDecoder.orderIDLength());
+    consumer.onBytes(17, executionReport, offset + ExecutionReportDecoder.execIDEncodingOffset(),
+        ExecutionReportDecoder.execIDLength());
+    consumer.onInteger(150, erDecoder.execType().value());
+    consumer.onInteger(39, erDecoder.ordStatus().value());
+    consumer.onBytes(55, executionReport, offset + ExecutionReportDecoder.symbolEncodingOffset(),
+        ExecutionReportDecoder.symbolLength());
+    final MONTH_YEARDecoder monthYear = erDecoder.maturityMonthYear();
+    consumer.onMember(200, 0, monthYear.year());
+    consumer.onMember(200, 1, monthYear.month());
+    consumer.onMember(200, 2, monthYear.day());
+    consumer.onMember(200, 3, monthYear.week());
+    consumer.onInteger(54, erDecoder.side().value());
+    consumer.onDecimal(151, erDecoder.leavesQty().mantissa(), erDecoder.leavesQty().exponent());
+    consumer.onDecimal(14, erDecoder.cumQty().mantissa(), erDecoder.cumQty().exponent());
+    consumer.onInteger(75, erDecoder.tradeDate());
+    final FillsGrpDecoder fillsGrp = erDecoder.fillsGrp();
+    consumer.onGroupBegin(2112, fillsGrp.count());
+    for (final FillsGrpDecoder fills : fillsGrp) {
+      consumer.onDecimal(1364, fills.fillPx().mantissa(), fills.fillPx().exponent());
+      consumer.onDecimal(1365, fills.fillQty().mantissa(), fills.fillQty().exponent());
+    }
+    consumer.onGroupEnd(2112);
+    return erDecoder.limit();
+  }
+
+  @Benchmark
+  public int generatedNewOrderSingle() {
+    mhDecoder.wrap(newOrderSingle, SOFH_LENGTH);
+    final int offset = SOFH_LENGTH + mhDecoder.encodedLength();
+    nosDecoder.wrap(newOrderSingle, offset, mhDecoder.blockLength(), mhDecoder.version());
+    consumer.onBytes(11, newOrderSingle, offset, NewOrderSingleDecoder.clOrdIdLength());
+    consumer.onBytes(1, newOrderSingle, offset + NewOrderSingleDecoder.accountEncodingOffset(),
+        NewOrderSingleDecoder.accountLength());
+    consumer.onBytes(55, newOrderSingle, offset + NewOrderSingleDecoder.symbolEncodingOffset(),
+        NewOrderSingleDecoder.symbolLength());
+    consumer.onInteger(54, nosDecoder.side().value());
+    consumer.onTimestamp(60, nosDecoder.transactTime().time(),
+        nosDecoder.transactTime().unit());
+    consumer.onDecimal(38, nosDecoder.orderQty().mantissa(), nosDecoder.orderQty().exponent());
+    consumer.onInteger(40, nosDecoder.ordType().value());
+    consumer.onDecimal(44, nosDecoder.price().mantissa(), nosDecoder.price().exponent());
+    consumer.onDecimal(99, nosDecoder.stopPx().mantissa(), nosDecoder.stopPx().exponent());
+    return nosDecoder.limit();
+  }
+
+  @Setup
+  public void setUp(Blackhole blackhole) throws IOException {
+    this.blackhole = blackhole;
+    decoders = SpecializedDecoders.fromResource(MessageInterpreter.EXAMPLES_SCHEMA);
+    final ExampleDumper dumper = new ExampleDumper();
+    dumper.encodeOrderMsg(newOrderSingle.byteArray());
+    dumper.encodeExecutionReport(executionReport.byteArray());
+  }
+
+  @Benchmark
+  public int specializedExecutionReport() {
+    return decoders.decode(executionReport, SOFH_LENGTH, consumer);
+  }
+
+  @Benchmark
+  public int specializedNewOrderSingle() {
+    return decoders.decode(newOrderSingle, SOFH_LENGTH, consumer);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.pipeline;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder.FillsGrpDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+
+/**
+ * Throughput of ExecutionReports over {@value #SYMBOLS} symbols through a {@link DecodePipeline}
+ * as the number of workers varies. Each operation publishes a batch of frames and waits until all
+ * have been decoded.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodePipelineBenchmark {
+
+  static final int BATCH = 64 * 1024;
+  static final int SYMBOLS = 256;
+
+  @Param({"1", "2", "4"})
+  public int workers;
+
+  private final UnsafeBuffer[] frames = new UnsafeBuffer[SYMBOLS];
+  private int frameLength;
+  private DecodePipeline pipeline;
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long publishAndDrain() {
+    for (int i = 0; i < BATCH; i++) {
+      pipeline.onFrame(frames[i & (SYMBOLS - 1)], 0, frameLength);
+    }
+    long delivered;
+    do {
+      delivered = 0;
+      for (int w = 0; w < workers; w++) {
+        delivered += pipeline.delivered(w);
+      }
+    } while (delivered < pipeline.published());
+    return delivered;
+  }
+
+  @Setup
+  public void setUp() throws UnsupportedEncodingException {
+    final ExampleDumper dumper = new ExampleDumper();
+    for (int s = 0; s < SYMBOLS; s++) {
+      frames[s] = new UnsafeBuffer(new byte[128]);
+      frameLength = dumper.encodeExecutionReport(frames[s].byteArray());
+      frames[s].putLong(6 + MessageHeaderDecoder.ENCODED_LENGTH
+          + ExecutionReportDecoder.symbolEncodingOffset(), s, ByteOrder.LITTLE_ENDIAN);
+    }
+    pipeline = new DecodePipeline(workers, worker -> new MessageHandler() {
+      long sum;
+
+      @Override
+      public void onExecutionReport(ExecutionReportDecoder decoder) {
+        for (final FillsGrpDecoder fill : decoder.fillsGrp()) {
+          sum += fill.fillPx().mantissa() * fill.fillQty().mantissa();
+        }
+      }
+    });
+    pipeline.start();
+  }
+
+  @TearDown
+  public void tearDown() {
+    pipeline.close();
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.pipeline;
+
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.OrdTypeEnum;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+
+/**
+ * Three threads publishing NewOrderSingle to one consumer through a {@link FramePublisher},
+ * encoding in place in a claimed frame versus encoding into a private buffer and copying
+ *
+ * @author Don Mendelson
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FramePublisherBenchmark {
+
+  static final byte[] CL_ORD_ID = {'O', 'R', 'D', '0', '0', '0', '0', '1'};
+  static final int FRAME_LENGTH =
+      6 + MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH;
+
+  @State(Scope.Group)
+  public static class Ring {
+    final FramePublisher publisher = new FramePublisher(FramePublisher.newRingBuffer(1024 * 1024));
+  }
+
+  @State(Scope.Thread)
+  public static class Producer {
+    final UnsafeBuffer frame = new UnsafeBuffer(new byte[FRAME_LENGTH]);
+    final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+    final NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+    long sequence;
+    final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+
+    void encode(MutableDirectBuffer buffer, int offset) {
+      sofhEncoder.wrap(buffer, offset).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+          .messageLength(FRAME_LENGTH);
+      nosEncoder.wrapAndApplyHeader(buffer, offset + sofhEncoder.encodedLength(), mhEncoder)
+          .putClOrdId(CL_ORD_ID, 0).side(SideEnum.Buy).ordType(OrdTypeEnum.Limit);
+      nosEncoder.transactTime().time(++sequence);
+      nosEncoder.orderQty().mantissa(7);
+      nosEncoder.price().mantissa(99610);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Consumer implements SofhFrameHandler {
+    long bytes;
+
+    @Override
+    public void onFrame(DirectBuffer buffer, int offset, int length) {
+      bytes += length;
+    }
+  }
+
+  @Benchmark
+  @Group("claim")
+  @GroupThreads(3)
+  public boolean claim(Ring ring, Producer producer) {
+    final int offset = ring.publisher.tryClaim(FRAME_LENGTH);
+    if (offset < 0) {
+      return false;
+    }
+    producer.encode(ring.publisher.buffer(), offset);
+    ring.publisher.commit(offset);
+    return true;
+  }
+
+  @Benchmark
+  @Group("claim")
+  @GroupThreads(1)
+  public int claimConsumer(Ring ring, Consumer consumer) {
+    return ring.publisher.drain(consumer, 256);
+  }
+
+  @Benchmark
+  @Group("copy")
+  @GroupThreads(3)
+  public boolean copy(Ring ring, Producer producer) {
+    producer.encode(producer.frame, 0);
+    return ring.publisher.offer(producer.frame, 0, FRAME_LENGTH);
+  }
+
+  @Benchmark
+  @Group("copy")
+  @GroupThreads(1)
+  public int copyConsumer(Ring ring, Consumer consumer) {
+    return ring.publisher.drain(consumer, 256);
+  }
+}
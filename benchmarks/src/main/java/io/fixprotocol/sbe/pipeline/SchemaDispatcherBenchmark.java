@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.pipeline;
+
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.pipeline.SchemaDispatcher.Dialect;
+
+/**
+ * Cost per frame of routing NewOrderSingle frames of SBE 1.0, 2.0 RC1 and both byte orders of
+ * 2.0 RC2, interleaved, through a {@link SchemaDispatcher} to a handler that reads one field. All
+ * carry schema ID 91; the dialect of each frame is passed as if it came from its own source.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaDispatcherBenchmark {
+
+  static final int FRAMES = 4;
+
+  private Blackhole blackhole;
+  private final Dialect[] dialects = {Dialect.SBE_2_0_RC2, Dialect.SBE_2_0_RC2,
+      Dialect.SBE_2_0_RC1, Dialect.SBE_1_0};
+  private SchemaDispatcher dispatcher;
+  private final UnsafeBuffer[] frames = new UnsafeBuffer[FRAMES];
+  private final int[] lengths = new int[FRAMES];
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public void dispatch(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    for (int i = 0; i < FRAMES; i++) {
+      dispatcher.onFrame(dialects[i], frames[i], 0, lengths[i]);
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    dispatcher = new SchemaDispatcher(new MessageHandler() {
+
+      @Override
+      public void onNewOrderSingle(NewOrderSingleDecoder decoder) {
+        blackhole.consume(decoder.orderQty().mantissa());
+      }
+
+      @Override
+      public void onNewOrderSingle(
+          io.fixprotocol.sbe.examples.messages.bigendian.NewOrderSingleDecoder decoder) {
+        blackhole.consume(decoder.orderQty().mantissa());
+      }
+
+      @Override
+      public void onNewOrderSingle(
+          io.fixprotocol.sbe.examples.messages.v1_0.NewOrderSingleDecoder decoder) {
+        blackhole.consume(decoder.orderQty().mantissa());
+      }
+
+      @Override
+      public void onNewOrderSingle(
+          io.fixprotocol.sbe.examples.messages.v2_0_rc1.NewOrderSingleDecoder decoder) {
+        blackhole.consume(decoder.orderQty().mantissa());
+      }
+    });
+    for (int i = 0; i < FRAMES; i++) {
+      frames[i] = new UnsafeBuffer(new byte[128]);
+    }
+    lengths[0] = frame(frames[0], new io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder()
+        .wrapAndApplyHeader(frames[0], 6,
+            new io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder())
+        .limit(), SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+    lengths[1] = frame(frames[1],
+        new io.fixprotocol.sbe.examples.messages.bigendian.NewOrderSingleEncoder()
+            .wrapAndApplyHeader(frames[1], 6,
+                new io.fixprotocol.sbe.examples.messages.bigendian.MessageHeaderEncoder())
+            .limit(),
+        SofhFrameEncoder.SBE_1_0_BIG_ENDIAN);
+    lengths[2] = frame(frames[2],
+        new io.fixprotocol.sbe.examples.messages.v2_0_rc1.NewOrderSingleEncoder()
+            .wrapAndApplyHeader(frames[2], 6,
+                new io.fixprotocol.sbe.examples.messages.v2_0_rc1.MessageHeaderEncoder())
+            .limit(),
+        SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+    lengths[3] = frame(frames[3],
+        new io.fixprotocol.sbe.examples.messages.v1_0.NewOrderSingleEncoder()
+            .wrapAndApplyHeader(frames[3], 6,
+                new io.fixprotocol.sbe.examples.messages.v1_0.MessageHeaderEncoder())
+            .limit(),
+        SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+  }
+
+  private int frame(UnsafeBuffer buffer, int length, short encoding) {
+    new SofhFrameEncoder().wrap(buffer, 0).messageLength(length).encoding(encoding);
+    return length;
+  }
+}
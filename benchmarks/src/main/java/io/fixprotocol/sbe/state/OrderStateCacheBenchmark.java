@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.state;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fixprotocol.sbe.examples.messages.OrdStatusEnum;
+import io.fixprotocol.sbe.state.OrderStateCache.WriterPolicy;
+
+/**
+ * Updates of order state from {@value #THREADS} threads over {@value #ORDERS} orders, in a striped
+ * {@link OrderStateCache} versus a single ConcurrentHashMap of mutable state objects
+ * <p>
+ * Run with {@code -prof gc} to see allocation per operation.
+ *
+ * @author Don Mendelson
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(OrderStateCacheBenchmark.THREADS)
+@Fork(1)
+public class OrderStateCacheBenchmark {
+
+  static final int ORDERS = 1024 * 1024;
+  static final int THREADS = 4;
+
+  @State(Scope.Benchmark)
+  public static class Caches {
+    final OrderStateCache cache = new OrderStateCache(64, ORDERS / 64, WriterPolicy.STRIPED_LOCK);
+    final ConcurrentHashMap<Long, MutableState> map = new ConcurrentHashMap<>(ORDERS * 2);
+
+    @Setup
+    public void setUp() {
+      for (long orderId = 1; orderId <= ORDERS; orderId++) {
+        cache.update(orderId, OrdStatusEnum.New.value(), 100, 0, orderId);
+        map.put(orderId, new MutableState());
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    long next;
+    final OrderState state = new OrderState();
+
+    @Setup
+    public void setUp() {
+      next = System.identityHashCode(this);
+    }
+
+    long nextOrderId() {
+      // Odd multiplier visits every order in a scattered sequence
+      next += 0x9E3779B9L;
+      return (next & (ORDERS - 1)) + 1;
+    }
+  }
+
+  static final class MutableState {
+    int cumQty;
+    long lastExecId;
+    int leavesQty;
+    byte ordStatus;
+  }
+
+  @Benchmark
+  public int concurrentHashMapUpdate(Caches caches, Cursor cursor) {
+    final long orderId = cursor.nextOrderId();
+    final MutableState state = caches.map.get(orderId);
+    synchronized (state) {
+      state.ordStatus = OrdStatusEnum.PartialFilled.value();
+      state.leavesQty = 50;
+      state.cumQty = 50;
+      state.lastExecId = cursor.next;
+      return state.cumQty;
+    }
+  }
+
+  @Benchmark
+  public boolean orderStateCacheGet(Caches caches, Cursor cursor) {
+    return caches.cache.get(cursor.nextOrderId(), cursor.state);
+  }
+
+  @Benchmark
+  public boolean orderStateCacheUpdate(Caches caches, Cursor cursor) {
+    return caches.cache.update(cursor.nextOrderId(), OrdStatusEnum.PartialFilled.value(), 50, 50,
+        cursor.next);
+  }
+}
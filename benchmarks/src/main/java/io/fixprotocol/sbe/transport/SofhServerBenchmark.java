@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fixprotocol.sbe.examples.SofhFrameDeframer;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.messages.ExecTypeEnum;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportEncoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.OrdStatusEnum;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+
+/**
+ * NewOrderSingle to ExecutionReport round trips over loopback TCP to a {@link SofhServer}
+ * <p>
+ * Each benchmark thread is a client with a blocking connection. {@code roundTrip} sends one order
+ * and waits for its acknowledgement; run in sample time mode, JMH reports latency percentiles up to
+ * p99.99. {@code window} keeps a batch of orders in flight, measuring sustained throughput.
+ *
+ * @author Don Mendelson
+ *
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class SofhServerBenchmark {
+
+  static final int ER_LENGTH = MessageHeaderEncoder.ENCODED_LENGTH
+      + ExecutionReportEncoder.BLOCK_LENGTH + ExecutionReportEncoder.FillsGrpEncoder.HEADER_SIZE;
+  static final int NOS_FRAME_LENGTH =
+      6 + MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH;
+  static final int WINDOW = 64;
+
+  /**
+   * Acknowledges each NewOrderSingle with an ExecutionReport
+   */
+  static class OrderHandler implements SessionHandler {
+    final ExecutionReportEncoder erEncoder = new ExecutionReportEncoder();
+    final byte[] id = new byte[8];
+    final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+    final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+    final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+
+    @Override
+    public void onFrame(SofhSession session, DirectBuffer buffer, int offset, int length) {
+      mhDecoder.wrap(buffer, offset + 6);
+      nosDecoder.wrap(buffer, offset + 6 + mhDecoder.encodedLength(), mhDecoder.blockLength(),
+          mhDecoder.version());
+      nosDecoder.getClOrdId(id, 0);
+      final int position = session.claim(ER_LENGTH);
+      if (position == SofhSession.BACK_PRESSURED) {
+        return;
+      }
+      erEncoder.wrapAndApplyHeader(session.buffer(), position, mhEncoder).putOrderID(id, 0)
+          .putExecID(id, 0).execType(ExecTypeEnum.New).ordStatus(OrdStatusEnum.New)
+          .side(nosDecoder.side()).fillsGrpCount(0);
+      session.commit(mhEncoder.encodedLength() + erEncoder.encodedLength());
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Server {
+    @Param({"1", "2"})
+    int loops;
+
+    SofhServer server;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      server = new SofhServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), loops,
+          OrderHandler::new);
+      server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+      server.close();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Client {
+    SocketChannel channel;
+    SofhFrameDeframer deframer;
+    final ByteBuffer orders = ByteBuffer.allocateDirect(WINDOW * NOS_FRAME_LENGTH);
+    int received;
+
+    @Setup(Level.Trial)
+    public void setUp(Server server) throws IOException {
+      channel = SocketChannel.open(server.server.localAddress());
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      deframer = new SofhFrameDeframer(64 * 1024, (buffer, offset, length) -> received++);
+      final UnsafeBuffer buffer = new UnsafeBuffer(orders);
+      final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+      final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+      final NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+      for (int i = 0; i < WINDOW; i++) {
+        final int offset = i * NOS_FRAME_LENGTH;
+        sofhEncoder.wrap(buffer, offset).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+            .messageLength(NOS_FRAME_LENGTH);
+        nosEncoder.wrapAndApplyHeader(buffer, offset + 6, mhEncoder).clOrdId("ORD" + i)
+            .side(SideEnum.Buy).orderQty().mantissa(100);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      channel.close();
+    }
+
+    int exchange(int count) throws IOException {
+      orders.limit(count * NOS_FRAME_LENGTH).position(0);
+      while (orders.hasRemaining()) {
+        channel.write(orders);
+      }
+      received = 0;
+      while (received < count) {
+        deframer.read(channel);
+      }
+      return received;
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int roundTrip(Client client) throws IOException {
+    return client.exchange(1);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(WINDOW)
+  public int window(Client client) throws IOException {
+    return client.exchange(WINDOW);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.util;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hex dump of a buffer before and after the lookup table rework of {@link BufferDumper}
+ * <p>
+ * {@link #legacy()} runs a copy of the original implementation, which formatted each byte with
+ * {@code String.format} and each text column with a regular expression. Output goes to a stream
+ * that discards it, so the score reflects formatting cost only.
+ *
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferDumperBenchmark {
+
+  private static final PrintStream NULL_STREAM = new PrintStream(new OutputStream() {
+    @Override
+    public void write(byte[] b, int off, int len) {}
+
+    @Override
+    public void write(int b) {}
+  });
+
+  private static String legacyHexLine(byte[] bytes, int offset, int width) {
+    StringWriter writer = new StringWriter();
+    for (int index = 0; index < width; index++) {
+      if (index + offset < bytes.length) {
+        writer.append(String.format("%02x ", bytes[index + offset]));
+      }
+    }
+    return writer.toString();
+  }
+
+  private static void legacyPrint(byte[] bytes, int index, int width, long messageSize,
+      PrintStream out, Charset charset) throws UnsupportedEncodingException {
+    for (int i = 0; i < messageSize; i += width) {
+      int lineWidth = Math.min((int) messageSize - i, width);
+      String hexLine = legacyHexLine(bytes, index + i, lineWidth);
+      out.print(hexLine);
+      for (int j = hexLine.length(); j < width * 3; j++) {
+        out.print(' ');
+      }
+      out.println(legacyTextLine(bytes, index + i, lineWidth, charset));
+    }
+  }
+
+  private static String legacyTextLine(byte[] bytes, int index, int width, Charset charset) {
+    StringWriter writer = new StringWriter();
+    if (index < bytes.length) {
+      writer.append(":");
+      writer.append(new String(bytes, index, Math.min(width, bytes.length - index), charset)
+          .replaceAll("[^\\x20-\\x7E]", " "));
+    }
+    return writer.toString();
+  }
+
+  private byte[] bytes;
+  private UnsafeBuffer directBuffer;
+  private final BufferDumper dumper = new BufferDumper(16);
+
+  @Param({"4096"})
+  int size;
+
+  @Benchmark
+  public void legacy() throws UnsupportedEncodingException {
+    legacyPrint(bytes, 0, 16, size, NULL_STREAM, StandardCharsets.ISO_8859_1);
+  }
+
+  @Benchmark
+  public void lookupTable() {
+    dumper.print(directBuffer, 0, size, NULL_STREAM);
+  }
+
+  @Benchmark
+  public void staticByteArray() throws UnsupportedEncodingException {
+    BufferDumper.print(bytes, 16, size, NULL_STREAM, StandardCharsets.ISO_8859_1);
+  }
+
+  @Setup
+  public void setUp() {
+    bytes = new byte[size];
+    new Random(7).nextBytes(bytes);
+    directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(size));
+    directBuffer.putBytes(0, bytes);
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+
+/**
+ * Index of the frames in a capture file, written by {@link CaptureIndexWriter}
+ * <p>
+ * Entries are of fixed length and numbered from zero in capture order, so the entry for frame N,
+ * and thus the file offset of the frame, is found directly. The sidecar file is laid out as:
+ *
+ * <pre>
+ * header, 64 bytes
+ *   offset  0  int   magic
+ *   offset  4  int   format version
+ *   offset  8  long  number of entries
+ *   offset 16  int   entries per sample of the sparse index
+ *   offset 20  int   number of samples
+ * entries, 24 bytes each
+ *   offset  0  long  file offset of the frame
+ *   offset  8  short template ID, or 65535 if not known
+ *   offset 10  short schema ID, or 65535 if not known
+ *   offset 12  short schema version, or 65535 if not known
+ *   offset 16  long  timestamp
+ * sparse index
+ *   long[samples]  greatest timestamp from the first entry to the end of each sample
+ *   long[samples]  least timestamp from the start of each sample to the last entry
+ * </pre>
+ *
+ * All values are little-endian. Timestamps need not be in order; both columns of the sparse index
+ * are non-decreasing regardless, so the entries that may fall in a range of time are bounded by
+ * binary search.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class CaptureIndex implements Closeable {
+
+  static final int ENTRY_LENGTH = 24;
+  static final int FRAME_OFFSET_OFFSET = 0;
+  static final int TEMPLATE_ID_OFFSET = 8;
+  static final int SCHEMA_ID_OFFSET = 10;
+  static final int VERSION_OFFSET = 12;
+  static final int TIMESTAMP_OFFSET = 16;
+
+  static final int HEADER_LENGTH = 64;
+  static final int MAGIC = 0x58444E49; // "INDX"
+  static final int MAGIC_OFFSET = 0;
+  static final int FORMAT_VERSION = 1;
+  static final int FORMAT_VERSION_OFFSET = 4;
+  static final int ENTRY_COUNT_OFFSET = 8;
+  static final int SPARSE_INTERVAL_OFFSET = 16;
+  static final int SAMPLE_COUNT_OFFSET = 20;
+
+  private static final int ENTRIES_PER_WINDOW = 32 * 1024 * 1024;
+
+  private static int firstGreater(long[] samples, long value) {
+    int low = 0;
+    int high = samples.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (samples[mid] > value) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+
+  private final long entryCount;
+  private final MappedByteBuffer[] mappedWindows;
+  private final long[] sampleMax;
+  private final long[] sampleMin;
+  private final int sparseInterval;
+  private final UnsafeBuffer[] windows;
+
+  /**
+   * Opens an index
+   *
+   * @param path sidecar file written by {@link CaptureIndexWriter}
+   * @throws IOException if the file cannot be mapped or is not an index
+   */
+  public CaptureIndex(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
+      if (fileSize < HEADER_LENGTH) {
+        throw new IOException("File too short for a header: " + path);
+      }
+      final MappedByteBuffer headerBuffer =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+      final UnsafeBuffer header = new UnsafeBuffer(headerBuffer);
+      if (header.getInt(MAGIC_OFFSET, ByteOrder.LITTLE_ENDIAN) != MAGIC
+          || header.getInt(FORMAT_VERSION_OFFSET, ByteOrder.LITTLE_ENDIAN) != FORMAT_VERSION) {
+        IoUtil.unmap(headerBuffer);
+        throw new IOException("Not a capture index: " + path);
+      }
+      entryCount = header.getLong(ENTRY_COUNT_OFFSET, ByteOrder.LITTLE_ENDIAN);
+      sparseInterval = header.getInt(SPARSE_INTERVAL_OFFSET, ByteOrder.LITTLE_ENDIAN);
+      final int samples = header.getInt(SAMPLE_COUNT_OFFSET, ByteOrder.LITTLE_ENDIAN);
+      IoUtil.unmap(headerBuffer);
+
+      final long sparsePosition = HEADER_LENGTH + entryCount * ENTRY_LENGTH;
+      if (sparsePosition + 2L * samples * Long.BYTES > fileSize) {
+        throw new IOException("File truncated: " + path);
+      }
+      final MappedByteBuffer sparseBuffer =
+          channel.map(FileChannel.MapMode.READ_ONLY, sparsePosition, 2L * samples * Long.BYTES);
+      final UnsafeBuffer sparse = new UnsafeBuffer(sparseBuffer);
+      sampleMax = new long[samples];
+      sampleMin = new long[samples];
+      for (int i = 0; i < samples; i++) {
+        sampleMax[i] = sparse.getLong(i * Long.BYTES, ByteOrder.LITTLE_ENDIAN);
+        sampleMin[i] = sparse.getLong((samples + i) * Long.BYTES, ByteOrder.LITTLE_ENDIAN);
+      }
+      IoUtil.unmap(sparseBuffer);
+
+      final int windowCount = (int) ((entryCount + ENTRIES_PER_WINDOW - 1) / ENTRIES_PER_WINDOW);
+      mappedWindows = new MappedByteBuffer[windowCount];
+      windows = new UnsafeBuffer[windowCount];
+      for (int w = 0; w < windowCount; w++) {
+        final long first = (long) w * ENTRIES_PER_WINDOW;
+        final long entries = Math.min(ENTRIES_PER_WINDOW, entryCount - first);
+        mappedWindows[w] = channel.map(FileChannel.MapMode.READ_ONLY,
+            HEADER_LENGTH + first * ENTRY_LENGTH, entries * ENTRY_LENGTH);
+        windows[w] = new UnsafeBuffer(mappedWindows[w]);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    for (int w = 0; w < mappedWindows.length; w++) {
+      if (mappedWindows[w] != null) {
+        IoUtil.unmap(mappedWindows[w]);
+        mappedWindows[w] = null;
+        windows[w] = null;
+      }
+    }
+  }
+
+  /**
+   * @param entry entry number, the same as the frame number in the capture
+   * @return file offset of the frame in the capture
+   */
+  public long frameOffset(long entry) {
+    return window(entry).getLong(entryOffset(entry) + FRAME_OFFSET_OFFSET,
+        ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Finds the first entry that may have a timestamp at or after a time. No earlier entry does.
+   *
+   * @param from earliest timestamp
+   * @return entry number, or {@link #size()} if no entry qualifies
+   */
+  public long lowerBound(long from) {
+    if (from == Long.MIN_VALUE) {
+      return 0;
+    }
+    return Math.min((long) firstGreater(sampleMax, from - 1) * sparseInterval, entryCount);
+  }
+
+  /**
+   * Delivers frames of a capture that fall within a range of time
+   *
+   * @param reader capture that was indexed
+   * @param from earliest timestamp, inclusive
+   * @param to latest timestamp, inclusive
+   * @param templateId template ID of messages to deliver, or -1 for all
+   * @param handler receives matching frames in capture order
+   * @return number of frames delivered
+   * @throws IOException if the capture cannot be read
+   */
+  public long replay(SofhCaptureReader reader, long from, long to, int templateId,
+      SofhFrameHandler handler) throws IOException {
+    final long end = upperBound(to);
+    long frames = 0;
+    for (long entry = lowerBound(from); entry < end; entry++) {
+      final long timestamp = timestamp(entry);
+      if (timestamp >= from && timestamp <= to
+          && (templateId < 0 || templateId(entry) == templateId)) {
+        seek(reader, entry);
+        frames += reader.read(handler, 1);
+      }
+    }
+    return frames;
+  }
+
+  /**
+   * @param entry entry number
+   * @return schema ID of the message, or 65535 if not known
+   */
+  public int schemaId(long entry) {
+    return window(entry).getShort(entryOffset(entry) + SCHEMA_ID_OFFSET, ByteOrder.LITTLE_ENDIAN)
+        & 0xFFFF;
+  }
+
+  /**
+   * Positions a capture reader at a frame
+   *
+   * @param reader capture that was indexed
+   * @param entry entry number, the same as the frame number in the capture
+   */
+  public void seek(SofhCaptureReader reader, long entry) {
+    reader.seek(frameOffset(entry));
+  }
+
+  /**
+   * @return number of entries, one per frame
+   */
+  public long size() {
+    return entryCount;
+  }
+
+  /**
+   * @param entry entry number
+   * @return template ID of the message, or 65535 if not known
+   */
+  public int templateId(long entry) {
+    return window(entry).getShort(entryOffset(entry) + TEMPLATE_ID_OFFSET,
+        ByteOrder.LITTLE_ENDIAN) & 0xFFFF;
+  }
+
+  /**
+   * @param entry entry number
+   * @return timestamp of the frame
+   */
+  public long timestamp(long entry) {
+    return window(entry).getLong(entryOffset(entry) + TIMESTAMP_OFFSET, ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Finds the entry after the last that may have a timestamp at or before a time. No later entry
+   * does.
+   *
+   * @param to latest timestamp
+   * @return entry number, or {@link #size()} if the last entry may qualify
+   */
+  public long upperBound(long to) {
+    return Math.min((long) firstGreater(sampleMin, to) * sparseInterval, entryCount);
+  }
+
+  /**
+   * @param entry entry number
+   * @return schema version of the message, or 65535 if not known
+   */
+  public int version(long entry) {
+    return window(entry).getShort(entryOffset(entry) + VERSION_OFFSET, ByteOrder.LITTLE_ENDIAN)
+        & 0xFFFF;
+  }
+
+  private int entryOffset(long entry) {
+    return (int) (entry % ENTRIES_PER_WINDOW) * ENTRY_LENGTH;
+  }
+
+  private UnsafeBuffer window(long entry) {
+    if (entry < 0 || entry >= entryCount) {
+      throw new IndexOutOfBoundsException("Entry " + entry + " of " + entryCount);
+    }
+    return windows[(int) (entry / ENTRIES_PER_WINDOW)];
+  }
+}
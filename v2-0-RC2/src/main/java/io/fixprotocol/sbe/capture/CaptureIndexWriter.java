@@ -0,0 +1,265 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.capture;
+
+import static io.fixprotocol.sbe.capture.CaptureIndex.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.agrona.DirectBuffer;
+import org.agrona.collections.LongArrayList;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.TimestampEncodingDecoder;
+
+/**
+ * Writes an index of the frames in a capture file to a sidecar file
+ * <p>
+ * An entry is written for each frame, holding its file offset, the template ID, schema ID and
+ * version of its message header and a timestamp. The timestamp of a NewOrderSingle is its
+ * TransactTime; any other frame, or a NewOrderSingle whose TransactTime is null, takes the capture
+ * time supplied by the caller. When the index is closed, a sparse index of timestamps is appended
+ * so that {@link CaptureIndex} can find a range of time by binary search. See
+ * {@link CaptureIndex} for the file layout.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class CaptureIndexWriter implements Closeable {
+
+  /**
+   * Default number of entries per sample of the sparse time index
+   */
+  public static final int DEFAULT_SPARSE_INTERVAL = 1024;
+
+  private static final int BLOCK_ENTRIES = 4096;
+
+  /**
+   * Indexes every frame of a capture file
+   * <p>
+   * Since a capture file does not record when frames were captured, a frame other than a
+   * NewOrderSingle, or a NewOrderSingle whose TransactTime is null, takes the timestamp of the
+   * last frame before it, or zero.
+   *
+   * @param capture capture file of SOFH frames
+   * @param index sidecar file to create
+   * @return number of frames indexed
+   * @throws IOException if either file cannot be accessed
+   */
+  public static long build(Path capture, Path index) throws IOException {
+    try (SofhCaptureReader reader = new SofhCaptureReader(capture);
+        CaptureIndexWriter writer = new CaptureIndexWriter(index)) {
+      try {
+        reader.replay((buffer, offset, length) -> {
+          try {
+            writer.add(reader.position(), buffer, offset, writer.lastTimestamp());
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (final UncheckedIOException e) {
+        throw e.getCause();
+      }
+      return writer.size();
+    }
+  }
+
+  private final UnsafeBuffer block;
+  private final ByteBuffer blockByteBuffer;
+  private int blockEntries = 0;
+  private final FileChannel channel;
+  private long entryCount = 0;
+  private long lastTimestamp = 0;
+  private long maxTimestamp = Long.MIN_VALUE;
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+  private final LongArrayList sampleMax = new LongArrayList();
+  private final LongArrayList sampleMin = new LongArrayList();
+  private long sampleMinTimestamp = Long.MAX_VALUE;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final int sparseInterval;
+  private long writtenEntries = 0;
+
+  /**
+   * Creates an index with the default sparse interval
+   *
+   * @param path sidecar file to create or replace
+   * @throws IOException if the file cannot be created
+   */
+  public CaptureIndexWriter(Path path) throws IOException {
+    this(path, DEFAULT_SPARSE_INTERVAL);
+  }
+
+  /**
+   * Creates an index
+   *
+   * @param path sidecar file to create or replace
+   * @param sparseInterval number of entries per sample of the sparse time index
+   * @throws IOException if the file cannot be created
+   */
+  public CaptureIndexWriter(Path path, int sparseInterval) throws IOException {
+    if (sparseInterval <= 0) {
+      throw new IllegalArgumentException("Sparse interval must be positive");
+    }
+    this.sparseInterval = sparseInterval;
+    this.blockByteBuffer = ByteBuffer.allocateDirect(BLOCK_ENTRIES * ENTRY_LENGTH);
+    this.block = new UnsafeBuffer(blockByteBuffer);
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    writeHeader(0);
+  }
+
+  /**
+   * Adds an entry for a frame
+   *
+   * @param frameOffset file offset of the frame in its capture
+   * @param buffer buffer holding the frame
+   * @param offset index of the framing header in the buffer
+   * @param captureTime timestamp to use if the frame is not a NewOrderSingle or its TransactTime
+   *        is null
+   * @throws IOException if entries cannot be written
+   */
+  public void add(long frameOffset, DirectBuffer buffer, int offset, long captureTime)
+      throws IOException {
+    int templateId = MessageHeaderDecoder.templateIdNullValue();
+    int schemaId = MessageHeaderDecoder.schemaIdNullValue();
+    int version = MessageHeaderDecoder.versionNullValue();
+    long timestamp = captureTime;
+    sofhDecoder.wrap(buffer, offset);
+    if (sofhDecoder.encoding() == SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN) {
+      final int headerOffset = offset + sofhDecoder.encodedLength();
+      mhDecoder.wrap(buffer, headerOffset);
+      templateId = mhDecoder.templateId();
+      schemaId = mhDecoder.schemaId();
+      version = mhDecoder.version();
+      if (schemaId == nosDecoder.sbeSchemaId() && templateId == nosDecoder.sbeTemplateId()) {
+        nosDecoder.wrap(buffer, headerOffset + mhDecoder.encodedLength(), mhDecoder.blockLength(),
+            version);
+        final long transactTime = nosDecoder.transactTime().time();
+        if (transactTime != TimestampEncodingDecoder.timeNullValue()) {
+          timestamp = transactTime;
+        }
+      }
+    }
+
+    final int index = blockEntries * ENTRY_LENGTH;
+    block.putLong(index + FRAME_OFFSET_OFFSET, frameOffset, ByteOrder.LITTLE_ENDIAN);
+    block.putShort(index + TEMPLATE_ID_OFFSET, (short) templateId, ByteOrder.LITTLE_ENDIAN);
+    block.putShort(index + SCHEMA_ID_OFFSET, (short) schemaId, ByteOrder.LITTLE_ENDIAN);
+    block.putShort(index + VERSION_OFFSET, (short) version, ByteOrder.LITTLE_ENDIAN);
+    block.putLong(index + TIMESTAMP_OFFSET, timestamp, ByteOrder.LITTLE_ENDIAN);
+    lastTimestamp = timestamp;
+    blockEntries++;
+    if (blockEntries == BLOCK_ENTRIES) {
+      writeBlock();
+    }
+
+    maxTimestamp = Math.max(maxTimestamp, timestamp);
+    sampleMinTimestamp = Math.min(sampleMinTimestamp, timestamp);
+    entryCount++;
+    if (entryCount % sparseInterval == 0) {
+      addSample();
+    }
+  }
+
+  /**
+   * Writes remaining entries and the sparse time index, and completes the header
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      writeBlock();
+      if (entryCount % sparseInterval != 0) {
+        addSample();
+      }
+      // Each sample holds the least timestamp from its first entry to the end of the index
+      for (int i = sampleMin.size() - 2; i >= 0; i--) {
+        sampleMin.setLong(i, Math.min(sampleMin.getLong(i), sampleMin.getLong(i + 1)));
+      }
+      final int samples = sampleMax.size();
+      final ByteBuffer sparse =
+          ByteBuffer.allocate(samples * 2 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      for (int i = 0; i < samples; i++) {
+        sparse.putLong(sampleMax.getLong(i));
+      }
+      for (int i = 0; i < samples; i++) {
+        sparse.putLong(sampleMin.getLong(i));
+      }
+      sparse.flip();
+      writeFully(sparse, HEADER_LENGTH + entryCount * ENTRY_LENGTH);
+      writeHeader(samples);
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * @return timestamp of the last entry added, or zero if none
+   */
+  public long lastTimestamp() {
+    return lastTimestamp;
+  }
+
+  /**
+   * @return number of entries added
+   */
+  public long size() {
+    return entryCount;
+  }
+
+  private void addSample() {
+    sampleMax.addLong(maxTimestamp);
+    sampleMin.addLong(sampleMinTimestamp);
+    sampleMinTimestamp = Long.MAX_VALUE;
+  }
+
+  private void writeBlock() throws IOException {
+    if (blockEntries > 0) {
+      blockByteBuffer.clear().limit(blockEntries * ENTRY_LENGTH);
+      writeFully(blockByteBuffer, HEADER_LENGTH + writtenEntries * ENTRY_LENGTH);
+      writtenEntries += blockEntries;
+      blockEntries = 0;
+    }
+  }
+
+  private void writeFully(ByteBuffer src, long position) throws IOException {
+    long filePosition = position;
+    while (src.hasRemaining()) {
+      filePosition += channel.write(src, filePosition);
+    }
+  }
+
+  private void writeHeader(int samples) throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC_OFFSET, MAGIC);
+    header.putInt(FORMAT_VERSION_OFFSET, FORMAT_VERSION);
+    header.putLong(ENTRY_COUNT_OFFSET, entryCount);
+    header.putInt(SPARSE_INTERVAL_OFFSET, sparseInterval);
+    header.putInt(SAMPLE_COUNT_OFFSET, samples);
+    writeFully(header, 0);
+  }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.agrona.IoUtil;
+import org.agrona.collections.Hashing;
+import org.agrona.collections.LongArrayList;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+
+/**
+ * Index of the frames in a capture file by identifier, written by {@link IdIndexWriter}
+ * <p>
+ * ClOrdId, OrderID and ExecID are each an 8-character {@code idString}, so an identifier is held
+ * as a {@code long} key. The sidecar file is an open-addressing hash table with linear probing
+ * from (field, key) to a posting list of the file offsets of the frames that carry it, laid out as:
+ *
+ * <pre>
+ * header, 64 bytes
+ *   offset  0  int   magic
+ *   offset  4  int   format version
+ *   offset  8  int   number of slots, a power of two
+ *   offset 12  int   number of keys
+ *   offset 16  long  number of frames indexed
+ *   offset 24  long  number of posting blocks allocated
+ * slots, 32 bytes each
+ *   offset  0  long  key, the 8 bytes of the identifier read little-endian
+ *   offset  8  int   field, or 0 if the slot is empty
+ *   offset 12  int   number of frame offsets in the posting list
+ *   offset 16  long  first posting block
+ *   offset 24  long  last posting block
+ * posting blocks, 64 bytes each, numbered from 1
+ *   offset  0  long     next block, or 0
+ *   offset  8  long[7]  file offsets of frames in capture order
+ * </pre>
+ *
+ * Fields other than the key are in native byte order. The writer appends a frame offset to its
+ * posting list before it publishes the new count, and fills a slot before it publishes its field,
+ * both with ordered writes. Thus an index may be queried, by this class in the same or another
+ * process, while frames are still being added.
+ * <p>
+ * Not thread-safe; each reading thread should open its own instance.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class IdIndex implements Closeable {
+
+  /**
+   * Identifier fields that are indexed
+   */
+  public enum IdField {
+    /**
+     * ClOrdId of NewOrderSingle
+     */
+    CL_ORD_ID(1),
+    /**
+     * OrderID of ExecutionReport
+     */
+    ORDER_ID(2),
+    /**
+     * ExecID of ExecutionReport
+     */
+    EXEC_ID(3);
+
+    private final int tag;
+
+    IdField(int tag) {
+      this.tag = tag;
+    }
+
+    int tag() {
+      return tag;
+    }
+  }
+
+  /**
+   * Length of an identifier in bytes
+   */
+  public static final int ID_LENGTH = 8;
+
+  static final int HEADER_LENGTH = 64;
+  static final int MAGIC = 0x58444944; // "DIDX"
+  static final int MAGIC_OFFSET = 0;
+  static final int FORMAT_VERSION = 1;
+  static final int FORMAT_VERSION_OFFSET = 4;
+  static final int CAPACITY_OFFSET = 8;
+  static final int KEY_COUNT_OFFSET = 12;
+  static final int FRAME_COUNT_OFFSET = 16;
+  static final int BLOCK_COUNT_OFFSET = 24;
+
+  static final int SLOT_LENGTH = 32;
+  static final int KEY_OFFSET = 0;
+  static final int FIELD_OFFSET = 8;
+  static final int COUNT_OFFSET = 12;
+  static final int FIRST_BLOCK_OFFSET = 16;
+  static final int LAST_BLOCK_OFFSET = 24;
+
+  static final int BLOCK_LENGTH = 64;
+  static final int NEXT_BLOCK_OFFSET = 0;
+  static final int POSTINGS_OFFSET = 8;
+  static final int POSTINGS_PER_BLOCK = (BLOCK_LENGTH - POSTINGS_OFFSET) / Long.BYTES;
+  static final int BLOCKS_PER_WINDOW = 256 * 1024;
+  static final int WINDOW_LENGTH = BLOCKS_PER_WINDOW * BLOCK_LENGTH;
+
+  /**
+   * Converts an identifier to a key. An identifier shorter than {@value #ID_LENGTH} characters is
+   * padded with NUL, as in an SBE message.
+   *
+   * @param id identifier of ISO-8859-1 characters
+   * @return key
+   * @throws IllegalArgumentException if the identifier is too long or cannot be encoded
+   */
+  public static long key(CharSequence id) {
+    final int length = id.length();
+    if (length > ID_LENGTH) {
+      throw new IllegalArgumentException("Identifier longer than " + ID_LENGTH + ": " + id);
+    }
+    long key = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = id.charAt(i);
+      if (c > 0xFF) {
+        throw new IllegalArgumentException("Identifier not ISO-8859-1: " + id);
+      }
+      key |= (long) c << (i * Byte.SIZE);
+    }
+    return key;
+  }
+
+  static long blockPosition(int capacity, long block) {
+    return HEADER_LENGTH + (long) capacity * SLOT_LENGTH
+        + block / BLOCKS_PER_WINDOW * (long) WINDOW_LENGTH;
+  }
+
+  static int blockOffset(long block) {
+    return (int) (block % BLOCKS_PER_WINDOW) * BLOCK_LENGTH;
+  }
+
+  static int home(int tag, long key, int mask) {
+    return Hashing.hash(key * 31 + tag, mask);
+  }
+
+  private final FileChannel channel;
+  private final int capacity;
+  private final MappedByteBuffer mappedTable;
+  private MappedByteBuffer[] mappedWindows = new MappedByteBuffer[0];
+  private final int mask;
+  private final UnsafeBuffer table;
+  private UnsafeBuffer[] windows = new UnsafeBuffer[0];
+
+  /**
+   * Opens an index, which may still be written
+   *
+   * @param path sidecar file created by {@link IdIndexWriter}
+   * @throws IOException if the file cannot be mapped or is not an index
+   */
+  public IdIndex(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      if (channel.size() < HEADER_LENGTH) {
+        throw new IOException("File too short for a header: " + path);
+      }
+      final MappedByteBuffer headerBuffer =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+      final UnsafeBuffer header = new UnsafeBuffer(headerBuffer);
+      final boolean valid = header.getIntVolatile(MAGIC_OFFSET) == MAGIC
+          && header.getInt(FORMAT_VERSION_OFFSET) == FORMAT_VERSION;
+      capacity = header.getInt(CAPACITY_OFFSET);
+      IoUtil.unmap(headerBuffer);
+      if (!valid) {
+        throw new IOException("Not an identifier index: " + path);
+      }
+      mask = capacity - 1;
+      mappedTable = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          HEADER_LENGTH + (long) capacity * SLOT_LENGTH);
+      table = new UnsafeBuffer(mappedTable);
+    } catch (final IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (int w = 0; w < mappedWindows.length; w++) {
+      IoUtil.unmap(mappedWindows[w]);
+    }
+    mappedWindows = new MappedByteBuffer[0];
+    windows = new UnsafeBuffer[0];
+    IoUtil.unmap(mappedTable);
+    channel.close();
+  }
+
+  /**
+   * @param field identifier field
+   * @param id identifier
+   * @return number of frames that carry the identifier in the field
+   */
+  public int count(IdField field, CharSequence id) {
+    return count(field, key(id));
+  }
+
+  /**
+   * @param field identifier field
+   * @param key identifier as a key; see {@link #key(CharSequence)}
+   * @return number of frames that carry the identifier in the field
+   */
+  public int count(IdField field, long key) {
+    final int slotOffset = find(field.tag(), key);
+    return slotOffset < 0 ? 0 : table.getIntVolatile(slotOffset + COUNT_OFFSET);
+  }
+
+  /**
+   * @return number of frames indexed when last published by the writer
+   */
+  public long frames() {
+    return table.getLongVolatile(FRAME_COUNT_OFFSET);
+  }
+
+  /**
+   * Collects the file offsets of the frames that carry an identifier
+   *
+   * @param field identifier field
+   * @param id identifier
+   * @param offsets list to which file offsets are added in capture order
+   * @return number of offsets added
+   * @throws IOException if a posting block cannot be mapped
+   */
+  public int frameOffsets(IdField field, CharSequence id, LongArrayList offsets)
+      throws IOException {
+    return frameOffsets(field, key(id), offsets);
+  }
+
+  /**
+   * Collects the file offsets of the frames that carry an identifier
+   *
+   * @param field identifier field
+   * @param key identifier as a key; see {@link #key(CharSequence)}
+   * @param offsets list to which file offsets are added in capture order
+   * @return number of offsets added
+   * @throws IOException if a posting block cannot be mapped
+   */
+  public int frameOffsets(IdField field, long key, LongArrayList offsets) throws IOException {
+    final int slotOffset = find(field.tag(), key);
+    if (slotOffset < 0) {
+      return 0;
+    }
+    final int count = table.getIntVolatile(slotOffset + COUNT_OFFSET);
+    long block = table.getLong(slotOffset + FIRST_BLOCK_OFFSET);
+    int added = 0;
+    while (added < count) {
+      final UnsafeBuffer window = window(block);
+      final int blockOffset = blockOffset(block);
+      final int n = Math.min(count - added, POSTINGS_PER_BLOCK);
+      for (int i = 0; i < n; i++) {
+        offsets.addLong(window.getLong(blockOffset + POSTINGS_OFFSET + i * Long.BYTES));
+      }
+      added += n;
+      block = window.getLong(blockOffset + NEXT_BLOCK_OFFSET);
+    }
+    return added;
+  }
+
+  /**
+   * @return number of distinct keys when last published by the writer
+   */
+  public int keys() {
+    return table.getIntVolatile(KEY_COUNT_OFFSET);
+  }
+
+  /**
+   * Delivers the frames of a capture that carry an identifier
+   *
+   * @param reader capture that was indexed
+   * @param field identifier field
+   * @param id identifier
+   * @param handler receives matching frames in capture order
+   * @return number of frames delivered
+   * @throws IOException if the capture or index cannot be read
+   */
+  public long replay(SofhCaptureReader reader, IdField field, CharSequence id,
+      SofhFrameHandler handler) throws IOException {
+    final LongArrayList offsets = new LongArrayList();
+    frameOffsets(field, id, offsets);
+    long frames = 0;
+    for (int i = 0; i < offsets.size(); i++) {
+      reader.seek(offsets.getLong(i));
+      frames += reader.read(handler, 1);
+    }
+    return frames;
+  }
+
+  private int find(int tag, long key) {
+    int index = home(tag, key, mask);
+    for (int probes = 0; probes < capacity; probes++) {
+      final int slotOffset = HEADER_LENGTH + index * SLOT_LENGTH;
+      final int slotTag = table.getIntVolatile(slotOffset + FIELD_OFFSET);
+      if (slotTag == 0) {
+        return -1;
+      }
+      if (slotTag == tag && table.getLong(slotOffset + KEY_OFFSET) == key) {
+        return slotOffset;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  private UnsafeBuffer window(long block) throws IOException {
+    final int w = (int) (block / BLOCKS_PER_WINDOW);
+    if (w >= windows.length) {
+      final int oldLength = windows.length;
+      mappedWindows = Arrays.copyOf(mappedWindows, w + 1);
+      windows = Arrays.copyOf(windows, w + 1);
+      for (int i = oldLength; i <= w; i++) {
+        mappedWindows[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+            blockPosition(capacity, (long) i * BLOCKS_PER_WINDOW), WINDOW_LENGTH);
+        windows[i] = new UnsafeBuffer(mappedWindows[i]);
+      }
+    }
+    return windows[w];
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.capture;
+
+import static io.fixprotocol.sbe.capture.IdIndex.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.capture.IdIndex.IdField;
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+
+/**
+ * Writes an index of the frames in a capture file by ClOrdId, OrderID and ExecID
+ * <p>
+ * The ClOrdId of each NewOrderSingle, and the OrderID and ExecID of each ExecutionReport, are read
+ * in place and the file offset of the frame is appended to the posting list of each. Frames of
+ * other messages, schemas or byte orders are counted but not indexed. See {@link IdIndex} for the
+ * file layout.
+ * <p>
+ * The hash table has a fixed number of slots, chosen when the index is created, since it cannot be
+ * rehashed while it is being read. Posting blocks are allocated in mapped windows that extend the
+ * file as needed. Not thread-safe, but an {@link IdIndex} may read the file while it is written.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class IdIndexWriter implements Closeable {
+
+  /**
+   * Default number of distinct keys that the index can hold
+   */
+  public static final int DEFAULT_KEY_CAPACITY = 1024 * 1024;
+
+  /**
+   * Indexes every frame of a capture file
+   *
+   * @param capture capture file of SOFH frames
+   * @param index sidecar file to create
+   * @param keyCapacity number of distinct keys that the index can hold
+   * @return number of frames indexed
+   * @throws IOException if either file cannot be accessed
+   */
+  public static long build(Path capture, Path index, int keyCapacity) throws IOException {
+    try (SofhCaptureReader reader = new SofhCaptureReader(capture);
+        IdIndexWriter writer = new IdIndexWriter(index, keyCapacity)) {
+      try {
+        reader.replay((buffer, offset, length) -> {
+          try {
+            writer.add(reader.position(), buffer, offset);
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (final UncheckedIOException e) {
+        throw e.getCause();
+      }
+      return writer.frames();
+    }
+  }
+
+  private long blockCount = 1;
+  private final int capacity;
+  private final FileChannel channel;
+  private final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+  private long frameCount = 0;
+  private int keyCount = 0;
+  private final int keyLimit;
+  private final MappedByteBuffer mappedTable;
+  private final List<MappedByteBuffer> mappedWindows = new ArrayList<>();
+  private final int mask;
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final UnsafeBuffer table;
+  private final List<UnsafeBuffer> windows = new ArrayList<>();
+
+  /**
+   * Creates an index with the default key capacity
+   *
+   * @param path sidecar file to create or replace
+   * @throws IOException if the file cannot be created
+   */
+  public IdIndexWriter(Path path) throws IOException {
+    this(path, DEFAULT_KEY_CAPACITY);
+  }
+
+  /**
+   * Creates an index
+   *
+   * @param path sidecar file to create or replace
+   * @param keyCapacity number of distinct keys that the index can hold. The table has at least a
+   *        third more slots, rounded up to a power of two.
+   * @throws IOException if the file cannot be created
+   */
+  public IdIndexWriter(Path path, int keyCapacity) throws IOException {
+    if (keyCapacity <= 0 || keyCapacity > (1 << 25)) {
+      throw new IllegalArgumentException("Key capacity out of range");
+    }
+    this.keyLimit = keyCapacity;
+    this.capacity = BitUtil.findNextPositivePowerOfTwo(keyCapacity + keyCapacity / 3 + 1);
+    this.mask = capacity - 1;
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    this.mappedTable = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+        HEADER_LENGTH + (long) capacity * SLOT_LENGTH);
+    this.table = new UnsafeBuffer(mappedTable);
+    table.putInt(FORMAT_VERSION_OFFSET, FORMAT_VERSION);
+    table.putInt(CAPACITY_OFFSET, capacity);
+    table.putLong(BLOCK_COUNT_OFFSET, blockCount);
+    table.putIntOrdered(MAGIC_OFFSET, MAGIC);
+  }
+
+  /**
+   * Indexes the identifiers of a frame
+   *
+   * @param frameOffset file offset of the frame in its capture
+   * @param buffer buffer holding the frame
+   * @param offset index of the framing header in the buffer
+   * @throws IOException if a posting block cannot be allocated
+   * @throws IllegalStateException if the index holds as many keys as its capacity
+   */
+  public void add(long frameOffset, DirectBuffer buffer, int offset) throws IOException {
+    sofhDecoder.wrap(buffer, offset);
+    if (sofhDecoder.encoding() == SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN) {
+      final int headerOffset = offset + sofhDecoder.encodedLength();
+      mhDecoder.wrap(buffer, headerOffset);
+      final int messageOffset = headerOffset + mhDecoder.encodedLength();
+      if (mhDecoder.schemaId() == nosDecoder.sbeSchemaId()
+          && mhDecoder.templateId() == nosDecoder.sbeTemplateId()) {
+        add(IdField.CL_ORD_ID, buffer.getLong(
+            messageOffset + NewOrderSingleDecoder.clOrdIdEncodingOffset(),
+            ByteOrder.LITTLE_ENDIAN), frameOffset);
+      } else if (mhDecoder.schemaId() == erDecoder.sbeSchemaId()
+          && mhDecoder.templateId() == erDecoder.sbeTemplateId()) {
+        add(IdField.ORDER_ID, buffer.getLong(
+            messageOffset + ExecutionReportDecoder.orderIDEncodingOffset(),
+            ByteOrder.LITTLE_ENDIAN), frameOffset);
+        add(IdField.EXEC_ID, buffer.getLong(
+            messageOffset + ExecutionReportDecoder.execIDEncodingOffset(),
+            ByteOrder.LITTLE_ENDIAN), frameOffset);
+      }
+    }
+    frameCount++;
+    table.putLongOrdered(FRAME_COUNT_OFFSET, frameCount);
+  }
+
+  /**
+   * Appends a frame offset to the posting list of a key
+   *
+   * @param field identifier field
+   * @param key identifier as a key; see {@link IdIndex#key(CharSequence)}
+   * @param frameOffset file offset of the frame in its capture
+   * @throws IOException if a posting block cannot be allocated
+   * @throws IllegalStateException if the key is new and the index holds as many keys as its
+   *         capacity
+   */
+  public void add(IdField field, long key, long frameOffset) throws IOException {
+    final int tag = field.tag();
+    int index = home(tag, key, mask);
+    while (true) {
+      final int slotOffset = HEADER_LENGTH + index * SLOT_LENGTH;
+      final int slotTag = table.getInt(slotOffset + FIELD_OFFSET);
+      if (slotTag == 0) {
+        addKey(slotOffset, tag, key, frameOffset);
+        return;
+      }
+      if (slotTag == tag && table.getLong(slotOffset + KEY_OFFSET) == key) {
+        addPosting(slotOffset, frameOffset);
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  /**
+   * Forces the index to storage and releases its mappings
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      for (final MappedByteBuffer window : mappedWindows) {
+        window.force();
+        IoUtil.unmap(window);
+      }
+      mappedWindows.clear();
+      windows.clear();
+      mappedTable.force();
+      IoUtil.unmap(mappedTable);
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * @return number of frames added
+   */
+  public long frames() {
+    return frameCount;
+  }
+
+  /**
+   * @return number of distinct keys
+   */
+  public int keys() {
+    return keyCount;
+  }
+
+  private void addKey(int slotOffset, int tag, long key, long frameOffset) throws IOException {
+    if (keyCount == keyLimit) {
+      throw new IllegalStateException("Identifier index full at " + keyLimit + " keys");
+    }
+    final long block = allocateBlock();
+    window(block).putLong(blockOffset(block) + POSTINGS_OFFSET, frameOffset);
+    table.putLong(slotOffset + KEY_OFFSET, key);
+    table.putInt(slotOffset + COUNT_OFFSET, 1);
+    table.putLong(slotOffset + FIRST_BLOCK_OFFSET, block);
+    table.putLong(slotOffset + LAST_BLOCK_OFFSET, block);
+    table.putIntOrdered(slotOffset + FIELD_OFFSET, tag);
+    keyCount++;
+    table.putIntOrdered(KEY_COUNT_OFFSET, keyCount);
+  }
+
+  private void addPosting(int slotOffset, long frameOffset) throws IOException {
+    final int count = table.getInt(slotOffset + COUNT_OFFSET);
+    final int position = count % POSTINGS_PER_BLOCK;
+    long block = table.getLong(slotOffset + LAST_BLOCK_OFFSET);
+    if (position == 0) {
+      final long next = allocateBlock();
+      window(block).putLong(blockOffset(block) + NEXT_BLOCK_OFFSET, next);
+      table.putLong(slotOffset + LAST_BLOCK_OFFSET, next);
+      block = next;
+    }
+    window(block).putLong(blockOffset(block) + POSTINGS_OFFSET + position * Long.BYTES,
+        frameOffset);
+    table.putIntOrdered(slotOffset + COUNT_OFFSET, count + 1);
+  }
+
+  private long allocateBlock() throws IOException {
+    final long block = blockCount++;
+    window(block);
+    table.putLongOrdered(BLOCK_COUNT_OFFSET, blockCount);
+    return block;
+  }
+
+  private UnsafeBuffer window(long block) throws IOException {
+    final int w = (int) (block / BLOCKS_PER_WINDOW);
+    while (w >= windows.size()) {
+      // Mapping beyond the end of the file extends it with zeros
+      final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE,
+          blockPosition(capacity, (long) windows.size() * BLOCKS_PER_WINDOW), WINDOW_LENGTH);
+      mappedWindows.add(mapped);
+      windows.add(new UnsafeBuffer(mapped));
+    }
+    return windows.get(w);
+  }
+}
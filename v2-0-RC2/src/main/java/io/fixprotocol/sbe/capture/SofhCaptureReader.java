@@ -0,0 +1,216 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+
+/**
+ * Reads a capture file of frames with a Simple Open Framing Header
+ * <p>
+ * The file is mapped in large windows rather than read onto the heap. Frames are passed to a
+ * {@link SofhFrameHandler} in place within the mapped window. When a frame straddles the end of a
+ * window, a new window is mapped starting at that frame, so no frame is ever copied. A frame may
+ * not be larger than the window.
+ * <p>
+ * Reading stops at an incomplete frame at the end of the file, so a capture that is still being
+ * written may be followed by calling {@link #read(SofhFrameHandler, int)} again later.
+ * <p>
+ * A reader opened as writable maps the file read-write, so a handler may modify a frame in place
+ * by casting the buffer it is passed to {@link org.agrona.MutableDirectBuffer}. Changes are
+ * forced to the file when a window is unmapped. A handler must not change the length of a frame.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhCaptureReader implements Closeable {
+
+  /**
+   * Default size of a mapped window in bytes
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+  private final UnsafeBuffer buffer = new UnsafeBuffer(0, 0);
+  private final FileChannel channel;
+  private long fileSize;
+  private long position = 0;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private MappedByteBuffer window;
+  private int windowLength = 0;
+  private final int windowSize;
+  private long windowStart = 0;
+  private final boolean writable;
+
+  /**
+   * Opens a capture file with the default window size
+   *
+   * @param path capture file
+   * @throws IOException if the file cannot be opened
+   */
+  public SofhCaptureReader(Path path) throws IOException {
+    this(path, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Opens a capture file
+   *
+   * @param path capture file
+   * @param windowSize size of a mapped window in bytes
+   * @throws IOException if the file cannot be opened
+   */
+  public SofhCaptureReader(Path path, int windowSize) throws IOException {
+    this(path, windowSize, false);
+  }
+
+  /**
+   * Opens a capture file, optionally for modifying frames in place
+   *
+   * @param path capture file
+   * @param windowSize size of a mapped window in bytes
+   * @param writable {@code true} to map the file read-write
+   * @throws IOException if the file cannot be opened
+   */
+  public SofhCaptureReader(Path path, int windowSize, boolean writable) throws IOException {
+    if (windowSize <= sofhDecoder.encodedLength()) {
+      throw new IllegalArgumentException("Window size too small");
+    }
+    this.windowSize = windowSize;
+    this.writable = writable;
+    this.channel = writable
+        ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        : FileChannel.open(path, StandardOpenOption.READ);
+    this.fileSize = channel.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    unmap();
+    channel.close();
+  }
+
+  /**
+   * @return file offset of the frame being delivered to a handler, or of the next frame to read
+   */
+  public long position() {
+    return position;
+  }
+
+  /**
+   * Delivers complete frames from the current position
+   *
+   * @param handler receives frames
+   * @param frameLimit maximum number of frames to deliver
+   * @return number of frames delivered; zero at the end of the file
+   * @throws IOException if the file cannot be mapped or a frame has an invalid length
+   */
+  public int read(SofhFrameHandler handler, int frameLimit) throws IOException {
+    final int headerLength = sofhDecoder.encodedLength();
+    int frames = 0;
+    while (frames < frameLimit && ensureMapped(position, headerLength)) {
+      sofhDecoder.wrap(buffer, (int) (position - windowStart));
+      final long messageLength = sofhDecoder.messageLength();
+      if (messageLength < headerLength || messageLength > windowSize) {
+        throw new IOException(String.format("Invalid SOFH message length %d at position %d",
+            messageLength, position));
+      }
+      final int frameLength = (int) messageLength;
+      if (!ensureMapped(position, frameLength)) {
+        break;
+      }
+      handler.onFrame(buffer, (int) (position - windowStart), frameLength);
+      position += frameLength;
+      frames++;
+    }
+    return frames;
+  }
+
+  /**
+   * Delivers all complete frames from the current position to the end of the file
+   *
+   * @param handler receives frames
+   * @return number of frames delivered
+   * @throws IOException if the file cannot be mapped or a frame has an invalid length
+   */
+  public long replay(SofhFrameHandler handler) throws IOException {
+    long frames = 0;
+    int n;
+    while ((n = read(handler, Integer.MAX_VALUE)) > 0) {
+      frames += n;
+    }
+    return frames;
+  }
+
+  /**
+   * Sets the position of the next frame to read. Must not be called from a handler.
+   *
+   * @param position file offset of a framing header
+   */
+  public void seek(long position) {
+    if (position < 0) {
+      throw new IllegalArgumentException("Negative position");
+    }
+    this.position = position;
+  }
+
+  /**
+   * @return size of the file when last examined
+   */
+  public long size() {
+    return fileSize;
+  }
+
+  private boolean ensureMapped(long start, int length) throws IOException {
+    if (start >= windowStart && start + length <= windowStart + windowLength) {
+      return true;
+    }
+    if (start + length > fileSize) {
+      fileSize = channel.size();
+      if (start + length > fileSize) {
+        return false;
+      }
+    }
+    unmap();
+    windowLength = (int) Math.min(windowSize, fileSize - start);
+    window = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+        start, windowLength);
+    windowStart = start;
+    buffer.wrap(window);
+    return true;
+  }
+
+  private void unmap() {
+    if (window != null) {
+      buffer.wrap(0, 0);
+      if (writable) {
+        window.force();
+      }
+      IoUtil.unmap(window);
+      window = null;
+      windowLength = 0;
+    }
+  }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.capture;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+import io.fixprotocol.sbe.util.Crc32c;
+
+/**
+ * Append-only journal of frames with a Simple Open Framing Header
+ * <p>
+ * The journal is a directory of preallocated, memory-mapped segment files of a fixed size. Each
+ * frame is followed by a 4-byte little-endian CRC-32C trailer computed over the frame. When a frame
+ * does not fit in the current segment, the segment is sealed and a new one is created.
+ * <p>
+ * A segment begins with a header of {@value #SEGMENT_HEADER_LENGTH} bytes that holds a checkpoint,
+ * the end of the last batch of frames. On open, recovery starts at the checkpoint of the last
+ * segment and walks forward frame by frame, verifying checksums, until it reaches a frame that is
+ * empty, truncated or corrupt. Only frames written after the last checkpoint are read.
+ * <p>
+ * Frames are encoded in place in the same manner as
+ * {@link io.fixprotocol.sbe.examples.SofhFrameWriter}. Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhJournal implements Closeable {
+
+  /**
+   * When mapped segments are forced to storage
+   */
+  public enum ForcePolicy {
+    /**
+     * Write-back is left to the operating system
+     */
+    NONE,
+    /**
+     * Forced at the end of each batch, on {@link SofhJournal#flush()}
+     */
+    BATCH,
+    /**
+     * Forced when a segment is sealed and when the journal is closed
+     */
+    SEGMENT
+  }
+
+  public static final int SEGMENT_HEADER_LENGTH = 64;
+  public static final String SEGMENT_SUFFIX = ".seg";
+  public static final int TRAILER_LENGTH = 4;
+
+  static final int CHECKPOINT_OFFSET = 16;
+  static final int MAGIC = 0x534F464A;
+  static final int MAGIC_OFFSET = 0;
+  static final int SEALED_OFFSET = 20;
+  static final int SEGMENT_INDEX_OFFSET = 8;
+
+  /**
+   * Opens a journal, creating the directory if needed and recovering the end of the last segment
+   *
+   * @param directory location of segment files
+   * @param segmentSize size of each segment file in bytes
+   * @param forcePolicy when segments are forced to storage
+   * @return an open journal
+   * @throws IOException if a segment cannot be created, mapped or is not a journal segment
+   */
+  public static SofhJournal open(Path directory, int segmentSize, ForcePolicy forcePolicy)
+      throws IOException {
+    Files.createDirectories(directory);
+    final SofhJournal journal = new SofhJournal(directory, segmentSize, forcePolicy);
+    final List<Long> indexes = segmentIndexes(directory);
+    if (indexes.isEmpty()) {
+      journal.createSegment(0);
+    } else {
+      journal.recoverSegment(indexes.get(indexes.size() - 1));
+    }
+    return journal;
+  }
+
+  /**
+   * Delivers every complete frame in a journal, in order. The journal may be open for writing by
+   * another instance, in which case frames after its last checkpoint are only delivered if they
+   * are complete and pass their checksum.
+   *
+   * @param directory location of segment files
+   * @param handler receives frames without their checksum trailer
+   * @return number of frames delivered
+   * @throws IOException if a segment cannot be mapped or is not a journal segment
+   */
+  public static long replay(Path directory, SofhFrameHandler handler) throws IOException {
+    final Crc32c crc = new Crc32c();
+    final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+    final UnsafeBuffer buffer = new UnsafeBuffer(0, 0);
+    long frames = 0;
+    for (final long index : segmentIndexes(directory)) {
+      final File file = segmentPath(directory, index).toFile();
+      final MappedByteBuffer mapped =
+          IoUtil.mapExistingFile(file, FileChannel.MapMode.READ_ONLY, "journal segment");
+      try {
+        buffer.wrap(mapped);
+        checkMagic(buffer, file);
+        final int end = buffer.getIntVolatile(SEALED_OFFSET) != 0
+            ? buffer.getIntVolatile(CHECKPOINT_OFFSET)
+            : recover(buffer, crc, sofhDecoder);
+        int position = SEGMENT_HEADER_LENGTH;
+        while (position < end) {
+          final int frameLength = (int) sofhDecoder.wrap(buffer, position).messageLength();
+          handler.onFrame(buffer, position, frameLength);
+          position += frameLength + TRAILER_LENGTH;
+          frames++;
+        }
+      } finally {
+        buffer.wrap(0, 0);
+        IoUtil.unmap(mapped);
+      }
+    }
+    return frames;
+  }
+
+  /**
+   * Finds the end of the last complete frame in a segment, starting from its checkpoint
+   *
+   * @return offset following the trailer of the last valid frame
+   */
+  static int recover(AtomicBuffer segment, Crc32c crc, SofhFrameDecoder sofhDecoder) {
+    final int capacity = segment.capacity();
+    final int headerLength = sofhDecoder.encodedLength();
+    int position = segment.getIntVolatile(CHECKPOINT_OFFSET);
+    if (position < SEGMENT_HEADER_LENGTH || position > capacity) {
+      position = SEGMENT_HEADER_LENGTH;
+    }
+    while (position + headerLength + TRAILER_LENGTH <= capacity) {
+      final long frameLength = sofhDecoder.wrap(segment, position).messageLength();
+      if (frameLength < headerLength || position + frameLength + TRAILER_LENGTH > capacity) {
+        break;
+      }
+      final int stored = segment.getInt(position + (int) frameLength, ByteOrder.LITTLE_ENDIAN);
+      if (crc.compute(segment, position, (int) frameLength) != stored) {
+        break;
+      }
+      position += (int) frameLength + TRAILER_LENGTH;
+    }
+    return position;
+  }
+
+  static List<Long> segmentIndexes(Path directory) throws IOException {
+    final List<Long> indexes = new ArrayList<>();
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (final Path path : stream) {
+        final String name = path.getFileName().toString();
+        try {
+          indexes.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+        } catch (final NumberFormatException e) {
+          // not a segment of this journal
+        }
+      }
+    }
+    Collections.sort(indexes);
+    return indexes;
+  }
+
+  static Path segmentPath(Path directory, long index) {
+    return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+  }
+
+  private static void checkMagic(DirectBuffer buffer, File file) throws IOException {
+    if (buffer.capacity() < SEGMENT_HEADER_LENGTH || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+      throw new IOException("Not a journal segment: " + file);
+    }
+  }
+
+  private final UnsafeBuffer buffer = new UnsafeBuffer(0, 0);
+  private boolean claimed = false;
+  private final Crc32c crc = new Crc32c();
+  private final Path directory;
+  private final ForcePolicy forcePolicy;
+  private long frames = 0;
+  private MappedByteBuffer mapped;
+  private int position;
+  private long segmentIndex;
+  private final int segmentSize;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+
+  private SofhJournal(Path directory, int segmentSize, ForcePolicy forcePolicy) {
+    if (segmentSize <= SEGMENT_HEADER_LENGTH + sofhEncoder.encodedLength() + TRAILER_LENGTH) {
+      throw new IllegalArgumentException("Segment size too small");
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.forcePolicy = forcePolicy;
+  }
+
+  /**
+   * Abandons the frame in progress
+   */
+  public void abort() {
+    claimed = false;
+  }
+
+  /**
+   * Appends a frame that has already been encoded with its framing header
+   *
+   * @param src buffer containing the frame
+   * @param offset offset of the framing header
+   * @param length length of the frame, including the framing header
+   * @throws IOException if a new segment is needed and cannot be created
+   */
+  public void append(DirectBuffer src, int offset, int length) throws IOException {
+    final int headerLength = sofhEncoder.encodedLength();
+    final int messageOffset = claim(length - headerLength);
+    buffer.putBytes(messageOffset - headerLength, src, offset, length);
+    commit(length - headerLength);
+  }
+
+  /**
+   * @return buffer in which the claimed frame is encoded. Only valid between {@link #claim(int)}
+   *         and {@link #commit(int)}.
+   */
+  public MutableDirectBuffer buffer() {
+    return buffer;
+  }
+
+  /**
+   * Reserves space for a frame in the current segment, rolling over to a new segment if needed
+   *
+   * @param maxMessageLength maximum length of the SBE message, including its message header
+   * @return offset in {@link #buffer()} at which to encode the SBE message header
+   * @throws IOException if a new segment is needed and cannot be created
+   * @throws IllegalArgumentException if the frame could never fit in a segment
+   */
+  public int claim(int maxMessageLength) throws IOException {
+    final int maxRecordLength = sofhEncoder.encodedLength() + maxMessageLength + TRAILER_LENGTH;
+    if (SEGMENT_HEADER_LENGTH + maxRecordLength > segmentSize) {
+      throw new IllegalArgumentException("Frame length exceeds segment capacity");
+    }
+    if (position + maxRecordLength > segmentSize) {
+      rollover();
+    }
+    sofhEncoder.wrap(buffer, position).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+    claimed = true;
+    return position + sofhEncoder.encodedLength();
+  }
+
+  /**
+   * Writes a checkpoint, forces the current segment unless the policy is {@code NONE}, and
+   * releases the mapping
+   */
+  @Override
+  public void close() throws IOException {
+    if (mapped != null) {
+      checkpoint(forcePolicy != ForcePolicy.NONE);
+      buffer.wrap(0, 0);
+      IoUtil.unmap(mapped);
+      mapped = null;
+    }
+  }
+
+  /**
+   * Completes the claimed frame by back-patching its message length and writing its checksum
+   *
+   * @param messageLength actual length of the SBE message, including its message header
+   * @throws IllegalStateException if no frame was claimed
+   */
+  public void commit(int messageLength) {
+    if (!claimed) {
+      throw new IllegalStateException("No frame claimed");
+    }
+    claimed = false;
+    final int frameLength = sofhEncoder.encodedLength() + messageLength;
+    sofhEncoder.messageLength(frameLength);
+    buffer.putInt(position + frameLength, crc.compute(buffer, position, frameLength),
+        ByteOrder.LITTLE_ENDIAN);
+    position += frameLength + TRAILER_LENGTH;
+    frames++;
+  }
+
+  /**
+   * Ends a batch of frames by writing a checkpoint, and forces the segment if the policy is
+   * {@code BATCH}
+   */
+  public void flush() {
+    checkpoint(forcePolicy == ForcePolicy.BATCH);
+  }
+
+  /**
+   * @return number of frames appended since the journal was opened
+   */
+  public long frames() {
+    return frames;
+  }
+
+  /**
+   * @return index of the segment being written
+   */
+  public long segmentIndex() {
+    return segmentIndex;
+  }
+
+  /**
+   * @return offset in the current segment at which the next frame will be written
+   */
+  public int segmentPosition() {
+    return position;
+  }
+
+  private void checkpoint(boolean force) {
+    if (force) {
+      mapped.force();
+    }
+    buffer.putIntOrdered(CHECKPOINT_OFFSET, position);
+  }
+
+  private void createSegment(long index) throws IOException {
+    final Path path = segmentPath(directory, index);
+    mapped = IoUtil.mapNewFile(path.toFile(), segmentSize, true);
+    buffer.wrap(mapped);
+    buffer.putLong(SEGMENT_INDEX_OFFSET, index);
+    buffer.putInt(CHECKPOINT_OFFSET, SEGMENT_HEADER_LENGTH);
+    buffer.putInt(SEALED_OFFSET, 0);
+    buffer.putIntOrdered(MAGIC_OFFSET, MAGIC);
+    segmentIndex = index;
+    position = SEGMENT_HEADER_LENGTH;
+  }
+
+  private void recoverSegment(long index) throws IOException {
+    final File file = segmentPath(directory, index).toFile();
+    if (file.length() != segmentSize) {
+      throw new IOException("Segment size does not match: " + file);
+    }
+    mapped = IoUtil.mapExistingFile(file, "journal segment");
+    buffer.wrap(mapped);
+    checkMagic(buffer, file);
+    if (buffer.getIntVolatile(SEALED_OFFSET) != 0) {
+      buffer.wrap(0, 0);
+      IoUtil.unmap(mapped);
+      createSegment(index + 1);
+      return;
+    }
+    segmentIndex = index;
+    position = recover(buffer, crc, sofhDecoder);
+    // Clear a torn frame so that it cannot be mistaken for data once overwritten
+    if (position + 8 <= segmentSize && buffer.getLong(position) != 0) {
+      buffer.setMemory(position, segmentSize - position, (byte) 0);
+    }
+    checkpoint(forcePolicy != ForcePolicy.NONE);
+  }
+
+  private void rollover() throws IOException {
+    buffer.putIntOrdered(CHECKPOINT_OFFSET, position);
+    buffer.putIntOrdered(SEALED_OFFSET, 1);
+    if (forcePolicy != ForcePolicy.NONE) {
+      mapped.force();
+    }
+    buffer.wrap(0, 0);
+    IoUtil.unmap(mapped);
+    createSegment(segmentIndex + 1);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.columnar;
+
+/**
+ * Layout of a columnar file of fills
+ * <p>
+ * A file is a 64 byte header followed by row groups of equal size. The header holds:
+ *
+ * <pre>
+ * offset  0  int   magic
+ * offset  4  int   format version
+ * offset  8  int   rows per group, a multiple of 64
+ * offset 12  int   price exponent
+ * offset 16  long  number of rows
+ * offset 24  int   number of row groups
+ * </pre>
+ *
+ * A row group has a 64 byte header of statistics followed by one column per field, each sized for
+ * a full group even if the last group is partly filled:
+ *
+ * <pre>
+ * offset  0  int   rows in the group
+ * offset  4  int   rows with a price
+ * offset  8  long  minimum price mantissa
+ * offset 16  long  maximum price mantissa
+ * offset 24  long  sum of quantity
+ * then           long[rows]  OrderID, 8 characters as a little-endian long
+ *                long[rows]  Symbol, 8 characters as a little-endian long
+ *                long[rows]  FillPx mantissa
+ *                int[rows]   FillQty mantissa
+ *                short[rows] TradeDate, days since the epoch
+ *                long[rows / 64] bitmap of rows with a price
+ * </pre>
+ *
+ * All values are little-endian and every column is 8 byte aligned.
+ *
+ * @author Don Mendelson
+ *
+ */
+final class FillsColumnLayout {
+
+  static final int FILE_HEADER_LENGTH = 64;
+  static final int FORMAT_VERSION = 1;
+  static final int MAGIC = 0x4C4C4946; // "FILL"
+
+  static final int MAGIC_OFFSET = 0;
+  static final int VERSION_OFFSET = 4;
+  static final int ROW_GROUP_SIZE_OFFSET = 8;
+  static final int PRICE_EXPONENT_OFFSET = 12;
+  static final int ROW_COUNT_OFFSET = 16;
+  static final int ROW_GROUP_COUNT_OFFSET = 24;
+
+  static final int GROUP_HEADER_LENGTH = 64;
+  static final int GROUP_ROWS_OFFSET = 0;
+  static final int GROUP_PRICED_ROWS_OFFSET = 4;
+  static final int GROUP_MIN_PRICE_OFFSET = 8;
+  static final int GROUP_MAX_PRICE_OFFSET = 16;
+  static final int GROUP_SUM_QTY_OFFSET = 24;
+
+  /**
+   * @param rowGroupSize rows per group
+   * @throws IllegalArgumentException if not a positive multiple of 64
+   */
+  static void checkRowGroupSize(int rowGroupSize) {
+    if (rowGroupSize <= 0 || rowGroupSize % Long.SIZE != 0) {
+      throw new IllegalArgumentException("Rows per group must be a positive multiple of 64");
+    }
+  }
+
+  static int orderIdOffset(int rowGroupSize) {
+    return GROUP_HEADER_LENGTH;
+  }
+
+  static int symbolOffset(int rowGroupSize) {
+    return orderIdOffset(rowGroupSize) + Long.BYTES * rowGroupSize;
+  }
+
+  static int priceOffset(int rowGroupSize) {
+    return symbolOffset(rowGroupSize) + Long.BYTES * rowGroupSize;
+  }
+
+  static int qtyOffset(int rowGroupSize) {
+    return priceOffset(rowGroupSize) + Long.BYTES * rowGroupSize;
+  }
+
+  static int tradeDateOffset(int rowGroupSize) {
+    return qtyOffset(rowGroupSize) + Integer.BYTES * rowGroupSize;
+  }
+
+  static int priceValidOffset(int rowGroupSize) {
+    return tradeDateOffset(rowGroupSize) + Short.BYTES * rowGroupSize;
+  }
+
+  /**
+   * @param rowGroupSize rows per group
+   * @return bytes in a row group including its header
+   */
+  static int rowGroupLength(int rowGroupSize) {
+    return priceValidOffset(rowGroupSize) + rowGroupSize / Byte.SIZE;
+  }
+
+  /**
+   * @param rowGroupSize rows per group
+   * @param rowGroup index of a row group
+   * @return file offset of the row group
+   */
+  static long rowGroupPosition(int rowGroupSize, int rowGroup) {
+    return FILE_HEADER_LENGTH + (long) rowGroup * rowGroupLength(rowGroupSize);
+  }
+
+  private FillsColumnLayout() {}
+}
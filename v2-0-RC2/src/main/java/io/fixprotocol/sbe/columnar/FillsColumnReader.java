@@ -0,0 +1,342 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.columnar;
+
+import static io.fixprotocol.sbe.columnar.FillsColumnLayout.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.messages.DecimalEncodingDecoder;
+
+/**
+ * Reads a columnar file of fills written by {@link FillsColumnWriter}
+ * <p>
+ * The file is mapped read-only in windows of whole row groups, and values are read in place. Scans
+ * run down a single column of each row group and skip row groups whose price statistics rule them
+ * out, so they are bound by memory bandwidth rather than by decoding messages.
+ * <p>
+ * Rows are numbered from zero in the order they were written.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class FillsColumnReader implements Closeable {
+
+  /**
+   * Maximum size of a mapped window in bytes
+   */
+  public static final int MAX_WINDOW_SIZE = 1024 * 1024 * 1024;
+
+  /**
+   * Decodes characters stored as a long, as for OrderID or Symbol
+   *
+   * @param chars up to 8 characters as a little-endian long, padded with nulls
+   * @return a String without the padding
+   */
+  public static String asString(long chars) {
+    final byte[] bytes = new byte[Long.BYTES];
+    int length = 0;
+    for (; length < bytes.length; length++) {
+      final byte b = (byte) (chars >>> (length * Byte.SIZE));
+      if (b == 0) {
+        break;
+      }
+      bytes[length] = b;
+    }
+    return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+  }
+
+  private final int groupsPerWindow;
+  private final MappedByteBuffer[] mappedWindows;
+  private final int orderIdOffset;
+  private final int priceExponent;
+  private final int priceOffset;
+  private final int priceValidOffset;
+  private final int qtyOffset;
+  private final long rowCount;
+  private final int rowGroupCount;
+  private final int rowGroupLength;
+  private final int rowGroupSize;
+  private final int symbolOffset;
+  private final int tradeDateOffset;
+  private final UnsafeBuffer[] windows;
+
+  /**
+   * Opens a columnar file
+   *
+   * @param path file written by {@link FillsColumnWriter}
+   * @throws IOException if the file cannot be mapped or is not a columnar file of fills
+   */
+  public FillsColumnReader(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
+      if (fileSize < FILE_HEADER_LENGTH) {
+        throw new IOException("File too short for a header: " + path);
+      }
+      final MappedByteBuffer headerBuffer =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_LENGTH);
+      final UnsafeBuffer header = new UnsafeBuffer(headerBuffer);
+      if (header.getInt(MAGIC_OFFSET, ByteOrder.LITTLE_ENDIAN) != MAGIC
+          || header.getInt(VERSION_OFFSET, ByteOrder.LITTLE_ENDIAN) != FORMAT_VERSION) {
+        IoUtil.unmap(headerBuffer);
+        throw new IOException("Not a columnar file of fills: " + path);
+      }
+      rowGroupSize = header.getInt(ROW_GROUP_SIZE_OFFSET, ByteOrder.LITTLE_ENDIAN);
+      priceExponent = header.getInt(PRICE_EXPONENT_OFFSET, ByteOrder.LITTLE_ENDIAN);
+      rowCount = header.getLong(ROW_COUNT_OFFSET, ByteOrder.LITTLE_ENDIAN);
+      rowGroupCount = header.getInt(ROW_GROUP_COUNT_OFFSET, ByteOrder.LITTLE_ENDIAN);
+      IoUtil.unmap(headerBuffer);
+
+      checkRowGroupSize(rowGroupSize);
+      rowGroupLength = rowGroupLength(rowGroupSize);
+      if (rowGroupPosition(rowGroupSize, rowGroupCount) > fileSize) {
+        throw new IOException("File truncated: " + path);
+      }
+      orderIdOffset = orderIdOffset(rowGroupSize);
+      symbolOffset = symbolOffset(rowGroupSize);
+      priceOffset = priceOffset(rowGroupSize);
+      qtyOffset = qtyOffset(rowGroupSize);
+      tradeDateOffset = tradeDateOffset(rowGroupSize);
+      priceValidOffset = priceValidOffset(rowGroupSize);
+
+      groupsPerWindow = Math.max(1, MAX_WINDOW_SIZE / rowGroupLength);
+      final int windowCount = (rowGroupCount + groupsPerWindow - 1) / groupsPerWindow;
+      mappedWindows = new MappedByteBuffer[windowCount];
+      windows = new UnsafeBuffer[windowCount];
+      for (int w = 0; w < windowCount; w++) {
+        final int groups = Math.min(groupsPerWindow, rowGroupCount - w * groupsPerWindow);
+        mappedWindows[w] = channel.map(FileChannel.MapMode.READ_ONLY,
+            rowGroupPosition(rowGroupSize, w * groupsPerWindow), (long) groups * rowGroupLength);
+        windows[w] = new UnsafeBuffer(mappedWindows[w]);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    for (int w = 0; w < mappedWindows.length; w++) {
+      if (mappedWindows[w] != null) {
+        IoUtil.unmap(mappedWindows[w]);
+        mappedWindows[w] = null;
+        windows[w] = null;
+      }
+    }
+  }
+
+  /**
+   * @param row row number
+   * @return mantissa of FillPx, or {@link DecimalEncodingDecoder#mantissaNullValue()} if absent
+   */
+  public long fillPx(long row) {
+    final int group = rowGroup(row);
+    return window(group).getLong(groupOffset(group) + priceOffset + rowInGroup(row) * Long.BYTES,
+        ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param row row number
+   * @return mantissa of FillQty
+   */
+  public int fillQty(long row) {
+    final int group = rowGroup(row);
+    return window(group).getInt(groupOffset(group) + qtyOffset + rowInGroup(row) * Integer.BYTES,
+        ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param row row number
+   * @return {@code true} if the row has a FillPx
+   */
+  public boolean hasFillPx(long row) {
+    final int group = rowGroup(row);
+    final int i = rowInGroup(row);
+    return (window(group).getByte(groupOffset(group) + priceValidOffset + (i >>> 3))
+        & (1 << (i & 7))) != 0;
+  }
+
+  /**
+   * @param rowGroup index of a row group
+   * @return the largest FillPx mantissa in the row group; undefined if no row has a price
+   */
+  public long maxPrice(int rowGroup) {
+    return window(rowGroup).getLong(groupOffset(rowGroup) + GROUP_MAX_PRICE_OFFSET,
+        ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param rowGroup index of a row group
+   * @return the smallest FillPx mantissa in the row group; undefined if no row has a price
+   */
+  public long minPrice(int rowGroup) {
+    return window(rowGroup).getLong(groupOffset(rowGroup) + GROUP_MIN_PRICE_OFFSET,
+        ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param row row number
+   * @return OrderID as a little-endian long
+   * @see #asString(long)
+   */
+  public long orderId(long row) {
+    final int group = rowGroup(row);
+    return window(group).getLong(groupOffset(group) + orderIdOffset + rowInGroup(row) * Long.BYTES,
+        ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @return decimal exponent of FillPx
+   */
+  public int priceExponent() {
+    return priceExponent;
+  }
+
+  /**
+   * @param rowGroup index of a row group
+   * @return number of rows in the row group that have a FillPx
+   */
+  public int pricedRows(int rowGroup) {
+    return window(rowGroup).getInt(groupOffset(rowGroup) + GROUP_PRICED_ROWS_OFFSET,
+        ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @return number of rows in the file
+   */
+  public long rowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return number of row groups in the file
+   */
+  public int rowGroupCount() {
+    return rowGroupCount;
+  }
+
+  /**
+   * @param rowGroup index of a row group
+   * @return number of rows in the row group
+   */
+  public int rowGroupRows(int rowGroup) {
+    return window(rowGroup).getInt(groupOffset(rowGroup) + GROUP_ROWS_OFFSET,
+        ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @return maximum number of rows in a row group
+   */
+  public int rowGroupSize() {
+    return rowGroupSize;
+  }
+
+  /**
+   * Sums FillQty by scanning its column
+   *
+   * @return total quantity of all fills
+   */
+  public long sumFillQty() {
+    long sum = 0;
+    for (int group = 0; group < rowGroupCount; group++) {
+      final UnsafeBuffer window = window(group);
+      final int base = groupOffset(group) + qtyOffset;
+      final int rows = rowGroupRows(group);
+      for (int i = 0; i < rows; i++) {
+        sum += window.getInt(base + i * Integer.BYTES, ByteOrder.LITTLE_ENDIAN);
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Sums FillQty of fills within a price range. Row groups whose price range does not overlap are
+   * skipped without reading their columns.
+   *
+   * @param minPrice smallest FillPx mantissa, inclusive
+   * @param maxPrice largest FillPx mantissa, inclusive
+   * @return total quantity of fills with a price in the range
+   */
+  public long sumFillQty(long minPrice, long maxPrice) {
+    long sum = 0;
+    for (int group = 0; group < rowGroupCount; group++) {
+      if (pricedRows(group) == 0 || maxPrice(group) < minPrice || minPrice(group) > maxPrice) {
+        continue;
+      }
+      final UnsafeBuffer window = window(group);
+      final int groupOffset = groupOffset(group);
+      final int prices = groupOffset + priceOffset;
+      final int qtys = groupOffset + qtyOffset;
+      final int rows = rowGroupRows(group);
+      for (int i = 0; i < rows; i++) {
+        final long price = window.getLong(prices + i * Long.BYTES, ByteOrder.LITTLE_ENDIAN);
+        if (price >= minPrice && price <= maxPrice
+            && price != DecimalEncodingDecoder.mantissaNullValue()) {
+          sum += window.getInt(qtys + i * Integer.BYTES, ByteOrder.LITTLE_ENDIAN);
+        }
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * @param row row number
+   * @return Symbol as a little-endian long
+   * @see #asString(long)
+   */
+  public long symbol(long row) {
+    final int group = rowGroup(row);
+    return window(group).getLong(groupOffset(group) + symbolOffset + rowInGroup(row) * Long.BYTES,
+        ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param row row number
+   * @return TradeDate as days since the epoch
+   */
+  public int tradeDate(long row) {
+    final int group = rowGroup(row);
+    return window(group).getShort(
+        groupOffset(group) + tradeDateOffset + rowInGroup(row) * Short.BYTES,
+        ByteOrder.LITTLE_ENDIAN) & 0xFFFF;
+  }
+
+  private int groupOffset(int rowGroup) {
+    return (rowGroup % groupsPerWindow) * rowGroupLength;
+  }
+
+  private int rowGroup(long row) {
+    if (row < 0 || row >= rowCount) {
+      throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+    }
+    return (int) (row / rowGroupSize);
+  }
+
+  private int rowInGroup(long row) {
+    return (int) (row % rowGroupSize);
+  }
+
+  private UnsafeBuffer window(int rowGroup) {
+    return windows[rowGroup / groupsPerWindow];
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.columnar;
+
+import static io.fixprotocol.sbe.columnar.FillsColumnLayout.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.capture.SofhCaptureReader;
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+import io.fixprotocol.sbe.examples.messages.DecimalEncodingDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder.FillsGrpDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+
+/**
+ * Exports the fills of ExecutionReport messages to a columnar file
+ * <p>
+ * Each entry of FillsGrp becomes a row holding its FillPx and FillQty together with the OrderID,
+ * Symbol and TradeDate of its message. Rows are collected off-heap in a row group and written with
+ * a single call when the group is full, so a column can later be scanned without touching the
+ * others. See {@link FillsColumnReader}.
+ * <p>
+ * Frames of other messages, schemas or byte orders are ignored. Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class FillsColumnWriter implements SofhFrameHandler, Closeable {
+
+  /**
+   * Default number of rows in a row group
+   */
+  public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+  /**
+   * Exports all fills in a capture file
+   *
+   * @param capture capture file of SOFH frames
+   * @param output columnar file to create
+   * @return number of rows written
+   * @throws IOException if either file cannot be accessed
+   */
+  public static long export(Path capture, Path output) throws IOException {
+    try (SofhCaptureReader reader = new SofhCaptureReader(capture);
+        FillsColumnWriter writer = new FillsColumnWriter(output)) {
+      try {
+        reader.replay(writer);
+      } catch (final UncheckedIOException e) {
+        throw e.getCause();
+      }
+      return writer.rowCount();
+    }
+  }
+
+  private final FileChannel channel;
+  private final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+  private final UnsafeBuffer group;
+  private final ByteBuffer groupByteBuffer;
+  private int groupRows = 0;
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private long maxPrice = Long.MIN_VALUE;
+  private long minPrice = Long.MAX_VALUE;
+  private final int orderIdOffset;
+  private int pricedRows = 0;
+  private final DecimalEncodingDecoder priceDecoder = new DecimalEncodingDecoder();
+  private final int priceOffset;
+  private final int priceValidOffset;
+  private final int qtyOffset;
+  private long rowCount = 0;
+  private int rowGroupCount = 0;
+  private final int rowGroupSize;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private long sumQty = 0;
+  private final int symbolOffset;
+  private final int tradeDateOffset;
+
+  /**
+   * Creates a columnar file with the default row group size
+   *
+   * @param path file to create or replace
+   * @throws IOException if the file cannot be created
+   */
+  public FillsColumnWriter(Path path) throws IOException {
+    this(path, DEFAULT_ROW_GROUP_SIZE);
+  }
+
+  /**
+   * Creates a columnar file
+   *
+   * @param path file to create or replace
+   * @param rowGroupSize number of rows in a row group, a multiple of 64
+   * @throws IOException if the file cannot be created
+   */
+  public FillsColumnWriter(Path path, int rowGroupSize) throws IOException {
+    checkRowGroupSize(rowGroupSize);
+    this.rowGroupSize = rowGroupSize;
+    this.orderIdOffset = orderIdOffset(rowGroupSize);
+    this.symbolOffset = symbolOffset(rowGroupSize);
+    this.priceOffset = priceOffset(rowGroupSize);
+    this.qtyOffset = qtyOffset(rowGroupSize);
+    this.tradeDateOffset = tradeDateOffset(rowGroupSize);
+    this.priceValidOffset = priceValidOffset(rowGroupSize);
+    this.groupByteBuffer = ByteBuffer.allocateDirect(rowGroupLength(rowGroupSize));
+    this.group = new UnsafeBuffer(groupByteBuffer);
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    writeFileHeader();
+  }
+
+  /**
+   * Writes the last partial row group and completes the file header
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (groupRows > 0) {
+        writeRowGroup();
+      }
+      writeFileHeader();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Adds a fill
+   *
+   * @param orderId OrderID, 8 characters as a little-endian long
+   * @param symbol Symbol, 8 characters as a little-endian long
+   * @param tradeDate TradeDate, days since the epoch
+   * @param price mantissa of FillPx, or {@link DecimalEncodingDecoder#mantissaNullValue()} if
+   *        absent
+   * @param qty mantissa of FillQty
+   * @throws IOException if a full row group cannot be written
+   */
+  public void addRow(long orderId, long symbol, int tradeDate, long price, int qty)
+      throws IOException {
+    final int row = groupRows;
+    group.putLong(orderIdOffset + row * Long.BYTES, orderId, ByteOrder.LITTLE_ENDIAN);
+    group.putLong(symbolOffset + row * Long.BYTES, symbol, ByteOrder.LITTLE_ENDIAN);
+    group.putLong(priceOffset + row * Long.BYTES, price, ByteOrder.LITTLE_ENDIAN);
+    group.putInt(qtyOffset + row * Integer.BYTES, qty, ByteOrder.LITTLE_ENDIAN);
+    group.putShort(tradeDateOffset + row * Short.BYTES, (short) tradeDate,
+        ByteOrder.LITTLE_ENDIAN);
+    if (price != DecimalEncodingDecoder.mantissaNullValue()) {
+      final int index = priceValidOffset + (row >>> 3);
+      group.putByte(index, (byte) (group.getByte(index) | (1 << (row & 7))));
+      pricedRows++;
+      minPrice = Math.min(minPrice, price);
+      maxPrice = Math.max(maxPrice, price);
+    }
+    sumQty += qty;
+    groupRows++;
+    rowCount++;
+    if (groupRows == rowGroupSize) {
+      writeRowGroup();
+    }
+  }
+
+  /**
+   * Adds the fills of an ExecutionReport frame
+   *
+   * @throws UncheckedIOException if a full row group cannot be written
+   */
+  @Override
+  public void onFrame(DirectBuffer buffer, int offset, int length) {
+    sofhDecoder.wrap(buffer, offset);
+    if (sofhDecoder.encoding() != SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN) {
+      return;
+    }
+    final int headerOffset = offset + sofhDecoder.encodedLength();
+    mhDecoder.wrap(buffer, headerOffset);
+    if (mhDecoder.schemaId() != erDecoder.sbeSchemaId()
+        || mhDecoder.templateId() != erDecoder.sbeTemplateId()) {
+      return;
+    }
+    erDecoder.wrap(buffer, headerOffset + mhDecoder.encodedLength(), mhDecoder.blockLength(),
+        mhDecoder.version());
+    final int messageOffset = erDecoder.offset();
+    final long orderId = buffer.getLong(
+        messageOffset + ExecutionReportDecoder.orderIDEncodingOffset(), ByteOrder.LITTLE_ENDIAN);
+    final long symbol = buffer.getLong(
+        messageOffset + ExecutionReportDecoder.symbolEncodingOffset(), ByteOrder.LITTLE_ENDIAN);
+    final int tradeDate = erDecoder.tradeDate();
+    try {
+      for (final FillsGrpDecoder fill : erDecoder.fillsGrp()) {
+        addRow(orderId, symbol, tradeDate, fill.fillPx().mantissa(), fill.fillQty().mantissa());
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @return number of rows added
+   */
+  public long rowCount() {
+    return rowCount;
+  }
+
+  private void writeFileHeader() throws IOException {
+    final ByteBuffer header =
+        ByteBuffer.allocate(FILE_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC_OFFSET, MAGIC);
+    header.putInt(VERSION_OFFSET, FORMAT_VERSION);
+    header.putInt(ROW_GROUP_SIZE_OFFSET, rowGroupSize);
+    header.putInt(PRICE_EXPONENT_OFFSET, priceDecoder.exponent());
+    header.putLong(ROW_COUNT_OFFSET, rowCount);
+    header.putInt(ROW_GROUP_COUNT_OFFSET, rowGroupCount);
+    writeFully(header, 0);
+  }
+
+  private void writeFully(ByteBuffer src, long position) throws IOException {
+    long filePosition = position;
+    while (src.hasRemaining()) {
+      filePosition += channel.write(src, filePosition);
+    }
+  }
+
+  private void writeRowGroup() throws IOException {
+    group.putInt(GROUP_ROWS_OFFSET, groupRows, ByteOrder.LITTLE_ENDIAN);
+    group.putInt(GROUP_PRICED_ROWS_OFFSET, pricedRows, ByteOrder.LITTLE_ENDIAN);
+    group.putLong(GROUP_MIN_PRICE_OFFSET, minPrice, ByteOrder.LITTLE_ENDIAN);
+    group.putLong(GROUP_MAX_PRICE_OFFSET, maxPrice, ByteOrder.LITTLE_ENDIAN);
+    group.putLong(GROUP_SUM_QTY_OFFSET, sumQty, ByteOrder.LITTLE_ENDIAN);
+    groupByteBuffer.clear();
+    writeFully(groupByteBuffer, rowGroupPosition(rowGroupSize, rowGroupCount));
+    rowGroupCount++;
+
+    group.setMemory(0, group.capacity(), (byte) 0);
+    groupRows = 0;
+    pricedRows = 0;
+    minPrice = Long.MAX_VALUE;
+    maxPrice = Long.MIN_VALUE;
+    sumQty = 0;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.counters;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.agrona.concurrent.status.CountersReader;
+
+/**
+ * A memory-mapped file of Agrona counters, shared between a process that updates them and
+ * processes that read them
+ * <p>
+ * The file holds the values of the counters, one padded record each, followed by their metadata:
+ * state, type ID and label. Its size determines the number of counters, so a reader needs no
+ * other configuration. A reader maps the file read-only and never writes to it, so it has no
+ * effect on the writer beyond sharing the cache lines that it reads.
+ *
+ * @author Don Mendelson
+ *
+ */
+public final class CountersFile implements AutoCloseable {
+
+  private static final int RECORD_LENGTH =
+      CountersReader.COUNTER_LENGTH + CountersReader.METADATA_LENGTH;
+
+  /**
+   * Creates a file for counters, replacing any existing file
+   *
+   * @param path file to create
+   * @param maxCounters number of counters that the file holds
+   * @return a file whose counters may be allocated and updated
+   * @throws IOException if the file cannot be created or mapped
+   */
+  public static CountersFile create(Path path, int maxCounters) throws IOException {
+    if (maxCounters <= 0) {
+      throw new IllegalArgumentException("Number of counters must be positive");
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final MappedByteBuffer mapped =
+          channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) maxCounters * RECORD_LENGTH);
+      return new CountersFile(mapped, maxCounters, true);
+    }
+  }
+
+  /**
+   * Opens an existing file to read its counters
+   *
+   * @param path file created by {@link #create(Path, int)}
+   * @return a read-only view of the counters
+   * @throws IOException if the file cannot be mapped or has an invalid size
+   */
+  public static CountersFile open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size == 0 || size % RECORD_LENGTH != 0 || size > Integer.MAX_VALUE) {
+        throw new IOException(String.format("Invalid counters file size %d", size));
+      }
+      final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      return new CountersFile(mapped, (int) (size / RECORD_LENGTH), false);
+    }
+  }
+
+  private final CountersManager manager;
+  private final MappedByteBuffer mapped;
+  private final CountersReader reader;
+
+  private CountersFile(MappedByteBuffer mapped, int maxCounters, boolean writable) {
+    this.mapped = mapped;
+    final int valuesLength = maxCounters * CountersReader.COUNTER_LENGTH;
+    final UnsafeBuffer valuesBuffer = new UnsafeBuffer(mapped, 0, valuesLength);
+    final UnsafeBuffer metaDataBuffer = new UnsafeBuffer(mapped, valuesLength,
+        maxCounters * CountersReader.METADATA_LENGTH);
+    if (writable) {
+      this.manager =
+          new CountersManager(metaDataBuffer, valuesBuffer, StandardCharsets.US_ASCII);
+      this.reader = manager;
+    } else {
+      this.manager = null;
+      this.reader = new CountersReader(metaDataBuffer, valuesBuffer, StandardCharsets.US_ASCII);
+    }
+  }
+
+  /**
+   * Unmaps the file. Counters must no longer be used.
+   */
+  @Override
+  public void close() {
+    IoUtil.unmap(mapped);
+  }
+
+  /**
+   * @return allocates and updates counters
+   * @throws IllegalStateException if the file was opened to read
+   */
+  public CountersManager manager() {
+    if (manager == null) {
+      throw new IllegalStateException("Counters file opened read-only");
+    }
+    return manager;
+  }
+
+  /**
+   * @return reads counters
+   */
+  public CountersReader reader() {
+    return reader;
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.counters;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+
+import org.agrona.concurrent.status.CountersReader;
+
+/**
+ * Prints the counters of a {@link CountersFile} that another process updates
+ *
+ * @author Don Mendelson
+ *
+ */
+public final class CountersPrinter {
+
+  /**
+   * Prints counters once, or repeatedly at an interval until interrupted
+   * <p>
+   * Arguments: counters file, and optionally an interval in seconds
+   *
+   * @param args command line arguments
+   * @throws IOException if the file cannot be read
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 1) {
+      System.err.println("Usage: CountersPrinter <counters file> [interval seconds]");
+      System.exit(1);
+    }
+    final long intervalMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 0;
+    try (CountersFile file = CountersFile.open(Paths.get(args[0]))) {
+      do {
+        print(file.reader(), System.out);
+        System.out.println();
+        Thread.sleep(intervalMillis);
+      } while (intervalMillis > 0);
+    }
+  }
+
+  /**
+   * Prints the value and label of each allocated counter on a line
+   *
+   * @param reader reads counters
+   * @param out output stream
+   */
+  public static void print(CountersReader reader, PrintStream out) {
+    reader.forEach((value, id, label) -> out.format("%3d: %,20d - %s%n", id, value, label));
+  }
+
+  private CountersPrinter() {}
+}
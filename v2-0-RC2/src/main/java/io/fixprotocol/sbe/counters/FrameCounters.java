@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.counters;
+
+import org.agrona.DirectBuffer;
+
+import io.fixprotocol.sbe.interpret.SofhFrameValidator.Validity;
+
+/**
+ * Receives events of the framing and decoding paths to count them
+ * <p>
+ * Methods that are not overridden ignore their events, so {@link #NONE} costs nothing once
+ * inlined.
+ *
+ * @author Don Mendelson
+ *
+ */
+public interface FrameCounters {
+
+  /**
+   * Counts nothing
+   */
+  FrameCounters NONE = new FrameCounters() {};
+
+  /**
+   * Invoked when a frame could not be published because a consumer was full
+   */
+  default void onBackPressure() {}
+
+  /**
+   * Invoked when a partial frame is moved to the start of a receive buffer
+   */
+  default void onCompaction() {}
+
+  /**
+   * Invoked for each complete frame received
+   *
+   * @param buffer buffer containing the frame
+   * @param offset offset of the framing header within the buffer
+   * @param length length of the frame, including the framing header
+   */
+  default void onFrameIn(DirectBuffer buffer, int offset, int length) {}
+
+  /**
+   * Invoked for each frame sent
+   *
+   * @param buffer buffer containing the frame
+   * @param offset offset of the framing header within the buffer
+   * @param length length of the frame, including the framing header
+   */
+  default void onFrameOut(DirectBuffer buffer, int offset, int length) {}
+
+  /**
+   * Invoked for each invalid frame
+   *
+   * @param reason reason that the frame is invalid
+   */
+  default void onReject(Validity reason) {}
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.counters;
+
+import java.nio.ByteOrder;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.interpret.SofhFrameValidator.Validity;
+
+/**
+ * Counts framing and decoding events in counters of an Agrona {@link CountersManager}, typically
+ * of a {@link CountersFile} that another process reads
+ * <p>
+ * Frames and bytes are counted per template ID for the templates given at construction; frames of
+ * other templates are counted together. Each counter value occupies its own padded record of
+ * {@value org.agrona.concurrent.status.CountersReader#COUNTER_LENGTH} bytes, so counters updated
+ * by different threads do not share a cache line.
+ * <p>
+ * Values are updated with ordered stores rather than atomic instructions, so each counter must
+ * have a single writer. Frames in and out, for example, may be counted by different threads, but
+ * not frames in by two threads.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SharedFrameCounters implements FrameCounters, AutoCloseable {
+
+  public static final int BACK_PRESSURE_TYPE_ID = 7;
+  public static final int BYTES_IN_TYPE_ID = 2;
+  public static final int BYTES_OUT_TYPE_ID = 4;
+  public static final int COMPACTIONS_TYPE_ID = 6;
+  public static final int FRAMES_IN_TYPE_ID = 1;
+  public static final int FRAMES_OUT_TYPE_ID = 3;
+  public static final int REJECTS_TYPE_ID = 5;
+
+  private static final int ENCODING_OFFSET = 4;
+  private static final int SOFH_LENGTH = 6;
+  // offset of templateId in the message header of every SBE version
+  private static final int TEMPLATE_ID_OFFSET = 2;
+  private static final int MIN_FRAME_LENGTH = SOFH_LENGTH + 8;
+
+  private final AtomicCounter backPressure;
+  private final AtomicCounter bytesIn;
+  private final AtomicCounter bytesOut;
+  private final AtomicCounter compactions;
+  /** Indexed by template ID; the last element counts other templates */
+  private final AtomicCounter[] framesIn;
+  private final AtomicCounter[] framesOut;
+  /** Indexed by ordinal of a reason */
+  private final AtomicCounter[] rejects;
+
+  /**
+   * Allocates counters
+   *
+   * @param manager allocates counters
+   * @param templateIds templates whose frames are counted separately
+   * @throws IllegalStateException if the manager has too few counters available
+   */
+  public SharedFrameCounters(CountersManager manager, int... templateIds) {
+    int maxTemplateId = -1;
+    for (final int templateId : templateIds) {
+      maxTemplateId = Math.max(maxTemplateId, templateId);
+    }
+    this.framesIn = new AtomicCounter[maxTemplateId + 2];
+    this.framesOut = new AtomicCounter[maxTemplateId + 2];
+    final AtomicCounter otherIn =
+        manager.newCounter("Frames in: other templates", FRAMES_IN_TYPE_ID);
+    final AtomicCounter otherOut =
+        manager.newCounter("Frames out: other templates", FRAMES_OUT_TYPE_ID);
+    for (int i = 0; i < framesIn.length; i++) {
+      framesIn[i] = otherIn;
+      framesOut[i] = otherOut;
+    }
+    for (final int templateId : templateIds) {
+      framesIn[templateId] =
+          manager.newCounter("Frames in: template " + templateId, FRAMES_IN_TYPE_ID);
+      framesOut[templateId] =
+          manager.newCounter("Frames out: template " + templateId, FRAMES_OUT_TYPE_ID);
+    }
+    this.bytesIn = manager.newCounter("Bytes in", BYTES_IN_TYPE_ID);
+    this.bytesOut = manager.newCounter("Bytes out", BYTES_OUT_TYPE_ID);
+    final Validity[] reasons = Validity.values();
+    this.rejects = new AtomicCounter[reasons.length];
+    for (final Validity reason : reasons) {
+      if (reason != Validity.VALID && reason != Validity.INCOMPLETE) {
+        rejects[reason.ordinal()] = manager.newCounter("Rejects: " + reason, REJECTS_TYPE_ID);
+      }
+    }
+    this.compactions = manager.newCounter("Buffer compactions", COMPACTIONS_TYPE_ID);
+    this.backPressure = manager.newCounter("Back pressure events", BACK_PRESSURE_TYPE_ID);
+  }
+
+  /**
+   * Frees the counters
+   */
+  @Override
+  public void close() {
+    for (final AtomicCounter counter : framesIn) {
+      counter.close();
+    }
+    for (final AtomicCounter counter : framesOut) {
+      counter.close();
+    }
+    for (final AtomicCounter counter : rejects) {
+      if (counter != null) {
+        counter.close();
+      }
+    }
+    bytesIn.close();
+    bytesOut.close();
+    compactions.close();
+    backPressure.close();
+  }
+
+  @Override
+  public void onBackPressure() {
+    backPressure.incrementOrdered();
+  }
+
+  @Override
+  public void onCompaction() {
+    compactions.incrementOrdered();
+  }
+
+  @Override
+  public void onFrameIn(DirectBuffer buffer, int offset, int length) {
+    framesIn[templateIndex(buffer, offset, length)].incrementOrdered();
+    bytesIn.getAndAddOrdered(length);
+  }
+
+  @Override
+  public void onFrameOut(DirectBuffer buffer, int offset, int length) {
+    framesOut[templateIndex(buffer, offset, length)].incrementOrdered();
+    bytesOut.getAndAddOrdered(length);
+  }
+
+  @Override
+  public void onReject(Validity reason) {
+    final AtomicCounter counter = rejects[reason.ordinal()];
+    if (counter != null) {
+      counter.incrementOrdered();
+    }
+  }
+
+  private int templateIndex(DirectBuffer buffer, int offset, int length) {
+    final int other = framesIn.length - 1;
+    if (length < MIN_FRAME_LENGTH) {
+      return other;
+    }
+    // read straight from the buffer; frames in and out may be counted on different threads
+    final ByteOrder byteOrder;
+    switch (buffer.getShort(offset + ENCODING_OFFSET, ByteOrder.BIG_ENDIAN)) {
+      case SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN:
+        byteOrder = ByteOrder.LITTLE_ENDIAN;
+        break;
+      case SofhFrameDecoder.SBE_1_0_BIG_ENDIAN:
+        byteOrder = ByteOrder.BIG_ENDIAN;
+        break;
+      default:
+        return other;
+    }
+    final int templateId =
+        buffer.getShort(offset + SOFH_LENGTH + TEMPLATE_ID_OFFSET, byteOrder) & 0xFFFF;
+    return templateId < other ? templateId : other;
+  }
+}
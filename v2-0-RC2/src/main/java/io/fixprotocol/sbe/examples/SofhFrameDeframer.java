@@ -0,0 +1,239 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.examples;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.agrona.BitUtil;
+import org.agrona.BufferUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.counters.FrameCounters;
+import io.fixprotocol.sbe.interpret.SofhFrameValidator;
+
+/**
+ * Splits a byte stream into frames delimited by a Simple Open Framing Header
+ * <p>
+ * Bytes are accumulated in a reusable off-heap buffer. A read may contain a partial frame or many
+ * frames; each complete frame is passed to a {@link SofhFrameHandler} in place, without copying.
+ * Unconsumed bytes of a partial frame are only moved to the start of the buffer when the rest of
+ * the frame would not fit behind them.
+ * <p>
+ * Constructed with a {@link SofhFrameValidator}, frames are checked against a schema and invalid
+ * bytes are skipped instead of failing the stream.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhFrameDeframer {
+
+  private final UnsafeBuffer buffer;
+  private final ByteBuffer byteBuffer;
+  private final int capacity;
+  private long compactions = 0;
+  private final FrameCounters counters;
+  private final SofhFrameHandler handler;
+  private int readOffset = 0;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final SofhFrameValidator validator;
+  private int writeOffset = 0;
+
+  /**
+   * Constructor
+   *
+   * @param capacity size of the receive buffer in bytes; must be at least as large as the largest
+   *        expected frame
+   * @param handler receives complete frames
+   */
+  public SofhFrameDeframer(int capacity, SofhFrameHandler handler) {
+    this(capacity, handler, FrameCounters.NONE);
+  }
+
+  /**
+   * Constructor with counters
+   *
+   * @param capacity size of the receive buffer in bytes; must be at least as large as the largest
+   *        expected frame
+   * @param handler receives complete frames
+   * @param counters counts frames, bytes and compactions
+   */
+  public SofhFrameDeframer(int capacity, SofhFrameHandler handler, FrameCounters counters) {
+    this(capacity, handler, null, counters);
+  }
+
+  /**
+   * Constructor for a stream that may be corrupt
+   *
+   * @param capacity size of the receive buffer in bytes; must be at least as large as the largest
+   *        frame that the validator accepts
+   * @param validator checks frames and delivers valid ones to its handler
+   */
+  public SofhFrameDeframer(int capacity, SofhFrameValidator validator) {
+    this(capacity, validator, FrameCounters.NONE);
+  }
+
+  /**
+   * Constructor for a stream that may be corrupt, with counters
+   *
+   * @param capacity size of the receive buffer in bytes; must be at least as large as the largest
+   *        frame that the validator accepts
+   * @param validator checks frames and delivers valid ones to its handler. Frames and rejects are
+   *        counted by the validator.
+   * @param counters counts compactions
+   */
+  public SofhFrameDeframer(int capacity, SofhFrameValidator validator, FrameCounters counters) {
+    this(capacity, null, validator, counters);
+  }
+
+  private SofhFrameDeframer(int capacity, SofhFrameHandler handler,
+      SofhFrameValidator validator, FrameCounters counters) {
+    if (capacity < sofhDecoder.encodedLength()) {
+      throw new IllegalArgumentException("Capacity too small for framing header");
+    } else if (validator != null && capacity < validator.maxFrameLength()) {
+      throw new IllegalArgumentException("Capacity too small for largest valid frame");
+    }
+    this.capacity = capacity;
+    this.handler = handler;
+    this.validator = validator;
+    this.counters = counters;
+    this.byteBuffer = BufferUtil.allocateDirectAligned(capacity, BitUtil.CACHE_LINE_LENGTH);
+    this.buffer = new UnsafeBuffer(byteBuffer);
+  }
+
+  /**
+   * @return number of bytes of an incomplete frame held in the buffer
+   */
+  public int bytesPending() {
+    return writeOffset - readOffset;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * @return number of times a partial frame was moved to the start of the buffer
+   */
+  public long compactions() {
+    return compactions;
+  }
+
+  /**
+   * Appends bytes that were received by other means, such as a datagram, and delivers any frames
+   * that they complete
+   *
+   * @param src source buffer
+   * @param offset offset of the first byte in the source buffer
+   * @param length number of bytes to append
+   * @return number of frames delivered
+   * @throws IOException if a framing header has an invalid message length
+   */
+  public int onBytes(DirectBuffer src, int offset, int length) throws IOException {
+    int frames = 0;
+    int position = offset;
+    int remaining = length;
+    while (remaining > 0) {
+      makeSpace();
+      final int bytesToCopy = Math.min(remaining, capacity - writeOffset);
+      buffer.putBytes(writeOffset, src, position, bytesToCopy);
+      writeOffset += bytesToCopy;
+      position += bytesToCopy;
+      remaining -= bytesToCopy;
+      frames += deframe();
+    }
+    return frames;
+  }
+
+  /**
+   * Performs a single read from a channel and delivers all frames that are complete
+   *
+   * @param channel source of bytes. If the channel is non-blocking, the read may return no bytes.
+   * @return number of frames delivered, or {@code -1} if the channel has reached end-of-stream
+   * @throws IOException if the read fails or a framing header has an invalid message length
+   */
+  public int read(ReadableByteChannel channel) throws IOException {
+    makeSpace();
+    byteBuffer.limit(capacity).position(writeOffset);
+    final int bytesRead = channel.read(byteBuffer);
+    if (bytesRead < 0) {
+      return -1;
+    }
+    writeOffset += bytesRead;
+    return deframe();
+  }
+
+  /**
+   * Discards any partial frame
+   */
+  public void reset() {
+    readOffset = 0;
+    writeOffset = 0;
+  }
+
+  private int deframe() throws IOException {
+    int frames = 0;
+    if (validator != null) {
+      // only a plausible header of a frame that fits the buffer is left unconsumed
+      final long valid = validator.framesValid();
+      readOffset += validator.scan(buffer, readOffset, writeOffset - readOffset);
+      frames = (int) (validator.framesValid() - valid);
+    } else {
+      final int headerLength = sofhDecoder.encodedLength();
+      while (writeOffset - readOffset >= headerLength) {
+        final int frameLength = frameLength(readOffset);
+        if (writeOffset - readOffset < frameLength) {
+          break;
+        }
+        counters.onFrameIn(buffer, readOffset, frameLength);
+        handler.onFrame(buffer, readOffset, frameLength);
+        readOffset += frameLength;
+        frames++;
+      }
+    }
+    if (readOffset == writeOffset) {
+      readOffset = 0;
+      writeOffset = 0;
+    }
+    return frames;
+  }
+
+  private int frameLength(int offset) throws IOException {
+    sofhDecoder.wrap(buffer, offset);
+    final long messageLength = sofhDecoder.messageLength();
+    if (messageLength < sofhDecoder.encodedLength() || messageLength > capacity) {
+      throw new IOException(
+          String.format("Invalid SOFH message length %d at offset %d", messageLength, offset));
+    }
+    return (int) messageLength;
+  }
+
+  private void makeSpace() throws IOException {
+    final int pending = writeOffset - readOffset;
+    final int required =
+        pending < sofhDecoder.encodedLength() ? sofhDecoder.encodedLength() : frameLength(readOffset);
+    if (readOffset + required > capacity) {
+      buffer.putBytes(0, buffer, readOffset, pending);
+      readOffset = 0;
+      writeOffset = pending;
+      compactions++;
+      counters.onCompaction();
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.examples;
+
+import org.agrona.DirectBuffer;
+
+/**
+ * Receives complete frames delimited by a Simple Open Framing Header
+ *
+ * @author Don Mendelson
+ *
+ */
+@FunctionalInterface
+public interface SofhFrameHandler {
+
+  /**
+   * Invoked for each complete frame. The buffer is only valid for the duration of the call; a
+   * handler that needs the frame afterwards must copy it.
+   *
+   * @param buffer buffer containing the frame
+   * @param offset offset of the framing header within the buffer
+   * @param length length of the frame, including the framing header
+   */
+  void onFrame(DirectBuffer buffer, int offset, int length);
+}
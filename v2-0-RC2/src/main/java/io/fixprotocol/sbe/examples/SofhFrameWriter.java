@@ -0,0 +1,288 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import org.agrona.BitUtil;
+import org.agrona.BufferUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.NanoClock;
+import org.agrona.concurrent.SystemNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.counters.FrameCounters;
+
+/**
+ * Appends frames with a Simple Open Framing Header to off-heap buffers and writes them to a
+ * channel in batches
+ * <p>
+ * A frame is encoded in place: {@link #claim(int)} reserves space and writes the framing header,
+ * the caller encodes an SBE message header and message into {@link #buffer()} at the returned
+ * offset, and {@link #commit(int)} back-patches the SOFH message length. Frames are written with a
+ * single gathering write when the pending bytes reach a size threshold, when the oldest pending
+ * frame reaches an age threshold, or when all buffers are full.
+ * <p>
+ * The channel is expected to be in blocking mode. Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhFrameWriter implements Closeable {
+
+  private final UnsafeBuffer[] buffers;
+  private final ByteBuffer[] byteBuffers;
+  private long bytesWritten = 0;
+  private final GatheringByteChannel channel;
+  private boolean claimed = false;
+  private int claimedMessageLength = 0;
+  private final NanoClock clock;
+  private final FrameCounters counters;
+  private final short encoding;
+  private long firstPendingNanos;
+  private final long flushIntervalNanos;
+  private final int flushThreshold;
+  private long frames = 0;
+  private final int[] lengths;
+  private int pendingBytes = 0;
+  private int position = 0;
+  private int segment = 0;
+  private final int segmentCapacity;
+  private final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+  private long writes = 0;
+
+  /**
+   * Constructor for little-endian SBE with system time
+   *
+   * @param channel destination of frames
+   * @param segmentCapacity size of each buffer in bytes; bounds the largest frame
+   * @param segments number of buffers that may be gathered in one write
+   * @param flushThreshold number of pending bytes that triggers a write
+   * @param flushIntervalNanos age of the oldest pending frame that triggers a write
+   */
+  public SofhFrameWriter(GatheringByteChannel channel, int segmentCapacity, int segments,
+      int flushThreshold, long flushIntervalNanos) {
+    this(channel, segmentCapacity, segments, flushThreshold, flushIntervalNanos,
+        SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN, new SystemNanoClock());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param channel destination of frames
+   * @param segmentCapacity size of each buffer in bytes; bounds the largest frame
+   * @param segments number of buffers that may be gathered in one write
+   * @param flushThreshold number of pending bytes that triggers a write
+   * @param flushIntervalNanos age of the oldest pending frame that triggers a write
+   * @param encoding SOFH encoding type of all frames
+   * @param clock source of time for the flush interval
+   */
+  public SofhFrameWriter(GatheringByteChannel channel, int segmentCapacity, int segments,
+      int flushThreshold, long flushIntervalNanos, short encoding, NanoClock clock) {
+    this(channel, segmentCapacity, segments, flushThreshold, flushIntervalNanos, encoding, clock,
+        FrameCounters.NONE);
+  }
+
+  /**
+   * Constructor with counters
+   *
+   * @param channel destination of frames
+   * @param segmentCapacity size of each buffer in bytes; bounds the largest frame
+   * @param segments number of buffers that may be gathered in one write
+   * @param flushThreshold number of pending bytes that triggers a write
+   * @param flushIntervalNanos age of the oldest pending frame that triggers a write
+   * @param encoding SOFH encoding type of all frames
+   * @param clock source of time for the flush interval
+   * @param counters counts frames and bytes committed
+   */
+  public SofhFrameWriter(GatheringByteChannel channel, int segmentCapacity, int segments,
+      int flushThreshold, long flushIntervalNanos, short encoding, NanoClock clock,
+      FrameCounters counters) {
+    if (segments < 1) {
+      throw new IllegalArgumentException("At least one segment required");
+    }
+    this.channel = channel;
+    this.segmentCapacity = segmentCapacity;
+    this.flushThreshold = flushThreshold;
+    this.flushIntervalNanos = flushIntervalNanos;
+    this.encoding = encoding;
+    this.clock = clock;
+    this.counters = counters;
+    this.buffers = new UnsafeBuffer[segments];
+    this.byteBuffers = new ByteBuffer[segments];
+    this.lengths = new int[segments];
+    for (int i = 0; i < segments; i++) {
+      byteBuffers[i] = BufferUtil.allocateDirectAligned(segmentCapacity, BitUtil.CACHE_LINE_LENGTH);
+      buffers[i] = new UnsafeBuffer(byteBuffers[i]);
+    }
+  }
+
+  /**
+   * Abandons the frame in progress
+   */
+  public void abort() {
+    claimed = false;
+  }
+
+  /**
+   * @return buffer in which the claimed frame is encoded. Only valid between {@link #claim(int)}
+   *         and {@link #commit(int)}.
+   */
+  public MutableDirectBuffer buffer() {
+    return buffers[segment];
+  }
+
+  public long bytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * Reserves space for a frame and writes its framing header. May write pending frames to make
+   * room.
+   *
+   * @param maxMessageLength maximum length of the SBE message, including its message header
+   * @return offset in {@link #buffer()} at which to encode the SBE message header
+   * @throws IOException if pending frames must be written and the write fails
+   * @throws IllegalArgumentException if the frame could never fit in a buffer
+   */
+  public int claim(int maxMessageLength) throws IOException {
+    final int maxFrameLength = sofhEncoder.encodedLength() + maxMessageLength;
+    if (maxFrameLength > segmentCapacity) {
+      throw new IllegalArgumentException("Frame length exceeds segment capacity");
+    }
+    if (position + maxFrameLength > segmentCapacity) {
+      if (segment + 1 < buffers.length) {
+        lengths[segment] = position;
+        segment++;
+        position = 0;
+      } else {
+        flush();
+      }
+    }
+    sofhEncoder.wrap(buffers[segment], position).encoding(encoding);
+    claimed = true;
+    claimedMessageLength = maxMessageLength;
+    return position + sofhEncoder.encodedLength();
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+    channel.close();
+  }
+
+  /**
+   * Completes the claimed frame and writes pending frames if a threshold is reached
+   *
+   * @param messageLength actual length of the SBE message, including its message header
+   * @throws IOException if a write fails
+   * @throws IllegalStateException if no frame was claimed
+   * @throws IllegalArgumentException if the message length is negative or exceeds the length
+   *         claimed. The frame remains claimed.
+   */
+  public void commit(int messageLength) throws IOException {
+    if (!claimed) {
+      throw new IllegalStateException("No frame claimed");
+    }
+    if (messageLength < 0 || messageLength > claimedMessageLength) {
+      throw new IllegalArgumentException("Message length exceeds length claimed");
+    }
+    claimed = false;
+    final int frameLength = sofhEncoder.encodedLength() + messageLength;
+    sofhEncoder.messageLength(frameLength);
+    counters.onFrameOut(buffers[segment], position, frameLength);
+    position += frameLength;
+    frames++;
+
+    final long now = clock.nanoTime();
+    if (pendingBytes == 0) {
+      firstPendingNanos = now;
+    }
+    pendingBytes += frameLength;
+    if (pendingBytes >= flushThreshold || now - firstPendingNanos >= flushIntervalNanos) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes all committed frames
+   *
+   * @return number of bytes written
+   * @throws IOException if the write fails
+   * @throws IllegalStateException if a frame is claimed but not committed
+   */
+  public int flush() throws IOException {
+    if (claimed) {
+      throw new IllegalStateException("Frame claimed but not committed");
+    }
+    if (pendingBytes == 0) {
+      return 0;
+    }
+    lengths[segment] = position;
+    final int segmentsToWrite = segment + 1;
+    for (int i = 0; i < segmentsToWrite; i++) {
+      byteBuffers[i].limit(lengths[i]).position(0);
+    }
+    final int bytes = pendingBytes;
+    long remaining = bytes;
+    while (remaining > 0) {
+      remaining -= channel.write(byteBuffers, 0, segmentsToWrite);
+      writes++;
+    }
+    bytesWritten += bytes;
+    pendingBytes = 0;
+    segment = 0;
+    position = 0;
+    return bytes;
+  }
+
+  /**
+   * Writes pending frames if the oldest has waited longer than the flush interval. Call
+   * periodically when frames are committed irregularly.
+   *
+   * @return number of bytes written
+   * @throws IOException if the write fails
+   */
+  public int flushIfDue() throws IOException {
+    if (pendingBytes > 0 && clock.nanoTime() - firstPendingNanos >= flushIntervalNanos) {
+      return flush();
+    }
+    return 0;
+  }
+
+  /**
+   * @return number of frames committed
+   */
+  public long frames() {
+    return frames;
+  }
+
+  /**
+   * @return number of bytes committed but not yet written
+   */
+  public int pendingBytes() {
+    return pendingBytes;
+  }
+
+  /**
+   * @return number of channel writes performed
+   */
+  public long writes() {
+    return writes;
+  }
+}
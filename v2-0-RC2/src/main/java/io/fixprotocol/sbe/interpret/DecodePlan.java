@@ -0,0 +1,428 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.co.real_logic.sbe.PrimitiveType;
+import uk.co.real_logic.sbe.ir.Encoding;
+import uk.co.real_logic.sbe.ir.Signal;
+import uk.co.real_logic.sbe.ir.Token;
+
+/**
+ * Flat list of decode operations compiled from the IR tokens of a message or of the message header
+ * <p>
+ * Each operation is a row of parallel arrays so that interpreting a message is a single loop over
+ * primitive values. Operations of composite members, set choices and group dimensions follow the
+ * operation that owns them.
+ *
+ * @author Don Mendelson
+ *
+ */
+final class DecodePlan {
+
+  /** Primitive field, or a primitive in a dimension or header */
+  static final int SCALAR = 0;
+  /** Fixed-length character array */
+  static final int CHARS = 1;
+  /** Fixed-length array of a primitive other than char */
+  static final int ARRAY = 2;
+  static final int ENUM = 3;
+  static final int SET = 4;
+  /** Composite of mantissa and exponent */
+  static final int DECIMAL = 5;
+  /** Composite of time and unit */
+  static final int TIMESTAMP = 6;
+  /** Any other composite; its members follow */
+  static final int COMPOSITE = 7;
+  static final int MEMBER = 8;
+  /** Repeating group; its dimension members follow, then the fields of an entry */
+  static final int GROUP = 9;
+  static final int GROUP_END = 10;
+  static final int VAR_DATA = 11;
+
+  /** Semantic formats of a scalar */
+  static final int FORMAT_NUMBER = 0;
+  static final int FORMAT_DATE = 1;
+  static final int FORMAT_TIMESTAMP = 2;
+  static final int FORMAT_CHAR = 3;
+
+  /** Roles of header and dimension members */
+  static final int ROLE_NONE = 0;
+  static final int ROLE_BLOCK_LENGTH = 1;
+  static final int ROLE_NUM_IN_GROUP = 2;
+  static final int ROLE_TEMPLATE_ID = 3;
+  static final int ROLE_SCHEMA_ID = 4;
+  static final int ROLE_VERSION = 5;
+
+  private static final Map<String, String> DIMENSION_LABELS = new HashMap<>();
+  private static final Map<String, String> HEADER_LABELS = new HashMap<>();
+
+  static {
+    HEADER_LABELS.put("blockLength", "SBE root block length");
+    HEADER_LABELS.put("templateId", "SBE template ID");
+    HEADER_LABELS.put("schemaId", "SBE schema ID");
+    HEADER_LABELS.put("version", "SBE schema version");
+    HEADER_LABELS.put("numGroups", "No. of groups");
+    HEADER_LABELS.put("numVarDataFields", "No. of var data");
+    DIMENSION_LABELS.put("blockLength", "Group block length");
+    DIMENSION_LABELS.put("numInGroup", "NumInGroup");
+    DIMENSION_LABELS.put("numGroups", "No. of groups");
+    DIMENSION_LABELS.put("numVarDataFields", "No. of var data");
+  }
+
+  /**
+   * Compiles the message header composite
+   *
+   * @param tokens tokens of the header structure
+   * @return a plan of {@link #SCALAR} operations with roles
+   */
+  static DecodePlan compileHeader(List<Token> tokens) {
+    final Token begin = tokens.get(0);
+    final DecodePlan plan = new DecodePlan(begin.name(), 0, begin.encodedLength(), tokens.size());
+    for (int i = 1; i < tokens.size() - 1; i++) {
+      final Token token = tokens.get(i);
+      if (token.signal() == Signal.ENCODING && !token.isConstantEncoding()) {
+        plan.addScalar(token, HEADER_LABELS.getOrDefault(token.name(), token.name()), 0,
+            token.offset(), 0, role(token.name()));
+      }
+    }
+    return plan;
+  }
+
+  /**
+   * Compiles a message
+   *
+   * @param tokens tokens of a message from {@code Ir.getMessage()}
+   * @return a plan of operations
+   */
+  static DecodePlan compileMessage(List<Token> tokens) {
+    final Token begin = tokens.get(0);
+    final DecodePlan plan =
+        new DecodePlan(begin.name(), begin.id(), begin.encodedLength(), tokens.size());
+    plan.compileFields(tokens, 1, tokens.size() - 1);
+    return plan;
+  }
+
+  private static int role(String name) {
+    switch (name) {
+      case "blockLength":
+        return ROLE_BLOCK_LENGTH;
+      case "numInGroup":
+        return ROLE_NUM_IN_GROUP;
+      case "templateId":
+        return ROLE_TEMPLATE_ID;
+      case "schemaId":
+        return ROLE_SCHEMA_ID;
+      case "version":
+        return ROLE_VERSION;
+      default:
+        return ROLE_NONE;
+    }
+  }
+
+  int[] aux;
+  int[] aux2;
+  final int blockLength;
+  byte[][][] choiceNames;
+  long[][] choiceValues;
+  long[] constValue;
+  int count = 0;
+  int[] fieldId;
+  int[] kind;
+  int[] length;
+  final String name;
+  String[] names;
+  long[] nullValue;
+  int[] offset;
+  int[] sinceVersion;
+  final int templateId;
+  PrimitiveType[] type;
+
+  private DecodePlan(String name, int templateId, int blockLength, int capacity) {
+    this.name = name;
+    this.templateId = templateId;
+    this.blockLength = blockLength;
+    aux = new int[capacity];
+    aux2 = new int[capacity];
+    choiceNames = new byte[capacity][][];
+    choiceValues = new long[capacity][];
+    constValue = new long[capacity];
+    fieldId = new int[capacity];
+    kind = new int[capacity];
+    length = new int[capacity];
+    names = new String[capacity];
+    nullValue = new long[capacity];
+    offset = new int[capacity];
+    sinceVersion = new int[capacity];
+    type = new PrimitiveType[capacity];
+  }
+
+  private int add(int opKind, String opName, int id, int opOffset, int opLength, int version) {
+    final int op = count++;
+    kind[op] = opKind;
+    names[op] = opName;
+    fieldId[op] = Math.max(id, 0);
+    offset[op] = opOffset;
+    length[op] = opLength;
+    sinceVersion[op] = version;
+    return op;
+  }
+
+  private int addScalar(Token encoding, String opName, int id, int opOffset, int version,
+      int role) {
+    final Encoding enc = encoding.encoding();
+    final int op = add(SCALAR, opName, id, opOffset, encoding.encodedLength(), version);
+    type[op] = enc.primitiveType();
+    nullValue[op] = nullValue(enc);
+    aux[op] = role;
+    return op;
+  }
+
+  private void compileComposite(Token field, List<Token> tokens, int begin, int end) {
+    final Token composite = tokens.get(begin);
+    int mantissa = -1;
+    int exponent = -1;
+    int time = -1;
+    int unit = -1;
+    for (int i = begin + 1; i < end; i++) {
+      final Token member = tokens.get(i);
+      switch (member.name()) {
+        case "mantissa":
+          mantissa = i;
+          break;
+        case "exponent":
+          exponent = i;
+          break;
+        case "time":
+          time = i;
+          break;
+        case "unit":
+          unit = i;
+          break;
+        default:
+          break;
+      }
+    }
+
+    final int fieldOffset = composite.offset();
+    if (mantissa != -1 && exponent != -1) {
+      final Token m = tokens.get(mantissa);
+      final Token e = tokens.get(exponent);
+      final int op = add(DECIMAL, field.name(), field.id(), fieldOffset,
+          composite.encodedLength(), field.version());
+      type[op] = m.encoding().primitiveType();
+      nullValue[op] = nullValue(m.encoding());
+      aux[op] = m.offset();
+      if (e.isConstantEncoding()) {
+        aux2[op] = -1;
+        constValue[op] = e.encoding().constValue().longValue();
+      } else {
+        aux2[op] = e.offset();
+      }
+    } else if (time != -1 && unit != -1) {
+      final Token t = tokens.get(time);
+      final Token u = tokens.get(unit);
+      final int op = add(TIMESTAMP, field.name(), field.id(), fieldOffset,
+          composite.encodedLength(), field.version());
+      type[op] = t.encoding().primitiveType();
+      nullValue[op] = nullValue(t.encoding());
+      aux[op] = t.offset();
+      if (u.isConstantEncoding()) {
+        aux2[op] = -1;
+        constValue[op] = u.encoding().constValue().longValue();
+      } else {
+        aux2[op] = u.offset();
+      }
+    } else {
+      final int op = add(COMPOSITE, field.name(), field.id(), fieldOffset,
+          composite.encodedLength(), field.version());
+      compileMembers(tokens, begin + 1, end, fieldOffset);
+      aux[op] = count - op - 1;
+    }
+  }
+
+  private void compileEnum(Token field, List<Token> tokens, int begin, int end) {
+    final Token enumToken = tokens.get(begin);
+    final int op = add(ENUM, field.name(), field.id(), enumToken.offset(),
+        enumToken.encodedLength(), field.version());
+    type[op] = enumToken.encoding().primitiveType();
+    nullValue[op] = nullValue(enumToken.encoding());
+    final int values = end - begin - 1;
+    choiceValues[op] = new long[values];
+    choiceNames[op] = new byte[values][];
+    for (int i = 0; i < values; i++) {
+      final Token validValue = tokens.get(begin + 1 + i);
+      choiceValues[op][i] = validValue.encoding().constValue().longValue();
+      choiceNames[op][i] = validValue.name().getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  private void compileFields(List<Token> tokens, int begin, int end) {
+    for (int i = begin; i < end;) {
+      final Token token = tokens.get(i);
+      switch (token.signal()) {
+        case BEGIN_FIELD:
+          compileField(token, tokens, i + 1, i + token.componentTokenCount() - 1);
+          break;
+        case BEGIN_GROUP:
+          compileGroup(token, tokens, i, i + token.componentTokenCount() - 1);
+          break;
+        case BEGIN_VAR_DATA:
+          compileVarData(token, tokens, i + 1);
+          break;
+        default:
+          break;
+      }
+      i += token.componentTokenCount();
+    }
+  }
+
+  private void compileField(Token field, List<Token> tokens, int begin, int end) {
+    final Token encoding = tokens.get(begin);
+    switch (encoding.signal()) {
+      case ENCODING:
+        if (encoding.isConstantEncoding()) {
+          return;
+        }
+        final PrimitiveType primitiveType = encoding.encoding().primitiveType();
+        if (encoding.arrayLength() > 1) {
+          final int op = add(primitiveType == PrimitiveType.CHAR ? CHARS : ARRAY, field.name(),
+              field.id(), encoding.offset(), encoding.encodedLength(), field.version());
+          type[op] = primitiveType;
+          aux[op] = encoding.arrayLength();
+        } else {
+          final int op = addScalar(encoding, field.name(), field.id(), encoding.offset(),
+              field.version(), ROLE_NONE);
+          aux2[op] = format(primitiveType, encoding.encoding().semanticType());
+        }
+        break;
+      case BEGIN_ENUM:
+        compileEnum(field, tokens, begin, begin + encoding.componentTokenCount() - 1);
+        break;
+      case BEGIN_SET:
+        compileSet(field, tokens, begin, begin + encoding.componentTokenCount() - 1);
+        break;
+      case BEGIN_COMPOSITE:
+        compileComposite(field, tokens, begin, begin + encoding.componentTokenCount() - 1);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void compileGroup(Token group, List<Token> tokens, int begin, int end) {
+    final int op = add(GROUP, group.name(), group.id(), 0, group.encodedLength(), group.version());
+    final Token dimension = tokens.get(begin + 1);
+    final int dimensionEnd = begin + 1 + dimension.componentTokenCount() - 1;
+    for (int i = begin + 2; i < dimensionEnd; i++) {
+      final Token member = tokens.get(i);
+      if (member.signal() == Signal.ENCODING && !member.isConstantEncoding()) {
+        addScalar(member, DIMENSION_LABELS.getOrDefault(member.name(), member.name()), 0,
+            member.offset(), group.version(), role(member.name()));
+      }
+    }
+    aux2[op] = count - op - 1;
+    offset[op] = dimension.encodedLength();
+    compileFields(tokens, dimensionEnd + 1, end);
+    add(GROUP_END, group.name(), group.id(), 0, 0, group.version());
+    aux[op] = count - 1;
+  }
+
+  private void compileMembers(List<Token> tokens, int begin, int end, int baseOffset) {
+    for (int i = begin; i < end;) {
+      final Token member = tokens.get(i);
+      switch (member.signal()) {
+        case ENCODING:
+          if (!member.isConstantEncoding() && member.arrayLength() <= 1) {
+            final int op = addScalar(member, member.name(), 0, baseOffset + member.offset(), 0,
+                ROLE_NONE);
+            kind[op] = MEMBER;
+            choiceNames[op] = new byte[][] {member.name().getBytes(StandardCharsets.US_ASCII)};
+          }
+          break;
+        case BEGIN_ENUM:
+          final int op = add(MEMBER, member.name(), 0, baseOffset + member.offset(),
+              member.encodedLength(), 0);
+          choiceNames[op] = new byte[][] {member.name().getBytes(StandardCharsets.US_ASCII)};
+          type[op] = member.encoding().primitiveType();
+          nullValue[op] = nullValue(member.encoding());
+          break;
+        case BEGIN_COMPOSITE:
+          compileMembers(tokens, i + 1, i + member.componentTokenCount() - 1,
+              baseOffset + member.offset());
+          break;
+        default:
+          break;
+      }
+      i += member.componentTokenCount();
+    }
+  }
+
+  private void compileSet(Token field, List<Token> tokens, int begin, int end) {
+    final Token set = tokens.get(begin);
+    final int op = add(SET, field.name(), field.id(), set.offset(), set.encodedLength(),
+        field.version());
+    type[op] = set.encoding().primitiveType();
+    final int choices = end - begin - 1;
+    choiceValues[op] = new long[choices];
+    choiceNames[op] = new byte[choices][];
+    for (int i = 0; i < choices; i++) {
+      final Token choice = tokens.get(begin + 1 + i);
+      choiceValues[op][i] = choice.encoding().constValue().longValue();
+      choiceNames[op][i] = choice.name().getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  private void compileVarData(Token varData, List<Token> tokens, int begin) {
+    final Token lengthToken = tokens.get(begin + 1);
+    final Token dataToken = tokens.get(begin + 2);
+    final int op = add(VAR_DATA, varData.name(), varData.id(), lengthToken.offset(),
+        lengthToken.encodedLength(), varData.version());
+    type[op] = lengthToken.encoding().primitiveType();
+    aux[op] = dataToken.offset();
+  }
+
+  private int format(PrimitiveType primitiveType, String semanticType) {
+    if (primitiveType == PrimitiveType.CHAR) {
+      return FORMAT_CHAR;
+    } else if ("LocalMktDate".equals(semanticType)) {
+      return FORMAT_DATE;
+    } else if ("UTCTimestamp".equals(semanticType)) {
+      return FORMAT_TIMESTAMP;
+    } else {
+      return FORMAT_NUMBER;
+    }
+  }
+
+  private long nullValue(Encoding encoding) {
+    final PrimitiveType primitiveType = encoding.primitiveType();
+    if (primitiveType == null || primitiveType == PrimitiveType.FLOAT
+        || primitiveType == PrimitiveType.DOUBLE) {
+      return 0;
+    }
+    return encoding.applicableNullValue().longValue();
+  }
+
+  @Override
+  public String toString() {
+    return "DecodePlan [name=" + name + ", templateId=" + templateId + ", blockLength="
+        + blockLength + ", kind=" + Arrays.toString(Arrays.copyOf(kind, count)) + "]";
+  }
+}
@@ -0,0 +1,519 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import static io.fixprotocol.sbe.interpret.HeaderLayout.get;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import io.fixprotocol.sbe.capture.SofhCaptureReader;
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+import uk.co.real_logic.sbe.ir.Ir;
+import uk.co.real_logic.sbe.ir.Signal;
+import uk.co.real_logic.sbe.ir.Token;
+
+/**
+ * Converts framed messages of a schema between little-endian and big-endian byte order in place
+ * <p>
+ * The schema IR is compiled once into a flat list of swap operations per template: one for each
+ * multi-byte field of the root block, of each composite member, of the dimensions of each
+ * repeating group, and of each var-data length prefix. Transcoding a frame walks the list once and
+ * reverses the bytes of each field, then rewrites the encoding of the Simple Open Framing Header,
+ * whose message length is big-endian in either case.
+ * <p>
+ * The frame is measured before it is changed, so a frame that cannot be transcoded, because its
+ * encoding, schema or template is unknown or a group or var-data field overruns it, is left as it
+ * was. As in {@link MessageInterpreter}, fields added in a later version than the message, or
+ * beyond its block length, are not touched. Nothing is allocated per frame.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public final class EndianTranscoder {
+
+  /**
+   * Returned for a frame that cannot be transcoded
+   */
+  public static final int REJECTED = -1;
+
+  private static final int SWAP = 0;
+  /** Repeating group; its dimension swaps follow, then the operations of an entry */
+  private static final int GROUP = 1;
+  private static final int GROUP_END = 2;
+  private static final int VAR_DATA = 3;
+
+  /**
+   * Loads a schema from the class path
+   *
+   * @param name resource name of an SBE XML schema
+   * @param target byte order to convert frames to
+   * @return a transcoder of the schema
+   * @throws IOException if the resource is not found or is not a valid schema
+   */
+  public static EndianTranscoder fromResource(String name, ByteOrder target) throws IOException {
+    return new EndianTranscoder(MessageInterpreter.loadResource(name), target);
+  }
+
+  /**
+   * Converts a capture file in place
+   * <p>
+   * Arguments: capture file and target byte order, {@code big} or {@code little}. The example
+   * schema is used.
+   *
+   * @param args command line arguments
+   * @throws IOException if the file cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: EndianTranscoder <capture file> big|little");
+      System.exit(1);
+    }
+    final ByteOrder target =
+        "little".equals(args[1]) ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+    final EndianTranscoder transcoder = fromResource(MessageInterpreter.EXAMPLES_SCHEMA, target);
+    final long start = System.nanoTime();
+    final long bytes = transcoder.transcodeCapture(Paths.get(args[0]));
+    final long elapsed = System.nanoTime() - start;
+    System.out.printf("%d frames transcoded, %d unchanged, %d rejected; %.1f MB/s%n",
+        transcoder.framesTranscoded(), transcoder.framesUnchanged(), transcoder.framesRejected(),
+        bytes * 1e3 / Math.max(elapsed, 1));
+  }
+
+  /**
+   * Operations of a template or of the message header, as rows of parallel arrays
+   */
+  private static final class SwapPlan {
+    /** Extent of the fields of a block that starts at an operation */
+    final int[] blockExtent;
+    /** Version in which all fields of a block that starts at an operation are present */
+    final int[] blockVersion;
+    int count = 0;
+    /** GROUP: encoded length of the dimension; VAR_DATA: offset of the data */
+    final int[] dataOffset;
+    /** GROUP: number of dimension swaps that follow */
+    final int[] dimensionOps;
+    /** GROUP: index of its GROUP_END */
+    final int[] end;
+    /** SWAP: number of elements of an array */
+    final int[] elements;
+    final int[] kind;
+    /** GROUP: offset and size of numInGroup */
+    final int[] numInGroupOffset;
+    final int[] numInGroupSize;
+    /** SWAP: offset in block; GROUP: offset of block length; VAR_DATA: offset of length */
+    final int[] offset;
+    final int[] sinceVersion;
+    /** Size of a primitive element */
+    final int[] size;
+    /** Whether the message has a group or var-data field */
+    boolean variableLength = false;
+
+    SwapPlan(int capacity) {
+      // a block may start after the last operation
+      blockExtent = new int[capacity + 1];
+      blockVersion = new int[capacity + 1];
+      dataOffset = new int[capacity];
+      dimensionOps = new int[capacity];
+      end = new int[capacity];
+      elements = new int[capacity];
+      kind = new int[capacity];
+      numInGroupOffset = new int[capacity];
+      numInGroupSize = new int[capacity];
+      offset = new int[capacity];
+      sinceVersion = new int[capacity];
+      size = new int[capacity];
+    }
+
+    /**
+     * Records the extent and version of a block for the swap that needs no per-field checks
+     */
+    void completeBlock(int from, int to) {
+      for (int op = from; op < to; op++) {
+        blockExtent[from] = Math.max(blockExtent[from], offset[op] + size[op] * elements[op]);
+        blockVersion[from] = Math.max(blockVersion[from], sinceVersion[op]);
+      }
+    }
+
+    /**
+     * Records a block of the fields that start at an operation
+     */
+    void completeFields(int from) {
+      int to = from;
+      while (to < count && kind[to] == SWAP) {
+        to++;
+      }
+      completeBlock(from, to);
+    }
+
+    int add(int opKind, int opOffset, int opSize, int version) {
+      final int op = count++;
+      kind[op] = opKind;
+      variableLength |= opKind != SWAP;
+      offset[op] = opOffset;
+      size[op] = opSize;
+      elements[op] = 1;
+      sinceVersion[op] = version;
+      return op;
+    }
+
+    void compileEncoding(Token token, int baseOffset, int version) {
+      if (token.isConstantEncoding() || token.encoding().primitiveType() == null) {
+        return;
+      }
+      final int elementSize = token.encoding().primitiveType().size();
+      if (elementSize > 1 && token.arrayLength() > 0) {
+        final int op = add(SWAP, baseOffset + token.offset(), elementSize, version);
+        elements[op] = token.arrayLength();
+      }
+    }
+
+    void compileFields(List<Token> tokens, int begin, int finish) {
+      for (int i = begin; i < finish;) {
+        final Token token = tokens.get(i);
+        switch (token.signal()) {
+          case BEGIN_FIELD:
+            compileType(tokens, i + 1, 0, token.version());
+            break;
+          case BEGIN_GROUP:
+            compileGroup(token, tokens, i, i + token.componentTokenCount() - 1);
+            break;
+          case BEGIN_VAR_DATA:
+            final Token lengthToken = tokens.get(i + 2);
+            final int op = add(VAR_DATA, lengthToken.offset(), lengthToken.encodedLength(),
+                token.version());
+            dataOffset[op] = tokens.get(i + 3).offset();
+            break;
+          default:
+            break;
+        }
+        i += token.componentTokenCount();
+      }
+    }
+
+    void compileGroup(Token group, List<Token> tokens, int begin, int finish) {
+      final int op = add(GROUP, 0, 0, group.version());
+      final Token dimension = tokens.get(begin + 1);
+      final int dimensionEnd = begin + dimension.componentTokenCount();
+      for (int i = begin + 2; i < dimensionEnd; i++) {
+        final Token member = tokens.get(i);
+        if (member.signal() == Signal.ENCODING) {
+          if ("blockLength".equals(member.name())) {
+            offset[op] = member.offset();
+            size[op] = member.encodedLength();
+          } else if ("numInGroup".equals(member.name())) {
+            numInGroupOffset[op] = member.offset();
+            numInGroupSize[op] = member.encodedLength();
+          }
+          compileEncoding(member, 0, group.version());
+        }
+      }
+      dimensionOps[op] = count - op - 1;
+      dataOffset[op] = dimension.encodedLength();
+      completeBlock(op + 1, count);
+      compileFields(tokens, dimensionEnd + 1, finish);
+      completeFields(op + 1 + dimensionOps[op]);
+      end[op] = add(GROUP_END, 0, 0, group.version());
+    }
+
+    /**
+     * Compiles the type of a field or composite member at a token
+     */
+    void compileType(List<Token> tokens, int index, int baseOffset, int version) {
+      final Token token = tokens.get(index);
+      switch (token.signal()) {
+        case ENCODING:
+        case BEGIN_ENUM:
+        case BEGIN_SET:
+          compileEncoding(token, baseOffset, version);
+          break;
+        case BEGIN_COMPOSITE:
+          final int finish = index + token.componentTokenCount() - 1;
+          for (int i = index + 1; i < finish;) {
+            compileType(tokens, i, baseOffset + token.offset(), version);
+            i += tokens.get(i).componentTokenCount();
+          }
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private int actingVersion;
+  private long framesRejected = 0;
+  private long framesTranscoded = 0;
+  private long framesUnchanged = 0;
+  private final SofhFrameHandler onFrame = this::onFrame;
+  private final SwapPlan header;
+  private final HeaderLayout headerLayout;
+  private final int headerLength;
+  private final SwapPlan[] plans;
+  private final int schemaId;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+  private final short targetEncoding;
+
+  /**
+   * Constructor
+   *
+   * @param ir intermediate representation of a schema
+   * @param target byte order to convert frames to
+   */
+  public EndianTranscoder(Ir ir, ByteOrder target) {
+    this.schemaId = ir.id();
+    this.targetEncoding = target == ByteOrder.BIG_ENDIAN ? SofhFrameEncoder.SBE_1_0_BIG_ENDIAN
+        : SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN;
+    this.headerLayout = new HeaderLayout(ir);
+    this.headerLength = headerLayout.length;
+    final List<Token> headerTokens = ir.headerStructure().tokens();
+    this.header = new SwapPlan(headerTokens.size());
+    for (final Token token : headerTokens) {
+      if (token.signal() == Signal.ENCODING) {
+        header.compileEncoding(token, 0, 0);
+      }
+    }
+    header.completeBlock(0, header.count);
+    this.plans = new SwapPlan[HeaderLayout.templateTableLength(ir)];
+    for (final List<Token> tokens : ir.messages()) {
+      final SwapPlan plan = new SwapPlan(tokens.size());
+      plan.compileFields(tokens, 1, tokens.size() - 1);
+      plan.completeFields(0);
+      plans[tokens.get(0).id()] = plan;
+    }
+  }
+
+  /**
+   * @return number of frames that could not be transcoded
+   */
+  public long framesRejected() {
+    return framesRejected;
+  }
+
+  /**
+   * @return number of frames converted to the target byte order
+   */
+  public long framesTranscoded() {
+    return framesTranscoded;
+  }
+
+  /**
+   * @return number of frames that were already in the target byte order
+   */
+  public long framesUnchanged() {
+    return framesUnchanged;
+  }
+
+  /**
+   * Converts every complete frame of a capture file in place, mapping the file in windows
+   *
+   * @param path capture file
+   * @return number of bytes of the frames read
+   * @throws IOException if the file cannot be mapped or a frame has an invalid length
+   */
+  public long transcodeCapture(Path path) throws IOException {
+    try (SofhCaptureReader reader =
+        new SofhCaptureReader(path, SofhCaptureReader.DEFAULT_WINDOW_SIZE, true)) {
+      reader.replay(onFrame);
+      return reader.position();
+    }
+  }
+
+  /**
+   * Converts a frame in place to the target byte order
+   *
+   * @param buffer buffer containing the frame
+   * @param offset index of the framing header
+   * @param length length of the frame
+   * @return length of the frame, or {@link #REJECTED} if it cannot be transcoded, in which case
+   *         it is unchanged
+   */
+  public int transcodeFrame(MutableDirectBuffer buffer, int offset, int length) {
+    if (length < sofhDecoder.encodedLength() + headerLength) {
+      framesRejected++;
+      return REJECTED;
+    }
+    sofhDecoder.wrap(buffer, offset);
+    final short encoding = sofhDecoder.encoding();
+    final ByteOrder source;
+    if (encoding == targetEncoding) {
+      framesUnchanged++;
+      return length;
+    } else if (encoding == SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN) {
+      source = ByteOrder.LITTLE_ENDIAN;
+    } else if (encoding == SofhFrameDecoder.SBE_1_0_BIG_ENDIAN) {
+      source = ByteOrder.BIG_ENDIAN;
+    } else {
+      framesRejected++;
+      return REJECTED;
+    }
+
+    final int headerOffset = offset + sofhDecoder.encodedLength();
+    final long templateId = headerLayout.templateId(buffer, headerOffset, source);
+    final SwapPlan plan = templateId < plans.length
+        && headerLayout.schemaId(buffer, headerOffset, source) == schemaId
+            ? plans[(int) templateId]
+            : null;
+    if (plan == null) {
+      framesRejected++;
+      return REJECTED;
+    }
+    final long blockLength = headerLayout.blockLength(buffer, headerOffset, source);
+    actingVersion = (int) headerLayout.version(buffer, headerOffset, source);
+    final int blockStart = headerOffset + headerLength;
+    final int limit = offset + length;
+    // a frame without groups or var data is measured by its root block alone
+    if (blockLength > limit - blockStart || plan.variableLength && walk(plan, 0, plan.count,
+        buffer, blockStart, (int) blockLength, blockStart + (int) blockLength, limit, source,
+        false) < 0) {
+      framesRejected++;
+      return REJECTED;
+    }
+
+    walk(plan, 0, plan.count, buffer, blockStart, (int) blockLength,
+        blockStart + (int) blockLength, limit, source, true);
+    swapBlock(header, 0, header.count, buffer, headerOffset, headerLength);
+    sofhEncoder.wrap(buffer, offset).encoding(targetEncoding);
+    framesTranscoded++;
+    return length;
+  }
+
+  private void onFrame(DirectBuffer buffer, int offset, int length) {
+    // a writable capture reader passes its mapped window
+    transcodeFrame((MutableDirectBuffer) buffer, offset, length);
+  }
+
+  private void swap(MutableDirectBuffer buffer, int index, int size, int elements) {
+    final int end = index + size * elements;
+    switch (size) {
+      case 2:
+        for (int i = index; i < end; i += 2) {
+          buffer.putShort(i, Short.reverseBytes(buffer.getShort(i)));
+        }
+        break;
+      case 4:
+        for (int i = index; i < end; i += 4) {
+          buffer.putInt(i, Integer.reverseBytes(buffer.getInt(i)));
+        }
+        break;
+      case 8:
+        for (int i = index; i < end; i += 8) {
+          buffer.putLong(i, Long.reverseBytes(buffer.getLong(i)));
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Swaps the fields of a block that are present in its acting version and length
+   */
+  private void swapBlock(SwapPlan plan, int from, int to, MutableDirectBuffer buffer,
+      int blockStart, int blockLength) {
+    if (plan.blockVersion[from] <= actingVersion && plan.blockExtent[from] <= blockLength) {
+      for (int op = from; op < to; op++) {
+        swap(buffer, blockStart + plan.offset[op], plan.size[op], plan.elements[op]);
+      }
+      return;
+    }
+    for (int op = from; op < to; op++) {
+      if (plan.sinceVersion[op] <= actingVersion
+          && plan.offset[op] + plan.size[op] * plan.elements[op] <= blockLength) {
+        swap(buffer, blockStart + plan.offset[op], plan.size[op], plan.elements[op]);
+      }
+    }
+  }
+
+  /**
+   * Walks the operations of a block and what follows it
+   *
+   * @return position after the last group or var-data field, or {@code -1} if one overruns the
+   *         limit
+   */
+  private int walk(SwapPlan plan, int from, int to, MutableDirectBuffer buffer, int blockStart,
+      int blockLength, int position, int limit, ByteOrder source, boolean swap) {
+    int op = from;
+    // fields of the block precede its groups and var data
+    while (op < to && plan.kind[op] == SWAP) {
+      op++;
+    }
+    if (swap) {
+      swapBlock(plan, from, op, buffer, blockStart, blockLength);
+    }
+    for (; op < to; op++) {
+      if (plan.sinceVersion[op] > actingVersion) {
+        if (plan.kind[op] == GROUP) {
+          op = plan.end[op];
+        }
+        continue;
+      }
+      switch (plan.kind[op]) {
+        case GROUP: {
+          if (plan.dataOffset[op] > limit - position) {
+            return -1;
+          }
+          final long entryLength = get(buffer, position + plan.offset[op], plan.size[op], source);
+          final long entries =
+              get(buffer, position + plan.numInGroupOffset[op], plan.numInGroupSize[op], source);
+          if (swap) {
+            swapBlock(plan, op + 1, op + 1 + plan.dimensionOps[op], buffer, position,
+                plan.dataOffset[op]);
+          }
+          position += plan.dataOffset[op];
+          for (long entry = 0; entry < entries; entry++) {
+            if (entryLength > limit - position) {
+              return -1;
+            }
+            position = walk(plan, op + 1 + plan.dimensionOps[op], plan.end[op], buffer, position,
+                (int) entryLength, position + (int) entryLength, limit, source, swap);
+            if (position < 0) {
+              return -1;
+            }
+          }
+          op = plan.end[op];
+          break;
+        }
+        case VAR_DATA: {
+          if (plan.dataOffset[op] > limit - position) {
+            return -1;
+          }
+          final long dataLength = get(buffer, position + plan.offset[op], plan.size[op], source);
+          if (dataLength > limit - position - plan.dataOffset[op]) {
+            return -1;
+          }
+          if (swap) {
+            swap(buffer, position + plan.offset[op], plan.size[op], 1);
+          }
+          position += plan.dataOffset[op] + (int) dataLength;
+          break;
+        }
+        default:
+          break;
+      }
+    }
+    return position;
+  }
+}
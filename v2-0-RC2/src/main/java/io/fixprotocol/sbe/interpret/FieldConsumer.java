@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import org.agrona.DirectBuffer;
+
+/**
+ * Receives decoded field values as primitives
+ * <p>
+ * Values are passed as found on the wire; null values are not translated. Unsigned 64-bit values
+ * are passed as their two's complement {@code long}.
+ *
+ * @author Don Mendelson
+ *
+ */
+public interface FieldConsumer {
+
+  /**
+   * A fixed-length array or variable-length data field, in place
+   *
+   * @param fieldId field ID
+   * @param buffer buffer containing the message
+   * @param index index of the first byte of the value
+   * @param length number of bytes
+   */
+  void onBytes(int fieldId, DirectBuffer buffer, int index, int length);
+
+  /**
+   * A decimal field
+   *
+   * @param fieldId field ID
+   * @param mantissa mantissa, widened to long
+   * @param exponent power of ten
+   */
+  void onDecimal(int fieldId, long mantissa, int exponent);
+
+  /**
+   * A floating point field
+   *
+   * @param fieldId field ID
+   * @param value value, widened to double
+   */
+  default void onFloat(int fieldId, double value) {}
+
+  /**
+   * Start of a repeating group
+   *
+   * @param groupId field ID of the group
+   * @param numInGroup number of entries
+   */
+  default void onGroupBegin(int groupId, int numInGroup) {}
+
+  /**
+   * End of a repeating group
+   *
+   * @param groupId field ID of the group
+   */
+  default void onGroupEnd(int groupId) {}
+
+  /**
+   * An integer, character, enumeration or set field
+   *
+   * @param fieldId field ID
+   * @param value value, widened to long
+   */
+  void onInteger(int fieldId, long value);
+
+  /**
+   * A member of a composite field other than a decimal or timestamp
+   *
+   * @param fieldId field ID of the composite
+   * @param member index of the member in the composite, counting only members on the wire
+   * @param value value, widened to long
+   */
+  default void onMember(int fieldId, int member, long value) {}
+
+  /**
+   * A timestamp field
+   *
+   * @param fieldId field ID
+   * @param time time since the epoch
+   * @param unit power of ten of units per second: 0, 3, 6 or 9
+   */
+  default void onTimestamp(int fieldId, long time, int unit) {
+    onInteger(fieldId, time);
+  }
+}
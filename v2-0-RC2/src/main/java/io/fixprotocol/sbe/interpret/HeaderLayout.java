@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.nio.ByteOrder;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+
+import uk.co.real_logic.sbe.ir.Ir;
+import uk.co.real_logic.sbe.ir.Signal;
+import uk.co.real_logic.sbe.ir.Token;
+
+/**
+ * Layout of the message header of a schema, for reading its fields in either byte order without a
+ * generated decoder
+ *
+ * @author Don Mendelson
+ *
+ */
+final class HeaderLayout {
+
+  /**
+   * Reads an unsigned integer of 1, 2 or 4 bytes, or a long of 8 bytes
+   *
+   * @param buffer buffer to read
+   * @param index index of the integer
+   * @param size size of the integer in bytes
+   * @param byteOrder byte order of the integer
+   * @return value of the integer
+   */
+  static long get(DirectBuffer buffer, int index, int size, ByteOrder byteOrder) {
+    switch (size) {
+      case 1:
+        return buffer.getByte(index) & 0xFF;
+      case 2:
+        return buffer.getShort(index, byteOrder) & 0xFFFF;
+      case 4:
+        return buffer.getInt(index, byteOrder) & 0xFFFF_FFFFL;
+      default:
+        return buffer.getLong(index, byteOrder);
+    }
+  }
+
+  /**
+   * @param ir intermediate representation of a schema
+   * @return length of a table indexed by the template IDs of the schema
+   */
+  static int templateTableLength(Ir ir) {
+    int maxTemplateId = 0;
+    for (final List<Token> tokens : ir.messages()) {
+      maxTemplateId = Math.max(maxTemplateId, tokens.get(0).id());
+    }
+    // template IDs are small and dense in practice
+    return maxTemplateId + 1;
+  }
+
+  final int blockLengthOffset;
+  final int blockLengthSize;
+  final int length;
+  final int schemaIdOffset;
+  final int schemaIdSize;
+  final int templateIdOffset;
+  final int templateIdSize;
+  final int versionOffset;
+  final int versionSize;
+
+  /**
+   * Constructor
+   *
+   * @param ir intermediate representation of a schema
+   */
+  HeaderLayout(Ir ir) {
+    final List<Token> headerTokens = ir.headerStructure().tokens();
+    this.length = headerTokens.get(0).encodedLength();
+    int blockLengthOffset = 0, blockLengthSize = 0, schemaIdOffset = 0, schemaIdSize = 0,
+        templateIdOffset = 0, templateIdSize = 0, versionOffset = 0, versionSize = 0;
+    for (final Token token : headerTokens) {
+      if (token.signal() != Signal.ENCODING) {
+        continue;
+      }
+      switch (token.name()) {
+        case "blockLength":
+          blockLengthOffset = token.offset();
+          blockLengthSize = token.encodedLength();
+          break;
+        case "schemaId":
+          schemaIdOffset = token.offset();
+          schemaIdSize = token.encodedLength();
+          break;
+        case "templateId":
+          templateIdOffset = token.offset();
+          templateIdSize = token.encodedLength();
+          break;
+        case "version":
+          versionOffset = token.offset();
+          versionSize = token.encodedLength();
+          break;
+        default:
+          break;
+      }
+    }
+    this.blockLengthOffset = blockLengthOffset;
+    this.blockLengthSize = blockLengthSize;
+    this.schemaIdOffset = schemaIdOffset;
+    this.schemaIdSize = schemaIdSize;
+    this.templateIdOffset = templateIdOffset;
+    this.templateIdSize = templateIdSize;
+    this.versionOffset = versionOffset;
+    this.versionSize = versionSize;
+  }
+
+  long blockLength(DirectBuffer buffer, int headerOffset, ByteOrder byteOrder) {
+    return get(buffer, headerOffset + blockLengthOffset, blockLengthSize, byteOrder);
+  }
+
+  long schemaId(DirectBuffer buffer, int headerOffset, ByteOrder byteOrder) {
+    return get(buffer, headerOffset + schemaIdOffset, schemaIdSize, byteOrder);
+  }
+
+  long templateId(DirectBuffer buffer, int headerOffset, ByteOrder byteOrder) {
+    return get(buffer, headerOffset + templateIdOffset, templateIdSize, byteOrder);
+  }
+
+  long version(DirectBuffer buffer, int headerOffset, ByteOrder byteOrder) {
+    return get(buffer, headerOffset + versionOffset, versionSize, byteOrder);
+  }
+}
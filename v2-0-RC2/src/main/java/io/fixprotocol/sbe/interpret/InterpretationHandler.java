@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import org.agrona.DirectBuffer;
+
+/**
+ * Receives the rows of an interpreted message, one per field
+ * <p>
+ * Buffers passed to a handler are only valid for the duration of the call.
+ *
+ * @author Don Mendelson
+ *
+ */
+public interface InterpretationHandler {
+
+  /**
+   * Invoked before the first row of a message
+   *
+   * @param templateId template ID from the message header
+   * @param name name of the message, or {@code null} if the template is unknown
+   */
+  default void onMessageBegin(int templateId, String name) {}
+
+  /**
+   * Invoked after the last row of a message
+   */
+  default void onMessageEnd() {}
+
+  /**
+   * Invoked for each field, including the fields of framing, message and group headers
+   *
+   * @param buffer buffer containing the message
+   * @param wireOffset index of the field in the buffer
+   * @param fieldId field ID from the schema, or zero for header fields
+   * @param name name of the field
+   * @param offset offset of the field from the start of its block or header
+   * @param length length of the field on the wire
+   * @param value interpreted value as text
+   * @param valueLength number of bytes of text in {@code value}
+   */
+  void onRow(DirectBuffer buffer, int wireOffset, int fieldId, String name, int offset, int length,
+      DirectBuffer value, int valueLength);
+}
@@ -0,0 +1,653 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import uk.co.real_logic.sbe.PrimitiveType;
+import uk.co.real_logic.sbe.ir.Ir;
+import uk.co.real_logic.sbe.ir.Token;
+import uk.co.real_logic.sbe.xml.IrGenerator;
+import uk.co.real_logic.sbe.xml.ParserOptions;
+import uk.co.real_logic.sbe.xml.XmlSchemaParser;
+
+/**
+ * Interprets messages of any template and version of a schema
+ * <p>
+ * The schema IR is compiled once into a {@link DecodePlan} per template. Interpreting a message
+ * walks its plan, formats each field as text into a reusable buffer and passes it to an
+ * {@link InterpretationHandler}. Fields added in a later version than the message, or beyond its
+ * block length, are skipped. Nothing is allocated per message, except to format floating point
+ * fields.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public final class MessageInterpreter {
+
+  /**
+   * Name of the example schema resource
+   */
+  public static final String EXAMPLES_SCHEMA = "Examples.xml";
+
+  private static final byte[] BIG_ENDIAN_NAME = "SBE big-endian".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] LITTLE_ENDIAN_NAME = "SBE little-endian".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] UNKNOWN_ENCODING_NAME = "Unknown encoding".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * Loads a schema from the class path
+   *
+   * @param name resource name of an SBE XML schema
+   * @return an interpreter of the schema
+   * @throws IOException if the resource is not found or is not a valid schema
+   */
+  public static MessageInterpreter fromResource(String name) throws IOException {
+    return new MessageInterpreter(loadResource(name));
+  }
+
+  /**
+   * Parses a schema
+   *
+   * @param in an SBE XML schema
+   * @return an interpreter of the schema
+   * @throws IOException if the schema cannot be read or is invalid
+   */
+  public static MessageInterpreter fromXml(InputStream in) throws IOException {
+    return new MessageInterpreter(load(in));
+  }
+
+  /**
+   * Parses a schema into its intermediate representation
+   *
+   * @param in an SBE XML schema
+   * @return IR of the schema
+   * @throws IOException if the schema cannot be read or is invalid
+   */
+  static Ir load(InputStream in) throws IOException {
+    try {
+      return new IrGenerator().generate(XmlSchemaParser.parse(in, ParserOptions.DEFAULT));
+    } catch (final IOException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new IOException("Invalid message schema", e);
+    }
+  }
+
+  /**
+   * Parses a schema from the class path into its intermediate representation
+   *
+   * @param name resource name of an SBE XML schema
+   * @return IR of the schema
+   * @throws IOException if the resource is not found or is not a valid schema
+   */
+  static Ir loadResource(String name) throws IOException {
+    final InputStream in = MessageInterpreter.class.getClassLoader().getResourceAsStream(name);
+    if (in == null) {
+      throw new FileNotFoundException("Schema resource not found " + name);
+    }
+    try (InputStream schema = in) {
+      return load(schema);
+    }
+  }
+
+  private int actingBlockLength;
+  private int actingVersion;
+  private ByteOrder byteOrder;
+  private final byte[] digits = new byte[20];
+  private final DecodePlan header;
+  private final Int2ObjectHashMap<DecodePlan> plans = new Int2ObjectHashMap<>();
+  private final ByteOrder schemaByteOrder;
+  private final int schemaId;
+  private final int schemaVersion;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private int templateId;
+  private final UnsafeBuffer value = new UnsafeBuffer(new byte[256]);
+
+  /**
+   * Constructor
+   *
+   * @param ir intermediate representation of a schema
+   */
+  public MessageInterpreter(Ir ir) {
+    this.schemaByteOrder = ir.byteOrder();
+    this.byteOrder = schemaByteOrder;
+    this.schemaId = ir.id();
+    this.schemaVersion = ir.version();
+    this.header = DecodePlan.compileHeader(ir.headerStructure().tokens());
+    for (final List<Token> tokens : ir.messages()) {
+      final DecodePlan plan = DecodePlan.compileMessage(tokens);
+      plans.put(plan.templateId, plan);
+    }
+  }
+
+  /**
+   * Interprets a message, starting with its message header
+   *
+   * @param buffer buffer containing the message
+   * @param offset index of the message header
+   * @param handler receives interpreted fields
+   * @return number of bytes of the message including its header, or {@code -1} if the template is
+   *         not in the schema, in which case only header fields are interpreted
+   */
+  public int interpret(DirectBuffer buffer, int offset, InterpretationHandler handler) {
+    byteOrder = schemaByteOrder;
+    final DecodePlan plan = readHeader(buffer, offset);
+    handler.onMessageBegin(templateId, plan != null ? plan.name : null);
+    final int length = interpretMessage(buffer, offset, plan, handler);
+    handler.onMessageEnd();
+    return length;
+  }
+
+  /**
+   * Interprets a message, starting with its Simple Open Framing Header
+   * <p>
+   * The message is read in the byte order given by the SOFH encoding, whatever the byte order of
+   * the schema, so one interpreter decodes frames of either byte order. A frame with an unknown
+   * encoding is read in the byte order of the schema.
+   *
+   * @param buffer buffer containing the frame
+   * @param offset index of the framing header
+   * @param handler receives interpreted fields
+   * @return number of bytes of the frame, or {@code -1} if the template is not in the schema
+   */
+  public int interpretFrame(DirectBuffer buffer, int offset, InterpretationHandler handler) {
+    sofhDecoder.wrap(buffer, offset);
+    final int headerOffset = offset + sofhDecoder.encodedLength();
+    switch (sofhDecoder.encoding()) {
+      case SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN:
+        byteOrder = ByteOrder.LITTLE_ENDIAN;
+        break;
+      case SofhFrameDecoder.SBE_1_0_BIG_ENDIAN:
+        byteOrder = ByteOrder.BIG_ENDIAN;
+        break;
+      default:
+        byteOrder = schemaByteOrder;
+    }
+    final DecodePlan plan = readHeader(buffer, headerOffset);
+    handler.onMessageBegin(templateId, plan != null ? plan.name : null);
+
+    int valueLength = value.putLongAscii(0, sofhDecoder.messageLength());
+    handler.onRow(buffer, offset, 0, "SOFH message length", 0, 4, value, valueLength);
+    switch (sofhDecoder.encoding()) {
+      case SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN:
+        valueLength = putBytes(0, LITTLE_ENDIAN_NAME);
+        break;
+      case SofhFrameDecoder.SBE_1_0_BIG_ENDIAN:
+        valueLength = putBytes(0, BIG_ENDIAN_NAME);
+        break;
+      default:
+        valueLength = putBytes(0, UNKNOWN_ENCODING_NAME);
+    }
+    handler.onRow(buffer, offset + 4, 0, "SOFH encoding", 4, 2, value, valueLength);
+
+    final int length = interpretMessage(buffer, headerOffset, plan, handler);
+    handler.onMessageEnd();
+    return length < 0 ? -1 : length + sofhDecoder.encodedLength();
+  }
+
+  /**
+   * @param templateId a template ID
+   * @return the name of the message, or {@code null} if the template is not in the schema
+   */
+  public String messageName(int templateId) {
+    final DecodePlan plan = plans.get(templateId);
+    return plan != null ? plan.name : null;
+  }
+
+  /**
+   * @return schema ID
+   */
+  public int schemaId() {
+    return schemaId;
+  }
+
+  /**
+   * @return schema version
+   */
+  public int schemaVersion() {
+    return schemaVersion;
+  }
+
+  private int formatComposite(DecodePlan plan, int op, DirectBuffer buffer, int blockStart) {
+    int position = 0;
+    final int members = plan.aux[op];
+    for (int member = op + 1; member <= op + members; member++) {
+      final long raw = getLong(buffer, blockStart + plan.offset[member], plan.type[member]);
+      if (raw != plan.nullValue[member]) {
+        if (position > 0) {
+          value.putByte(position++, (byte) ' ');
+        }
+        position += putBytes(position, plan.choiceNames[member][0]);
+        value.putByte(position++, (byte) '=');
+        position = putNumber(position, raw, plan.type[member]);
+      }
+    }
+    return position > 0 ? position : putBytes(0, NULL);
+  }
+
+  private int formatField(DecodePlan plan, int op, DirectBuffer buffer, int blockStart) {
+    final int index = blockStart + plan.offset[op];
+    final PrimitiveType type = plan.type[op];
+    switch (plan.kind[op]) {
+      case DecodePlan.SCALAR:
+        return formatScalar(plan, op, buffer, index);
+      case DecodePlan.CHARS: {
+        int position = 0;
+        for (int i = 0; i < plan.length[op]; i++) {
+          final byte b = buffer.getByte(index + i);
+          if (b == 0) {
+            break;
+          }
+          value.putByte(position++, b);
+        }
+        return position;
+      }
+      case DecodePlan.ARRAY: {
+        int position = 0;
+        final int elementSize = type.size();
+        for (int i = 0; i < plan.aux[op]; i++) {
+          if (i > 0) {
+            value.putByte(position++, (byte) ' ');
+          }
+          position = putNumber(position, getLong(buffer, index + i * elementSize, type), type);
+        }
+        return position;
+      }
+      case DecodePlan.ENUM: {
+        final long raw = getLong(buffer, index, type);
+        final long[] values = plan.choiceValues[op];
+        for (int i = 0; i < values.length; i++) {
+          if (values[i] == raw) {
+            return putBytes(0, plan.choiceNames[op][i]);
+          }
+        }
+        return raw == plan.nullValue[op] ? putBytes(0, NULL) : putNumber(0, raw, type);
+      }
+      case DecodePlan.SET: {
+        final long raw = getLong(buffer, index, type);
+        final long[] bits = plan.choiceValues[op];
+        int position = 0;
+        for (int i = 0; i < bits.length; i++) {
+          if ((raw & (1L << bits[i])) != 0) {
+            if (position > 0) {
+              value.putByte(position++, (byte) ' ');
+            }
+            position += putBytes(position, plan.choiceNames[op][i]);
+          }
+        }
+        return position;
+      }
+      case DecodePlan.DECIMAL: {
+        final long mantissa = getLong(buffer, index + plan.aux[op], type);
+        if (mantissa == plan.nullValue[op]) {
+          return putBytes(0, NULL);
+        }
+        final int exponent =
+            plan.aux2[op] < 0 ? (int) plan.constValue[op] : buffer.getByte(index + plan.aux2[op]);
+        return putDecimal(0, mantissa, exponent);
+      }
+      case DecodePlan.TIMESTAMP: {
+        final long time = getLong(buffer, index + plan.aux[op], type);
+        if (time == plan.nullValue[op]) {
+          return putBytes(0, NULL);
+        }
+        final int unit = plan.aux2[op] < 0 ? (int) plan.constValue[op]
+            : buffer.getByte(index + plan.aux2[op]) & 0xFF;
+        return putTimestamp(0, time, unit);
+      }
+      case DecodePlan.COMPOSITE:
+        return formatComposite(plan, op, buffer, blockStart);
+      default:
+        return 0;
+    }
+  }
+
+  private int formatScalar(DecodePlan plan, int op, DirectBuffer buffer, int index) {
+    final PrimitiveType type = plan.type[op];
+    if (type == PrimitiveType.FLOAT || type == PrimitiveType.DOUBLE) {
+      final double d = type == PrimitiveType.FLOAT ? buffer.getFloat(index, byteOrder)
+          : buffer.getDouble(index, byteOrder);
+      return Double.isNaN(d) ? putBytes(0, NULL)
+          : value.putStringWithoutLengthAscii(0, Double.toString(d));
+    }
+    final long raw = getLong(buffer, index, type);
+    if (raw == plan.nullValue[op]) {
+      return putBytes(0, NULL);
+    }
+    switch (plan.aux2[op]) {
+      case DecodePlan.FORMAT_CHAR:
+        value.putByte(0, (byte) raw);
+        return 1;
+      case DecodePlan.FORMAT_DATE:
+        return putDate(0, raw);
+      case DecodePlan.FORMAT_TIMESTAMP:
+        return putTimestamp(0, raw, 9);
+      default:
+        return putNumber(0, raw, type);
+    }
+  }
+
+  private long getLong(DirectBuffer buffer, int index, PrimitiveType type) {
+    switch (type) {
+      case CHAR:
+      case INT8:
+        return buffer.getByte(index);
+      case UINT8:
+        return buffer.getByte(index) & 0xFF;
+      case INT16:
+        return buffer.getShort(index, byteOrder);
+      case UINT16:
+        return buffer.getShort(index, byteOrder) & 0xFFFF;
+      case INT32:
+        return buffer.getInt(index, byteOrder);
+      case UINT32:
+        return buffer.getInt(index, byteOrder) & 0xFFFF_FFFFL;
+      case INT64:
+      case UINT64:
+        return buffer.getLong(index, byteOrder);
+      default:
+        return 0;
+    }
+  }
+
+  private int interpretGroup(DecodePlan plan, int op, DirectBuffer buffer, int limit,
+      InterpretationHandler handler) {
+    final int dimensions = plan.aux2[op];
+    int entryBlockLength = plan.length[op];
+    int numInGroup = 0;
+    for (int dimension = op + 1; dimension <= op + dimensions; dimension++) {
+      final long raw = getLong(buffer, limit + plan.offset[dimension], plan.type[dimension]);
+      switch (plan.aux[dimension]) {
+        case DecodePlan.ROLE_BLOCK_LENGTH:
+          entryBlockLength = (int) raw;
+          break;
+        case DecodePlan.ROLE_NUM_IN_GROUP:
+          numInGroup = (int) raw;
+          break;
+        default:
+          break;
+      }
+      final int valueLength = putNumber(0, raw, plan.type[dimension]);
+      handler.onRow(buffer, limit + plan.offset[dimension], 0, plan.names[dimension],
+          plan.offset[dimension], plan.length[dimension], value, valueLength);
+    }
+
+    int position = limit + plan.offset[op];
+    final int end = plan.aux[op];
+    for (int entry = 0; entry < numInGroup; entry++) {
+      final int entryStart = position;
+      position = interpretOps(plan, op + 1 + dimensions, end, buffer, entryStart,
+          entryBlockLength, entryStart + entryBlockLength, handler);
+    }
+    return position;
+  }
+
+  private int interpretMessage(DirectBuffer buffer, int offset, DecodePlan plan,
+      InterpretationHandler handler) {
+    for (int op = 0; op < header.count; op++) {
+      final long raw = getLong(buffer, offset + header.offset[op], header.type[op]);
+      final int valueLength = putNumber(0, raw, header.type[op]);
+      handler.onRow(buffer, offset + header.offset[op], 0, header.names[op], header.offset[op],
+          header.length[op], value, valueLength);
+    }
+    if (plan == null) {
+      return -1;
+    }
+    final int blockStart = offset + header.blockLength;
+    final int limit = interpretOps(plan, 0, plan.count, buffer, blockStart, actingBlockLength,
+        blockStart + actingBlockLength, handler);
+    return limit - offset;
+  }
+
+  private int interpretOps(DecodePlan plan, int from, int to, DirectBuffer buffer, int blockStart,
+      int blockLength, int limit, InterpretationHandler handler) {
+    int position = limit;
+    for (int op = from; op < to; op++) {
+      final int kind = plan.kind[op];
+      final boolean present = plan.sinceVersion[op] <= actingVersion;
+      switch (kind) {
+        case DecodePlan.GROUP:
+          if (present) {
+            position = interpretGroup(plan, op, buffer, position, handler);
+          }
+          op = plan.aux[op];
+          break;
+        case DecodePlan.VAR_DATA:
+          if (present) {
+            final int dataLength =
+                (int) getLong(buffer, position + plan.offset[op], plan.type[op]);
+            final int dataOffset = position + plan.aux[op];
+            if (dataLength > value.capacity()) {
+              value.wrap(new byte[Math.max(dataLength, value.capacity() * 2)]);
+            }
+            value.putBytes(0, buffer, dataOffset, dataLength);
+            handler.onRow(buffer, dataOffset, plan.fieldId[op], plan.names[op], 0, dataLength,
+                value, dataLength);
+            position = dataOffset + dataLength;
+          }
+          break;
+        case DecodePlan.MEMBER:
+        case DecodePlan.GROUP_END:
+          break;
+        default:
+          if (present && plan.offset[op] + plan.length[op] <= blockLength) {
+            final int valueLength = formatField(plan, op, buffer, blockStart);
+            handler.onRow(buffer, blockStart + plan.offset[op], plan.fieldId[op],
+                plan.names[op], plan.offset[op], plan.length[op], value, valueLength);
+          }
+          if (kind == DecodePlan.COMPOSITE) {
+            op += plan.aux[op];
+          }
+      }
+    }
+    return position;
+  }
+
+  private int putBytes(int index, byte[] bytes) {
+    value.putBytes(index, bytes);
+    return bytes.length;
+  }
+
+  private int putDate(int index, long epochDay) {
+    // civil date from days since 1970-01-01, proleptic Gregorian calendar
+    final long z = epochDay + 719468;
+    final long era = Math.floorDiv(z, 146097);
+    final long dayOfEra = z - era * 146097;
+    final long yearOfEra =
+        (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    final long mp = (5 * dayOfYear + 2) / 153;
+    final int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+    final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+    final int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+    int position = index;
+    if (year >= 0 && year <= 9999) {
+      value.putNaturalPaddedIntAscii(position, 4, year);
+      position += 4;
+    } else {
+      position += value.putIntAscii(position, year);
+    }
+    value.putByte(position++, (byte) '-');
+    value.putNaturalPaddedIntAscii(position, 2, month);
+    position += 2;
+    value.putByte(position++, (byte) '-');
+    value.putNaturalPaddedIntAscii(position, 2, day);
+    return position + 2 - index;
+  }
+
+  /**
+   * Formats a decimal like {@code BigDecimal.toString()}
+   */
+  private int putDecimal(int index, long mantissa, int exponent) {
+    int position = index;
+    if (mantissa < 0) {
+      value.putByte(position++, (byte) '-');
+    }
+    final int count = toDigits(mantissa < 0 ? -mantissa : mantissa);
+    final int first = digits.length - count;
+    final int adjusted = exponent + count - 1;
+    if (exponent == 0) {
+      value.putBytes(position, digits, first, count);
+      position += count;
+    } else if (exponent < 0 && adjusted >= -6) {
+      final int integerDigits = count + exponent;
+      if (integerDigits > 0) {
+        value.putBytes(position, digits, first, integerDigits);
+        position += integerDigits;
+        value.putByte(position++, (byte) '.');
+        value.putBytes(position, digits, first + integerDigits, -exponent);
+        position += -exponent;
+      } else {
+        value.putByte(position++, (byte) '0');
+        value.putByte(position++, (byte) '.');
+        for (int i = integerDigits; i < 0; i++) {
+          value.putByte(position++, (byte) '0');
+        }
+        value.putBytes(position, digits, first, count);
+        position += count;
+      }
+    } else {
+      value.putByte(position++, digits[first]);
+      if (count > 1) {
+        value.putByte(position++, (byte) '.');
+        value.putBytes(position, digits, first + 1, count - 1);
+        position += count - 1;
+      }
+      value.putByte(position++, (byte) 'E');
+      value.putByte(position++, (byte) (adjusted > 0 ? '+' : '-'));
+      position += value.putIntAscii(position, Math.abs(adjusted));
+    }
+    return position - index;
+  }
+
+  private int putNumber(int index, long raw, PrimitiveType type) {
+    if (type == PrimitiveType.UINT64 && raw < 0) {
+      final int count = toDigits(raw);
+      value.putBytes(index, digits, digits.length - count, count);
+      return index + count;
+    }
+    return index + value.putLongAscii(index, raw);
+  }
+
+  /**
+   * Formats a timestamp like {@code Instant.toString()}
+   *
+   * @param unit power of ten of units per second: 0, 3, 6 or 9
+   */
+  private int putTimestamp(int index, long time, int unit) {
+    final long seconds;
+    final long nanos;
+    switch (unit) {
+      case 0:
+        seconds = time;
+        nanos = 0;
+        break;
+      case 3:
+        seconds = Math.floorDiv(time, 1_000L);
+        nanos = Math.floorMod(time, 1_000L) * 1_000_000L;
+        break;
+      case 6:
+        seconds = Math.floorDiv(time, 1_000_000L);
+        nanos = Math.floorMod(time, 1_000_000L) * 1_000L;
+        break;
+      default:
+        seconds = Math.floorDiv(time, 1_000_000_000L);
+        nanos = Math.floorMod(time, 1_000_000_000L);
+    }
+    int position = index + putDate(index, Math.floorDiv(seconds, 86400L));
+    final int secondOfDay = (int) Math.floorMod(seconds, 86400L);
+    value.putByte(position++, (byte) 'T');
+    value.putNaturalPaddedIntAscii(position, 2, secondOfDay / 3600);
+    position += 2;
+    value.putByte(position++, (byte) ':');
+    value.putNaturalPaddedIntAscii(position, 2, secondOfDay / 60 % 60);
+    position += 2;
+    value.putByte(position++, (byte) ':');
+    value.putNaturalPaddedIntAscii(position, 2, secondOfDay % 60);
+    position += 2;
+    if (nanos > 0) {
+      value.putByte(position++, (byte) '.');
+      if (nanos % 1_000_000 == 0) {
+        value.putNaturalPaddedIntAscii(position, 3, (int) (nanos / 1_000_000));
+        position += 3;
+      } else if (nanos % 1_000 == 0) {
+        value.putNaturalPaddedIntAscii(position, 6, (int) (nanos / 1_000));
+        position += 6;
+      } else {
+        value.putNaturalPaddedIntAscii(position, 9, (int) nanos);
+        position += 9;
+      }
+    }
+    value.putByte(position++, (byte) 'Z');
+    return position - index;
+  }
+
+  private DecodePlan readHeader(DirectBuffer buffer, int offset) {
+    actingBlockLength = 0;
+    actingVersion = 0;
+    templateId = 0;
+    for (int op = 0; op < header.count; op++) {
+      final int raw = (int) getLong(buffer, offset + header.offset[op], header.type[op]);
+      switch (header.aux[op]) {
+        case DecodePlan.ROLE_BLOCK_LENGTH:
+          actingBlockLength = raw;
+          break;
+        case DecodePlan.ROLE_TEMPLATE_ID:
+          templateId = raw;
+          break;
+        case DecodePlan.ROLE_VERSION:
+          actingVersion = raw;
+          break;
+        default:
+          break;
+      }
+    }
+    return plans.get(templateId);
+  }
+
+  /**
+   * Writes the decimal digits of an unsigned value to the end of the digits array
+   *
+   * @return number of digits
+   */
+  private int toDigits(long unsigned) {
+    int i = digits.length;
+    long remaining = unsigned;
+    if (remaining < 0) {
+      final long quotient = (remaining >>> 1) / 5;
+      digits[--i] = (byte) ('0' + (remaining - quotient * 10));
+      remaining = quotient;
+    }
+    do {
+      digits[--i] = (byte) ('0' + remaining % 10);
+      remaining /= 10;
+    } while (remaining != 0);
+    return digits.length - i;
+  }
+}
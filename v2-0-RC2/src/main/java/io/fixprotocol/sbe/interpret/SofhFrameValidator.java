@@ -0,0 +1,323 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+
+import io.fixprotocol.sbe.counters.FrameCounters;
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+import uk.co.real_logic.sbe.ir.Ir;
+import uk.co.real_logic.sbe.ir.Token;
+
+/**
+ * Validates frames against a schema before they reach a decoder, and resynchronizes a stream
+ * after corruption
+ * <p>
+ * A frame is valid if its framing header has a known encoding and a message length within the
+ * bounds of the schema and of the bytes available, and its message header has the ID of the
+ * schema, a known template ID and a block length that the frame can hold. Checks use tables
+ * indexed by template ID and never throw; an invalid frame is counted by the reason it failed.
+ * After an invalid frame, bytes are skipped until the next position that holds a plausible
+ * framing header.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhFrameValidator {
+
+  /**
+   * Outcome of validating the bytes at a position
+   */
+  public enum Validity {
+    /** A complete frame that conforms to the schema */
+    VALID,
+    /** Not enough bytes to decide or to hold the frame */
+    INCOMPLETE,
+    /** The framing header has an unknown encoding code */
+    BAD_ENCODING,
+    /** The message length is too short for the headers or the template */
+    LENGTH_TOO_SHORT,
+    /** The message length exceeds the largest frame accepted */
+    LENGTH_TOO_LONG,
+    /** The message header has a different schema ID */
+    WRONG_SCHEMA,
+    /** The message header has a template ID that is not in the schema */
+    UNKNOWN_TEMPLATE,
+    /** The block length is too short for the template or too long for the frame */
+    BAD_BLOCK_LENGTH
+  }
+
+  private static final int SOFH_LENGTH = new SofhFrameDecoder().encodedLength();
+
+  /**
+   * Creates a validator for a schema loaded from the classpath
+   *
+   * @param name resource name of a schema
+   * @param maxFrameLength largest frame accepted, including the framing header
+   * @param handler receives valid frames
+   * @return a new validator
+   * @throws IOException if the schema cannot be read or is invalid
+   */
+  public static SofhFrameValidator fromResource(String name, int maxFrameLength,
+      SofhFrameHandler handler) throws IOException {
+    return fromResource(name, maxFrameLength, handler, FrameCounters.NONE);
+  }
+
+  /**
+   * Creates a validator with counters for a schema loaded from the classpath
+   *
+   * @param name resource name of a schema
+   * @param maxFrameLength largest frame accepted, including the framing header
+   * @param handler receives valid frames
+   * @param counters counts valid frames and rejects
+   * @return a new validator
+   * @throws IOException if the schema cannot be read or is invalid
+   */
+  public static SofhFrameValidator fromResource(String name, int maxFrameLength,
+      SofhFrameHandler handler, FrameCounters counters) throws IOException {
+    return new SofhFrameValidator(MessageInterpreter.loadResource(name), maxFrameLength, handler,
+        counters);
+  }
+
+  private long bytesSkipped = 0;
+  private final FrameCounters counters;
+  private long framesValid = 0;
+  private final SofhFrameHandler handler;
+  private final HeaderLayout headerLayout;
+  private final int maxFrameLength;
+  /** Indexed by template ID; -1 for an unknown template */
+  private final int[] minBlockLengths;
+  private final int minFrameLength;
+  /** Indexed by template ID; least length of the groups and var data that follow the block */
+  private final int[] minTailLengths;
+  private final long[] rejects = new long[Validity.values().length];
+  private long resyncs = 0;
+  private final int schemaId;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+
+  /**
+   * Constructor
+   *
+   * @param ir intermediate representation of a schema
+   * @param maxFrameLength largest frame accepted, including the framing header
+   * @param handler receives valid frames
+   */
+  public SofhFrameValidator(Ir ir, int maxFrameLength, SofhFrameHandler handler) {
+    this(ir, maxFrameLength, handler, FrameCounters.NONE);
+  }
+
+  /**
+   * Constructor with counters
+   *
+   * @param ir intermediate representation of a schema
+   * @param maxFrameLength largest frame accepted, including the framing header
+   * @param handler receives valid frames
+   * @param counters counts valid frames and rejects
+   */
+  public SofhFrameValidator(Ir ir, int maxFrameLength, SofhFrameHandler handler,
+      FrameCounters counters) {
+    this.schemaId = ir.id();
+    this.handler = handler;
+    this.counters = counters;
+    this.headerLayout = new HeaderLayout(ir);
+    this.minFrameLength = SOFH_LENGTH + headerLayout.length;
+    if (maxFrameLength < minFrameLength) {
+      throw new IllegalArgumentException("Maximum frame length too small for headers");
+    }
+    this.maxFrameLength = maxFrameLength;
+
+    final int templateTableLength = HeaderLayout.templateTableLength(ir);
+    this.minBlockLengths = new int[templateTableLength];
+    this.minTailLengths = new int[templateTableLength];
+    Arrays.fill(minBlockLengths, -1);
+    for (final List<Token> tokens : ir.messages()) {
+      final int templateId = tokens.get(0).id();
+      int blockLength = 0;
+      int tailLength = 0;
+      // only fields of the first version must be present; later ones may be absent
+      for (int i = 1; i < tokens.size() - 1;) {
+        final Token token = tokens.get(i);
+        if (token.version() == 0) {
+          switch (token.signal()) {
+            case BEGIN_FIELD:
+              blockLength = Math.max(blockLength, token.offset() + token.encodedLength());
+              break;
+            case BEGIN_GROUP:
+              tailLength += tokens.get(i + 1).encodedLength();
+              break;
+            case BEGIN_VAR_DATA:
+              tailLength += tokens.get(i + 2).encodedLength();
+              break;
+            default:
+              break;
+          }
+        }
+        i += token.componentTokenCount();
+      }
+      minBlockLengths[templateId] = blockLength;
+      minTailLengths[templateId] = tailLength;
+    }
+  }
+
+  /**
+   * @return number of bytes skipped to resynchronize
+   */
+  public long bytesSkipped() {
+    return bytesSkipped;
+  }
+
+  /**
+   * @return number of valid frames delivered
+   */
+  public long framesValid() {
+    return framesValid;
+  }
+
+  /**
+   * @return largest frame accepted, including the framing header
+   */
+  public int maxFrameLength() {
+    return maxFrameLength;
+  }
+
+  /**
+   * @param reason a reason that a frame is invalid
+   * @return number of frames rejected for that reason
+   */
+  public long rejects(Validity reason) {
+    return rejects[reason.ordinal()];
+  }
+
+  /**
+   * @return number of times that bytes were skipped after an invalid frame
+   */
+  public long resyncs() {
+    return resyncs;
+  }
+
+  /**
+   * Delivers the valid frames of a range of bytes, skipping invalid ones
+   *
+   * @param buffer buffer containing frames
+   * @param offset index of the first framing header
+   * @param length number of bytes available
+   * @return number of bytes consumed. Bytes of a trailing incomplete frame are not consumed;
+   *         a receiver should present them again with the bytes that follow.
+   */
+  public int scan(DirectBuffer buffer, int offset, int length) {
+    final int limit = offset + length;
+    int position = offset;
+    while (position < limit) {
+      final Validity validity = validate(buffer, position, limit - position);
+      if (validity == Validity.VALID) {
+        // validate() left the decoder wrapped at the frame
+        final int frameLength = (int) sofhDecoder.messageLength();
+        counters.onFrameIn(buffer, position, frameLength);
+        handler.onFrame(buffer, position, frameLength);
+        framesValid++;
+        position += frameLength;
+      } else if (validity == Validity.INCOMPLETE) {
+        break;
+      } else {
+        rejects[validity.ordinal()]++;
+        counters.onReject(validity);
+        resyncs++;
+        final int next = resync(buffer, position + 1, limit);
+        bytesSkipped += next - position;
+        position = next;
+      }
+    }
+    return position - offset;
+  }
+
+  /**
+   * Validates the frame at a position without delivering or counting it
+   *
+   * @param buffer buffer containing a frame
+   * @param offset index of the framing header
+   * @param remaining number of bytes available from the offset
+   * @return validity of the frame
+   */
+  public Validity validate(DirectBuffer buffer, int offset, int remaining) {
+    if (remaining < SOFH_LENGTH) {
+      return Validity.INCOMPLETE;
+    }
+    sofhDecoder.wrap(buffer, offset);
+    final short encoding = sofhDecoder.encoding();
+    final ByteOrder byteOrder;
+    if (encoding == SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN) {
+      byteOrder = ByteOrder.LITTLE_ENDIAN;
+    } else if (encoding == SofhFrameDecoder.SBE_1_0_BIG_ENDIAN) {
+      byteOrder = ByteOrder.BIG_ENDIAN;
+    } else {
+      return Validity.BAD_ENCODING;
+    }
+    final long messageLength = sofhDecoder.messageLength();
+    if (messageLength < minFrameLength) {
+      return Validity.LENGTH_TOO_SHORT;
+    } else if (messageLength > maxFrameLength) {
+      return Validity.LENGTH_TOO_LONG;
+    } else if (remaining < minFrameLength) {
+      return Validity.INCOMPLETE;
+    }
+
+    // the message header fails fast, before the rest of the frame arrives
+    final int headerOffset = offset + SOFH_LENGTH;
+    if (headerLayout.schemaId(buffer, headerOffset, byteOrder) != schemaId) {
+      return Validity.WRONG_SCHEMA;
+    }
+    final long templateId = headerLayout.templateId(buffer, headerOffset, byteOrder);
+    if (templateId >= minBlockLengths.length || minBlockLengths[(int) templateId] < 0) {
+      return Validity.UNKNOWN_TEMPLATE;
+    }
+    final long blockLength = headerLayout.blockLength(buffer, headerOffset, byteOrder);
+    if (blockLength < minBlockLengths[(int) templateId]) {
+      return Validity.BAD_BLOCK_LENGTH;
+    } else if (minFrameLength + blockLength + minTailLengths[(int) templateId] > messageLength) {
+      return Validity.BAD_BLOCK_LENGTH;
+    } else if (messageLength > remaining) {
+      return Validity.INCOMPLETE;
+    }
+    return Validity.VALID;
+  }
+
+  /**
+   * Finds the next position that holds a plausible frame, or that is too close to the limit to
+   * decide
+   */
+  private int resync(DirectBuffer buffer, int from, int limit) {
+    final int last = limit - SOFH_LENGTH;
+    for (int position = from; position <= last; position++) {
+      // cheap test of the encoding code before full validation
+      final byte first = buffer.getByte(position + 4);
+      if (first != (byte) 0xEB && first != (byte) 0x5B) {
+        continue;
+      }
+      final Validity validity = validate(buffer, position, limit - position);
+      if (validity == Validity.VALID || validity == Validity.INCOMPLETE) {
+        return position;
+      }
+    }
+    return Math.max(from, last + 1);
+  }
+}
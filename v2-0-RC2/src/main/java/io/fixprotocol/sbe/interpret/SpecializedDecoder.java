@@ -0,0 +1,400 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.LangUtil;
+
+import uk.co.real_logic.sbe.PrimitiveType;
+
+/**
+ * Decoder of one version of one message template, specialized at run time from its schema
+ * <p>
+ * The fields of a block are read by a single method handle composed from one bound handle per
+ * field. Field offsets, types, constant exponents and units, and the byte order are bound as
+ * constants, and fields added after the version are left out entirely, so once the JIT compiler
+ * has customized the handle, decoding a block is straight-line code much like a generated
+ * flyweight. Repeating groups and variable-length data are walked by a small loop over nested
+ * decoders. Field values are passed to a {@link FieldConsumer} as primitives without boxing.
+ * <p>
+ * Like the generated decoders, the decoder trusts the schema version: a root block shorter than
+ * the version implies is not detected. Instances are immutable and thread-safe.
+ *
+ * @author Don Mendelson
+ * @see SpecializedDecoders
+ */
+public final class SpecializedDecoder {
+
+  /** Codes of primitive types bound into field handles */
+  private static final int INT8 = 0;
+  private static final int UINT8 = 1;
+  private static final int INT16 = 2;
+  private static final int UINT16 = 3;
+  private static final int INT32 = 4;
+  private static final int UINT32 = 5;
+  private static final int INT64 = 6;
+  private static final int FLOAT = 7;
+  private static final int DOUBLE = 8;
+
+  private static final MethodHandle BYTES;
+  private static final MethodHandle DECIMAL;
+  private static final MethodHandle FLOATING;
+  private static final MethodHandle INTEGER;
+  private static final MethodHandle MEMBER;
+  private static final MethodHandle NONE;
+  private static final MethodHandle TIMESTAMP;
+
+  static {
+    final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    final Class<?>[] visit = {DirectBuffer.class, int.class, FieldConsumer.class};
+    try {
+      BYTES = lookup.findStatic(SpecializedDecoder.class, "bytes",
+          MethodType.methodType(void.class, int.class, int.class, int.class)
+              .appendParameterTypes(visit));
+      DECIMAL = lookup.findStatic(SpecializedDecoder.class, "decimal",
+          MethodType.methodType(void.class, int.class, int.class, int.class, int.class, int.class,
+              ByteOrder.class).appendParameterTypes(visit));
+      FLOATING = lookup.findStatic(SpecializedDecoder.class, "floating",
+          MethodType.methodType(void.class, int.class, int.class, int.class, ByteOrder.class)
+              .appendParameterTypes(visit));
+      INTEGER = lookup.findStatic(SpecializedDecoder.class, "integer",
+          MethodType.methodType(void.class, int.class, int.class, int.class, ByteOrder.class)
+              .appendParameterTypes(visit));
+      MEMBER = lookup.findStatic(SpecializedDecoder.class, "member",
+          MethodType.methodType(void.class, int.class, int.class, int.class, int.class,
+              ByteOrder.class).appendParameterTypes(visit));
+      NONE = lookup.findStatic(SpecializedDecoder.class, "none",
+          MethodType.methodType(void.class, visit));
+      TIMESTAMP = lookup.findStatic(SpecializedDecoder.class, "timestamp",
+          MethodType.methodType(void.class, int.class, int.class, int.class, int.class, int.class,
+              ByteOrder.class).appendParameterTypes(visit));
+    } catch (final ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * Compiles a decoder from a plan
+   *
+   * @param plan decode plan of a message
+   * @param schemaId ID of the schema of the message
+   * @param version schema version to specialize for
+   * @param byteOrder byte order of the schema
+   * @return a decoder of fields present in the version
+   */
+  static SpecializedDecoder compile(DecodePlan plan, int schemaId, int version,
+      ByteOrder byteOrder) {
+    return new SpecializedDecoder(plan, 0, plan.count, schemaId, plan.templateId, version,
+        byteOrder);
+  }
+
+  private static void bytes(int fieldId, int fieldOffset, int length, DirectBuffer buffer,
+      int offset, FieldConsumer consumer) {
+    consumer.onBytes(fieldId, buffer, offset + fieldOffset, length);
+  }
+
+  private static void decimal(int fieldId, int mantissaOffset, int mantissaType,
+      int exponentOffset, int exponent, ByteOrder byteOrder, DirectBuffer buffer, int offset,
+      FieldConsumer consumer) {
+    consumer.onDecimal(fieldId, get(buffer, offset + mantissaOffset, mantissaType, byteOrder),
+        exponentOffset < 0 ? exponent : buffer.getByte(offset + exponentOffset));
+  }
+
+  private static void floating(int fieldId, int fieldOffset, int type, ByteOrder byteOrder,
+      DirectBuffer buffer, int offset, FieldConsumer consumer) {
+    consumer.onFloat(fieldId,
+        type == FLOAT ? buffer.getFloat(offset + fieldOffset, byteOrder)
+            : buffer.getDouble(offset + fieldOffset, byteOrder));
+  }
+
+  /**
+   * Reads an integer
+   *
+   * @param buffer buffer to read
+   * @param index index of the integer
+   * @param type type code from {@link #typeCode(PrimitiveType)}
+   * @param byteOrder byte order of the schema
+   * @return the value, widened to long
+   */
+  static long get(DirectBuffer buffer, int index, int type, ByteOrder byteOrder) {
+    switch (type) {
+      case INT8:
+        return buffer.getByte(index);
+      case UINT8:
+        return buffer.getByte(index) & 0xFF;
+      case INT16:
+        return buffer.getShort(index, byteOrder);
+      case UINT16:
+        return buffer.getShort(index, byteOrder) & 0xFFFF;
+      case INT32:
+        return buffer.getInt(index, byteOrder);
+      case UINT32:
+        return buffer.getInt(index, byteOrder) & 0xFFFF_FFFFL;
+      case INT64:
+        return buffer.getLong(index, byteOrder);
+      default:
+        return 0;
+    }
+  }
+
+  private static void integer(int fieldId, int fieldOffset, int type, ByteOrder byteOrder,
+      DirectBuffer buffer, int offset, FieldConsumer consumer) {
+    consumer.onInteger(fieldId, get(buffer, offset + fieldOffset, type, byteOrder));
+  }
+
+  private static void member(int fieldId, int member, int memberOffset, int type,
+      ByteOrder byteOrder, DirectBuffer buffer, int offset, FieldConsumer consumer) {
+    consumer.onMember(fieldId, member, get(buffer, offset + memberOffset, type, byteOrder));
+  }
+
+  private static void none(DirectBuffer buffer, int offset, FieldConsumer consumer) {}
+
+  private static void timestamp(int fieldId, int timeOffset, int timeType, int unitOffset,
+      int unit, ByteOrder byteOrder, DirectBuffer buffer, int offset, FieldConsumer consumer) {
+    consumer.onTimestamp(fieldId, get(buffer, offset + timeOffset, timeType, byteOrder),
+        unitOffset < 0 ? unit : buffer.getByte(offset + unitOffset) & 0xFF);
+  }
+
+  /**
+   * @param type a primitive type
+   * @return code of the type to pass to {@link #get(DirectBuffer, int, int, ByteOrder)}
+   */
+  static int typeCode(PrimitiveType type) {
+    switch (type) {
+      case CHAR:
+      case INT8:
+        return INT8;
+      case UINT8:
+        return UINT8;
+      case INT16:
+        return INT16;
+      case UINT16:
+        return UINT16;
+      case INT32:
+        return INT32;
+      case UINT32:
+        return UINT32;
+      case FLOAT:
+        return FLOAT;
+      case DOUBLE:
+        return DOUBLE;
+      default:
+        return INT64;
+    }
+  }
+
+  private final MethodHandle block;
+  private final ByteOrder byteOrder;
+  private final int[] dimensionBlockLengthOffset;
+  private final int[] dimensionBlockLengthType;
+  private final int[] dimensionLength;
+  private final int[] dimensionNumInGroupOffset;
+  private final int[] dimensionNumInGroupType;
+  private final SpecializedDecoder[] groups;
+  private final int[] groupId;
+  private final int schemaId;
+  private final int templateId;
+  private final int[] varDataId;
+  private final int[] varDataLengthOffset;
+  private final int[] varDataLengthType;
+  private final int[] varDataOffset;
+  private final int version;
+
+  private SpecializedDecoder(DecodePlan plan, int from, int to, int schemaId, int templateId,
+      int version, ByteOrder byteOrder) {
+    this.schemaId = schemaId;
+    this.templateId = templateId;
+    this.version = version;
+    this.byteOrder = byteOrder;
+
+    final List<MethodHandle> fields = new ArrayList<>();
+    final List<Integer> groupOps = new ArrayList<>();
+    final List<Integer> varDataOps = new ArrayList<>();
+    for (int op = from; op < to; op++) {
+      final int kind = plan.kind[op];
+      final boolean present = plan.sinceVersion[op] <= version;
+      switch (kind) {
+        case DecodePlan.GROUP:
+          if (present) {
+            groupOps.add(op);
+          }
+          op = plan.aux[op];
+          break;
+        case DecodePlan.VAR_DATA:
+          if (present) {
+            varDataOps.add(op);
+          }
+          break;
+        case DecodePlan.COMPOSITE:
+          if (present) {
+            int member = 0;
+            for (int m = op + 1; m <= op + plan.aux[op]; m++) {
+              if (plan.type[m] != null) {
+                fields.add(MethodHandles.insertArguments(MEMBER, 0, plan.fieldId[op], member++,
+                    plan.offset[m], typeCode(plan.type[m]), byteOrder));
+              }
+            }
+          }
+          op += plan.aux[op];
+          break;
+        default:
+          if (present) {
+            fields.add(fieldHandle(plan, op));
+          }
+      }
+    }
+
+    MethodHandle handle = NONE;
+    for (int i = fields.size() - 1; i >= 0; i--) {
+      handle = MethodHandles.foldArguments(handle, fields.get(i));
+    }
+    this.block = handle;
+
+    final int groupCount = groupOps.size();
+    groupId = new int[groupCount];
+    groups = new SpecializedDecoder[groupCount];
+    dimensionLength = new int[groupCount];
+    dimensionBlockLengthOffset = new int[groupCount];
+    dimensionBlockLengthType = new int[groupCount];
+    dimensionNumInGroupOffset = new int[groupCount];
+    dimensionNumInGroupType = new int[groupCount];
+    for (int g = 0; g < groupCount; g++) {
+      final int op = groupOps.get(g);
+      groupId[g] = plan.fieldId[op];
+      dimensionLength[g] = plan.offset[op];
+      for (int dimension = op + 1; dimension <= op + plan.aux2[op]; dimension++) {
+        if (plan.aux[dimension] == DecodePlan.ROLE_BLOCK_LENGTH) {
+          dimensionBlockLengthOffset[g] = plan.offset[dimension];
+          dimensionBlockLengthType[g] = typeCode(plan.type[dimension]);
+        } else if (plan.aux[dimension] == DecodePlan.ROLE_NUM_IN_GROUP) {
+          dimensionNumInGroupOffset[g] = plan.offset[dimension];
+          dimensionNumInGroupType[g] = typeCode(plan.type[dimension]);
+        }
+      }
+      groups[g] = new SpecializedDecoder(plan, op + 1 + plan.aux2[op], plan.aux[op], schemaId,
+          templateId, version, byteOrder);
+    }
+
+    final int varDataCount = varDataOps.size();
+    varDataId = new int[varDataCount];
+    varDataLengthOffset = new int[varDataCount];
+    varDataLengthType = new int[varDataCount];
+    varDataOffset = new int[varDataCount];
+    for (int v = 0; v < varDataCount; v++) {
+      final int op = varDataOps.get(v);
+      varDataId[v] = plan.fieldId[op];
+      varDataLengthOffset[v] = plan.offset[op];
+      varDataLengthType[v] = typeCode(plan.type[op]);
+      varDataOffset[v] = plan.aux[op];
+    }
+  }
+
+  /**
+   * Decodes a message
+   *
+   * @param buffer buffer containing the message
+   * @param offset index of the root block, following the message header
+   * @param blockLength root block length from the message header
+   * @param consumer receives field values
+   * @return index of the end of the message
+   */
+  public int decode(DirectBuffer buffer, int offset, int blockLength, FieldConsumer consumer) {
+    try {
+      block.invokeExact(buffer, offset, consumer);
+    } catch (final Throwable t) {
+      LangUtil.rethrowUnchecked(t);
+    }
+
+    int limit = offset + blockLength;
+    for (int g = 0; g < groups.length; g++) {
+      final int entryBlockLength =
+          (int) get(buffer, limit + dimensionBlockLengthOffset[g], dimensionBlockLengthType[g],
+              byteOrder);
+      final int numInGroup = (int) get(buffer, limit + dimensionNumInGroupOffset[g],
+          dimensionNumInGroupType[g], byteOrder);
+      consumer.onGroupBegin(groupId[g], numInGroup);
+      limit += dimensionLength[g];
+      for (int entry = 0; entry < numInGroup; entry++) {
+        limit = groups[g].decode(buffer, limit, entryBlockLength, consumer);
+      }
+      consumer.onGroupEnd(groupId[g]);
+    }
+
+    for (int v = 0; v < varDataId.length; v++) {
+      final int dataLength =
+          (int) get(buffer, limit + varDataLengthOffset[v], varDataLengthType[v], byteOrder);
+      final int dataOffset = limit + varDataOffset[v];
+      consumer.onBytes(varDataId[v], buffer, dataOffset, dataLength);
+      limit = dataOffset + dataLength;
+    }
+    return limit;
+  }
+
+  /**
+   * @return ID of the schema of the message
+   */
+  public int schemaId() {
+    return schemaId;
+  }
+
+  /**
+   * @return template ID of the message
+   */
+  public int templateId() {
+    return templateId;
+  }
+
+  @Override
+  public String toString() {
+    return "SpecializedDecoder [schemaId=" + schemaId + ", templateId=" + templateId
+        + ", version=" + version + "]";
+  }
+
+  /**
+   * @return schema version the decoder is specialized for
+   */
+  public int version() {
+    return version;
+  }
+
+  private MethodHandle fieldHandle(DecodePlan plan, int op) {
+    final int fieldId = plan.fieldId[op];
+    final int fieldOffset = plan.offset[op];
+    switch (plan.kind[op]) {
+      case DecodePlan.CHARS:
+      case DecodePlan.ARRAY:
+        return MethodHandles.insertArguments(BYTES, 0, fieldId, fieldOffset, plan.length[op]);
+      case DecodePlan.DECIMAL:
+        return MethodHandles.insertArguments(DECIMAL, 0, fieldId, fieldOffset + plan.aux[op],
+            typeCode(plan.type[op]), plan.aux2[op] < 0 ? -1 : fieldOffset + plan.aux2[op],
+            (int) plan.constValue[op], byteOrder);
+      case DecodePlan.TIMESTAMP:
+        return MethodHandles.insertArguments(TIMESTAMP, 0, fieldId, fieldOffset + plan.aux[op],
+            typeCode(plan.type[op]), plan.aux2[op] < 0 ? -1 : fieldOffset + plan.aux2[op],
+            (int) plan.constValue[op], byteOrder);
+      default:
+        final int type = typeCode(plan.type[op]);
+        return MethodHandles.insertArguments(type == FLOAT || type == DOUBLE ? FLOATING : INTEGER,
+            0, fieldId, fieldOffset, type, byteOrder);
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.interpret;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+
+import uk.co.real_logic.sbe.ir.Ir;
+import uk.co.real_logic.sbe.ir.Token;
+
+/**
+ * Specialized decoders of every template and version of one or more schemas
+ * <p>
+ * When a schema is added, a {@link SpecializedDecoder} is compiled for each combination of
+ * template and version from 0 to the schema version, so that no specialization happens while
+ * decoding. A message is dispatched on the schema ID, template ID and version of its header
+ * through arrays indexed by template ID and version, rather than a hash lookup. A message of a
+ * later version than its schema is decoded with the latest layout known.
+ * <p>
+ * All schemas must share the message header layout and byte order of the first schema added.
+ * Adding schemas is not thread-safe; decoding is.
+ *
+ * @author Don Mendelson
+ *
+ */
+public final class SpecializedDecoders {
+
+  /**
+   * Loads schemas from the class path
+   *
+   * @param names resource names of SBE XML schemas
+   * @return decoders of the schemas
+   * @throws IOException if a resource is not found or is not a valid schema
+   */
+  public static SpecializedDecoders fromResource(String... names) throws IOException {
+    final SpecializedDecoders decoders = new SpecializedDecoders();
+    for (final String name : names) {
+      decoders.add(MessageInterpreter.loadResource(name));
+    }
+    return decoders;
+  }
+
+  private int blockLengthOffset = -1;
+  private int blockLengthType;
+  private ByteOrder byteOrder;
+  private int count = 0;
+  /** Decoders of each schema, indexed by template ID and version */
+  private SpecializedDecoder[][][] decoders = new SpecializedDecoder[0][][];
+  private DecodePlan header;
+  private int[] schemaIds = new int[0];
+  private int schemaIdOffset = -1;
+  private int schemaIdType;
+  private int templateIdOffset = -1;
+  private int templateIdType;
+  private int versionOffset = -1;
+  private int versionType;
+
+  /**
+   * Compiles decoders for every template and version of a schema
+   *
+   * @param ir intermediate representation of a schema
+   * @throws IllegalArgumentException if the message header or byte order of the schema differs
+   *         from schemas already added
+   */
+  public void add(Ir ir) {
+    final DecodePlan plan = DecodePlan.compileHeader(ir.headerStructure().tokens());
+    if (header == null) {
+      header = plan;
+      byteOrder = ir.byteOrder();
+      for (int op = 0; op < header.count; op++) {
+        switch (header.aux[op]) {
+          case DecodePlan.ROLE_BLOCK_LENGTH:
+            blockLengthOffset = header.offset[op];
+            blockLengthType = SpecializedDecoder.typeCode(header.type[op]);
+            break;
+          case DecodePlan.ROLE_TEMPLATE_ID:
+            templateIdOffset = header.offset[op];
+            templateIdType = SpecializedDecoder.typeCode(header.type[op]);
+            break;
+          case DecodePlan.ROLE_SCHEMA_ID:
+            schemaIdOffset = header.offset[op];
+            schemaIdType = SpecializedDecoder.typeCode(header.type[op]);
+            break;
+          case DecodePlan.ROLE_VERSION:
+            versionOffset = header.offset[op];
+            versionType = SpecializedDecoder.typeCode(header.type[op]);
+            break;
+          default:
+            break;
+        }
+      }
+    } else if (!sameHeader(plan) || byteOrder != ir.byteOrder()) {
+      throw new IllegalArgumentException(
+          "Message header or byte order of schema " + ir.id() + " differs");
+    }
+
+    int maxTemplateId = 0;
+    final List<DecodePlan> plans = new ArrayList<>();
+    for (final List<Token> tokens : ir.messages()) {
+      final DecodePlan messagePlan = DecodePlan.compileMessage(tokens);
+      plans.add(messagePlan);
+      maxTemplateId = Math.max(maxTemplateId, messagePlan.templateId);
+    }
+    final SpecializedDecoder[][] table = new SpecializedDecoder[maxTemplateId + 1][];
+    for (final DecodePlan messagePlan : plans) {
+      final SpecializedDecoder[] versions = new SpecializedDecoder[ir.version() + 1];
+      for (int version = 0; version <= ir.version(); version++) {
+        versions[version] = SpecializedDecoder.compile(messagePlan, ir.id(), version, byteOrder);
+        count++;
+      }
+      table[messagePlan.templateId] = versions;
+    }
+
+    int schema = indexOf(ir.id());
+    if (schema < 0) {
+      schema = schemaIds.length;
+      schemaIds = Arrays.copyOf(schemaIds, schema + 1);
+      decoders = Arrays.copyOf(decoders, schema + 1);
+      schemaIds[schema] = ir.id();
+    } else {
+      count -= count(decoders[schema]);
+    }
+    decoders[schema] = table;
+  }
+
+  /**
+   * Decodes a message, starting with its message header
+   *
+   * @param buffer buffer containing the message
+   * @param offset index of the message header
+   * @param consumer receives field values
+   * @return number of bytes of the message including its header, or {@code -1} if there is no
+   *         decoder for its schema and template, or its version is negative
+   */
+  public int decode(DirectBuffer buffer, int offset, FieldConsumer consumer) {
+    final SpecializedDecoder decoder = decoder((int) get(buffer, offset, schemaIdOffset,
+        schemaIdType), (int) get(buffer, offset, templateIdOffset, templateIdType),
+        (int) get(buffer, offset, versionOffset, versionType));
+    if (decoder == null) {
+      return -1;
+    }
+    final int blockLength = (int) get(buffer, offset, blockLengthOffset, blockLengthType);
+    return decoder.decode(buffer, offset + header.blockLength, blockLength, consumer) - offset;
+  }
+
+  /**
+   * @param schemaId schema ID
+   * @param templateId template ID
+   * @param version schema version of a message. A version later than the schema is decoded with
+   *         the layout of the latest known version, since the acting block length of the message
+   *         skips fields added later.
+   * @return a decoder, or {@code null} if the schema or template is unknown or the version is
+   *         negative
+   */
+  public SpecializedDecoder decoder(int schemaId, int templateId, int version) {
+    final int schema = indexOf(schemaId);
+    if (schema < 0) {
+      return null;
+    }
+    final SpecializedDecoder[][] table = decoders[schema];
+    if (templateId < 0 || templateId >= table.length) {
+      return null;
+    }
+    final SpecializedDecoder[] versions = table[templateId];
+    if (versions == null || version < 0) {
+      return null;
+    }
+    return versions[Math.min(version, versions.length - 1)];
+  }
+
+  /**
+   * @return number of compiled decoders
+   */
+  public int size() {
+    return count;
+  }
+
+  private int count(SpecializedDecoder[][] table) {
+    int n = 0;
+    for (final SpecializedDecoder[] versions : table) {
+      if (versions != null) {
+        n += versions.length;
+      }
+    }
+    return n;
+  }
+
+  private long get(DirectBuffer buffer, int offset, int fieldOffset, int type) {
+    return fieldOffset < 0 ? 0
+        : SpecializedDecoder.get(buffer, offset + fieldOffset, type, byteOrder);
+  }
+
+  private int indexOf(int schemaId) {
+    for (int schema = 0; schema < schemaIds.length; schema++) {
+      if (schemaIds[schema] == schemaId) {
+        return schema;
+      }
+    }
+    return -1;
+  }
+
+  private boolean sameHeader(DecodePlan plan) {
+    if (plan.count != header.count || plan.blockLength != header.blockLength) {
+      return false;
+    }
+    for (int op = 0; op < plan.count; op++) {
+      if (plan.offset[op] != header.offset[op] || plan.type[op] != header.type[op]
+          || plan.aux[op] != header.aux[op]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.pipeline;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.agrona.BitUtil;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Hashing;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+
+import io.fixprotocol.sbe.counters.FrameCounters;
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.pipeline.SchemaDispatcher.Dialect;
+
+/**
+ * Decodes frames on several worker threads, keeping the frames of each Symbol in order
+ * <p>
+ * The thread that delivers frames to {@link #onFrame(DirectBuffer, int, int)}, typically a
+ * {@link io.fixprotocol.sbe.capture.SofhCaptureReader} or
+ * {@link io.fixprotocol.sbe.examples.SofhFrameDeframer}, reads the 8-byte Symbol of a
+ * NewOrderSingle or ExecutionReport at its fixed offset without decoding the message, and copies
+ * the frame into the {@link OneToOneRingBuffer} of the worker chosen by a hash of the Symbol.
+ * Frames without a Symbol go to the worker of an all-NUL Symbol. Since all frames of a Symbol pass
+ * through one ring buffer to one thread, they are decoded in the order received.
+ * <p>
+ * Each worker decodes with a {@link SchemaDispatcher}, so little-endian and big-endian frames of
+ * the example schema may be mixed in one stream. Frames of sources that speak other SBE versions
+ * are delivered to {@link #onFrame(Dialect, DirectBuffer, int, int)} with the
+ * dialect of their source, which is passed through the ring buffer as its message type. Frames of
+ * other schemas go to the worker of an all-NUL Symbol.
+ * <p>
+ * Each worker is an {@link Agent} with its own flyweight decoders and its own
+ * {@link MessageHandler}. When a ring buffer is full, the delivering thread waits for space, so a
+ * slow worker applies back pressure to the reader.
+ * <p>
+ * {@code onFrame} must only be called by one thread.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class DecodePipeline implements SofhFrameHandler, AutoCloseable {
+
+  /**
+   * Default capacity of each ring buffer in bytes
+   */
+  public static final int DEFAULT_RING_CAPACITY = 1024 * 1024;
+
+  /** Message type of a frame of SBE 2.0 RC2; other dialects follow in order */
+  static final int FRAME_MSG_TYPE_ID = 1;
+
+  private static final Dialect[] DIALECTS = Dialect.values();
+
+  private static final class Worker implements Agent {
+    private final AtomicLong delivered = new AtomicLong();
+    private final SchemaDispatcher dispatcher;
+    private final int index;
+    private final org.agrona.concurrent.MessageHandler onMessage = this::onMessage;
+    private final RingBuffer ringBuffer;
+
+    Worker(int index, RingBuffer ringBuffer, MessageHandler handler) {
+      this.index = index;
+      this.ringBuffer = ringBuffer;
+      this.dispatcher = new SchemaDispatcher(handler);
+    }
+
+    @Override
+    public int doWork() {
+      final int frames = ringBuffer.read(onMessage);
+      if (frames > 0) {
+        delivered.lazySet(delivered.get() + frames);
+      }
+      return frames;
+    }
+
+    @Override
+    public String roleName() {
+      return "decode-worker-" + index;
+    }
+
+    private void onMessage(int msgTypeId, MutableDirectBuffer buffer, int offset, int length) {
+      dispatcher.onFrame(DIALECTS[msgTypeId - FRAME_MSG_TYPE_ID], buffer, offset, length);
+    }
+  }
+
+  private long backPressureEvents = 0;
+  private final BigEndianDispatcher bigEndianDispatcher = new BigEndianDispatcher();
+  private final FrameCounters counters;
+  private final ErrorHandler errorHandler;
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final IdleStrategy offerIdleStrategy = new BackoffIdleStrategy();
+  private long published = 0;
+  private final RingBuffer[] ringBuffers;
+  private AgentRunner[] runners;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final Supplier<IdleStrategy> workerIdleStrategies;
+  private final Worker[] workers;
+
+  /**
+   * Creates a pipeline with ring buffers of the default capacity, workers that back off when idle,
+   * and errors printed to standard error
+   *
+   * @param workerCount number of worker threads
+   * @param handlerFactory creates the handler of each worker, given its index
+   */
+  public DecodePipeline(int workerCount, IntFunction<MessageHandler> handlerFactory) {
+    this(workerCount, DEFAULT_RING_CAPACITY, handlerFactory, BackoffIdleStrategy::new,
+        Throwable::printStackTrace);
+  }
+
+  /**
+   * Creates a pipeline. Workers are not started until {@link #start()}.
+   *
+   * @param workerCount number of worker threads
+   * @param ringCapacity capacity of each ring buffer in bytes, rounded up to a power of two
+   * @param handlerFactory creates the handler of each worker, given its index
+   * @param workerIdleStrategies supplies an idle strategy for each worker
+   * @param errorHandler receives exceptions thrown by handlers
+   */
+  public DecodePipeline(int workerCount, int ringCapacity,
+      IntFunction<MessageHandler> handlerFactory, Supplier<IdleStrategy> workerIdleStrategies,
+      ErrorHandler errorHandler) {
+    this(workerCount, ringCapacity, handlerFactory, workerIdleStrategies, errorHandler,
+        FrameCounters.NONE);
+  }
+
+  /**
+   * Creates a pipeline with counters. Workers are not started until {@link #start()}.
+   *
+   * @param workerCount number of worker threads
+   * @param ringCapacity capacity of each ring buffer in bytes, rounded up to a power of two
+   * @param handlerFactory creates the handler of each worker, given its index
+   * @param workerIdleStrategies supplies an idle strategy for each worker
+   * @param errorHandler receives exceptions thrown by handlers
+   * @param counters counts back pressure events
+   */
+  public DecodePipeline(int workerCount, int ringCapacity,
+      IntFunction<MessageHandler> handlerFactory, Supplier<IdleStrategy> workerIdleStrategies,
+      ErrorHandler errorHandler, FrameCounters counters) {
+    if (workerCount <= 0) {
+      throw new IllegalArgumentException("Worker count must be positive");
+    }
+    final int capacity = BitUtil.findNextPositivePowerOfTwo(ringCapacity);
+    this.workerIdleStrategies = workerIdleStrategies;
+    this.errorHandler = errorHandler;
+    this.counters = counters;
+    this.ringBuffers = new RingBuffer[workerCount];
+    this.workers = new Worker[workerCount];
+    for (int i = 0; i < workerCount; i++) {
+      ringBuffers[i] = new OneToOneRingBuffer(new UnsafeBuffer(
+          ByteBuffer.allocateDirect(capacity + RingBufferDescriptor.TRAILER_LENGTH)));
+      workers[i] = new Worker(i, ringBuffers[i], handlerFactory.apply(i));
+    }
+  }
+
+  /**
+   * @return number of times a frame could not be published because a ring buffer was full
+   */
+  public long backPressureEvents() {
+    return backPressureEvents;
+  }
+
+  /**
+   * Waits until every published frame has been handled, then stops the workers
+   */
+  @Override
+  public void close() {
+    if (runners != null) {
+      awaitDrained();
+      CloseHelper.closeAll(runners);
+      runners = null;
+    }
+  }
+
+  /**
+   * @param worker worker index
+   * @return number of frames handled by the worker. May be called by any thread.
+   */
+  public long delivered(int worker) {
+    return workers[worker].delivered.get();
+  }
+
+  /**
+   * Publishes a frame of SBE 2.0 RC2 to the worker of its Symbol, waiting while its ring buffer is
+   * full
+   *
+   * @throws IllegalArgumentException if the frame is too long for a ring buffer
+   */
+  @Override
+  public void onFrame(DirectBuffer buffer, int offset, int length) {
+    onFrame(Dialect.SBE_2_0_RC2, buffer, offset, length);
+  }
+
+  /**
+   * Publishes a frame to the worker of its Symbol, waiting while its ring buffer is full
+   *
+   * @param dialect SBE version spoken by the source of the frame
+   * @param buffer buffer containing the frame
+   * @param offset offset of the framing header
+   * @param length length of the frame, including the framing header
+   * @throws IllegalArgumentException if the frame is too long for a ring buffer
+   */
+  public void onFrame(Dialect dialect, DirectBuffer buffer, int offset, int length) {
+    final RingBuffer ringBuffer = ringBuffers[worker(symbol(dialect, buffer, offset, length))];
+    final int msgTypeId = FRAME_MSG_TYPE_ID + dialect.ordinal();
+    if (!ringBuffer.write(msgTypeId, buffer, offset, length)) {
+      offerIdleStrategy.reset();
+      do {
+        backPressureEvents++;
+        counters.onBackPressure();
+        offerIdleStrategy.idle();
+      } while (!ringBuffer.write(msgTypeId, buffer, offset, length));
+    }
+    published++;
+  }
+
+  /**
+   * @return number of frames published to workers
+   */
+  public long published() {
+    return published;
+  }
+
+  /**
+   * Starts a thread for each worker
+   *
+   * @throws IllegalStateException if already started
+   */
+  public void start() {
+    if (runners != null) {
+      throw new IllegalStateException("Already started");
+    }
+    runners = new AgentRunner[workers.length];
+    for (int i = 0; i < workers.length; i++) {
+      runners[i] = new AgentRunner(workerIdleStrategies.get(), errorHandler, null, workers[i]);
+      AgentRunner.startOnThread(runners[i]);
+    }
+  }
+
+  /**
+   * Selects the worker for a Symbol
+   *
+   * @param symbol Symbol as a key, the 8 bytes of the {@code idString} read little-endian
+   * @return worker index
+   */
+  public int worker(long symbol) {
+    return (Hashing.hash(symbol) & Integer.MAX_VALUE) % workers.length;
+  }
+
+  /**
+   * @return number of workers
+   */
+  public int workerCount() {
+    return workers.length;
+  }
+
+  private void awaitDrained() {
+    final IdleStrategy idleStrategy = new BackoffIdleStrategy();
+    for (final RingBuffer ringBuffer : ringBuffers) {
+      idleStrategy.reset();
+      while (ringBuffer.consumerPosition() < ringBuffer.producerPosition()) {
+        idleStrategy.idle();
+      }
+    }
+  }
+
+  private long symbol(Dialect dialect, DirectBuffer buffer, int offset, int length) {
+    sofhDecoder.wrap(buffer, offset);
+    final int headerOffset = offset + sofhDecoder.encodedLength();
+    if (length < sofhDecoder.encodedLength() + mhDecoder.encodedLength()) {
+      return 0;
+    }
+    final int schemaId;
+    final int templateId;
+    switch (sofhDecoder.encoding()) {
+      case SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN:
+        mhDecoder.wrap(buffer, headerOffset);
+        schemaId = mhDecoder.schemaId();
+        templateId = mhDecoder.templateId();
+        break;
+      case SofhFrameDecoder.SBE_1_0_BIG_ENDIAN:
+        schemaId = bigEndianDispatcher.schemaId(buffer, headerOffset);
+        templateId = bigEndianDispatcher.templateId(buffer, headerOffset);
+        break;
+      default:
+        return 0;
+    }
+    if (schemaId != ExecutionReportDecoder.SCHEMA_ID) {
+      return 0;
+    }
+    // Symbol is a character array at the same offset in either byte order and every version, but
+    // the message header of SBE 1.0 is shorter
+    final int headerLength = dialect == Dialect.SBE_1_0
+        ? io.fixprotocol.sbe.examples.messages.v1_0.MessageHeaderDecoder.ENCODED_LENGTH
+        : mhDecoder.encodedLength();
+    final int symbolOffset;
+    switch (templateId) {
+      case ExecutionReportDecoder.TEMPLATE_ID:
+        symbolOffset = ExecutionReportDecoder.symbolEncodingOffset();
+        break;
+      case NewOrderSingleDecoder.TEMPLATE_ID:
+        symbolOffset = NewOrderSingleDecoder.symbolEncodingOffset();
+        break;
+      default:
+        return 0;
+    }
+    final int position = headerOffset + headerLength + symbolOffset;
+    if (position + Long.BYTES > offset + length) {
+      return 0;
+    }
+    return buffer.getLong(position, ByteOrder.LITTLE_ENDIAN);
+  }
+}
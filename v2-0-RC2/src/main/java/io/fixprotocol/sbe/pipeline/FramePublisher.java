@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.pipeline;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+
+/**
+ * Publishes frames with a Simple Open Framing Header by encoding them directly into a ring buffer
+ * <p>
+ * A producer claims space for a frame with {@link #tryClaim(int)}, wraps its own
+ * {@link io.fixprotocol.sbe.examples.SofhFrameEncoder}, message header encoder and message encoder
+ * over {@link #buffer()} at the returned offset, and then calls {@link #commit(int)} or
+ * {@link #abort(int)}. The frame is encoded once, in place, with no intermediate copy.
+ * <p>
+ * With a {@link ManyToOneRingBuffer}, any number of producer threads may claim and commit
+ * concurrently without locks; claims are made by compare-and-swap on the ring buffer's tail, and
+ * frames of each producer are delivered in the order committed. The ring buffer may be in direct
+ * memory, or in a memory-mapped file shared with a consumer in another process. Only one thread may
+ * call {@link #drain(SofhFrameHandler, int)}.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class FramePublisher {
+
+  /**
+   * Returned by {@link #tryClaim(int)} when the ring buffer is full
+   */
+  public static final int INSUFFICIENT_CAPACITY = RingBuffer.INSUFFICIENT_CAPACITY;
+
+  /**
+   * Creates a file of the required length, or maps an existing one, and lays a many-to-one ring
+   * buffer over it
+   *
+   * @param file file to map
+   * @param capacity capacity in bytes, rounded up to a power of two
+   * @return ring buffer shared through the file
+   */
+  public static RingBuffer mapRingBuffer(File file, int capacity) {
+    final int length =
+        BitUtil.findNextPositivePowerOfTwo(capacity) + RingBufferDescriptor.TRAILER_LENGTH;
+    return new ManyToOneRingBuffer(new UnsafeBuffer(file.exists()
+        ? IoUtil.mapExistingFile(file, "ring buffer")
+        : IoUtil.mapNewFile(file, length)));
+  }
+
+  /**
+   * Creates a many-to-one ring buffer in direct memory
+   *
+   * @param capacity capacity in bytes, rounded up to a power of two
+   * @return a new ring buffer
+   */
+  public static RingBuffer newRingBuffer(int capacity) {
+    return new ManyToOneRingBuffer(new UnsafeBuffer(ByteBuffer.allocateDirect(
+        BitUtil.findNextPositivePowerOfTwo(capacity) + RingBufferDescriptor.TRAILER_LENGTH)));
+  }
+
+  private final org.agrona.concurrent.MessageHandler onMessage;
+  private SofhFrameHandler handler;
+  private final RingBuffer ringBuffer;
+
+  /**
+   * Creates a publisher
+   *
+   * @param ringBuffer ring buffer to publish into; a {@link ManyToOneRingBuffer} for more than one
+   *        producer thread
+   */
+  public FramePublisher(RingBuffer ringBuffer) {
+    this.ringBuffer = ringBuffer;
+    this.onMessage = (msgTypeId, buffer, offset, length) -> handler.onFrame(buffer, offset, length);
+  }
+
+  /**
+   * Abandons a claimed frame. The consumer skips it.
+   *
+   * @param offset offset returned by {@link #tryClaim(int)}
+   */
+  public void abort(int offset) {
+    ringBuffer.abort(offset);
+  }
+
+  /**
+   * @return buffer in which claimed frames are encoded. Each producer may only write within the
+   *         frames it has claimed.
+   */
+  public MutableDirectBuffer buffer() {
+    return ringBuffer.buffer();
+  }
+
+  /**
+   * Makes a claimed frame available to the consumer
+   *
+   * @param offset offset returned by {@link #tryClaim(int)}
+   */
+  public void commit(int offset) {
+    ringBuffer.commit(offset);
+  }
+
+  /**
+   * Delivers published frames, in the order committed by each producer
+   *
+   * @param handler receives frames
+   * @param frameLimit maximum number of frames to deliver
+   * @return number of frames delivered
+   */
+  public int drain(SofhFrameHandler handler, int frameLimit) {
+    this.handler = handler;
+    try {
+      return ringBuffer.read(onMessage, frameLimit);
+    } finally {
+      this.handler = null;
+    }
+  }
+
+  /**
+   * @return maximum length of a frame
+   */
+  public int maxFrameLength() {
+    return ringBuffer.maxMsgLength();
+  }
+
+  /**
+   * Publishes a frame that has already been encoded elsewhere, by copying it
+   *
+   * @param src buffer containing the frame
+   * @param offset offset of the framing header
+   * @param length length of the frame, including the framing header
+   * @return {@code true} if published, {@code false} if the ring buffer is full
+   */
+  public boolean offer(DirectBuffer src, int offset, int length) {
+    return ringBuffer.write(DecodePipeline.FRAME_MSG_TYPE_ID, src, offset, length);
+  }
+
+  /**
+   * Claims space for a frame
+   *
+   * @param frameLength exact length of the frame, including the framing header
+   * @return offset in {@link #buffer()} at which to encode the framing header, or
+   *         {@link #INSUFFICIENT_CAPACITY} if the ring buffer is full
+   * @throws IllegalArgumentException if the frame is longer than {@link #maxFrameLength()}
+   */
+  public int tryClaim(int frameLength) {
+    return ringBuffer.tryClaim(DecodePipeline.FRAME_MSG_TYPE_ID, frameLength);
+  }
+}
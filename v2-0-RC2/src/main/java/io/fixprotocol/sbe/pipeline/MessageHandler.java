@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.pipeline;
+
+import org.agrona.DirectBuffer;
+
+import io.fixprotocol.sbe.examples.messages.BusinessMessageRejectDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+
+/**
+ * Receives decoded messages from a worker of a {@link DecodePipeline}
+ * <p>
+ * Each worker has its own handler, so a handler is only invoked by one thread. Decoders are
+ * flyweights reused for every message; they are only valid for the duration of the call. Methods
+ * that are not overridden ignore their messages.
+ * <p>
+ * Each message type has a method for either byte order and for the schemas of the other SBE
+ * versions, overloaded on the flyweight generated for each, since their fields are read by
+ * different decoder classes.
+ *
+ * @author Don Mendelson
+ *
+ */
+public interface MessageHandler {
+
+  /**
+   * @param decoder wrapped BusinessMessageReject
+   */
+  default void onBusinessMessageReject(BusinessMessageRejectDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped big-endian BusinessMessageReject
+   */
+  default void onBusinessMessageReject(
+      io.fixprotocol.sbe.examples.messages.bigendian.BusinessMessageRejectDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped BusinessMessageReject of SBE version 1.0
+   */
+  default void onBusinessMessageReject(
+      io.fixprotocol.sbe.examples.messages.v1_0.BusinessMessageRejectDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped BusinessMessageReject of SBE version 2.0 RC1
+   */
+  default void onBusinessMessageReject(
+      io.fixprotocol.sbe.examples.messages.v2_0_rc1.BusinessMessageRejectDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped ExecutionReport
+   */
+  default void onExecutionReport(ExecutionReportDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped big-endian ExecutionReport
+   */
+  default void onExecutionReport(
+      io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped ExecutionReport of SBE version 1.0
+   */
+  default void onExecutionReport(
+      io.fixprotocol.sbe.examples.messages.v1_0.ExecutionReportDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped ExecutionReport of SBE version 2.0 RC1
+   */
+  default void onExecutionReport(
+      io.fixprotocol.sbe.examples.messages.v2_0_rc1.ExecutionReportDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped NewOrderSingle
+   */
+  default void onNewOrderSingle(NewOrderSingleDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped big-endian NewOrderSingle
+   */
+  default void onNewOrderSingle(
+      io.fixprotocol.sbe.examples.messages.bigendian.NewOrderSingleDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped NewOrderSingle of SBE version 1.0
+   */
+  default void onNewOrderSingle(
+      io.fixprotocol.sbe.examples.messages.v1_0.NewOrderSingleDecoder decoder) {}
+
+  /**
+   * @param decoder wrapped NewOrderSingle of SBE version 2.0 RC1
+   */
+  default void onNewOrderSingle(
+      io.fixprotocol.sbe.examples.messages.v2_0_rc1.NewOrderSingleDecoder decoder) {}
+
+  /**
+   * Invoked for a frame of another message, schema or encoding
+   *
+   * @param buffer buffer containing the frame
+   * @param offset offset of the framing header within the buffer
+   * @param length length of the frame, including the framing header
+   */
+  default void onOther(DirectBuffer buffer, int offset, int length) {}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.pipeline;
+
+import org.agrona.DirectBuffer;
+
+import io.fixprotocol.sbe.examples.messages.v2_0_rc1.BusinessMessageRejectDecoder;
+import io.fixprotocol.sbe.examples.messages.v2_0_rc1.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.v2_0_rc1.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.v2_0_rc1.NewOrderSingleDecoder;
+
+/**
+ * Decodes messages of the example schema of SBE version 2.0 RC1
+ *
+ * @author Don Mendelson
+ *
+ */
+final class Rc1Dispatcher {
+
+  private final BusinessMessageRejectDecoder bmrDecoder = new BusinessMessageRejectDecoder();
+  private final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+
+  /**
+   * Decodes a message and passes it to a handler
+   *
+   * @param buffer buffer containing the message
+   * @param headerOffset offset of the message header
+   * @param handler receives the decoded message
+   * @return {@code true} if the message was handled, or {@code false} if it is of another schema
+   *         or template
+   */
+  boolean dispatch(DirectBuffer buffer, int headerOffset, MessageHandler handler) {
+    mhDecoder.wrap(buffer, headerOffset);
+    final int messageOffset = headerOffset + mhDecoder.encodedLength();
+    if (mhDecoder.schemaId() == erDecoder.sbeSchemaId()) {
+      final int templateId = mhDecoder.templateId();
+      if (templateId == erDecoder.sbeTemplateId()) {
+        erDecoder.wrap(buffer, messageOffset, mhDecoder.blockLength(), mhDecoder.version());
+        handler.onExecutionReport(erDecoder);
+        return true;
+      } else if (templateId == nosDecoder.sbeTemplateId()) {
+        nosDecoder.wrap(buffer, messageOffset, mhDecoder.blockLength(), mhDecoder.version());
+        handler.onNewOrderSingle(nosDecoder);
+        return true;
+      } else if (templateId == bmrDecoder.sbeTemplateId()) {
+        bmrDecoder.wrap(buffer, messageOffset, mhDecoder.blockLength(), mhDecoder.version());
+        handler.onBusinessMessageReject(bmrDecoder);
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.pipeline;
+
+import java.nio.ByteOrder;
+
+import org.agrona.DirectBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+import io.fixprotocol.sbe.examples.messages.BusinessMessageRejectDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+
+/**
+ * Routes each frame to the codecs generated for its byte order, SBE version and schema
+ * <p>
+ * The example schemas of SBE 1.0, 2.0 RC1 and 2.0 RC2 are decoded side by side. All three have
+ * schema ID 91 and version 0, as a counterparty sends them, so the message header cannot tell
+ * them apart. The SBE version spoken on a connection, its {@link Dialect}, is known from its
+ * configuration and is given with each frame, or once when the dispatcher serves a single source.
+ * <p>
+ * Message headers differ in length, but all begin with {@code blockLength}, {@code templateId},
+ * {@code schemaId} and {@code version} as uint16, so those are read before the layout of the rest
+ * of the header is known. A dense table indexed by byte order, dialect, schema, version and
+ * template ID then selects the codecs, with no map lookup or boxing per frame.
+ * <p>
+ * A frame of a later version than the codecs of its schema is decoded by those codecs, which read
+ * the fields that they know. A frame of an unknown schema or template, or of a byte order that
+ * its dialect has no codecs for, is passed to {@link MessageHandler#onOther(DirectBuffer, int,
+ * int)}.
+ * <p>
+ * Frames are expected to be complete; see {@link io.fixprotocol.sbe.interpret.SofhFrameValidator}.
+ * Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public final class SchemaDispatcher implements SofhFrameHandler {
+
+  /**
+   * SBE version spoken by the source of frames
+   */
+  public enum Dialect {
+    /** SBE 2.0 Release Candidate 2, in either byte order */
+    SBE_2_0_RC2,
+    /** SBE 2.0 Release Candidate 1, little-endian */
+    SBE_2_0_RC1,
+    /** SBE 1.0, little-endian */
+    SBE_1_0
+  }
+
+  private static final byte RC2_LITTLE_ENDIAN = 1;
+  private static final byte RC2_BIG_ENDIAN = 2;
+  private static final byte RC1 = 3;
+  private static final byte STANDARD = 4;
+
+  private static final int BIG_ENDIAN_INDEX = 1;
+  private static final int LITTLE_ENDIAN_INDEX = 0;
+
+  /**
+   * Byte order index, dialect, schema ID, version and codec set, followed by the template IDs
+   * decoded, which are the same in all three schemas
+   */
+  private static final int[][] REGISTRATIONS = {
+      {LITTLE_ENDIAN_INDEX, Dialect.SBE_2_0_RC2.ordinal(), ExecutionReportDecoder.SCHEMA_ID,
+          ExecutionReportDecoder.SCHEMA_VERSION, RC2_LITTLE_ENDIAN,
+          BusinessMessageRejectDecoder.TEMPLATE_ID, ExecutionReportDecoder.TEMPLATE_ID,
+          NewOrderSingleDecoder.TEMPLATE_ID},
+      {BIG_ENDIAN_INDEX, Dialect.SBE_2_0_RC2.ordinal(), ExecutionReportDecoder.SCHEMA_ID,
+          ExecutionReportDecoder.SCHEMA_VERSION, RC2_BIG_ENDIAN,
+          BusinessMessageRejectDecoder.TEMPLATE_ID, ExecutionReportDecoder.TEMPLATE_ID,
+          NewOrderSingleDecoder.TEMPLATE_ID},
+      {LITTLE_ENDIAN_INDEX, Dialect.SBE_2_0_RC1.ordinal(),
+          io.fixprotocol.sbe.examples.messages.v2_0_rc1.ExecutionReportDecoder.SCHEMA_ID,
+          io.fixprotocol.sbe.examples.messages.v2_0_rc1.ExecutionReportDecoder.SCHEMA_VERSION,
+          RC1, BusinessMessageRejectDecoder.TEMPLATE_ID, ExecutionReportDecoder.TEMPLATE_ID,
+          NewOrderSingleDecoder.TEMPLATE_ID},
+      {LITTLE_ENDIAN_INDEX, Dialect.SBE_1_0.ordinal(),
+          io.fixprotocol.sbe.examples.messages.v1_0.ExecutionReportDecoder.SCHEMA_ID,
+          io.fixprotocol.sbe.examples.messages.v1_0.ExecutionReportDecoder.SCHEMA_VERSION,
+          STANDARD, BusinessMessageRejectDecoder.TEMPLATE_ID, ExecutionReportDecoder.TEMPLATE_ID,
+          NewOrderSingleDecoder.TEMPLATE_ID}};
+
+  private static final int DIALECT_COUNT = Dialect.values().length;
+
+  // offsets of the fields common to the message headers of all versions
+  private static final int TEMPLATE_ID_OFFSET = 2;
+  private static final int SCHEMA_ID_OFFSET = 4;
+  private static final int VERSION_OFFSET = 6;
+  private static final int COMMON_HEADER_LENGTH = 8;
+
+  private final BigEndianDispatcher bigEndianDispatcher = new BigEndianDispatcher();
+  /** Indexed by {@link #index(int, int, int, int, int)}; 0 if no codecs */
+  private final byte[] codecSets;
+  private final Dialect dialect;
+  private final MessageHandler handler;
+  private final LittleEndianDispatcher littleEndianDispatcher = new LittleEndianDispatcher();
+  private final int maxTemplateId;
+  private final int maxVersion;
+  private final Rc1Dispatcher rc1Dispatcher = new Rc1Dispatcher();
+  private final int schemaCount;
+  /** Indexed by schema ID; 0 if unknown, otherwise one more than the row of the schema */
+  private final int[] schemaRows;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final StandardDispatcher standardDispatcher = new StandardDispatcher();
+
+  /**
+   * Constructor for frames of SBE 2.0 RC2
+   *
+   * @param handler receives decoded messages and frames that are not decoded
+   */
+  public SchemaDispatcher(MessageHandler handler) {
+    this(handler, Dialect.SBE_2_0_RC2);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param handler receives decoded messages and frames that are not decoded
+   * @param dialect SBE version of frames passed to {@link #onFrame(DirectBuffer, int, int)}
+   */
+  public SchemaDispatcher(MessageHandler handler, Dialect dialect) {
+    this.handler = handler;
+    this.dialect = dialect;
+    int maxSchemaId = 0, maxTemplate = 0, maxVer = 0;
+    for (final int[] registration : REGISTRATIONS) {
+      maxSchemaId = Math.max(maxSchemaId, registration[2]);
+      maxVer = Math.max(maxVer, registration[3]);
+      for (int i = 5; i < registration.length; i++) {
+        maxTemplate = Math.max(maxTemplate, registration[i]);
+      }
+    }
+    this.maxTemplateId = maxTemplate;
+    this.maxVersion = maxVer;
+    this.schemaRows = new int[maxSchemaId + 1];
+    int rows = 0;
+    for (final int[] registration : REGISTRATIONS) {
+      if (schemaRows[registration[2]] == 0) {
+        schemaRows[registration[2]] = ++rows;
+      }
+    }
+    this.schemaCount = rows;
+    this.codecSets =
+        new byte[2 * DIALECT_COUNT * schemaCount * (maxVersion + 1) * (maxTemplateId + 1)];
+    // codecs of a version also serve later versions, unless they have codecs of their own
+    for (int version = 0; version <= maxVersion; version++) {
+      for (final int[] registration : REGISTRATIONS) {
+        if (registration[3] != version) {
+          continue;
+        }
+        for (int later = version; later <= maxVersion; later++) {
+          for (int i = 5; i < registration.length; i++) {
+            codecSets[index(registration[0], registration[1], schemaRows[registration[2]] - 1,
+                later, registration[i])] = (byte) registration[4];
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return SBE version of frames passed to {@link #onFrame(DirectBuffer, int, int)}
+   */
+  public Dialect dialect() {
+    return dialect;
+  }
+
+  /**
+   * Decodes a frame of the dialect given at construction
+   */
+  @Override
+  public void onFrame(DirectBuffer buffer, int offset, int length) {
+    onFrame(dialect, buffer, offset, length);
+  }
+
+  /**
+   * Decodes a frame with the codecs of its byte order, dialect, schema and version, and passes the
+   * message to the handler
+   *
+   * @param dialect SBE version spoken by the source of the frame
+   * @param buffer buffer containing the frame
+   * @param offset offset of the framing header
+   * @param length length of the frame, including the framing header
+   */
+  public void onFrame(Dialect dialect, DirectBuffer buffer, int offset, int length) {
+    if (length >= sofhDecoder.encodedLength() + COMMON_HEADER_LENGTH) {
+      final int headerOffset = offset + sofhDecoder.encodedLength();
+      switch (codecSet(dialect, buffer, offset, headerOffset)) {
+        case RC2_LITTLE_ENDIAN:
+          if (littleEndianDispatcher.dispatch(buffer, headerOffset, handler)) {
+            return;
+          }
+          break;
+        case RC2_BIG_ENDIAN:
+          if (bigEndianDispatcher.dispatch(buffer, headerOffset, handler)) {
+            return;
+          }
+          break;
+        case RC1:
+          if (rc1Dispatcher.dispatch(buffer, headerOffset, handler)) {
+            return;
+          }
+          break;
+        case STANDARD:
+          if (standardDispatcher.dispatch(buffer, headerOffset, handler)) {
+            return;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    handler.onOther(buffer, offset, length);
+  }
+
+  private byte codecSet(Dialect dialect, DirectBuffer buffer, int offset, int headerOffset) {
+    sofhDecoder.wrap(buffer, offset);
+    final int byteOrderIndex;
+    final ByteOrder byteOrder;
+    switch (sofhDecoder.encoding()) {
+      case SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN:
+        byteOrderIndex = LITTLE_ENDIAN_INDEX;
+        byteOrder = ByteOrder.LITTLE_ENDIAN;
+        break;
+      case SofhFrameDecoder.SBE_1_0_BIG_ENDIAN:
+        byteOrderIndex = BIG_ENDIAN_INDEX;
+        byteOrder = ByteOrder.BIG_ENDIAN;
+        break;
+      default:
+        return 0;
+    }
+    final int schemaId = buffer.getShort(headerOffset + SCHEMA_ID_OFFSET, byteOrder) & 0xFFFF;
+    final int templateId = buffer.getShort(headerOffset + TEMPLATE_ID_OFFSET, byteOrder) & 0xFFFF;
+    if (schemaId >= schemaRows.length || schemaRows[schemaId] == 0
+        || templateId > maxTemplateId) {
+      return 0;
+    }
+    final int version = Math.min(
+        buffer.getShort(headerOffset + VERSION_OFFSET, byteOrder) & 0xFFFF, maxVersion);
+    return codecSets[index(byteOrderIndex, dialect.ordinal(), schemaRows[schemaId] - 1, version,
+        templateId)];
+  }
+
+  private int index(int byteOrderIndex, int dialect, int schemaRow, int version, int templateId) {
+    return (((byteOrderIndex * DIALECT_COUNT + dialect) * schemaCount + schemaRow)
+        * (maxVersion + 1) + version) * (maxTemplateId + 1) + templateId;
+  }
+}
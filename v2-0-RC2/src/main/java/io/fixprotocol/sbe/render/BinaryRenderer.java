@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.render;
+
+import org.agrona.DirectBuffer;
+
+/**
+ * Renders interpreted messages in a compact binary form for reloading by other tools
+ * <p>
+ * The output is a sequence of records, each starting with a tag byte. Integers are unsigned
+ * 16-bit little-endian. Field names are omitted since they can be recovered from the schema, and
+ * header fields are identified by their order.
+ *
+ * <pre>
+ * 'M' templateId                                           start of a message
+ * 'F' fieldId offset length wire[length] valueLength value  a field
+ * 'E'                                                      end of a message
+ * </pre>
+ *
+ * @author Don Mendelson
+ *
+ */
+public class BinaryRenderer extends Renderer {
+
+  /**
+   * Tag of a message end record
+   */
+  public static final byte END = 'E';
+
+  /**
+   * Tag of a field record
+   */
+  public static final byte FIELD = 'F';
+
+  /**
+   * Tag of a message start record
+   */
+  public static final byte MESSAGE = 'M';
+
+  /**
+   * Constructor with the default block size
+   */
+  public BinaryRenderer() {
+    this(DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param blockSize initial size of the output block
+   */
+  public BinaryRenderer(int blockSize) {
+    super(blockSize);
+  }
+
+  @Override
+  public void onMessageBegin(int templateId, String name) {
+    ensure(3);
+    putByte(MESSAGE);
+    putShortBinary(templateId);
+  }
+
+  @Override
+  public void onMessageEnd() {
+    ensure(1);
+    putByte(END);
+  }
+
+  @Override
+  public void onRow(DirectBuffer buffer, int wireOffset, int fieldId, String name, int offset,
+      int length, DirectBuffer value, int valueLength) {
+    ensure(9 + length + valueLength);
+    putByte(FIELD);
+    putShortBinary(fieldId);
+    putShortBinary(offset);
+    putShortBinary(length);
+    putBytes(buffer, wireOffset, length);
+    putShortBinary(valueLength);
+    putBytes(value, 0, valueLength);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.render;
+
+import java.nio.charset.StandardCharsets;
+
+import org.agrona.DirectBuffer;
+
+/**
+ * Renders interpreted messages as comma-separated values, one line per field
+ * <p>
+ * The first line is a header. Each line starts with the sequence number of the message, counting
+ * from 1, and its template ID, so that fields of many messages can be loaded into one table. Wire
+ * format is rendered in full as hex. Values containing a comma, quote or line break are quoted as
+ * in RFC 4180.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class CsvRenderer extends Renderer {
+
+  private static final byte[] HEADER =
+      "Message,Template ID,Wire format,Field ID,Name,Offset,Length,Interpreted value\n"
+          .getBytes(StandardCharsets.US_ASCII);
+
+  private boolean headerRendered = false;
+  private int message = 0;
+  private int templateId;
+
+  /**
+   * Constructor with the default block size
+   */
+  public CsvRenderer() {
+    this(DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param blockSize initial size of the output block
+   */
+  public CsvRenderer(int blockSize) {
+    super(blockSize);
+  }
+
+  @Override
+  public void onMessageBegin(int templateId, String name) {
+    this.templateId = templateId;
+    message++;
+    if (!headerRendered) {
+      ensure(HEADER.length);
+      putBytes(HEADER);
+      headerRendered = true;
+    }
+  }
+
+  @Override
+  public void onRow(DirectBuffer buffer, int wireOffset, int fieldId, String name, int offset,
+      int length, DirectBuffer value, int valueLength) {
+    ensure(length * 2 + name.length() + valueLength * 2 + 80);
+    putInt(message);
+    putByte((byte) ',');
+    putInt(templateId);
+    putByte((byte) ',');
+    putHex(buffer, wireOffset, length);
+    putByte((byte) ',');
+    putInt(fieldId);
+    putByte((byte) ',');
+    putAscii(name);
+    putByte((byte) ',');
+    putInt(offset);
+    putByte((byte) ',');
+    putInt(length);
+    putByte((byte) ',');
+    if (needsQuotes(value, valueLength)) {
+      putByte((byte) '"');
+      for (int i = 0; i < valueLength; i++) {
+        final byte b = value.getByte(i);
+        if (b == '"') {
+          putByte(b);
+        }
+        putByte(b);
+      }
+      putByte((byte) '"');
+    } else {
+      putBytes(value, 0, valueLength);
+    }
+    putByte((byte) '\n');
+  }
+
+  private boolean needsQuotes(DirectBuffer value, int valueLength) {
+    for (int i = 0; i < valueLength; i++) {
+      switch (value.getByte(i)) {
+        case ',':
+        case '"':
+        case '\n':
+        case '\r':
+          return true;
+        default:
+          break;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.render;
+
+import java.nio.charset.StandardCharsets;
+
+import org.agrona.DirectBuffer;
+
+/**
+ * Renders each interpreted message as a JSON object on one line
+ * <p>
+ * An object has the template ID and name of the message, or {@code null} if the template is
+ * unknown, and an array of fields in wire order:
+ *
+ * <pre>
+ * {"templateId":97,"name":"BusinessMessageReject","fields":[{"wire":"00000048","id":0,
+ * "name":"SOFH message length","offset":0,"length":4,"value":"72"},...]}
+ * </pre>
+ *
+ * Interpreted values are always strings; wire format is rendered in full as hex.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class JsonLinesRenderer extends Renderer {
+
+  private static final byte[] FIELDS = ",\"fields\":[".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FIELD_ID = "\",\"id\":".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FIELD_LENGTH = ",\"length\":".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FIELD_NAME = ",\"name\":\"".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FIELD_OFFSET = "\",\"offset\":".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FIELD_VALUE = ",\"value\":\"".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FIELD_WIRE = "{\"wire\":\"".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] MESSAGE_END = "]}\n".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] NAME = ",\"name\":".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] TEMPLATE_ID = "{\"templateId\":".getBytes(StandardCharsets.US_ASCII);
+
+  private boolean firstField;
+
+  /**
+   * Constructor with the default block size
+   */
+  public JsonLinesRenderer() {
+    this(DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param blockSize initial size of the output block
+   */
+  public JsonLinesRenderer(int blockSize) {
+    super(blockSize);
+  }
+
+  @Override
+  public void onMessageBegin(int templateId, String name) {
+    ensure(64 + (name != null ? name.length() * 6 : 0));
+    putBytes(TEMPLATE_ID);
+    putInt(templateId);
+    putBytes(NAME);
+    if (name != null) {
+      putByte((byte) '"');
+      putEscaped(name);
+      putByte((byte) '"');
+    } else {
+      putBytes(NULL);
+    }
+    putBytes(FIELDS);
+    firstField = true;
+  }
+
+  @Override
+  public void onMessageEnd() {
+    ensure(MESSAGE_END.length);
+    putBytes(MESSAGE_END);
+  }
+
+  @Override
+  public void onRow(DirectBuffer buffer, int wireOffset, int fieldId, String name, int offset,
+      int length, DirectBuffer value, int valueLength) {
+    ensure(length * 2 + name.length() * 6 + valueLength * 6 + 96);
+    if (!firstField) {
+      putByte((byte) ',');
+    }
+    firstField = false;
+    putBytes(FIELD_WIRE);
+    putHex(buffer, wireOffset, length);
+    putBytes(FIELD_ID);
+    putInt(fieldId);
+    putBytes(FIELD_NAME);
+    putEscaped(name);
+    putBytes(FIELD_OFFSET);
+    putInt(offset);
+    putBytes(FIELD_LENGTH);
+    putInt(length);
+    putBytes(FIELD_VALUE);
+    for (int i = 0; i < valueLength; i++) {
+      putEscaped(value.getByte(i) & 0xFF);
+    }
+    putByte((byte) '"');
+    putByte((byte) '}');
+  }
+
+  private void putEscaped(int c) {
+    if (c == '"' || c == '\\') {
+      putByte((byte) '\\');
+      putByte((byte) c);
+    } else if (c < 0x20 || c > 0x7E) {
+      putByte((byte) '\\');
+      putByte((byte) 'u');
+      putByte((byte) '0');
+      putByte((byte) '0');
+      putByte(HEX_DIGITS[(c >>> 4) & 0x0F]);
+      putByte(HEX_DIGITS[c & 0x0F]);
+    } else {
+      putByte((byte) c);
+    }
+  }
+
+  private void putEscaped(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      putEscaped(text.charAt(i) & 0xFF);
+    }
+  }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.render;
+
+import org.agrona.DirectBuffer;
+
+import io.fixprotocol.sbe.util.BufferDumper;
+
+/**
+ * Renders interpreted messages as text tables, with headings and blocks of hex for wire format
+ * <p>
+ * The default style is Markdown; the delimiters of blocks, headings, literals and table rows may
+ * be changed for other markup. Wire format longer than 8 bytes is abbreviated.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class MarkdownRenderer extends Renderer {
+
+  /**
+   * Markdown begin block
+   */
+  public static final String MARKDOWN_BLOCK_BEGIN = "```\n";
+
+  /**
+   * Markdown end block
+   */
+  public static final String MARKDOWN_BLOCK_END = "```\n";
+
+  /**
+   * Markdown begin heading
+   */
+  public static final String MARKDOWN_HEADING_BEGIN = "### ";
+
+  /**
+   * Markdown end heading
+   */
+  public static final String MARKDOWN_HEADING_END = "";
+
+  /**
+   * Markdown begin literal
+   */
+  public static final String MARKDOWN_LITERAL_BEGIN = "`";
+
+  /**
+   * Markdown end literal
+   */
+  public static final String MARKDOWN_LITERAL_END = "`";
+
+  /**
+   * Markdown table column delimiter
+   */
+  public static final String MARKDOWN_TABLE_COLUMN_DELIM = "|";
+
+  /**
+   * Markdown begin table row
+   */
+  public static final String MARKDOWN_TABLE_ROW_BEGIN = "|";
+
+  /**
+   * Markdown end table row
+   */
+  public static final String MARKDOWN_TABLE_ROW_END = "|";
+
+  private static final String[] COLUMNS =
+      {"Wire format", "Field ID", "Name", "Offset", "Length", "Interpreted value"};
+  private static final String[] RULES =
+      {"-----------", "-------:", "----", "-----:", "-----:", "-----------------"};
+  private static final int MAX_WIRE_LENGTH = 8;
+  private static final int ABBREVIATED_WIRE_LENGTH = 6;
+
+  private String blockBegin = MARKDOWN_BLOCK_BEGIN;
+  private String blockEnd = MARKDOWN_BLOCK_END;
+  private final BufferDumper dumper = new BufferDumper(BufferDumper.DEFAULT_WIDTH);
+  private String headingBegin = MARKDOWN_HEADING_BEGIN;
+  private String headingEnd = MARKDOWN_HEADING_END;
+  private String literalBegin = MARKDOWN_LITERAL_BEGIN;
+  private String literalEnd = MARKDOWN_LITERAL_END;
+  private String tableColumnDelim = MARKDOWN_TABLE_COLUMN_DELIM;
+  private String tableRowBegin = MARKDOWN_TABLE_ROW_BEGIN;
+  private String tableRowEnd = MARKDOWN_TABLE_ROW_END;
+
+  /**
+   * Constructor with the default block size
+   */
+  public MarkdownRenderer() {
+    this(DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param blockSize initial size of the output block
+   */
+  public MarkdownRenderer(int blockSize) {
+    super(blockSize);
+  }
+
+  /**
+   * Renders a region of a buffer as a block of hex and text
+   *
+   * @param buffer buffer to render
+   * @param index index of the first byte
+   * @param length number of bytes
+   */
+  public void block(DirectBuffer buffer, int index, int length) {
+    ensure(blockBegin.length());
+    putAscii(blockBegin);
+    final int width = dumper.width();
+    for (int i = 0; i < length; i += width) {
+      ensure(dumper.maxLineLength());
+      advance(dumper.formatLine(buffer, index + i, Math.min(length - i, width), array(),
+          position()));
+    }
+    ensure(blockEnd.length());
+    putAscii(blockEnd);
+  }
+
+  public String getBlockBegin() {
+    return blockBegin;
+  }
+
+  public String getBlockEnd() {
+    return blockEnd;
+  }
+
+  public String getHeadingBegin() {
+    return headingBegin;
+  }
+
+  public String getHeadingEnd() {
+    return headingEnd;
+  }
+
+  public String getLiteralBegin() {
+    return literalBegin;
+  }
+
+  public String getLiteralEnd() {
+    return literalEnd;
+  }
+
+  public String getTableColumnDelim() {
+    return tableColumnDelim;
+  }
+
+  public String getTableRowBegin() {
+    return tableRowBegin;
+  }
+
+  public String getTableRowEnd() {
+    return tableRowEnd;
+  }
+
+  /**
+   * Renders a heading
+   *
+   * @param text text of the heading
+   */
+  public void heading(String text) {
+    ensure(headingBegin.length() + text.length() + headingEnd.length() + 1);
+    putAscii(headingBegin);
+    putAscii(text);
+    putAscii(headingEnd);
+    putByte((byte) '\n');
+  }
+
+  /**
+   * Renders the table header
+   */
+  @Override
+  public void onMessageBegin(int templateId, String name) {
+    tableLine(COLUMNS);
+    tableLine(RULES);
+  }
+
+  @Override
+  public void onRow(DirectBuffer buffer, int wireOffset, int fieldId, String name, int offset,
+      int length, DirectBuffer value, int valueLength) {
+    ensure(tableRowBegin.length() + tableRowEnd.length() + literalBegin.length()
+        + literalEnd.length() + 5 * tableColumnDelim.length() + MAX_WIRE_LENGTH * 2 + name.length()
+        + valueLength + 48);
+    putAscii(tableRowBegin);
+    putByte((byte) ' ');
+    putAscii(literalBegin);
+    if (length > MAX_WIRE_LENGTH) {
+      putHex(buffer, wireOffset, ABBREVIATED_WIRE_LENGTH);
+      putByte((byte) '.');
+      putByte((byte) '.');
+      putByte((byte) '.');
+    } else {
+      putHex(buffer, wireOffset, length);
+    }
+    putAscii(literalEnd);
+    delimiter();
+    if (fieldId > 0) {
+      putInt(fieldId);
+    } else {
+      putByte((byte) ' ');
+    }
+    delimiter();
+    putAscii(name);
+    delimiter();
+    putInt(offset);
+    delimiter();
+    putInt(length);
+    delimiter();
+    putBytes(value, 0, valueLength);
+    putByte((byte) ' ');
+    putAscii(tableRowEnd);
+    putByte((byte) '\n');
+  }
+
+  public void setBlockBegin(String blockBegin) {
+    this.blockBegin = blockBegin;
+  }
+
+  public void setBlockEnd(String blockEnd) {
+    this.blockEnd = blockEnd;
+  }
+
+  public void setHeadingBegin(String headingBegin) {
+    this.headingBegin = headingBegin;
+  }
+
+  public void setHeadingEnd(String headingEnd) {
+    this.headingEnd = headingEnd;
+  }
+
+  public void setLiteralBegin(String literalBegin) {
+    this.literalBegin = literalBegin;
+  }
+
+  public void setLiteralEnd(String literalEnd) {
+    this.literalEnd = literalEnd;
+  }
+
+  public void setTableColumnDelim(String tableColumnDelim) {
+    this.tableColumnDelim = tableColumnDelim;
+  }
+
+  public void setTableRowBegin(String tableRowBegin) {
+    this.tableRowBegin = tableRowBegin;
+  }
+
+  public void setTableRowEnd(String tableRowEnd) {
+    this.tableRowEnd = tableRowEnd;
+  }
+
+  private void delimiter() {
+    putByte((byte) ' ');
+    putAscii(tableColumnDelim);
+    putByte((byte) ' ');
+  }
+
+  private void tableLine(String[] cells) {
+    int length = tableRowBegin.length() + tableRowEnd.length() + 1;
+    for (final String cell : cells) {
+      length += cell.length() + tableColumnDelim.length();
+    }
+    ensure(length);
+    putAscii(tableRowBegin);
+    for (int i = 0; i < cells.length; i++) {
+      if (i > 0) {
+        putAscii(tableColumnDelim);
+      }
+      putAscii(cells[i]);
+    }
+    putAscii(tableRowEnd);
+    putByte((byte) '\n');
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.render;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.interpret.InterpretationHandler;
+
+/**
+ * Renders interpreted messages to an output stream
+ * <p>
+ * A renderer receives the rows of a {@link io.fixprotocol.sbe.interpret.MessageInterpreter} and
+ * formats them into a reusable block, which is written to the output stream only when it fills or
+ * when {@link #flush()} is called. Subclasses format with the {@code put} methods, which copy
+ * characters and digits without creating strings, so rendering allocates nothing per row once the
+ * block is large enough for the longest row.
+ * <p>
+ * Errors writing the output stream while rendering rows are thrown as
+ * {@link UncheckedIOException}. Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public abstract class Renderer implements InterpretationHandler {
+
+  /**
+   * Default size of the output block
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  private final UnsafeBuffer block;
+  private OutputStream out;
+  private int position = 0;
+
+  /**
+   * Constructor
+   *
+   * @param blockSize initial size of the output block
+   */
+  protected Renderer(int blockSize) {
+    if (blockSize < 64) {
+      throw new IllegalArgumentException("Block size too small");
+    }
+    block = new UnsafeBuffer(new byte[blockSize]);
+  }
+
+  /**
+   * Writes rendered output to the stream and flushes it
+   *
+   * @throws IOException if the output stream fails
+   * @throws IllegalStateException if no output stream was set
+   */
+  public void flush() throws IOException {
+    if (out == null) {
+      throw new IllegalStateException("Output not set");
+    }
+    if (position > 0) {
+      out.write(block.byteArray(), 0, position);
+      position = 0;
+    }
+    out.flush();
+  }
+
+  /**
+   * @return the output stream, or {@code null} if not set
+   */
+  public OutputStream getOutput() {
+    return out;
+  }
+
+  /**
+   * Sets the destination of rendered output. Output already rendered to a previous stream should
+   * be flushed first.
+   *
+   * @param out output stream
+   */
+  public void setOutput(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Makes room in the block, writing its contents to the output stream if necessary
+   *
+   * @param length number of bytes about to be put
+   */
+  protected final void ensure(int length) {
+    if (position + length > block.capacity()) {
+      if (position > 0) {
+        if (out == null) {
+          throw new IllegalStateException("Output not set");
+        }
+        try {
+          out.write(block.byteArray(), 0, position);
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        position = 0;
+      }
+      if (length > block.capacity()) {
+        block.wrap(new byte[Math.max(length, block.capacity() * 2)]);
+      }
+    }
+  }
+
+  /**
+   * @return the block, for formatters that write into a byte array directly
+   */
+  protected final byte[] array() {
+    return block.byteArray();
+  }
+
+  /**
+   * @return index of the next byte to put in the block
+   */
+  protected final int position() {
+    return position;
+  }
+
+  /**
+   * Advances the position after writing into the block directly
+   *
+   * @param length number of bytes written
+   */
+  protected final void advance(int length) {
+    position += length;
+  }
+
+  /**
+   * Puts characters of a string that are in the single byte range. The caller must ensure room.
+   *
+   * @param text a string
+   */
+  protected final void putAscii(String text) {
+    position += block.putStringWithoutLengthAscii(position, text);
+  }
+
+  /**
+   * Puts a byte. The caller must ensure room.
+   *
+   * @param b a byte
+   */
+  protected final void putByte(byte b) {
+    block.putByte(position++, b);
+  }
+
+  /**
+   * Puts bytes. The caller must ensure room.
+   *
+   * @param bytes bytes to copy
+   */
+  protected final void putBytes(byte[] bytes) {
+    block.putBytes(position, bytes);
+    position += bytes.length;
+  }
+
+  /**
+   * Puts bytes of a buffer. The caller must ensure room.
+   *
+   * @param buffer source buffer
+   * @param index index of the first byte
+   * @param length number of bytes
+   */
+  protected final void putBytes(DirectBuffer buffer, int index, int length) {
+    block.putBytes(position, buffer, index, length);
+    position += length;
+  }
+
+  /**
+   * Puts bytes of a buffer as pairs of lower case hex digits. The caller must ensure room for two
+   * bytes per byte.
+   *
+   * @param buffer source buffer
+   * @param index index of the first byte
+   * @param length number of bytes
+   */
+  protected final void putHex(DirectBuffer buffer, int index, int length) {
+    final byte[] dst = block.byteArray();
+    for (int i = 0; i < length; i++) {
+      final int b = buffer.getByte(index + i) & 0xFF;
+      dst[position++] = HEX_DIGITS[b >>> 4];
+      dst[position++] = HEX_DIGITS[b & 0x0F];
+    }
+  }
+
+  /**
+   * Puts the decimal digits of an integer. The caller must ensure room for 11 bytes.
+   *
+   * @param value an integer
+   */
+  protected final void putInt(int value) {
+    position += block.putIntAscii(position, value);
+  }
+
+  /**
+   * Puts a little-endian 16-bit integer. The caller must ensure room.
+   *
+   * @param value an integer in the unsigned 16-bit range
+   */
+  protected final void putShortBinary(int value) {
+    block.putShort(position, (short) value, ByteOrder.LITTLE_ENDIAN);
+    position += Short.BYTES;
+  }
+}
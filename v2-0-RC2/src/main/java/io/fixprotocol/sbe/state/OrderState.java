@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.state;
+
+import io.fixprotocol.sbe.examples.messages.OrdStatusEnum;
+
+/**
+ * Snapshot of the state of an order, filled by {@link OrderStateCache#get(long, OrderState)}
+ * <p>
+ * Identifiers are held as keys, the 8 bytes of an {@code idString} read little-endian. A snapshot
+ * is mutable so that it can be reused without allocation. Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class OrderState {
+
+  /**
+   * Converts a key back to an identifier, dropping NUL padding
+   *
+   * @param key 8 bytes of an {@code idString} read little-endian
+   * @return identifier
+   */
+  public static String idString(long key) {
+    final StringBuilder sb = new StringBuilder(Long.BYTES);
+    for (int i = 0; i < Long.BYTES; i++) {
+      final char c = (char) ((key >>> (i * Byte.SIZE)) & 0xFF);
+      if (c == 0) {
+        break;
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  int cumQty;
+  long lastExecId;
+  int leavesQty;
+  long orderId;
+  byte ordStatus;
+
+  /**
+   * @return CumQty of the last ExecutionReport
+   */
+  public int cumQty() {
+    return cumQty;
+  }
+
+  /**
+   * @return ExecID of the last ExecutionReport as a key
+   */
+  public long lastExecId() {
+    return lastExecId;
+  }
+
+  /**
+   * @return LeavesQty of the last ExecutionReport
+   */
+  public int leavesQty() {
+    return leavesQty;
+  }
+
+  /**
+   * @return OrderID as a key
+   */
+  public long orderId() {
+    return orderId;
+  }
+
+  /**
+   * @return OrdStatus of the last ExecutionReport
+   * @throws IllegalArgumentException if the encoded value is not a valid OrdStatus
+   */
+  public OrdStatusEnum ordStatus() {
+    return OrdStatusEnum.get(ordStatus);
+  }
+
+  /**
+   * @return OrdStatus of the last ExecutionReport as encoded
+   */
+  public byte ordStatusRaw() {
+    return ordStatus;
+  }
+
+  @Override
+  public String toString() {
+    return "OrderState [orderId=" + idString(orderId) + ", ordStatus=" + (char) ordStatus
+        + ", leavesQty=" + leavesQty + ", cumQty=" + cumQty + ", lastExecId="
+        + idString(lastExecId) + "]";
+  }
+}
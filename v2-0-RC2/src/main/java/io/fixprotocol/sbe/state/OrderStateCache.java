@@ -0,0 +1,316 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.state;
+
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Hashing;
+import org.agrona.concurrent.MemoryAccess;
+
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+
+/**
+ * Cache of the state of orders, keyed by OrderID and updated from ExecutionReport
+ * <p>
+ * For each order the cache holds OrdStatus, LeavesQty, CumQty and the last ExecID. Orders are
+ * spread over a power-of-two number of shards by a hash of OrderID. Each shard is an
+ * open-addressing table with linear probing, held in parallel primitive arrays, so an update does
+ * not allocate unless the shard must grow.
+ * <p>
+ * Writers of a shard are serialized according to the {@link WriterPolicy}. Each slot has a
+ * sequence number that is odd while the slot is being written, so a reader of any thread takes a
+ * consistent snapshot without a lock by retrying if the sequence changed while it read. A shard
+ * grows by publishing a new table; a reader holding the old table sees the state as of the resize.
+ * <p>
+ * An OrderID of all NUL is not cached. Orders are never removed.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class OrderStateCache {
+
+  /**
+   * How writers of a shard are serialized
+   */
+  public enum WriterPolicy {
+    /**
+     * Each shard is only updated by one thread, chosen by the caller with {@link #shard(long)}
+     */
+    SHARD_OWNER,
+    /**
+     * Any thread may update any shard while holding a lock on the shard
+     */
+    STRIPED_LOCK
+  }
+
+  /**
+   * Default number of orders a shard holds before it grows
+   */
+  public static final int DEFAULT_SHARD_CAPACITY = 64 * 1024;
+
+  /**
+   * Maximum number of shards
+   */
+  public static final int MAX_SHARDS = 1 << 16;
+
+  private static final class Shard {
+    volatile Table table;
+
+    Shard(int capacity) {
+      table = new Table(capacity);
+    }
+  }
+
+  private static final class Table {
+    final int[] cumQtys;
+    final AtomicLongArray keys;
+    final long[] lastExecIds;
+    final int[] leavesQtys;
+    final int limit;
+    final int mask;
+    final byte[] ordStatuses;
+    final AtomicLongArray sequences;
+    int size = 0;
+
+    Table(int capacity) {
+      cumQtys = new int[capacity];
+      keys = new AtomicLongArray(capacity);
+      lastExecIds = new long[capacity];
+      leavesQtys = new int[capacity];
+      ordStatuses = new byte[capacity];
+      sequences = new AtomicLongArray(capacity);
+      mask = capacity - 1;
+      limit = capacity / 3 * 2;
+    }
+  }
+
+  private static int home(long orderId, int mask) {
+    return Hashing.hash(orderId, mask);
+  }
+
+  private final WriterPolicy policy;
+  private final int shardMask;
+  private final int shardShift;
+  private final Shard[] shards;
+
+  /**
+   * Creates a cache with the default shard capacity
+   *
+   * @param shardCount number of shards, rounded up to a power of two
+   * @param policy how writers of a shard are serialized
+   */
+  public OrderStateCache(int shardCount, WriterPolicy policy) {
+    this(shardCount, DEFAULT_SHARD_CAPACITY, policy);
+  }
+
+  /**
+   * Creates a cache
+   *
+   * @param shardCount number of shards, rounded up to a power of two
+   * @param shardCapacity number of orders a shard holds before it grows
+   * @param policy how writers of a shard are serialized
+   */
+  public OrderStateCache(int shardCount, int shardCapacity, WriterPolicy policy) {
+    if (shardCount <= 0 || shardCount > MAX_SHARDS) {
+      throw new IllegalArgumentException("Shard count out of range");
+    }
+    if (shardCapacity <= 0 || shardCapacity > (1 << 28)) {
+      throw new IllegalArgumentException("Shard capacity out of range");
+    }
+    final int count = BitUtil.findNextPositivePowerOfTwo(shardCount);
+    final int capacity = BitUtil.findNextPositivePowerOfTwo(shardCapacity + shardCapacity / 2 + 1);
+    this.policy = policy;
+    this.shardMask = count - 1;
+    this.shardShift = Integer.SIZE - Integer.numberOfTrailingZeros(count);
+    this.shards = new Shard[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard(capacity);
+    }
+  }
+
+  /**
+   * Reads a consistent snapshot of the state of an order. May be called by any thread.
+   *
+   * @param orderId OrderID as a key, the 8 bytes of the {@code idString} read little-endian
+   * @param state snapshot to fill
+   * @return {@code true} if the order is cached and {@code state} was filled
+   */
+  public boolean get(long orderId, OrderState state) {
+    if (orderId == 0) {
+      return false;
+    }
+    final Table table = shards[shard(orderId)].table;
+    final AtomicLongArray keys = table.keys;
+    final AtomicLongArray sequences = table.sequences;
+    int slot = home(orderId, table.mask);
+    while (true) {
+      final long key = keys.get(slot);
+      if (key == 0) {
+        return false;
+      }
+      if (key == orderId) {
+        break;
+      }
+      slot = (slot + 1) & table.mask;
+    }
+    long sequence;
+    do {
+      sequence = sequences.get(slot);
+      state.ordStatus = table.ordStatuses[slot];
+      state.leavesQty = table.leavesQtys[slot];
+      state.cumQty = table.cumQtys[slot];
+      state.lastExecId = table.lastExecIds[slot];
+      MemoryAccess.acquireFence();
+    } while ((sequence & 1) != 0 || sequence != sequences.get(slot));
+    state.orderId = orderId;
+    return true;
+  }
+
+  /**
+   * @return writer policy given when the cache was created
+   */
+  public WriterPolicy policy() {
+    return policy;
+  }
+
+  /**
+   * Selects the shard of an order, so that a caller with policy
+   * {@link WriterPolicy#SHARD_OWNER} can route its updates to the owning thread
+   *
+   * @param orderId OrderID as a key
+   * @return shard index
+   */
+  public int shard(long orderId) {
+    // High bits of the hash, so that the shard is independent of the slot within it
+    return (int) ((Hashing.hash(orderId) & 0xFFFFFFFFL) >>> shardShift) & shardMask;
+  }
+
+  /**
+   * @return number of shards
+   */
+  public int shardCount() {
+    return shards.length;
+  }
+
+  /**
+   * @return number of orders cached. Only exact when no update is in progress.
+   */
+  public long size() {
+    long size = 0;
+    for (final Shard shard : shards) {
+      size += shard.table.size;
+    }
+    return size;
+  }
+
+  /**
+   * Applies an ExecutionReport to the state of its order. Its fields are read in place.
+   *
+   * @param decoder wrapped ExecutionReport
+   * @return {@code false} if the OrderID is all NUL and the message was ignored
+   */
+  public boolean update(ExecutionReportDecoder decoder) {
+    final DirectBuffer buffer = decoder.buffer();
+    final int offset = decoder.offset();
+    return update(
+        buffer.getLong(offset + ExecutionReportDecoder.orderIDEncodingOffset(),
+            ByteOrder.LITTLE_ENDIAN),
+        buffer.getByte(offset + ExecutionReportDecoder.ordStatusEncodingOffset()),
+        decoder.leavesQty().mantissa(), decoder.cumQty().mantissa(),
+        buffer.getLong(offset + ExecutionReportDecoder.execIDEncodingOffset(),
+            ByteOrder.LITTLE_ENDIAN));
+  }
+
+  /**
+   * Sets the state of an order
+   *
+   * @param orderId OrderID as a key
+   * @param ordStatus OrdStatus as encoded
+   * @param leavesQty LeavesQty
+   * @param cumQty CumQty
+   * @param execId ExecID as a key
+   * @return {@code false} if the OrderID is all NUL and the state was ignored
+   */
+  public boolean update(long orderId, byte ordStatus, int leavesQty, int cumQty, long execId) {
+    if (orderId == 0) {
+      return false;
+    }
+    final Shard shard = shards[shard(orderId)];
+    if (policy == WriterPolicy.STRIPED_LOCK) {
+      synchronized (shard) {
+        put(shard, orderId, ordStatus, leavesQty, cumQty, execId);
+      }
+    } else {
+      put(shard, orderId, ordStatus, leavesQty, cumQty, execId);
+    }
+    return true;
+  }
+
+  private void put(Shard shard, long orderId, byte ordStatus, int leavesQty, int cumQty,
+      long execId) {
+    Table table = shard.table;
+    int slot = home(orderId, table.mask);
+    long key;
+    while ((key = table.keys.get(slot)) != 0 && key != orderId) {
+      slot = (slot + 1) & table.mask;
+    }
+    if (key == 0) {
+      if (table.size == table.limit) {
+        table = resize(shard, table);
+        slot = home(orderId, table.mask);
+        while (table.keys.get(slot) != 0) {
+          slot = (slot + 1) & table.mask;
+        }
+      }
+      table.size++;
+    }
+    final long sequence = table.sequences.get(slot);
+    table.sequences.lazySet(slot, sequence + 1);
+    MemoryAccess.releaseFence();
+    table.ordStatuses[slot] = ordStatus;
+    table.leavesQtys[slot] = leavesQty;
+    table.cumQtys[slot] = cumQty;
+    table.lastExecIds[slot] = execId;
+    table.sequences.lazySet(slot, sequence + 2);
+    if (key == 0) {
+      // Published after the state so that a reader that finds the key sees a complete slot
+      table.keys.lazySet(slot, orderId);
+    }
+  }
+
+  private Table resize(Shard shard, Table old) {
+    final Table table = new Table(old.keys.length() * 2);
+    for (int i = 0; i < old.keys.length(); i++) {
+      final long key = old.keys.get(i);
+      if (key != 0) {
+        int slot = home(key, table.mask);
+        while (table.keys.get(slot) != 0) {
+          slot = (slot + 1) & table.mask;
+        }
+        table.keys.lazySet(slot, key);
+        table.ordStatuses[slot] = old.ordStatuses[i];
+        table.leavesQtys[slot] = old.leavesQtys[i];
+        table.cumQtys[slot] = old.cumQtys[i];
+        table.lastExecIds[slot] = old.lastExecIds[i];
+      }
+    }
+    table.size = old.size;
+    shard.table = table;
+    return table;
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.state;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Long2LongHashMap;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+import io.fixprotocol.sbe.examples.messages.DecimalEncodingDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder.FillsGrpDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.QtyEncodingDecoder;
+
+/**
+ * Aggregates the fills of ExecutionReport frames by Symbol
+ * <p>
+ * For each Symbol the aggregator keeps the number of fills, total FillQty, and the VWAP, high and
+ * low of FillPx. Prices and quantities are decimal mantissas; each is rescaled from the exponent of
+ * its encoding to the exponent of the aggregator by a power of ten, so no floating point or
+ * {@code BigDecimal} is involved. Notional value is accumulated in 128 bits so that it cannot
+ * overflow. A fill without a FillPx counts toward volume but not toward price statistics.
+ * <p>
+ * State is held in primitive arrays indexed by Symbol, so no objects are allocated per fill; only
+ * a new Symbol grows the arrays. Results are read through a {@link VwapSnapshot}, either on demand
+ * or published at an interval by {@link #poll(long)} for other threads.
+ * <p>
+ * Frames of other messages, schemas or byte orders are ignored. Not thread-safe, except for
+ * {@link #latestSnapshot()}.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SymbolVwapAggregator implements SofhFrameHandler {
+
+  private static final int INITIAL_SYMBOLS = 64;
+  private static final long[] POWERS_OF_TEN = new long[19];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  /**
+   * Divides a signed 128-bit dividend by a positive divisor, rounding toward zero
+   *
+   * @return quotient, which must fit in a long
+   */
+  static long divide(long high, long low, long divisor) {
+    final boolean negative = high < 0;
+    if (negative) {
+      low = -low;
+      high = ~high + (low == 0 ? 1 : 0);
+    }
+    long remainder = 0;
+    long quotient = 0;
+    for (int bit = 127; bit >= 0; bit--) {
+      final long next = bit >= 64 ? (high >>> (bit - 64)) & 1 : (low >>> bit) & 1;
+      final boolean carry = remainder < 0;
+      remainder = (remainder << 1) | next;
+      quotient <<= 1;
+      if (carry || Long.compareUnsigned(remainder, divisor) >= 0) {
+        remainder -= divisor;
+        quotient |= 1;
+      }
+    }
+    return negative ? -quotient : quotient;
+  }
+
+  /**
+   * High 64 bits of the signed 128-bit product of two longs
+   */
+  static long multiplyHigh(long x, long y) {
+    final long x1 = x >> 32;
+    final long x2 = x & 0xFFFFFFFFL;
+    final long y1 = y >> 32;
+    final long y2 = y & 0xFFFFFFFFL;
+    final long z2 = x2 * y2;
+    final long t = x1 * y2 + (z2 >>> 32);
+    long z1 = t & 0xFFFFFFFFL;
+    final long z0 = t >> 32;
+    z1 += x2 * y1;
+    return x1 * y1 + z0 + (z1 >> 32);
+  }
+
+  /**
+   * Converts a mantissa from one decimal exponent to another. Digits below the target exponent
+   * are truncated.
+   *
+   * @throws ArithmeticException if the result overflows
+   */
+  static long rescale(long mantissa, int fromExponent, int toExponent) {
+    if (fromExponent == toExponent) {
+      return mantissa;
+    } else if (fromExponent > toExponent) {
+      return Math.multiplyExact(mantissa, POWERS_OF_TEN[fromExponent - toExponent]);
+    } else {
+      final int shift = toExponent - fromExponent;
+      return shift < POWERS_OF_TEN.length ? mantissa / POWERS_OF_TEN[shift] : 0;
+    }
+  }
+
+  private final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+  private long[] fillCounts = new long[INITIAL_SYMBOLS];
+  private long[] highs = new long[INITIAL_SYMBOLS];
+  private volatile VwapSnapshot latest;
+  private long[] lows = new long[INITIAL_SYMBOLS];
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private long nextSnapshotTime = Long.MIN_VALUE;
+  private long[] notionalHighs = new long[INITIAL_SYMBOLS];
+  private long[] notionalLows = new long[INITIAL_SYMBOLS];
+  private final int priceExponent;
+  private long[] pricedVolumes = new long[INITIAL_SYMBOLS];
+  private final int qtyExponent;
+  private final long snapshotInterval;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private final Long2LongHashMap symbolIndexes = new Long2LongHashMap(-1);
+  private int symbolCount = 0;
+  private long[] symbols = new long[INITIAL_SYMBOLS];
+  private long[] volumes = new long[INITIAL_SYMBOLS];
+
+  /**
+   * Creates an aggregator that reports prices with the exponent of FillPx and quantities with the
+   * exponent of FillQty, as declared by the schema
+   *
+   * @param snapshotInterval interval between snapshots published by {@link #poll(long)}, in the
+   *        unit of the time passed to it
+   */
+  public SymbolVwapAggregator(long snapshotInterval) {
+    this(snapshotInterval, new DecimalEncodingDecoder().exponent(),
+        new QtyEncodingDecoder().exponent());
+  }
+
+  /**
+   * Creates an aggregator
+   *
+   * @param snapshotInterval interval between snapshots published by {@link #poll(long)}, in the
+   *        unit of the time passed to it
+   * @param priceExponent decimal exponent of reported prices
+   * @param qtyExponent decimal exponent of reported quantities
+   */
+  public SymbolVwapAggregator(long snapshotInterval, int priceExponent, int qtyExponent) {
+    if (snapshotInterval <= 0) {
+      throw new IllegalArgumentException("Snapshot interval must be positive");
+    }
+    this.snapshotInterval = snapshotInterval;
+    this.priceExponent = priceExponent;
+    this.qtyExponent = qtyExponent;
+  }
+
+  /**
+   * Adds a fill
+   *
+   * @param symbol Symbol as a key, the 8 bytes of the {@code idString} read little-endian
+   * @param pxMantissa mantissa of FillPx, or {@link DecimalEncodingDecoder#mantissaNullValue()} if
+   *        absent
+   * @param pxExponent exponent of FillPx
+   * @param qtyMantissa mantissa of FillQty
+   * @param qtyExponent exponent of FillQty
+   */
+  public void addFill(long symbol, long pxMantissa, int pxExponent, long qtyMantissa,
+      int qtyExponent) {
+    final int index = indexOf(symbol);
+    final long qty = rescale(qtyMantissa, qtyExponent, this.qtyExponent);
+    fillCounts[index]++;
+    volumes[index] += qty;
+    if (pxMantissa != DecimalEncodingDecoder.mantissaNullValue()) {
+      final long px = rescale(pxMantissa, pxExponent, priceExponent);
+      if (px > highs[index]) {
+        highs[index] = px;
+      }
+      if (px < lows[index]) {
+        lows[index] = px;
+      }
+      pricedVolumes[index] += qty;
+      final long productLow = px * qty;
+      final long productHigh = multiplyHigh(px, qty);
+      final long sumLow = notionalLows[index] + productLow;
+      notionalHighs[index] += productHigh
+          + (Long.compareUnsigned(sumLow, notionalLows[index]) < 0 ? 1 : 0);
+      notionalLows[index] = sumLow;
+    }
+  }
+
+  /**
+   * @return most recent snapshot published by {@link #poll(long)}, or {@code null} if none. May be
+   *         called by any thread.
+   */
+  public VwapSnapshot latestSnapshot() {
+    return latest;
+  }
+
+  @Override
+  public void onFrame(DirectBuffer buffer, int offset, int length) {
+    sofhDecoder.wrap(buffer, offset);
+    if (sofhDecoder.encoding() != SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN) {
+      return;
+    }
+    final int headerOffset = offset + sofhDecoder.encodedLength();
+    mhDecoder.wrap(buffer, headerOffset);
+    if (mhDecoder.schemaId() != erDecoder.sbeSchemaId()
+        || mhDecoder.templateId() != erDecoder.sbeTemplateId()) {
+      return;
+    }
+    erDecoder.wrap(buffer, headerOffset + mhDecoder.encodedLength(), mhDecoder.blockLength(),
+        mhDecoder.version());
+    final long symbol = buffer.getLong(
+        erDecoder.offset() + ExecutionReportDecoder.symbolEncodingOffset(),
+        ByteOrder.LITTLE_ENDIAN);
+    for (final FillsGrpDecoder fill : erDecoder.fillsGrp()) {
+      addFill(symbol, fill.fillPx().mantissa(), fill.fillPx().exponent(),
+          fill.fillQty().mantissa(), fill.fillQty().exponent());
+    }
+  }
+
+  /**
+   * Publishes a snapshot if the snapshot interval has elapsed since the last one
+   *
+   * @param now current time, in the unit of the snapshot interval
+   * @return {@code true} if a snapshot was published
+   */
+  public boolean poll(long now) {
+    if (now < nextSnapshotTime) {
+      return false;
+    }
+    latest = snapshot(now);
+    nextSnapshotTime = now + snapshotInterval;
+    return true;
+  }
+
+  /**
+   * Takes a snapshot of all symbols
+   *
+   * @param timestamp time to record in the snapshot
+   * @return a new snapshot
+   */
+  public VwapSnapshot snapshot(long timestamp) {
+    final long[] vwaps = new long[symbolCount];
+    for (int i = 0; i < symbolCount; i++) {
+      vwaps[i] = pricedVolumes[i] > 0 ? divide(notionalHighs[i], notionalLows[i], pricedVolumes[i])
+          : DecimalEncodingDecoder.mantissaNullValue();
+    }
+    final long[] snapshotHighs = Arrays.copyOf(highs, symbolCount);
+    final long[] snapshotLows = Arrays.copyOf(lows, symbolCount);
+    for (int i = 0; i < symbolCount; i++) {
+      // No priced fill yet
+      if (snapshotLows[i] == Long.MAX_VALUE) {
+        snapshotHighs[i] = DecimalEncodingDecoder.mantissaNullValue();
+        snapshotLows[i] = DecimalEncodingDecoder.mantissaNullValue();
+      }
+    }
+    return new VwapSnapshot(timestamp, priceExponent, qtyExponent,
+        Arrays.copyOf(symbols, symbolCount), Arrays.copyOf(fillCounts, symbolCount),
+        Arrays.copyOf(volumes, symbolCount), vwaps, snapshotHighs, snapshotLows);
+  }
+
+  /**
+   * @return number of symbols seen
+   */
+  public int symbolCount() {
+    return symbolCount;
+  }
+
+  private int indexOf(long symbol) {
+    int index = (int) symbolIndexes.get(symbol);
+    if (index < 0) {
+      index = symbolCount++;
+      if (index == symbols.length) {
+        final int capacity = index * 2;
+        fillCounts = Arrays.copyOf(fillCounts, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        notionalHighs = Arrays.copyOf(notionalHighs, capacity);
+        notionalLows = Arrays.copyOf(notionalLows, capacity);
+        pricedVolumes = Arrays.copyOf(pricedVolumes, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+        volumes = Arrays.copyOf(volumes, capacity);
+      }
+      symbols[index] = symbol;
+      highs[index] = Long.MIN_VALUE;
+      lows[index] = Long.MAX_VALUE;
+      symbolIndexes.put(symbol, index);
+    }
+    return index;
+  }
+}
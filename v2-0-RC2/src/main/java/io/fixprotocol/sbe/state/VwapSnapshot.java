@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.state;
+
+/**
+ * Immutable snapshot of fill statistics by Symbol, taken by {@link SymbolVwapAggregator}
+ * <p>
+ * Symbols are numbered from zero in the order first seen. Prices are mantissas with the exponent
+ * {@link #priceExponent()}, and quantities mantissas with the exponent {@link #qtyExponent()}. A
+ * price is {@link Long#MIN_VALUE}, the null value of {@code decimalEncoding}, if the Symbol has no
+ * fill with a FillPx.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class VwapSnapshot {
+
+  private final long[] fillCounts;
+  private final long[] highs;
+  private final long[] lows;
+  private final int priceExponent;
+  private final int qtyExponent;
+  private final long[] symbols;
+  private final long timestamp;
+  private final long[] volumes;
+  private final long[] vwaps;
+
+  VwapSnapshot(long timestamp, int priceExponent, int qtyExponent, long[] symbols,
+      long[] fillCounts, long[] volumes, long[] vwaps, long[] highs, long[] lows) {
+    this.timestamp = timestamp;
+    this.priceExponent = priceExponent;
+    this.qtyExponent = qtyExponent;
+    this.symbols = symbols;
+    this.fillCounts = fillCounts;
+    this.volumes = volumes;
+    this.vwaps = vwaps;
+    this.highs = highs;
+    this.lows = lows;
+  }
+
+  /**
+   * @param index symbol number
+   * @return number of fills
+   */
+  public long fillCount(int index) {
+    return fillCounts[index];
+  }
+
+  /**
+   * @param index symbol number
+   * @return mantissa of the highest FillPx
+   */
+  public long high(int index) {
+    return highs[index];
+  }
+
+  /**
+   * Finds a symbol
+   *
+   * @param symbol Symbol as a key, the 8 bytes of the {@code idString} read little-endian
+   * @return symbol number, or -1 if not found
+   */
+  public int indexOf(long symbol) {
+    for (int i = 0; i < symbols.length; i++) {
+      if (symbols[i] == symbol) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param index symbol number
+   * @return mantissa of the lowest FillPx
+   */
+  public long low(int index) {
+    return lows[index];
+  }
+
+  /**
+   * @return decimal exponent of prices
+   */
+  public int priceExponent() {
+    return priceExponent;
+  }
+
+  /**
+   * @return decimal exponent of quantities
+   */
+  public int qtyExponent() {
+    return qtyExponent;
+  }
+
+  /**
+   * @return number of symbols
+   */
+  public int size() {
+    return symbols.length;
+  }
+
+  /**
+   * @param index symbol number
+   * @return Symbol as a key
+   */
+  public long symbol(int index) {
+    return symbols[index];
+  }
+
+  /**
+   * @return time at which the snapshot was taken, as passed to the aggregator
+   */
+  public long timestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("VwapSnapshot [timestamp=").append(timestamp);
+    for (int i = 0; i < symbols.length; i++) {
+      sb.append(", ").append(OrderState.idString(symbols[i])).append(" [fills=")
+          .append(fillCounts[i]).append(", volume=").append(volumes[i]).append(", vwap=")
+          .append(vwaps[i]).append(", high=").append(highs[i]).append(", low=").append(lows[i])
+          .append(']');
+    }
+    return sb.append(']').toString();
+  }
+
+  /**
+   * @param index symbol number
+   * @return mantissa of the total FillQty
+   */
+  public long volume(int index) {
+    return volumes[index];
+  }
+
+  /**
+   * @param index symbol number
+   * @return mantissa of the volume-weighted average FillPx, rounded toward zero
+   */
+  public long vwap(int index) {
+    return vwaps[index];
+  }
+}
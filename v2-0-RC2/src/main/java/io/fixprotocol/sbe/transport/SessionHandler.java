@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import org.agrona.DirectBuffer;
+
+/**
+ * Receives the events of a {@link SofhSession}
+ * <p>
+ * All methods are invoked on the event loop thread that owns the session, which may respond by
+ * claiming and committing frames on the session.
+ *
+ * @author Don Mendelson
+ *
+ */
+@FunctionalInterface
+public interface SessionHandler {
+
+  /**
+   * Invoked once when a session is registered with its event loop
+   *
+   * @param session new session
+   */
+  default void onConnected(SofhSession session) {}
+
+  /**
+   * Invoked once when a session is closed, by either peer or on error
+   *
+   * @param session closed session, or {@code null} if the channel could not be registered
+   * @param cause exception that closed the session, or {@code null} for an orderly close
+   */
+  default void onDisconnected(SofhSession session, Throwable cause) {}
+
+  /**
+   * Receives a complete frame, including its Simple Open Framing Header. The buffer is only valid
+   * during the call.
+   *
+   * @param session session on which the frame was received
+   * @param buffer buffer containing the frame
+   * @param offset offset of the framing header
+   * @param length length of the frame, including the framing header
+   */
+  void onFrame(SofhSession session, DirectBuffer buffer, int offset, int length);
+
+  /**
+   * Invoked when the write queue of a session that refused a claim has drained below its low
+   * watermark, so that sending may resume
+   *
+   * @param session session that is writable again
+   */
+  default void onWritable(SofhSession session) {}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+
+import org.agrona.ErrorHandler;
+
+/**
+ * Opens TCP connections that exchange frames with a Simple Open Framing Header and serves them on
+ * a fixed number of {@link SofhEventLoop}
+ * <p>
+ * Each connection is made by a blocking connect on the calling thread and then handed to the next
+ * event loop in turn, so that connections are balanced across loops. Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhClient implements AutoCloseable {
+
+  private final SofhEventLoop[] loops;
+  private int nextLoop = 0;
+
+  /**
+   * Creates a client with default buffer sizes and errors printed to standard error
+   *
+   * @param loopCount number of event loop threads
+   * @throws IOException if a selector cannot be opened
+   */
+  public SofhClient(int loopCount) throws IOException {
+    this(loopCount, SofhEventLoop.DEFAULT_READ_BUFFER_LENGTH, SofhEventLoop.DEFAULT_SEGMENT_LENGTH,
+        SofhEventLoop.DEFAULT_MAX_QUEUED_BYTES);
+  }
+
+  /**
+   * Creates a client with errors printed to standard error and starts its event loops
+   *
+   * @param loopCount number of event loop threads
+   * @param readBufferLength size of the receive buffer of each session
+   * @param segmentLength size of each write queue segment
+   * @param maxQueuedBytes maximum number of bytes queued for writing per session
+   * @throws IOException if a selector cannot be opened
+   */
+  public SofhClient(int loopCount, int readBufferLength, int segmentLength, int maxQueuedBytes)
+      throws IOException {
+    this(loopCount, readBufferLength, segmentLength, maxQueuedBytes, Throwable::printStackTrace);
+  }
+
+  /**
+   * Creates a client and starts its event loops
+   *
+   * @param loopCount number of event loop threads
+   * @param readBufferLength size of the receive buffer of each session
+   * @param segmentLength size of each write queue segment
+   * @param maxQueuedBytes maximum number of bytes queued for writing per session
+   * @param errorHandler receives errors of the event loops
+   * @throws IOException if a selector cannot be opened
+   */
+  public SofhClient(int loopCount, int readBufferLength, int segmentLength, int maxQueuedBytes,
+      ErrorHandler errorHandler) throws IOException {
+    if (loopCount <= 0) {
+      throw new IllegalArgumentException("Loop count must be positive");
+    }
+    this.loops = new SofhEventLoop[loopCount];
+    for (int i = 0; i < loopCount; i++) {
+      loops[i] = new SofhEventLoop("sofh-client-" + i, readBufferLength, segmentLength,
+          maxQueuedBytes, errorHandler);
+      loops[i].start();
+    }
+  }
+
+  /**
+   * Stops the event loops, closing all sessions
+   *
+   * @throws InterruptedException if interrupted while waiting for threads to stop
+   */
+  @Override
+  public void close() throws InterruptedException {
+    for (final SofhEventLoop loop : loops) {
+      loop.close();
+    }
+  }
+
+  /**
+   * Connects to a server. The handler is told of the new session by
+   * {@link SessionHandler#onConnected(SofhSession)} on its event loop thread.
+   *
+   * @param remoteAddress address of the server
+   * @param handler receives the events of the session
+   * @return event loop that serves the session
+   * @throws IOException if the connection cannot be made
+   */
+  public SofhEventLoop connect(SocketAddress remoteAddress, SessionHandler handler)
+      throws IOException {
+    final SocketChannel channel = SocketChannel.open(remoteAddress);
+    final SofhEventLoop loop = loops[nextLoop];
+    nextLoop = (nextLoop + 1) % loops.length;
+    loop.register(channel, handler);
+    return loop;
+  }
+
+  /**
+   * @return number of event loops
+   */
+  public int loopCount() {
+    return loops.length;
+  }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import org.agrona.BitUtil;
+import org.agrona.BufferUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.NanoClock;
+import org.agrona.concurrent.SystemNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+
+/**
+ * Packs frames with a Simple Open Framing Header into UDP datagrams
+ * <p>
+ * Frames are encoded in place in a reusable direct buffer the size of one datagram, in the same
+ * manner as {@link io.fixprotocol.sbe.examples.SofhFrameWriter}. As many complete frames as fit
+ * within the maximum datagram length are sent together; a frame is never split across datagrams.
+ * The datagram is sent when the next frame would not fit, when pending bytes reach a size
+ * threshold, or when the oldest pending frame reaches an age threshold.
+ * <p>
+ * The destination may be a unicast or multicast address; the caller configures the channel, for
+ * example its multicast interface and TTL. A datagram that a non-blocking channel cannot send is
+ * dropped and counted. Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhDatagramPublisher implements Closeable {
+
+  /**
+   * Default maximum length of a datagram payload: an Ethernet MTU of 1500 less IPv4 and UDP
+   * headers
+   */
+  public static final int DEFAULT_MAX_DATAGRAM_LENGTH = 1500 - 20 - 8;
+
+  private final UnsafeBuffer buffer;
+  private final ByteBuffer byteBuffer;
+  private final DatagramChannel channel;
+  private boolean claimed = false;
+  private int claimedMessageLength = 0;
+  private final NanoClock clock;
+  private long datagramsDropped = 0;
+  private long datagramsSent = 0;
+  private final short encoding;
+  private long firstPendingNanos;
+  private final long flushIntervalNanos;
+  private final int flushThreshold;
+  private int frameCount = 0;
+  private long framesSent = 0;
+  private final int maxDatagramLength;
+  private int position = 0;
+  private final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+  private final SocketAddress target;
+
+  /**
+   * Constructor for little-endian SBE with system time, sending when a datagram is full
+   *
+   * @param channel open datagram channel
+   * @param target destination address, unicast or multicast
+   * @param maxDatagramLength maximum length of a datagram payload in bytes
+   * @param flushIntervalNanos age of the oldest pending frame that triggers a send
+   */
+  public SofhDatagramPublisher(DatagramChannel channel, SocketAddress target,
+      int maxDatagramLength, long flushIntervalNanos) {
+    this(channel, target, maxDatagramLength, maxDatagramLength, flushIntervalNanos,
+        SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN, new SystemNanoClock());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param channel open datagram channel
+   * @param target destination address, unicast or multicast
+   * @param maxDatagramLength maximum length of a datagram payload in bytes
+   * @param flushThreshold number of pending bytes that triggers a send
+   * @param flushIntervalNanos age of the oldest pending frame that triggers a send
+   * @param encoding SOFH encoding type of all frames
+   * @param clock source of time for the flush interval
+   */
+  public SofhDatagramPublisher(DatagramChannel channel, SocketAddress target,
+      int maxDatagramLength, int flushThreshold, long flushIntervalNanos, short encoding,
+      NanoClock clock) {
+    if (maxDatagramLength <= sofhEncoder.encodedLength() || maxDatagramLength > 65507) {
+      throw new IllegalArgumentException("Datagram length out of range");
+    }
+    this.channel = channel;
+    this.target = target;
+    this.maxDatagramLength = maxDatagramLength;
+    this.flushThreshold = flushThreshold;
+    this.flushIntervalNanos = flushIntervalNanos;
+    this.encoding = encoding;
+    this.clock = clock;
+    this.byteBuffer = BufferUtil.allocateDirectAligned(
+        BitUtil.align(maxDatagramLength, BitUtil.CACHE_LINE_LENGTH), BitUtil.CACHE_LINE_LENGTH);
+    this.buffer = new UnsafeBuffer(byteBuffer);
+  }
+
+  /**
+   * Abandons the frame in progress
+   */
+  public void abort() {
+    claimed = false;
+  }
+
+  /**
+   * @return buffer in which the claimed frame is encoded. Only valid between {@link #claim(int)}
+   *         and {@link #commit(int)}.
+   */
+  public MutableDirectBuffer buffer() {
+    return buffer;
+  }
+
+  /**
+   * Reserves space for a frame and writes its framing header. Sends pending frames first if the
+   * frame would not fit in the current datagram.
+   *
+   * @param maxMessageLength maximum length of the SBE message, including its message header
+   * @return offset in {@link #buffer()} at which to encode the SBE message header
+   * @throws IOException if pending frames must be sent and the send fails
+   * @throws IllegalArgumentException if the frame could never fit in a datagram
+   */
+  public int claim(int maxMessageLength) throws IOException {
+    final int maxFrameLength = sofhEncoder.encodedLength() + maxMessageLength;
+    if (maxFrameLength > maxDatagramLength) {
+      throw new IllegalArgumentException("Frame length exceeds datagram length");
+    }
+    if (position + maxFrameLength > maxDatagramLength) {
+      flush();
+    }
+    sofhEncoder.wrap(buffer, position).encoding(encoding);
+    claimed = true;
+    claimedMessageLength = maxMessageLength;
+    return position + sofhEncoder.encodedLength();
+  }
+
+  /**
+   * Sends pending frames and closes the channel
+   */
+  @Override
+  public void close() throws IOException {
+    flush();
+    channel.close();
+  }
+
+  /**
+   * Completes the claimed frame and sends pending frames if a threshold is reached
+   *
+   * @param messageLength actual length of the SBE message, including its message header
+   * @throws IOException if a send fails
+   * @throws IllegalStateException if no frame was claimed
+   * @throws IllegalArgumentException if the message length is negative or exceeds the length
+   *         claimed. The frame remains claimed.
+   */
+  public void commit(int messageLength) throws IOException {
+    if (!claimed) {
+      throw new IllegalStateException("No frame claimed");
+    }
+    if (messageLength < 0 || messageLength > claimedMessageLength) {
+      throw new IllegalArgumentException("Message length exceeds length claimed");
+    }
+    claimed = false;
+    final int frameLength = sofhEncoder.encodedLength() + messageLength;
+    sofhEncoder.messageLength(frameLength);
+    added(frameLength);
+  }
+
+  /**
+   * @return number of datagrams that a non-blocking channel could not send
+   */
+  public long datagramsDropped() {
+    return datagramsDropped;
+  }
+
+  /**
+   * @return number of datagrams sent; the packet rate is its change over an interval
+   */
+  public long datagramsSent() {
+    return datagramsSent;
+  }
+
+  /**
+   * Sends committed frames in one datagram
+   *
+   * @return number of bytes sent
+   * @throws IOException if the send fails
+   * @throws IllegalStateException if a frame is claimed but not committed
+   */
+  public int flush() throws IOException {
+    if (claimed) {
+      throw new IllegalStateException("Frame claimed but not committed");
+    }
+    if (position == 0) {
+      return 0;
+    }
+    byteBuffer.limit(position).position(0);
+    final int bytes = position;
+    if (channel.send(byteBuffer, target) == 0) {
+      datagramsDropped++;
+    } else {
+      datagramsSent++;
+      framesSent += frameCount;
+    }
+    position = 0;
+    frameCount = 0;
+    return bytes;
+  }
+
+  /**
+   * Sends pending frames if the oldest has waited longer than the flush interval. Call
+   * periodically when frames are committed irregularly.
+   *
+   * @return number of bytes sent
+   * @throws IOException if the send fails
+   */
+  public int flushIfDue() throws IOException {
+    if (position > 0 && !claimed && clock.nanoTime() - firstPendingNanos >= flushIntervalNanos) {
+      return flush();
+    }
+    return 0;
+  }
+
+  /**
+   * @return number of frames sent; divided by {@link #datagramsSent()}, the frames per datagram
+   */
+  public long framesSent() {
+    return framesSent;
+  }
+
+  /**
+   * Adds a frame that has already been encoded with its framing header, by copying it
+   *
+   * @param src buffer containing the frame
+   * @param offset offset of the framing header
+   * @param length length of the frame, including the framing header
+   * @throws IOException if pending frames must be sent and the send fails
+   * @throws IllegalArgumentException if the frame could never fit in a datagram
+   */
+  public void offer(DirectBuffer src, int offset, int length) throws IOException {
+    claim(length - sofhEncoder.encodedLength());
+    claimed = false;
+    buffer.putBytes(position, src, offset, length);
+    added(length);
+  }
+
+  /**
+   * @return number of bytes committed but not yet sent
+   */
+  public int pendingBytes() {
+    return position;
+  }
+
+  private void added(int frameLength) throws IOException {
+    final long now = clock.nanoTime();
+    if (position == 0) {
+      firstPendingNanos = now;
+    }
+    position += frameLength;
+    frameCount++;
+    if (position >= flushThreshold || now - firstPendingNanos >= flushIntervalNanos) {
+      flush();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import org.agrona.BitUtil;
+import org.agrona.BufferUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+
+/**
+ * Receives UDP datagrams sent by {@link SofhDatagramPublisher} and delivers every frame they
+ * contain
+ * <p>
+ * Each datagram is received into one reusable direct buffer and deframed in place with a
+ * {@link SofhFrameDecoder}; frames are delivered to the handler without copying, and are only valid
+ * during the callback. Since a frame is never split across datagrams, a datagram whose framing
+ * headers do not account for its exact length is malformed. Frames preceding the malformed header
+ * are delivered, and the rest of the datagram is discarded.
+ * <p>
+ * With a non-blocking channel, {@link #poll(SofhFrameHandler)} returns immediately if no datagram is
+ * waiting. Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhDatagramReceiver implements Closeable {
+
+  private final UnsafeBuffer buffer;
+  private final ByteBuffer byteBuffer;
+  private final DatagramChannel channel;
+  private long datagramsReceived = 0;
+  private long framesReceived = 0;
+  private long malformedDatagrams = 0;
+  private final int maxDatagramLength;
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+
+  /**
+   * Constructor
+   *
+   * @param channel bound datagram channel
+   * @param maxDatagramLength maximum length of a datagram payload in bytes; the excess of a
+   *        longer datagram is discarded by the channel
+   */
+  public SofhDatagramReceiver(DatagramChannel channel, int maxDatagramLength) {
+    this.channel = channel;
+    this.maxDatagramLength = maxDatagramLength;
+    this.byteBuffer = BufferUtil.allocateDirectAligned(
+        BitUtil.align(maxDatagramLength, BitUtil.CACHE_LINE_LENGTH), BitUtil.CACHE_LINE_LENGTH);
+    this.buffer = new UnsafeBuffer(byteBuffer);
+  }
+
+  /**
+   * Closes the channel
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * @return number of datagrams received; the packet rate is its change over an interval
+   */
+  public long datagramsReceived() {
+    return datagramsReceived;
+  }
+
+  /**
+   * @return number of frames delivered; divided by {@link #datagramsReceived()}, the frames per
+   *         datagram
+   */
+  public long framesReceived() {
+    return framesReceived;
+  }
+
+  /**
+   * @return number of datagrams with a framing header that is too short or extends past the end
+   */
+  public long malformedDatagrams() {
+    return malformedDatagrams;
+  }
+
+  /**
+   * Receives one datagram and delivers its frames
+   *
+   * @param handler receives frames
+   * @return number of frames delivered, or {@code -1} if no datagram was waiting on a non-blocking
+   *         channel
+   * @throws IOException if the receive fails
+   */
+  public int poll(SofhFrameHandler handler) throws IOException {
+    byteBuffer.clear().limit(maxDatagramLength);
+    if (channel.receive(byteBuffer) == null) {
+      return -1;
+    }
+    datagramsReceived++;
+    final int length = byteBuffer.position();
+    final int headerLength = sofhDecoder.encodedLength();
+    int offset = 0;
+    int frames = 0;
+    while (offset < length) {
+      if (length - offset < headerLength) {
+        malformedDatagrams++;
+        break;
+      }
+      final long frameLength = sofhDecoder.wrap(buffer, offset).messageLength();
+      if (frameLength < headerLength || frameLength > length - offset) {
+        malformedDatagrams++;
+        break;
+      }
+      handler.onFrame(buffer, offset, (int) frameLength);
+      offset += frameLength;
+      frames++;
+    }
+    framesReceived += frames;
+    return frames;
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.agrona.ErrorHandler;
+
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+
+/**
+ * A thread that multiplexes many {@link SofhSession} with one {@link Selector}
+ * <p>
+ * Each pass of the loop waits for readiness, runs tasks submitted by other threads, reads from
+ * readable sessions and writes to writable ones, then writes the frames committed during the pass
+ * with one gathering write per session. Write queue segments are pooled per loop, so a steady
+ * state allocates no buffers.
+ * <p>
+ * Channels are handed over with {@link #register(SocketChannel, SessionHandler)}, which may be
+ * called by any thread.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhEventLoop implements Runnable, AutoCloseable {
+
+  /**
+   * Default maximum number of bytes queued for writing per session
+   */
+  public static final int DEFAULT_MAX_QUEUED_BYTES = 4 * 1024 * 1024;
+
+  /**
+   * Default size of the receive buffer of each session, bounding the largest frame
+   */
+  public static final int DEFAULT_READ_BUFFER_LENGTH = 64 * 1024;
+
+  /**
+   * Default size of each write queue segment, bounding the largest frame
+   */
+  public static final int DEFAULT_SEGMENT_LENGTH = 64 * 1024;
+
+  private final ErrorHandler errorHandler;
+  private final ArrayList<SofhSession> flushes = new ArrayList<>();
+  private final ArrayDeque<SofhSession.Segment> freeSegments = new ArrayDeque<>();
+  private final int maxQueuedBytes;
+  private final String name;
+  private final int readBufferLength;
+  private volatile boolean running = false;
+  private final int segmentLength;
+  private final Selector selector;
+  private final AtomicInteger sessionCount = new AtomicInteger();
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private Thread thread;
+
+  /**
+   * Creates an event loop with default buffer sizes and errors printed to standard error
+   *
+   * @param name name of the thread
+   * @throws IOException if a selector cannot be opened
+   */
+  public SofhEventLoop(String name) throws IOException {
+    this(name, DEFAULT_READ_BUFFER_LENGTH, DEFAULT_SEGMENT_LENGTH, DEFAULT_MAX_QUEUED_BYTES);
+  }
+
+  /**
+   * Creates an event loop with errors printed to standard error. Its thread is not started until
+   * {@link #start()}.
+   *
+   * @param name name of the thread
+   * @param readBufferLength size of the receive buffer of each session
+   * @param segmentLength size of each write queue segment
+   * @param maxQueuedBytes maximum number of bytes queued for writing per session
+   * @throws IOException if a selector cannot be opened
+   */
+  public SofhEventLoop(String name, int readBufferLength, int segmentLength, int maxQueuedBytes)
+      throws IOException {
+    this(name, readBufferLength, segmentLength, maxQueuedBytes, Throwable::printStackTrace);
+  }
+
+  /**
+   * Creates an event loop. Its thread is not started until {@link #start()}.
+   *
+   * @param name name of the thread
+   * @param readBufferLength size of the receive buffer of each session
+   * @param segmentLength size of each write queue segment
+   * @param maxQueuedBytes maximum number of bytes queued for writing per session
+   * @param errorHandler receives exceptions thrown by tasks and a failure of the selector, after
+   *        which the loop closes its sessions and stops
+   * @throws IOException if a selector cannot be opened
+   */
+  public SofhEventLoop(String name, int readBufferLength, int segmentLength, int maxQueuedBytes,
+      ErrorHandler errorHandler) throws IOException {
+    if (maxQueuedBytes < segmentLength) {
+      throw new IllegalArgumentException("Queue limit less than segment length");
+    }
+    this.name = name;
+    this.readBufferLength = readBufferLength;
+    this.segmentLength = segmentLength;
+    this.maxQueuedBytes = maxQueuedBytes;
+    this.errorHandler = errorHandler;
+    this.selector = Selector.open();
+  }
+
+  /**
+   * Stops the thread, closing all of its sessions
+   *
+   * @throws InterruptedException if interrupted while waiting for the thread to stop
+   */
+  @Override
+  public void close() throws InterruptedException {
+    running = false;
+    selector.wakeup();
+    if (thread != null) {
+      thread.join();
+      thread = null;
+    }
+  }
+
+  /**
+   * Runs a task on the thread of this event loop
+   *
+   * @param task task to run. It may use the sessions of this loop.
+   */
+  public void execute(Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  /**
+   * Hands over a connected channel. The channel is made non-blocking and registered on the thread
+   * of this loop, which then invokes {@link SessionHandler#onConnected(SofhSession)}.
+   *
+   * @param channel connected channel
+   * @param handler receives the events of the new session
+   */
+  public void register(SocketChannel channel, SessionHandler handler) {
+    sessionCount.incrementAndGet();
+    execute(() -> {
+      try {
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        final SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        final SofhSession session = new SofhSession(this, channel, key, handler, readBufferLength,
+            segmentLength, maxQueuedBytes, SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+        key.attach(session);
+        session.onConnected();
+      } catch (final IOException e) {
+        sessionCount.decrementAndGet();
+        try {
+          channel.close();
+        } catch (final IOException e1) {
+          // already failed
+        }
+        handler.onDisconnected(null, e);
+      }
+    });
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (running) {
+        selector.select();
+        runTasks();
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          final SelectionKey key = keys.next();
+          keys.remove();
+          if (key.isValid()) {
+            ((SofhSession) key.attachment()).onSelected(key.readyOps());
+          }
+        }
+        flushPending();
+      }
+    } catch (final IOException e) {
+      errorHandler.onError(e);
+    } finally {
+      runTasks();
+      for (final SelectionKey key : selector.keys().toArray(new SelectionKey[0])) {
+        final SofhSession session = (SofhSession) key.attachment();
+        if (session != null) {
+          session.close();
+        }
+      }
+      try {
+        selector.close();
+      } catch (final IOException e) {
+        // closing anyway
+      }
+    }
+  }
+
+  /**
+   * @return number of sessions registered and not yet closed. May be called by any thread.
+   */
+  public int sessionCount() {
+    return sessionCount.get();
+  }
+
+  /**
+   * Starts the thread of this event loop
+   *
+   * @throws IllegalStateException if already started
+   */
+  public void start() {
+    if (thread != null) {
+      throw new IllegalStateException("Already started");
+    }
+    running = true;
+    thread = new Thread(this, name);
+    thread.start();
+  }
+
+  SofhSession.Segment acquireSegment() {
+    final SofhSession.Segment segment = freeSegments.pollFirst();
+    return segment != null ? segment : new SofhSession.Segment(segmentLength);
+  }
+
+  void flushLater(SofhSession session) {
+    flushes.add(session);
+  }
+
+  void releaseSegment(SofhSession.Segment segment) {
+    segment.reset();
+    freeSegments.addFirst(segment);
+  }
+
+  void sessionClosed() {
+    sessionCount.decrementAndGet();
+  }
+
+  private void flushPending() {
+    // a write may invoke a handler that commits to another session, growing the list
+    for (int i = 0; i < flushes.size(); i++) {
+      flushes.get(i).writeQuietly();
+    }
+    flushes.clear();
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      try {
+        task.run();
+      } catch (final RuntimeException e) {
+        errorHandler.onError(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.agrona.ErrorHandler;
+
+/**
+ * Accepts TCP connections that exchange frames with a Simple Open Framing Header and serves them on
+ * a fixed number of {@link SofhEventLoop}
+ * <p>
+ * An acceptor thread blocks in accept and hands each new connection to the next event loop in
+ * turn, so that connections are balanced across loops. Each connection gets its own
+ * {@link SessionHandler} from a factory. If accept fails, for example when the process runs out of
+ * file descriptors, the error is reported and the acceptor retries after a short pause; pending
+ * connections wait in the backlog meanwhile.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhServer implements AutoCloseable {
+
+  private static final long ACCEPT_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private Thread acceptor;
+  private final SocketAddress bindAddress;
+  private final ErrorHandler errorHandler;
+  private final Supplier<SessionHandler> handlerFactory;
+  private final SofhEventLoop[] loops;
+  private int nextLoop = 0;
+  private ServerSocketChannel serverChannel;
+
+  /**
+   * Creates a server with default buffer sizes and errors printed to standard error
+   *
+   * @param bindAddress local address to listen on; port 0 selects an ephemeral port
+   * @param loopCount number of event loop threads
+   * @param handlerFactory supplies a handler for each connection
+   * @throws IOException if a selector cannot be opened
+   */
+  public SofhServer(SocketAddress bindAddress, int loopCount,
+      Supplier<SessionHandler> handlerFactory) throws IOException {
+    this(bindAddress, loopCount, handlerFactory, SofhEventLoop.DEFAULT_READ_BUFFER_LENGTH,
+        SofhEventLoop.DEFAULT_SEGMENT_LENGTH, SofhEventLoop.DEFAULT_MAX_QUEUED_BYTES);
+  }
+
+  /**
+   * Creates a server with errors printed to standard error. It does not listen until
+   * {@link #start()}.
+   *
+   * @param bindAddress local address to listen on; port 0 selects an ephemeral port
+   * @param loopCount number of event loop threads
+   * @param handlerFactory supplies a handler for each connection
+   * @param readBufferLength size of the receive buffer of each session
+   * @param segmentLength size of each write queue segment
+   * @param maxQueuedBytes maximum number of bytes queued for writing per session
+   * @throws IOException if a selector cannot be opened
+   */
+  public SofhServer(SocketAddress bindAddress, int loopCount,
+      Supplier<SessionHandler> handlerFactory, int readBufferLength, int segmentLength,
+      int maxQueuedBytes) throws IOException {
+    this(bindAddress, loopCount, handlerFactory, readBufferLength, segmentLength, maxQueuedBytes,
+        Throwable::printStackTrace);
+  }
+
+  /**
+   * Creates a server. It does not listen until {@link #start()}.
+   *
+   * @param bindAddress local address to listen on; port 0 selects an ephemeral port
+   * @param loopCount number of event loop threads
+   * @param handlerFactory supplies a handler for each connection
+   * @param readBufferLength size of the receive buffer of each session
+   * @param segmentLength size of each write queue segment
+   * @param maxQueuedBytes maximum number of bytes queued for writing per session
+   * @param errorHandler receives failures to accept and errors of the event loops
+   * @throws IOException if a selector cannot be opened
+   */
+  public SofhServer(SocketAddress bindAddress, int loopCount,
+      Supplier<SessionHandler> handlerFactory, int readBufferLength, int segmentLength,
+      int maxQueuedBytes, ErrorHandler errorHandler) throws IOException {
+    if (loopCount <= 0) {
+      throw new IllegalArgumentException("Loop count must be positive");
+    }
+    this.bindAddress = bindAddress;
+    this.handlerFactory = handlerFactory;
+    this.errorHandler = errorHandler;
+    this.loops = new SofhEventLoop[loopCount];
+    for (int i = 0; i < loopCount; i++) {
+      loops[i] = new SofhEventLoop("sofh-server-" + i, readBufferLength, segmentLength,
+          maxQueuedBytes, errorHandler);
+    }
+  }
+
+  /**
+   * Stops accepting, then stops the event loops, closing all sessions
+   *
+   * @throws IOException if the listening channel fails to close
+   * @throws InterruptedException if interrupted while waiting for threads to stop
+   */
+  @Override
+  public void close() throws IOException, InterruptedException {
+    if (serverChannel != null) {
+      serverChannel.close();
+      acceptor.join();
+      serverChannel = null;
+    }
+    for (final SofhEventLoop loop : loops) {
+      loop.close();
+    }
+  }
+
+  /**
+   * @return address on which the server listens
+   * @throws IOException if the address cannot be obtained
+   */
+  public InetSocketAddress localAddress() throws IOException {
+    return (InetSocketAddress) serverChannel.getLocalAddress();
+  }
+
+  /**
+   * @param index event loop index
+   * @return an event loop of this server
+   */
+  public SofhEventLoop loop(int index) {
+    return loops[index];
+  }
+
+  /**
+   * @return number of event loops
+   */
+  public int loopCount() {
+    return loops.length;
+  }
+
+  /**
+   * Binds the listening socket and starts the event loops and the acceptor thread
+   *
+   * @throws IOException if the socket cannot be bound
+   * @throws IllegalStateException if already started
+   */
+  public void start() throws IOException {
+    if (serverChannel != null) {
+      throw new IllegalStateException("Already started");
+    }
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(bindAddress, 1024);
+    for (final SofhEventLoop loop : loops) {
+      loop.start();
+    }
+    acceptor = new Thread(this::accept, "sofh-acceptor");
+    acceptor.start();
+  }
+
+  private void accept() {
+    final ServerSocketChannel channel = serverChannel;
+    while (true) {
+      final SocketChannel socketChannel;
+      try {
+        socketChannel = channel.accept();
+      } catch (final ClosedChannelException e) {
+        // server closed
+        return;
+      } catch (final IOException e) {
+        // such as too many open files; retry once some may have been released
+        errorHandler.onError(e);
+        LockSupport.parkNanos(ACCEPT_RETRY_NANOS);
+        continue;
+      }
+      loops[nextLoop].register(socketChannel, handlerFactory.get());
+      nextLoop = (nextLoop + 1) % loops.length;
+    }
+  }
+}
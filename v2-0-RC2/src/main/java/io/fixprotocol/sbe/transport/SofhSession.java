@@ -0,0 +1,394 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+import org.agrona.BitUtil;
+import org.agrona.BufferUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDeframer;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+
+/**
+ * A TCP connection that exchanges frames with a Simple Open Framing Header, owned by one
+ * {@link SofhEventLoop}
+ * <p>
+ * Reads are non-blocking; a {@link SofhFrameDeframer} holds a partial frame until the rest of it
+ * arrives and delivers complete frames to a {@link SessionHandler} in place.
+ * <p>
+ * Outbound frames are encoded in place, as with {@link io.fixprotocol.sbe.examples.SofhFrameWriter}:
+ * {@link #claim(int)}, encode into {@link #buffer()}, then {@link #commit(int)}. Frames are appended
+ * to a queue of direct buffer segments drawn from a pool of the event loop. Frames committed during
+ * one pass of the event loop are written together with a gathering write at the end of the pass;
+ * whatever the socket does not accept stays queued until the channel is writable again.
+ * <p>
+ * A slow peer applies back pressure in two ways. When queued bytes reach half of the queue limit,
+ * the session stops reading, so that a peer that does not consume responses cannot submit more
+ * requests. When a frame would exceed the limit, {@link #claim(int)} returns
+ * {@link #BACK_PRESSURED}. Reading resumes, and {@link SessionHandler#onWritable(SofhSession)} is
+ * invoked, once the queue drains below a quarter of the limit.
+ * <p>
+ * Not thread-safe; all methods must be called on the thread of the owning event loop, for example
+ * from the handler or through {@link SofhEventLoop#execute(Runnable)}.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class SofhSession implements Closeable {
+
+  /**
+   * Returned by {@link #claim(int)} when the write queue is full or the session is closed
+   */
+  public static final int BACK_PRESSURED = -1;
+
+  /**
+   * A direct buffer in a write queue
+   */
+  static final class Segment {
+    final UnsafeBuffer buffer;
+    final ByteBuffer byteBuffer;
+    int length = 0;
+
+    Segment(int capacity) {
+      byteBuffer = BufferUtil.allocateDirectAligned(capacity, BitUtil.CACHE_LINE_LENGTH);
+      buffer = new UnsafeBuffer(byteBuffer);
+    }
+
+    void reset() {
+      byteBuffer.clear();
+      length = 0;
+    }
+  }
+
+  private static final int MAX_GATHER = 16;
+
+  private long backPressureEvents = 0;
+  private long bytesWritten = 0;
+  private final SocketChannel channel;
+  private boolean claimed = false;
+  private int claimedMessageLength = 0;
+  private boolean closed = false;
+  private final SofhFrameDeframer deframer;
+  private final short encoding;
+  private boolean flushPending = false;
+  private long framesReceived = 0;
+  private long framesSent = 0;
+  private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+  private final SessionHandler handler;
+  private final SelectionKey key;
+  private final SofhEventLoop loop;
+  private final int maxQueuedBytes;
+  private int queuedBytes = 0;
+  private boolean readPaused = false;
+  private boolean refused = false;
+  private final int segmentLength;
+  private final SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+  private Segment tail;
+  private final ArrayDeque<Segment> writeQueue = new ArrayDeque<>();
+
+  SofhSession(SofhEventLoop loop, SocketChannel channel, SelectionKey key, SessionHandler handler,
+      int readBufferLength, int segmentLength, int maxQueuedBytes, short encoding) {
+    this.loop = loop;
+    this.channel = channel;
+    this.key = key;
+    this.handler = handler;
+    this.segmentLength = segmentLength;
+    this.maxQueuedBytes = maxQueuedBytes;
+    this.encoding = encoding;
+    this.deframer = new SofhFrameDeframer(readBufferLength,
+        (buffer, offset, length) -> handler.onFrame(this, buffer, offset, length));
+  }
+
+  /**
+   * Abandons the frame in progress
+   */
+  public void abort() {
+    claimed = false;
+  }
+
+  /**
+   * @return number of claims refused because the write queue was full
+   */
+  public long backPressureEvents() {
+    return backPressureEvents;
+  }
+
+  /**
+   * @return buffer in which the claimed frame is encoded. Only valid between {@link #claim(int)}
+   *         and {@link #commit(int)}.
+   */
+  public MutableDirectBuffer buffer() {
+    return tail.buffer;
+  }
+
+  /**
+   * @return number of bytes written to the socket
+   */
+  public long bytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * Reserves space for a frame in the write queue and writes its framing header
+   *
+   * @param maxMessageLength maximum length of the SBE message, including its message header
+   * @return offset in {@link #buffer()} at which to encode the SBE message header, or
+   *         {@link #BACK_PRESSURED}
+   * @throws IllegalArgumentException if the frame could never fit in a segment
+   */
+  public int claim(int maxMessageLength) {
+    final int maxFrameLength = sofhEncoder.encodedLength() + maxMessageLength;
+    if (maxFrameLength > segmentLength) {
+      throw new IllegalArgumentException("Frame length exceeds segment length");
+    }
+    if (closed || queuedBytes + maxFrameLength > maxQueuedBytes) {
+      backPressureEvents++;
+      refused = true;
+      return BACK_PRESSURED;
+    }
+    if (tail == null || tail.length + maxFrameLength > segmentLength) {
+      tail = loop.acquireSegment();
+      writeQueue.addLast(tail);
+    }
+    sofhEncoder.wrap(tail.buffer, tail.length).encoding(encoding);
+    claimed = true;
+    claimedMessageLength = maxMessageLength;
+    return tail.length + sofhEncoder.encodedLength();
+  }
+
+  /**
+   * Closes the connection and discards queued frames
+   */
+  @Override
+  public void close() {
+    close(null);
+  }
+
+  /**
+   * Queues the claimed frame to be written at the end of the current pass of the event loop
+   *
+   * @param messageLength actual length of the SBE message, including its message header
+   * @throws IllegalStateException if no frame was claimed
+   * @throws IllegalArgumentException if the message length is negative or exceeds the length
+   *         claimed. The frame remains claimed.
+   */
+  public void commit(int messageLength) {
+    if (!claimed) {
+      throw new IllegalStateException("No frame claimed");
+    }
+    if (messageLength < 0 || messageLength > claimedMessageLength) {
+      throw new IllegalArgumentException("Message length exceeds length claimed");
+    }
+    claimed = false;
+    final int frameLength = sofhEncoder.encodedLength() + messageLength;
+    sofhEncoder.messageLength(frameLength);
+    tail.length += frameLength;
+    queuedBytes += frameLength;
+    framesSent++;
+    if (!readPaused && queuedBytes >= maxQueuedBytes / 2) {
+      readPaused = true;
+      updateInterest();
+    }
+    if (!flushPending) {
+      flushPending = true;
+      loop.flushLater(this);
+    }
+  }
+
+  /**
+   * @return number of frames delivered to the handler
+   */
+  public long framesReceived() {
+    return framesReceived;
+  }
+
+  /**
+   * @return number of frames committed
+   */
+  public long framesSent() {
+    return framesSent;
+  }
+
+  /**
+   * @return {@code true} until the session is closed
+   */
+  public boolean isOpen() {
+    return !closed;
+  }
+
+  /**
+   * @return {@code true} while reading is suspended because the write queue is too long
+   */
+  public boolean isReadPaused() {
+    return readPaused;
+  }
+
+  /**
+   * @return event loop that owns this session
+   */
+  public SofhEventLoop loop() {
+    return loop;
+  }
+
+  /**
+   * Queues a frame that has already been encoded with its framing header, by copying it
+   *
+   * @param src buffer containing the frame
+   * @param offset offset of the framing header
+   * @param length length of the frame, including the framing header
+   * @return {@code true} if queued, {@code false} if back pressured
+   */
+  public boolean offer(DirectBuffer src, int offset, int length) {
+    final int position = claim(length - sofhEncoder.encodedLength());
+    if (position == BACK_PRESSURED) {
+      return false;
+    }
+    tail.buffer.putBytes(position - sofhEncoder.encodedLength(), src, offset, length);
+    commit(length - sofhEncoder.encodedLength());
+    return true;
+  }
+
+  /**
+   * @return number of bytes committed but not yet written to the socket
+   */
+  public int queuedBytes() {
+    return queuedBytes;
+  }
+
+  /**
+   * @return address of the peer, or {@code null} if not available
+   */
+  public SocketAddress remoteAddress() {
+    try {
+      return channel.getRemoteAddress();
+    } catch (final IOException e) {
+      return null;
+    }
+  }
+
+  void close(Throwable cause) {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    claimed = false;
+    key.cancel();
+    try {
+      channel.close();
+    } catch (final IOException e) {
+      // already failed
+    }
+    Segment segment;
+    while ((segment = writeQueue.pollFirst()) != null) {
+      loop.releaseSegment(segment);
+    }
+    tail = null;
+    queuedBytes = 0;
+    loop.sessionClosed();
+    handler.onDisconnected(this, cause);
+  }
+
+  void onSelected(int readyOps) {
+    try {
+      if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+        write();
+      }
+      if (!closed && (readyOps & SelectionKey.OP_READ) != 0) {
+        final int frames = deframer.read(channel);
+        if (frames < 0) {
+          close(null);
+        } else {
+          framesReceived += frames;
+        }
+      }
+    } catch (final Exception e) {
+      close(e);
+    }
+  }
+
+  void onConnected() {
+    try {
+      handler.onConnected(this);
+    } catch (final Exception e) {
+      close(e);
+    }
+  }
+
+  /**
+   * Writes queued frames, as much as the socket accepts
+   */
+  void write() throws IOException {
+    flushPending = false;
+    if (closed || claimed || writeQueue.isEmpty()) {
+      return;
+    }
+    int count = 0;
+    for (final Segment segment : writeQueue) {
+      segment.byteBuffer.limit(segment.length);
+      gather[count++] = segment.byteBuffer;
+      if (count == MAX_GATHER) {
+        break;
+      }
+    }
+    final long written = channel.write(gather, 0, count);
+    bytesWritten += written;
+    queuedBytes -= written;
+
+    Segment segment;
+    while ((segment = writeQueue.peekFirst()) != null
+        && segment.byteBuffer.position() == segment.length) {
+      writeQueue.pollFirst();
+      if (segment == tail) {
+        tail = null;
+      }
+      loop.releaseSegment(segment);
+    }
+
+    final boolean drained = queuedBytes <= maxQueuedBytes / 4;
+    if (drained) {
+      readPaused = false;
+    }
+    updateInterest();
+    if (drained && refused) {
+      refused = false;
+      handler.onWritable(this);
+    }
+  }
+
+  void writeQuietly() {
+    try {
+      write();
+    } catch (final Exception e) {
+      close(e);
+    }
+  }
+
+  private void updateInterest() {
+    if (!closed) {
+      key.interestOps((readPaused ? 0 : SelectionKey.OP_READ)
+          | (writeQueue.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+    }
+  }
+}
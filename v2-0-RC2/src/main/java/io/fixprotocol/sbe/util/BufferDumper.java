@@ -15,23 +15,54 @@
 
 package io.fixprotocol.sbe.util;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 
 /**
  * Prints the contents of a buffer in hex and text
- * 
+ * <p>
+ * Each line shows up to {@code width} bytes as two lower case hex digits and a space, padded to a
+ * fixed column, followed by a colon and the bytes as text with non-printable characters shown as
+ * spaces.
+ * <p>
+ * An instance formats lines into a reusable buffer using a lookup table, so dumping allocates
+ * nothing after construction. An instance is not thread-safe. The static methods are retained for
+ * convenience and create an instance per call.
+ *
  * @author Don Mendelson
- * 
+ *
  */
 public final class BufferDumper {
 
+  /**
+   * Default number of bytes per line
+   */
+  public static final int DEFAULT_WIDTH = 16;
+
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] LINE_SEPARATOR =
+      System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] TEXT = new byte[256];
+
+  static {
+    for (int i = 0; i < TEXT.length; i++) {
+      TEXT[i] = (byte) (i >= 0x20 && i <= 0x7E ? i : ' ');
+    }
+  }
+
   /**
    * Print a byte array as hex and text
-   * 
+   *
    * @param bytes data to print
    * @param index index from start of data buffer to print
    * @param width width of output as number of bytes of file to print per line
@@ -46,20 +77,25 @@ public final class BufferDumper {
       throw new IndexOutOfBoundsException();
     }
 
-    for (int i = 0; i < messageSize; i += width) {
-      int lineWidth = Math.min((int) messageSize - i, width);
-      String hexLine = printHexLine(bytes, index + i, lineWidth);
-      out.print(hexLine);
-      for (int j = hexLine.length(); j < width * 3; j++) {
-        out.print(' ');
+    final int length = (int) Math.min(messageSize, bytes.length - index);
+    if (isSingleByte(charset)) {
+      new BufferDumper(width).print(new UnsafeBuffer(bytes), index, length, out);
+    } else {
+      for (int i = 0; i < length; i += width) {
+        int lineWidth = Math.min(length - i, width);
+        String hexLine = printHexLine(bytes, index + i, lineWidth);
+        out.print(hexLine);
+        for (int j = hexLine.length(); j < width * 3; j++) {
+          out.print(' ');
+        }
+        out.println(printTextLine(bytes, index + i, lineWidth, charset));
       }
-      out.println(printTextLine(bytes, index + i, lineWidth, charset));
     }
   }
 
   /**
    * Print a byte array as hex and text
-   * 
+   *
    * @param bytes data to print
    * @param width width of output as number of bytes of file to print per line
    * @param messageSize maximum number of bytes to print
@@ -73,7 +109,10 @@ public final class BufferDumper {
 
   /**
    * Print a byte array as hex and text
-   * 
+   * <p>
+   * Prints from the position to the limit of the buffer, or the whole buffer if its position is at
+   * its limit. Direct and heap buffers are read in place without copying.
+   *
    * @param buffer buffer to print
    * @param width width of output as number of bytes of file to print per line
    * @param out output stream
@@ -81,14 +120,46 @@ public final class BufferDumper {
    */
   public static void print(ByteBuffer buffer, int width, PrintStream out, Charset charset)
       throws UnsupportedEncodingException {
-    ByteBuffer buffer2 = buffer.duplicate();
-    buffer2.order(buffer.order());
-    if (buffer2.position() == buffer2.limit()) {
-      buffer2.rewind();
+    final int position = buffer.position() == buffer.limit() ? 0 : buffer.position();
+    final int limit = buffer.limit();
+    if (isSingleByte(charset)) {
+      new BufferDumper(width).print(new UnsafeBuffer(buffer), position, limit - position, out);
+    } else {
+      ByteBuffer buffer2 = buffer.duplicate();
+      // through Buffer, whose position(int) is the only one on Java 8
+      ((Buffer) buffer2).position(position);
+      byte[] bytes = new byte[buffer2.remaining()];
+      buffer2.get(bytes);
+      print(bytes, 0, width, bytes.length, out, charset);
+    }
+  }
+
+  /**
+   * Print a region of a buffer as hex and text
+   *
+   * @param buffer buffer to print, on or off heap
+   * @param index index from start of buffer to print
+   * @param length number of bytes to print
+   * @param width width of output as number of bytes of file to print per line
+   * @param out output stream
+   */
+  public static void print(DirectBuffer buffer, int index, int length, int width,
+      PrintStream out) {
+    new BufferDumper(width).print(buffer, index, length, out);
+  }
+
+  private static boolean isSingleByte(Charset charset) {
+    return StandardCharsets.ISO_8859_1.equals(charset) || StandardCharsets.US_ASCII.equals(charset);
+  }
+
+  private static String printHexLine(byte[] bytes, int offset, int width) {
+    StringWriter writer = new StringWriter();
+    for (int index = 0; index < width; index++) {
+      if (index + offset < bytes.length) {
+        writer.append(String.format("%02x ", bytes[index + offset]));
+      }
     }
-    byte[] bytes = new byte[buffer2.remaining()];
-    buffer2.get(bytes);
-    print(bytes, 0, width, bytes.length, out, charset);
+    return writer.toString();
   }
 
   private static String printTextLine(byte[] bytes, int index, int width, Charset charset)
@@ -102,14 +173,121 @@ public final class BufferDumper {
     return writer.toString();
   }
 
-  private static String printHexLine(byte[] bytes, int offset, int width) {
-    StringWriter writer = new StringWriter();
-    for (int index = 0; index < width; index++) {
-      if (index + offset < bytes.length) {
-        writer.append(String.format("%02x ", bytes[index + offset]));
+  private final byte[] line;
+  private final int width;
+
+  /**
+   * Constructor with the default width
+   */
+  public BufferDumper() {
+    this(DEFAULT_WIDTH);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param width number of bytes to print per line
+   */
+  public BufferDumper(int width) {
+    if (width < 1) {
+      throw new IllegalArgumentException("Width must be positive");
+    }
+    this.width = width;
+    this.line = new byte[maxLineLength()];
+  }
+
+  /**
+   * Formats a single line into a byte array
+   *
+   * @param buffer buffer to print
+   * @param index index in the buffer of the first byte of the line
+   * @param lineWidth number of bytes on this line, not more than the width
+   * @param dst destination of formatted text, including the line separator
+   * @param dstOffset offset in the destination
+   * @return number of bytes written to the destination
+   */
+  public int formatLine(DirectBuffer buffer, int index, int lineWidth, byte[] dst, int dstOffset) {
+    int hexPosition = dstOffset;
+    int textPosition = dstOffset + width * 3;
+    dst[textPosition++] = ':';
+    for (int i = 0; i < lineWidth; i++) {
+      final int b = buffer.getByte(index + i) & 0xFF;
+      dst[hexPosition++] = HEX_DIGITS[b >>> 4];
+      dst[hexPosition++] = HEX_DIGITS[b & 0x0F];
+      dst[hexPosition++] = ' ';
+      dst[textPosition++] = TEXT[b];
+    }
+    while (hexPosition < dstOffset + width * 3) {
+      dst[hexPosition++] = ' ';
+    }
+    for (int i = 0; i < LINE_SEPARATOR.length; i++) {
+      dst[textPosition++] = LINE_SEPARATOR[i];
+    }
+    return textPosition - dstOffset;
+  }
+
+  /**
+   * @return maximum number of bytes in a formatted line, including the line separator
+   */
+  public int maxLineLength() {
+    return width * 4 + 1 + LINE_SEPARATOR.length;
+  }
+
+  /**
+   * Prints a region of a buffer as hex and text
+   *
+   * @param buffer buffer to print, on or off heap
+   * @param index index from start of buffer to print
+   * @param length number of bytes to print
+   * @param out destination of characters
+   * @throws IOException if the destination fails
+   */
+  public void print(DirectBuffer buffer, int index, int length, Appendable out)
+      throws IOException {
+    for (int i = 0; i < length; i += width) {
+      final int lineLength = formatLine(buffer, index + i, Math.min(length - i, width), line, 0);
+      for (int j = 0; j < lineLength; j++) {
+        out.append((char) line[j]);
       }
     }
-    return writer.toString();
   }
 
+  /**
+   * Prints a region of a buffer as hex and text
+   *
+   * @param buffer buffer to print, on or off heap
+   * @param index index from start of buffer to print
+   * @param length number of bytes to print
+   * @param out destination of encoded text
+   * @throws IOException if the destination fails
+   */
+  public void print(DirectBuffer buffer, int index, int length, OutputStream out)
+      throws IOException {
+    for (int i = 0; i < length; i += width) {
+      final int lineLength = formatLine(buffer, index + i, Math.min(length - i, width), line, 0);
+      out.write(line, 0, lineLength);
+    }
+  }
+
+  /**
+   * Prints a region of a buffer as hex and text
+   *
+   * @param buffer buffer to print, on or off heap
+   * @param index index from start of buffer to print
+   * @param length number of bytes to print
+   * @param out output stream
+   */
+  public void print(DirectBuffer buffer, int index, int length, PrintStream out) {
+    for (int i = 0; i < length; i += width) {
+      final int lineLength = formatLine(buffer, index + i, Math.min(length - i, width), line, 0);
+      out.write(line, 0, lineLength);
+    }
+  }
+
+  /**
+   * @return number of bytes printed per line
+   */
+  public int width() {
+    return width;
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+import org.agrona.DirectBuffer;
+import org.agrona.LangUtil;
+
+/**
+ * Computes CRC-32C (Castagnoli) checksums of a region of a buffer
+ * <p>
+ * On Java 9 and later, {@code java.util.zip.CRC32C} is used, which the JIT compiles to hardware
+ * instructions and which reads direct buffers in place. On Java 8, a table-driven implementation
+ * is used.
+ * <p>
+ * Not thread-safe; each thread should use its own instance.
+ *
+ * @author Don Mendelson
+ *
+ */
+public final class Crc32c {
+
+  private static final Class<?> CRC32C_CLASS;
+  private static final int POLYNOMIAL = 0x82F63B78;
+  private static final int[] TABLE = new int[256];
+  private static final MethodHandle UPDATE_BYTE_BUFFER;
+
+  static {
+    for (int i = 0; i < TABLE.length; i++) {
+      int crc = i;
+      for (int bit = 0; bit < 8; bit++) {
+        crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+      }
+      TABLE[i] = crc;
+    }
+
+    Class<?> crc32cClass = null;
+    MethodHandle updateByteBuffer = null;
+    try {
+      crc32cClass = Class.forName("java.util.zip.CRC32C");
+      updateByteBuffer = MethodHandles.publicLookup().findVirtual(Checksum.class, "update",
+          MethodType.methodType(void.class, ByteBuffer.class));
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+      crc32cClass = null;
+      updateByteBuffer = null;
+    }
+    CRC32C_CLASS = crc32cClass;
+    UPDATE_BYTE_BUFFER = updateByteBuffer;
+  }
+
+  private final Checksum checksum;
+  private ByteBuffer source;
+  private ByteBuffer view;
+
+  public Crc32c() {
+    Checksum checksum = null;
+    if (CRC32C_CLASS != null) {
+      try {
+        checksum = (Checksum) CRC32C_CLASS.getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+        checksum = null;
+      }
+    }
+    this.checksum = checksum;
+  }
+
+  /**
+   * Computes the checksum of a region of a buffer
+   *
+   * @param buffer buffer to read
+   * @param offset offset of the first byte
+   * @param length number of bytes
+   * @return CRC-32C value
+   */
+  public int compute(DirectBuffer buffer, int offset, int length) {
+    final ByteBuffer byteBuffer = buffer.byteBuffer();
+    if (checksum != null && byteBuffer != null) {
+      if (byteBuffer != source) {
+        source = byteBuffer;
+        view = byteBuffer.duplicate();
+      }
+      final int start = buffer.wrapAdjustment() + offset;
+      view.limit(start + length).position(start);
+      checksum.reset();
+      try {
+        UPDATE_BYTE_BUFFER.invokeExact(checksum, view);
+      } catch (final Throwable t) {
+        LangUtil.rethrowUnchecked(t);
+      }
+      return (int) checksum.getValue();
+    }
+
+    int crc = 0xFFFFFFFF;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      crc = (crc >>> 8) ^ TABLE[(crc ^ buffer.getByte(i)) & 0xFF];
+    }
+    return ~crc;
+  }
+}
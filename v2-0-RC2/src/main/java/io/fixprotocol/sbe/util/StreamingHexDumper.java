@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+
+/**
+ * Prints a file or stream of any size in hex and text with constant memory
+ * <p>
+ * Input is read in fixed-size chunks and formatted by {@link BufferDumper} into a large output
+ * buffer that is written when full. Each line is prefixed by the offset of its first byte from the
+ * start of the input, which runs on across chunks. A range may be given as byte offsets or as
+ * indexes of frames with a Simple Open Framing Header.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class StreamingHexDumper {
+
+  /**
+   * Default size of input and output buffers in bytes
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+  private static final int OFFSET_DIGITS = 16;
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * Prints a file in hex and text
+   *
+   * @param args file name, followed optionally by start and end. By default, start and end are
+   *        byte offsets. If the option {@code -frames} precedes the file name, they are frame
+   *        indexes.
+   * @throws IOException if the file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    int arg = 0;
+    boolean frames = false;
+    if (args.length > 0 && "-frames".equals(args[0])) {
+      frames = true;
+      arg++;
+    }
+    if (args.length <= arg) {
+      System.err.println("Usage: StreamingHexDumper [-frames] <file> [start [end]]");
+      System.exit(1);
+    }
+    final StreamingHexDumper dumper = new StreamingHexDumper(BufferDumper.DEFAULT_WIDTH,
+        DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+    try (FileChannel in = FileChannel.open(Paths.get(args[arg]), StandardOpenOption.READ)) {
+      final long start = args.length > arg + 1 ? Long.parseLong(args[arg + 1]) : 0L;
+      final long end = args.length > arg + 2 ? Long.parseLong(args[arg + 2]) : Long.MAX_VALUE;
+      final WritableByteChannel out = Channels.newChannel(System.out);
+      if (frames) {
+        dumper.dumpFrames(in, start, end - start, out);
+      } else {
+        dumper.dumpRange(in, start, end, out);
+      }
+    }
+  }
+
+  /**
+   * Finds the offset of a frame by walking framing headers from an offset, reading only the
+   * headers
+   *
+   * @param channel file of frames
+   * @param position offset of a framing header
+   * @param frames number of frames to skip
+   * @return offset of the frame following the skipped frames, or the file size if the file ends
+   *         first
+   * @throws IOException if the file cannot be read or a frame has an invalid length
+   */
+  public static long skipFrames(FileChannel channel, long position, long frames)
+      throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(8);
+    final UnsafeBuffer headerBuffer = new UnsafeBuffer(header);
+    final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder().wrap(headerBuffer, 0);
+    final long size = channel.size();
+    long offset = position;
+    for (long i = 0; i < frames && offset < size; i++) {
+      header.clear();
+      header.limit(sofhDecoder.encodedLength());
+      while (header.hasRemaining()) {
+        if (channel.read(header, offset + header.position()) < 0) {
+          throw new EOFException("Incomplete framing header at offset " + offset);
+        }
+      }
+      final long messageLength = sofhDecoder.messageLength();
+      if (messageLength < sofhDecoder.encodedLength()) {
+        throw new IOException(
+            String.format("Invalid SOFH message length %d at offset %d", messageLength, offset));
+      }
+      offset += messageLength;
+    }
+    return Math.min(offset, size);
+  }
+
+  private final ByteBuffer chunk;
+  private final UnsafeBuffer chunkBuffer;
+  private final BufferDumper dumper;
+  private final byte[] sink;
+  private final ByteBuffer sinkBuffer;
+  private int sinkPosition = 0;
+  private final int width;
+
+  /**
+   * Constructor
+   *
+   * @param width number of bytes to print per line
+   * @param chunkSize size of the input buffer in bytes; rounded down to a multiple of the width
+   * @param sinkSize size of the output buffer in bytes; at least one line
+   */
+  public StreamingHexDumper(int width, int chunkSize, int sinkSize) {
+    this.width = width;
+    this.dumper = new BufferDumper(width);
+    final int chunkCapacity = Math.max(width, chunkSize - chunkSize % width);
+    this.chunk = ByteBuffer.allocateDirect(chunkCapacity);
+    this.chunkBuffer = new UnsafeBuffer(chunk);
+    this.sink = new byte[Math.max(sinkSize, maxLineLength())];
+    this.sinkBuffer = ByteBuffer.wrap(sink);
+  }
+
+  /**
+   * Prints a range of a file
+   *
+   * @param in file to read
+   * @param start offset of the first byte to print
+   * @param end offset following the last byte to print; limited to the file size
+   * @param out destination of text
+   * @return number of bytes printed
+   * @throws IOException if the file cannot be read or the output cannot be written
+   */
+  public long dumpRange(FileChannel in, long start, long end, WritableByteChannel out)
+      throws IOException {
+    final long limit = Math.min(end, in.size());
+    if (limit <= start) {
+      return 0;
+    }
+    in.position(start);
+    return dump(in, start, limit - start, out);
+  }
+
+  /**
+   * Prints bytes from the current position of a channel
+   *
+   * @param in source of bytes
+   * @param startOffset offset to display for the first byte
+   * @param length maximum number of bytes to print; fewer are printed if the input ends first
+   * @param out destination of text
+   * @return number of bytes printed
+   * @throws IOException if the input cannot be read or the output cannot be written
+   */
+  public long dump(ReadableByteChannel in, long startOffset, long length, WritableByteChannel out)
+      throws IOException {
+    long offset = startOffset;
+    long remaining = length;
+    boolean endOfInput = false;
+    while (remaining > 0 && !endOfInput) {
+      chunk.clear();
+      chunk.limit((int) Math.min(chunk.capacity(), remaining));
+      while (chunk.hasRemaining()) {
+        if (in.read(chunk) < 0) {
+          endOfInput = true;
+          break;
+        }
+      }
+      final int bytesRead = chunk.position();
+      for (int i = 0; i < bytesRead; i += width) {
+        if (sinkPosition + maxLineLength() > sink.length) {
+          flush(out);
+        }
+        sinkPosition = formatOffset(offset + i, sink, sinkPosition);
+        sinkPosition +=
+            dumper.formatLine(chunkBuffer, i, Math.min(width, bytesRead - i), sink, sinkPosition);
+      }
+      offset += bytesRead;
+      remaining -= bytesRead;
+    }
+    flush(out);
+    return offset - startOffset;
+  }
+
+  /**
+   * Prints a range of frames of a file, identified by index
+   *
+   * @param in file of frames with a Simple Open Framing Header
+   * @param firstFrame index of the first frame to print
+   * @param frameCount number of frames to print; fewer are printed if the file ends first
+   * @param out destination of text
+   * @return number of bytes printed
+   * @throws IOException if the file cannot be read, a frame has an invalid length, or the output
+   *         cannot be written
+   */
+  public long dumpFrames(FileChannel in, long firstFrame, long frameCount,
+      WritableByteChannel out) throws IOException {
+    final long start = skipFrames(in, 0, firstFrame);
+    final long end = skipFrames(in, start, frameCount);
+    return dumpRange(in, start, end, out);
+  }
+
+  /**
+   * Prints bytes from the current position of a channel to a print stream
+   *
+   * @param in source of bytes
+   * @param length maximum number of bytes to print
+   * @param out destination of text
+   * @return number of bytes printed
+   * @throws IOException if the input cannot be read
+   */
+  public long dump(ReadableByteChannel in, long length, PrintStream out) throws IOException {
+    final long bytes = dump(in, 0, length, Channels.newChannel(out));
+    out.flush();
+    return bytes;
+  }
+
+  private void flush(WritableByteChannel out) throws IOException {
+    sinkBuffer.limit(sinkPosition).position(0);
+    while (sinkBuffer.hasRemaining()) {
+      out.write(sinkBuffer);
+    }
+    sinkPosition = 0;
+  }
+
+  private int formatOffset(long offset, byte[] dst, int dstOffset) {
+    for (int i = OFFSET_DIGITS - 1; i >= 0; i--) {
+      dst[dstOffset + i] = HEX_DIGITS[(int) ((offset >>> ((OFFSET_DIGITS - 1 - i) * 4)) & 0x0F)];
+    }
+    dst[dstOffset + OFFSET_DIGITS] = ' ';
+    dst[dstOffset + OFFSET_DIGITS + 1] = ' ';
+    return dstOffset + OFFSET_DIGITS + 2;
+  }
+
+  private int maxLineLength() {
+    return OFFSET_DIGITS + 2 + dumper.maxLineLength();
+  }
+}
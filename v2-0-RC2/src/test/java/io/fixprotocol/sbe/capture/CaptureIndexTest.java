@@ -0,0 +1,164 @@
+package io.fixprotocol.sbe.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.TimestampEncodingDecoder;
+
+class CaptureIndexTest {
+
+  private static final long BASE_TIME = 1_500_000_000_000_000_000L;
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Writes frames cycling NewOrderSingle, ExecutionReport, BusinessMessageReject. The TransactTime
+   * of the NewOrderSingle at frame i is BASE_TIME + i.
+   */
+  private static List<Long> writeCapture(Path path, int count) throws IOException {
+    ExampleDumper dumper = new ExampleDumper();
+    byte[] frame = new byte[128];
+    List<Long> offsets = new ArrayList<>();
+    long position = 0;
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      for (int i = 0; i < count; i++) {
+        int size;
+        switch (i % 3) {
+          case 0:
+            size = dumper.encodeOrderMsg(frame);
+            ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN).putLong(
+                6 + MessageHeaderDecoder.ENCODED_LENGTH
+                    + NewOrderSingleDecoder.transactTimeEncodingOffset(),
+                BASE_TIME + i);
+            break;
+          case 1:
+            size = dumper.encodeExecutionReport(frame);
+            break;
+          default:
+            size = dumper.encodeBusinessMessageReject(frame);
+        }
+        offsets.add(position);
+        channel.write(ByteBuffer.wrap(frame, 0, size));
+        position += size;
+      }
+    }
+    return offsets;
+  }
+
+  @Test
+  void testBuild() throws IOException {
+    Path capture = tempDir.resolve("capture.bin");
+    List<Long> offsets = writeCapture(capture, 300);
+    Path indexPath = tempDir.resolve("capture.idx");
+    assertEquals(300, CaptureIndexWriter.build(capture, indexPath));
+
+    try (CaptureIndex index = new CaptureIndex(indexPath)) {
+      assertEquals(300, index.size());
+      for (int i = 0; i < 300; i++) {
+        assertEquals(offsets.get(i).longValue(), index.frameOffset(i));
+        assertEquals(99 - i % 3, index.templateId(i));
+        assertEquals(91, index.schemaId(i));
+        assertEquals(0, index.version(i));
+        assertEquals(BASE_TIME + i - i % 3, index.timestamp(i));
+      }
+      assertThrows(IndexOutOfBoundsException.class, () -> index.frameOffset(300));
+    }
+  }
+
+  @Test
+  void testNullTransactTime() throws IOException {
+    byte[] frame = new byte[128];
+    new ExampleDumper().encodeOrderMsg(frame);
+    UnsafeBuffer buffer = new UnsafeBuffer(frame);
+    buffer.putLong(6 + MessageHeaderDecoder.ENCODED_LENGTH
+        + NewOrderSingleDecoder.transactTimeEncodingOffset(),
+        TimestampEncodingDecoder.timeNullValue(), ByteOrder.LITTLE_ENDIAN);
+    Path indexPath = tempDir.resolve("capture.idx");
+    try (CaptureIndexWriter writer = new CaptureIndexWriter(indexPath)) {
+      writer.add(0, buffer, 0, BASE_TIME);
+    }
+    try (CaptureIndex index = new CaptureIndex(indexPath)) {
+      assertEquals(BASE_TIME, index.timestamp(0));
+      assertEquals(0, index.lowerBound(BASE_TIME));
+    }
+  }
+
+  @Test
+  void testReplayTimeRange() throws IOException {
+    Path capture = tempDir.resolve("capture.bin");
+    List<Long> offsets = writeCapture(capture, 3000);
+    Path indexPath = tempDir.resolve("capture.idx");
+    try (SofhCaptureReader reader = new SofhCaptureReader(capture);
+        CaptureIndexWriter writer = new CaptureIndexWriter(indexPath, 16)) {
+      reader.replay((buffer, offset, length) -> {
+        try {
+          writer.add(reader.position(), buffer, offset, writer.lastTimestamp());
+        } catch (IOException e) {
+          fail(e);
+        }
+      });
+    }
+
+    try (CaptureIndex index = new CaptureIndex(indexPath);
+        SofhCaptureReader reader = new SofhCaptureReader(capture)) {
+      long from = BASE_TIME + 1200;
+      long to = BASE_TIME + 1500;
+      assertTrue(index.lowerBound(from) <= 1200);
+      assertTrue(index.lowerBound(from) > 1100);
+      assertTrue(index.upperBound(to) > 1500);
+      assertTrue(index.upperBound(to) < 1600);
+      assertEquals(3000, index.upperBound(Long.MAX_VALUE));
+      assertEquals(3000, index.lowerBound(BASE_TIME + 5000));
+
+      List<Long> positions = new ArrayList<>();
+      MessageHeaderDecoder header = new MessageHeaderDecoder();
+      assertEquals(101, index.replay(reader, from, to, 99, (buffer, offset, length) -> {
+        header.wrap(buffer, offset + 6);
+        assertEquals(99, header.templateId());
+        positions.add(reader.position());
+      }));
+      assertEquals(offsets.get(1200), positions.get(0));
+      assertEquals(offsets.get(1500), positions.get(100));
+      assertEquals(303, index.replay(reader, from, to, -1, (buffer, offset, length) -> {}));
+
+      index.seek(reader, 2999);
+      assertEquals(1, reader.read((buffer, offset, length) -> {
+        header.wrap(buffer, offset + 6);
+        assertEquals(97, header.templateId());
+      }, 10));
+    }
+  }
+
+  @Test
+  void testEmptyAndInvalid() throws IOException {
+    Path capture = tempDir.resolve("capture.bin");
+    Files.createFile(capture);
+    Path indexPath = tempDir.resolve("capture.idx");
+    assertEquals(0, CaptureIndexWriter.build(capture, indexPath));
+    try (CaptureIndex index = new CaptureIndex(indexPath)) {
+      assertEquals(0, index.size());
+      assertEquals(0, index.lowerBound(0));
+      assertEquals(0, index.upperBound(0));
+    }
+    Files.write(indexPath, new byte[64]);
+    assertThrows(IOException.class, () -> new CaptureIndex(indexPath));
+  }
+}
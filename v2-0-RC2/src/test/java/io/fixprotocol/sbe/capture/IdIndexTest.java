@@ -0,0 +1,146 @@
+package io.fixprotocol.sbe.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.collections.LongArrayList;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.fixprotocol.sbe.capture.IdIndex.IdField;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+
+class IdIndexTest {
+
+  private static final int MESSAGE_OFFSET = 6 + MessageHeaderDecoder.ENCODED_LENGTH;
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Frame i is a NewOrderSingle with ClOrdId C(i/2) if i is even, else an ExecutionReport with
+   * OrderID O(i % 10) and ExecID E(i).
+   */
+  private static byte[] frame(ExampleDumper dumper, int i) throws IOException {
+    byte[] frame = new byte[128];
+    int size;
+    if (i % 2 == 0) {
+      size = dumper.encodeOrderMsg(frame);
+      putId(frame, MESSAGE_OFFSET + NewOrderSingleDecoder.clOrdIdEncodingOffset(),
+          String.format("C%07d", i / 2));
+    } else {
+      size = dumper.encodeExecutionReport(frame);
+      putId(frame, MESSAGE_OFFSET + ExecutionReportDecoder.orderIDEncodingOffset(),
+          String.format("O%07d", i % 10));
+      putId(frame, MESSAGE_OFFSET + ExecutionReportDecoder.execIDEncodingOffset(),
+          String.format("E%07d", i));
+    }
+    byte[] result = new byte[size];
+    System.arraycopy(frame, 0, result, 0, size);
+    return result;
+  }
+
+  private static void putId(byte[] frame, int offset, String id) {
+    byte[] bytes = id.getBytes(StandardCharsets.ISO_8859_1);
+    System.arraycopy(bytes, 0, frame, offset, bytes.length);
+  }
+
+  private static List<Long> writeCapture(Path path, int count) throws IOException {
+    ExampleDumper dumper = new ExampleDumper();
+    List<Long> offsets = new ArrayList<>();
+    long position = 0;
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      for (int i = 0; i < count; i++) {
+        byte[] frame = frame(dumper, i);
+        offsets.add(position);
+        channel.write(ByteBuffer.wrap(frame));
+        position += frame.length;
+      }
+    }
+    return offsets;
+  }
+
+  @Test
+  void testBuild() throws IOException {
+    Path capture = tempDir.resolve("capture.bin");
+    List<Long> offsets = writeCapture(capture, 1000);
+    Path indexPath = tempDir.resolve("capture.ids");
+    assertEquals(1000, IdIndexWriter.build(capture, indexPath, 2000));
+
+    try (IdIndex index = new IdIndex(indexPath);
+        SofhCaptureReader reader = new SofhCaptureReader(capture)) {
+      assertEquals(1000, index.frames());
+      assertEquals(500 + 5 + 500, index.keys());
+
+      LongArrayList found = new LongArrayList();
+      assertEquals(100, index.frameOffsets(IdField.ORDER_ID, "O0000003", found));
+      for (int i = 0; i < 100; i++) {
+        assertEquals(offsets.get(i * 10 + 3).longValue(), found.getLong(i));
+      }
+      assertEquals(0, index.count(IdField.ORDER_ID, "O0000002"));
+      assertEquals(0, index.count(IdField.CL_ORD_ID, "O0000003"));
+      assertEquals(1, index.count(IdField.CL_ORD_ID, "C0000123"));
+      assertEquals(1, index.count(IdField.EXEC_ID, "E0000999"));
+
+      ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+      assertEquals(100, index.replay(reader, IdField.ORDER_ID, "O0000007",
+          (buffer, offset, length) -> {
+            erDecoder.wrap(buffer, offset + MESSAGE_OFFSET, ExecutionReportDecoder.BLOCK_LENGTH,
+                0);
+            assertEquals("O0000007", erDecoder.orderID());
+          }));
+    }
+  }
+
+  @Test
+  void testQueryWhileWriting() throws IOException {
+    Path indexPath = tempDir.resolve("capture.ids");
+    ExampleDumper dumper = new ExampleDumper();
+    try (IdIndexWriter writer = new IdIndexWriter(indexPath, 64)) {
+      writer.add(0, new UnsafeBuffer(frame(dumper, 1)), 0);
+      try (IdIndex index = new IdIndex(indexPath)) {
+        assertEquals(1, index.count(IdField.ORDER_ID, "O0000001"));
+        for (int i = 1; i < 50; i++) {
+          writer.add(i * 100L, new UnsafeBuffer(frame(dumper, 11)), 0);
+        }
+        LongArrayList found = new LongArrayList();
+        assertEquals(50, index.frameOffsets(IdField.ORDER_ID, "O0000001", found));
+        for (int i = 0; i < 50; i++) {
+          assertEquals(i * 100L, found.getLong(i));
+        }
+        assertEquals(50, index.frames());
+        assertEquals(3, index.keys());
+      }
+    }
+  }
+
+  @Test
+  void testFullAndInvalid() throws IOException {
+    Path indexPath = tempDir.resolve("capture.ids");
+    try (IdIndexWriter writer = new IdIndexWriter(indexPath, 4)) {
+      for (int i = 0; i < 4; i++) {
+        writer.add(IdField.EXEC_ID, IdIndex.key("E" + i), i);
+      }
+      writer.add(IdField.EXEC_ID, IdIndex.key("E0"), 4);
+      assertThrows(IllegalStateException.class,
+          () -> writer.add(IdField.EXEC_ID, IdIndex.key("E4"), 5));
+    }
+    assertThrows(IllegalArgumentException.class, () -> IdIndex.key("O00000001"));
+    Files.write(indexPath, new byte[64]);
+    assertThrows(IOException.class, () -> new IdIndex(indexPath));
+  }
+}
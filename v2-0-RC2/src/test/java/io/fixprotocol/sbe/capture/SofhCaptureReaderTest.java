@@ -0,0 +1,91 @@
+package io.fixprotocol.sbe.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+
+class SofhCaptureReaderTest {
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Writes a capture of NewOrderSingle, ExecutionReport and BusinessMessageReject frames
+   *
+   * @return file offset of each frame, plus the file length as the last element
+   */
+  static List<Long> writeCapture(Path path, int count) throws IOException {
+    ExampleDumper dumper = new ExampleDumper();
+    byte[] frame = new byte[128];
+    List<Long> offsets = new ArrayList<>();
+    long position = 0;
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      for (int i = 0; i < count; i++) {
+        int size;
+        switch (i % 3) {
+          case 0:
+            size = dumper.encodeOrderMsg(frame);
+            break;
+          case 1:
+            size = dumper.encodeExecutionReport(frame);
+            break;
+          default:
+            size = dumper.encodeBusinessMessageReject(frame);
+        }
+        offsets.add(position);
+        channel.write(ByteBuffer.wrap(frame, 0, size));
+        position += size;
+      }
+    }
+    offsets.add(position);
+    return offsets;
+  }
+
+  @Test
+  void testReplayWithStraddlingFrames() throws IOException {
+    Path path = tempDir.resolve("capture.bin");
+    List<Long> offsets = writeCapture(path, 300);
+    List<Long> positions = new ArrayList<>();
+    try (SofhCaptureReader reader = new SofhCaptureReader(path, 200)) {
+      assertEquals(300,
+          reader.replay((buffer, offset, length) -> positions.add(reader.position())));
+      assertEquals(offsets.get(300).longValue(), reader.position());
+    }
+    assertEquals(offsets.subList(0, 300), positions);
+  }
+
+  @Test
+  void testSeekAndLimit() throws IOException {
+    Path path = tempDir.resolve("capture.bin");
+    List<Long> offsets = writeCapture(path, 30);
+    try (SofhCaptureReader reader = new SofhCaptureReader(path, 4096)) {
+      reader.seek(offsets.get(10));
+      assertEquals(5, reader.read((buffer, offset, length) -> {}, 5));
+      assertEquals(offsets.get(15).longValue(), reader.position());
+    }
+  }
+
+  @Test
+  void testIncompleteTail() throws IOException {
+    Path path = tempDir.resolve("capture.bin");
+    List<Long> offsets = writeCapture(path, 3);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(offsets.get(3) - 1);
+    }
+    try (SofhCaptureReader reader = new SofhCaptureReader(path, 4096)) {
+      assertEquals(2, reader.replay((buffer, offset, length) -> {}));
+      assertEquals(offsets.get(2).longValue(), reader.position());
+    }
+    assertTrue(Files.size(path) > offsets.get(2));
+  }
+}
@@ -0,0 +1,75 @@
+package io.fixprotocol.sbe.capture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import io.fixprotocol.sbe.capture.SofhJournal.ForcePolicy;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+
+class SofhJournalTest {
+
+  private static final int SEGMENT_SIZE = 4096;
+
+  @TempDir
+  Path tempDir;
+
+  private final byte[] frame = new byte[128];
+  private int frameLength;
+
+  @Test
+  void testRollover() throws IOException {
+    appendOrders(ForcePolicy.SEGMENT, 200);
+    assertTrue(SofhJournal.segmentIndexes(tempDir).size() > 1);
+    final int[] lengths = new int[1];
+    assertEquals(200, SofhJournal.replay(tempDir, (buffer, offset, length) -> {
+      assertEquals(frameLength, length);
+      lengths[0] += length;
+    }));
+    assertEquals(200 * frameLength, lengths[0]);
+  }
+
+  @Test
+  void testReopenAppends() throws IOException {
+    appendOrders(ForcePolicy.NONE, 30);
+    appendOrders(ForcePolicy.BATCH, 30);
+    assertEquals(60, SofhJournal.replay(tempDir, (buffer, offset, length) -> {}));
+  }
+
+  @Test
+  void testRecoverTornFrame() throws IOException {
+    appendOrders(ForcePolicy.NONE, 10);
+    long last = SofhJournal.segmentIndexes(tempDir).get(0);
+    Path segment = SofhJournal.segmentPath(tempDir, last);
+    int recordLength = frameLength + SofhJournal.TRAILER_LENGTH;
+    try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+      // roll back the checkpoint and damage the last frame as if the process had crashed
+      file.seek(SofhJournal.CHECKPOINT_OFFSET);
+      file.write(new byte[] {(byte) SofhJournal.SEGMENT_HEADER_LENGTH, 0, 0, 0});
+      file.seek(SofhJournal.SEGMENT_HEADER_LENGTH + 9L * recordLength + 20);
+      file.write(0x7F);
+    }
+    try (SofhJournal journal = SofhJournal.open(tempDir, SEGMENT_SIZE, ForcePolicy.NONE)) {
+      assertEquals(SofhJournal.SEGMENT_HEADER_LENGTH + 9 * recordLength,
+          journal.segmentPosition());
+    }
+    assertEquals(9, SofhJournal.replay(tempDir, (buffer, offset, length) -> {}));
+  }
+
+  private void appendOrders(ForcePolicy policy, int count) throws IOException {
+    frameLength = new ExampleDumper().encodeOrderMsg(frame);
+    UnsafeBuffer src = new UnsafeBuffer(frame);
+    try (SofhJournal journal = SofhJournal.open(tempDir, SEGMENT_SIZE, policy)) {
+      for (int i = 0; i < count; i++) {
+        journal.append(src, 0, frameLength);
+        if (i % 8 == 7) {
+          journal.flush();
+        }
+      }
+      assertEquals(count, journal.frames());
+    }
+  }
+}
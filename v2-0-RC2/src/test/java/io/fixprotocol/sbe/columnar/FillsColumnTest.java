@@ -0,0 +1,120 @@
+package io.fixprotocol.sbe.columnar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.fixprotocol.sbe.capture.SofhCaptureReader;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.messages.DecimalEncodingDecoder;
+
+class FillsColumnTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testExportCapture() throws IOException {
+    Path capture = tempDir.resolve("capture.bin");
+    ExampleDumper dumper = new ExampleDumper();
+    byte[] frame = new byte[128];
+    try (FileChannel channel =
+        FileChannel.open(capture, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      for (int i = 0; i < 100; i++) {
+        channel.write(ByteBuffer.wrap(frame, 0, dumper.encodeOrderMsg(frame)));
+        channel.write(ByteBuffer.wrap(frame, 0, dumper.encodeExecutionReport(frame)));
+        channel.write(ByteBuffer.wrap(frame, 0, dumper.encodeBusinessMessageReject(frame)));
+      }
+    }
+
+    Path columns = tempDir.resolve("fills.col");
+    try (FillsColumnWriter writer = new FillsColumnWriter(columns, 64)) {
+      try (SofhCaptureReader reader = new SofhCaptureReader(capture)) {
+        assertEquals(300, reader.replay(writer));
+      }
+      assertEquals(200, writer.rowCount());
+    }
+
+    try (FillsColumnReader reader = new FillsColumnReader(columns)) {
+      assertEquals(200, reader.rowCount());
+      assertEquals(4, reader.rowGroupCount());
+      assertEquals(64, reader.rowGroupSize());
+      assertEquals(8, reader.rowGroupRows(3));
+      assertEquals(-3, reader.priceExponent());
+      for (int g = 0; g < reader.rowGroupCount(); g++) {
+        assertEquals(99610, reader.minPrice(g));
+        assertEquals(99620, reader.maxPrice(g));
+        assertEquals(reader.rowGroupRows(g), reader.pricedRows(g));
+      }
+      assertEquals("O0000001", FillsColumnReader.asString(reader.orderId(199)));
+      assertEquals("GEM4", FillsColumnReader.asString(reader.symbol(199)));
+      assertEquals(LocalDate.of(2013, 10, 11).toEpochDay(), reader.tradeDate(199));
+      assertEquals(99610, reader.fillPx(198));
+      assertEquals(2, reader.fillQty(198));
+      assertEquals(99620, reader.fillPx(199));
+      assertEquals(4, reader.fillQty(199));
+      assertTrue(reader.hasFillPx(199));
+      assertEquals(600, reader.sumFillQty());
+      assertEquals(400, reader.sumFillQty(99615, 99625));
+      assertEquals(0, reader.sumFillQty(100000, 200000));
+      assertThrows(IndexOutOfBoundsException.class, () -> reader.fillQty(200));
+    }
+  }
+
+  @Test
+  void testExportEmptyCapture() throws IOException {
+    Path capture = tempDir.resolve("capture.bin");
+    Files.createFile(capture);
+    Path columns = tempDir.resolve("fills.col");
+    assertEquals(0, FillsColumnWriter.export(capture, columns));
+    try (FillsColumnReader reader = new FillsColumnReader(columns)) {
+      assertEquals(0, reader.rowCount());
+      assertEquals(0, reader.rowGroupCount());
+      assertEquals(0, reader.sumFillQty());
+    }
+  }
+
+  @Test
+  void testNullPrice() throws IOException {
+    Path columns = tempDir.resolve("fills.col");
+    final long nullPrice = DecimalEncodingDecoder.mantissaNullValue();
+    try (FillsColumnWriter writer = new FillsColumnWriter(columns, 64)) {
+      for (int i = 0; i < 130; i++) {
+        writer.addRow(i, 0, 0, i % 2 == 0 ? nullPrice : 1000 + i, 1);
+      }
+    }
+    try (FillsColumnReader reader = new FillsColumnReader(columns)) {
+      assertEquals(3, reader.rowGroupCount());
+      assertFalse(reader.hasFillPx(64));
+      assertEquals(nullPrice, reader.fillPx(64));
+      assertTrue(reader.hasFillPx(65));
+      assertEquals(1065, reader.fillPx(65));
+      assertEquals(32, reader.pricedRows(1));
+      assertEquals(1065, reader.minPrice(1));
+      assertEquals(1127, reader.maxPrice(1));
+      assertEquals(1, reader.pricedRows(2));
+      assertEquals(1129, reader.minPrice(2));
+      assertEquals(130, reader.sumFillQty());
+      assertEquals(65, reader.sumFillQty(Long.MIN_VALUE, Long.MAX_VALUE));
+      assertEquals(2, reader.sumFillQty(1064, 1067));
+    }
+  }
+
+  @Test
+  void testNotColumnar() throws IOException {
+    Path path = tempDir.resolve("other.bin");
+    Files.write(path, new byte[128]);
+    assertThrows(IOException.class, () -> new FillsColumnReader(path));
+    assertThrows(IllegalArgumentException.class,
+        () -> new FillsColumnWriter(tempDir.resolve("fills.col"), 100));
+  }
+}
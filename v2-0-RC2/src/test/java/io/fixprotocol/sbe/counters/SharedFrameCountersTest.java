@@ -0,0 +1,200 @@
+package io.fixprotocol.sbe.counters;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.SofhFrameDeframer;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.SofhFrameWriter;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+import io.fixprotocol.sbe.interpret.MessageInterpreter;
+import io.fixprotocol.sbe.interpret.SofhFrameValidator;
+
+class SharedFrameCountersTest {
+
+  @TempDir
+  Path tempDir;
+
+  private SharedFrameCounters counters;
+  private CountersFile file;
+  private Path path;
+  private final int[] frameLengths = new int[30];
+  private final int[] frameOffsets = new int[30];
+  private UnsafeBuffer stream;
+  private int streamLength;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    path = tempDir.resolve("counters.dat");
+    file = CountersFile.create(path, 64);
+    counters = new SharedFrameCounters(file.manager(), 97, 98, 99);
+
+    ExampleDumper dumper = new ExampleDumper();
+    stream = new UnsafeBuffer(new byte[128 * 30]);
+    byte[] frame = new byte[128];
+    int length = 0;
+    for (int i = 0; i < 30; i++) {
+      int size;
+      switch (i % 3) {
+        case 0:
+          size = dumper.encodeOrderMsg(frame);
+          break;
+        case 1:
+          size = dumper.encodeExecutionReport(frame);
+          break;
+        default:
+          size = dumper.encodeBusinessMessageReject(frame);
+      }
+      stream.putBytes(length, frame, 0, size);
+      frameOffsets[i] = length;
+      frameLengths[i] = size;
+      length += size;
+    }
+    streamLength = length;
+  }
+
+  @AfterEach
+  void tearDown() {
+    counters.close();
+    file.close();
+  }
+
+  @Test
+  void testFramesIn() throws IOException {
+    SofhFrameDeframer deframer =
+        new SofhFrameDeframer(256, (buffer, offset, length) -> {}, counters);
+    for (int offset = 0; offset < streamLength; offset += 50) {
+      deframer.onBytes(stream, offset, Math.min(50, streamLength - offset));
+    }
+    Map<String, Long> values = readValues();
+    assertEquals(10L, values.get("Frames in: template 97"));
+    assertEquals(10L, values.get("Frames in: template 98"));
+    assertEquals(10L, values.get("Frames in: template 99"));
+    assertEquals(0L, values.get("Frames in: other templates"));
+    assertEquals((long) streamLength, values.get("Bytes in"));
+    assertTrue(deframer.compactions() > 0);
+    assertEquals(deframer.compactions(), values.get("Buffer compactions"));
+  }
+
+  @Test
+  void testFramesOut() throws IOException {
+    MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+    NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+    try (FileChannel channel = FileChannel.open(tempDir.resolve("frames.dat"),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      SofhFrameWriter writer = new SofhFrameWriter(channel, 1024, 4, 4000, Long.MAX_VALUE,
+          SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN, System::nanoTime, counters);
+      for (int i = 0; i < 5; i++) {
+        int offset =
+            writer.claim(MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH);
+        MutableDirectBuffer buffer = writer.buffer();
+        nosEncoder.wrapAndApplyHeader(buffer, offset, mhEncoder).side(SideEnum.Buy).orderQty()
+            .mantissa(i);
+        writer.commit(MessageHeaderEncoder.ENCODED_LENGTH + nosEncoder.encodedLength());
+      }
+      writer.close();
+      Map<String, Long> values = readValues();
+      assertEquals(5L, values.get("Frames out: template 99"));
+      assertEquals(writer.bytesWritten(), values.get("Bytes out"));
+    }
+  }
+
+  @Test
+  void testFramesInAndOutConcurrently() throws Exception {
+    // frames out are big-endian copies at offsets beyond the end of the frames in
+    final int pad = stream.capacity();
+    UnsafeBuffer outStream = new UnsafeBuffer(new byte[pad + streamLength]);
+    outStream.putBytes(pad, stream, 0, streamLength);
+    for (int i = 0; i < frameOffsets.length; i++) {
+      int offset = pad + frameOffsets[i];
+      outStream.putShort(offset + 4, SofhFrameEncoder.SBE_1_0_BIG_ENDIAN, ByteOrder.BIG_ENDIAN);
+      outStream.putShort(offset + 8, stream.getShort(frameOffsets[i] + 8, ByteOrder.LITTLE_ENDIAN),
+          ByteOrder.BIG_ENDIAN);
+    }
+    final int rounds = 20000;
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread outThread = new Thread(() -> {
+      try {
+        start.await();
+        for (int round = 0; round < rounds; round++) {
+          for (int i = 0; i < frameOffsets.length; i++) {
+            counters.onFrameOut(outStream, pad + frameOffsets[i], frameLengths[i]);
+          }
+        }
+      } catch (Throwable e) {
+        failure.set(e);
+      }
+    });
+    outThread.start();
+    start.countDown();
+    for (int round = 0; round < rounds; round++) {
+      for (int i = 0; i < frameOffsets.length; i++) {
+        counters.onFrameIn(stream, frameOffsets[i], frameLengths[i]);
+      }
+    }
+    outThread.join();
+    assertNull(failure.get());
+    Map<String, Long> values = readValues();
+    for (int templateId = 97; templateId <= 99; templateId++) {
+      assertEquals(rounds * 10L, values.get("Frames in: template " + templateId));
+      assertEquals(rounds * 10L, values.get("Frames out: template " + templateId));
+    }
+    assertEquals(0L, values.get("Frames in: other templates"));
+    assertEquals(0L, values.get("Frames out: other templates"));
+    assertEquals((long) rounds * streamLength, values.get("Bytes out"));
+  }
+
+  @Test
+  void testRejects() throws IOException {
+    SofhFrameValidator validator = SofhFrameValidator.fromResource(
+        MessageInterpreter.EXAMPLES_SCHEMA, 1024, (buffer, offset, length) -> {}, counters);
+    // corrupt the encoding of the first frame
+    stream.putByte(4, (byte) 0);
+    validator.scan(stream, 0, streamLength);
+    Map<String, Long> values = readValues();
+    assertEquals(1L, values.get("Rejects: BAD_ENCODING"));
+    assertEquals(0L, values.get("Rejects: UNKNOWN_TEMPLATE"));
+    assertEquals(9L, values.get("Frames in: template 99"));
+    assertNull(values.get("Rejects: VALID"));
+  }
+
+  @Test
+  void testPrint() throws IOException {
+    counters.onCompaction();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (CountersFile readOnly = CountersFile.open(path)) {
+      assertThrows(IllegalStateException.class, readOnly::manager);
+      CountersPrinter.print(readOnly.reader(), new PrintStream(bytes, true, "US-ASCII"));
+    }
+    String output = bytes.toString("US-ASCII");
+    assertTrue(output.contains("Frames in: template 99"));
+    assertTrue(output.contains("1 - Buffer compactions"));
+  }
+
+  private Map<String, Long> readValues() throws IOException {
+    Map<String, Long> values = new HashMap<>();
+    try (CountersFile readOnly = CountersFile.open(path)) {
+      readOnly.reader().forEach((value, id, label) -> values.put(label, value));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,164 @@
+package io.fixprotocol.sbe.examples;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sbe.interpret.MessageInterpreter;
+import io.fixprotocol.sbe.interpret.SofhFrameValidator;
+
+class SofhFrameDeframerTest {
+
+  /**
+   * Delivers a byte array in reads of a fixed size
+   */
+  static class ChunkedChannel implements ReadableByteChannel {
+    private final byte[] bytes;
+    private final int chunkSize;
+    private int position = 0;
+
+    ChunkedChannel(byte[] bytes, int chunkSize) {
+      this.bytes = bytes;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+      if (position == bytes.length) {
+        return -1;
+      }
+      int length = Math.min(Math.min(chunkSize, dst.remaining()), bytes.length - position);
+      dst.put(bytes, position, length);
+      position += length;
+      return length;
+    }
+  }
+
+  private byte[] stream;
+  private final List<Integer> frameLengths = new ArrayList<>();
+  private int streamFrames;
+
+  @BeforeEach
+  void setUp() throws UnsupportedEncodingException {
+    ExampleDumper dumper = new ExampleDumper();
+    byte[] frame = new byte[128];
+    byte[] all = new byte[128 * 30];
+    int length = 0;
+    streamFrames = 0;
+    for (int i = 0; i < 10; i++) {
+      int size = dumper.encodeOrderMsg(frame);
+      System.arraycopy(frame, 0, all, length, size);
+      length += size;
+      size = dumper.encodeExecutionReport(frame);
+      System.arraycopy(frame, 0, all, length, size);
+      length += size;
+      size = dumper.encodeBusinessMessageReject(frame);
+      System.arraycopy(frame, 0, all, length, size);
+      length += size;
+      streamFrames += 3;
+    }
+    stream = new byte[length];
+    System.arraycopy(all, 0, stream, 0, length);
+  }
+
+  @Test
+  void testByteAtATime() throws IOException {
+    assertEquals(streamFrames, drain(new ChunkedChannel(stream, 1), 256));
+    assertFrameLengths();
+  }
+
+  @Test
+  void testManyFramesPerRead() throws IOException {
+    SofhFrameDeframer deframer = new SofhFrameDeframer(stream.length, this::onFrame);
+    assertEquals(streamFrames, deframer.read(new ChunkedChannel(stream, stream.length)));
+    assertEquals(0, deframer.bytesPending());
+    assertEquals(0, deframer.compactions());
+    assertFrameLengths();
+  }
+
+  @Test
+  void testSplitFrames() throws IOException {
+    assertEquals(streamFrames, drain(new ChunkedChannel(stream, 77), 200));
+    assertFrameLengths();
+  }
+
+  @Test
+  void testOnBytes() throws IOException {
+    SofhFrameDeframer deframer = new SofhFrameDeframer(150, this::onFrame);
+    UnsafeBuffer src = new UnsafeBuffer(stream);
+    int frames = 0;
+    for (int offset = 0; offset < stream.length; offset += 100) {
+      frames += deframer.onBytes(src, offset, Math.min(100, stream.length - offset));
+    }
+    assertEquals(streamFrames, frames);
+    assertFrameLengths();
+  }
+
+  @Test
+  void testInvalidLength() {
+    byte[] bad = new byte[] {0, 0, 0, 2, (byte) 0xEB, 0x50};
+    SofhFrameDeframer deframer = new SofhFrameDeframer(64, this::onFrame);
+    assertThrows(IOException.class, () -> deframer.read(new ChunkedChannel(bad, bad.length)));
+  }
+
+  @Test
+  void testValidatedCorruptStream() throws IOException {
+    SofhFrameValidator validator =
+        SofhFrameValidator.fromResource(MessageInterpreter.EXAMPLES_SCHEMA, 200, this::onFrame);
+    // corrupt the message length of the second frame
+    byte[] corrupt = stream.clone();
+    int second = (int) new SofhFrameDecoder().wrap(new UnsafeBuffer(corrupt), 0).messageLength();
+    corrupt[second] = 0x7F;
+    SofhFrameDeframer deframer = new SofhFrameDeframer(256, validator);
+    ReadableByteChannel channel = new ChunkedChannel(corrupt, 77);
+    int frames = 0;
+    int n;
+    while ((n = deframer.read(channel)) >= 0) {
+      frames += n;
+    }
+    assertEquals(streamFrames - 1, frames);
+    assertEquals(1, validator.rejects(SofhFrameValidator.Validity.LENGTH_TOO_LONG));
+    assertEquals(0, deframer.bytesPending());
+  }
+
+  private void assertFrameLengths() {
+    assertEquals(streamFrames, frameLengths.size());
+    int total = 0;
+    for (int length : frameLengths) {
+      total += length;
+    }
+    assertEquals(stream.length, total);
+  }
+
+  private int drain(ReadableByteChannel channel, int capacity) throws IOException {
+    SofhFrameDeframer deframer = new SofhFrameDeframer(capacity, this::onFrame);
+    int frames = 0;
+    int n;
+    while ((n = deframer.read(channel)) >= 0) {
+      frames += n;
+    }
+    assertEquals(0, deframer.bytesPending());
+    return frames;
+  }
+
+  private void onFrame(DirectBuffer buffer, int offset, int length) {
+    SofhFrameDecoder decoder = new SofhFrameDecoder().wrap(buffer, offset);
+    assertEquals(SofhFrameDecoder.SBE_1_0_LITTLE_ENDIAN, decoder.encoding());
+    frameLengths.add(length);
+  }
+}
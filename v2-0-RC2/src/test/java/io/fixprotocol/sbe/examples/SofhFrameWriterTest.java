@@ -0,0 +1,138 @@
+package io.fixprotocol.sbe.examples;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+
+class SofhFrameWriterTest {
+
+  /**
+   * Collects written bytes in memory
+   */
+  static class CapturingChannel implements GatheringByteChannel {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int writes = 0;
+
+    @Override
+    public void close() {}
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+      int length = src.remaining();
+      while (src.hasRemaining()) {
+        out.write(src.get());
+      }
+      return length;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) {
+      return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+      writes++;
+      long total = 0;
+      for (int i = offset; i < offset + length; i++) {
+        total += write(srcs[i]);
+      }
+      return total;
+    }
+  }
+
+  private CapturingChannel channel;
+  private final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+  private final NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+  private long now = 0;
+
+  @BeforeEach
+  void setUp() {
+    channel = new CapturingChannel();
+  }
+
+  @Test
+  void testSizeThreshold() throws IOException {
+    SofhFrameWriter writer = new SofhFrameWriter(channel, 1024, 4, 4000, Long.MAX_VALUE,
+        SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN, () -> now);
+    for (int i = 0; i < 1000; i++) {
+      writeOrder(writer, i);
+    }
+    writer.close();
+    assertEquals(1000, writer.frames());
+    assertTrue(channel.writes < 30);
+    assertEquals(channel.writes, writer.writes());
+    assertFrames(channel.out.toByteArray(), 1000);
+  }
+
+  @Test
+  void testTimeThreshold() throws IOException {
+    SofhFrameWriter writer = new SofhFrameWriter(channel, 1024, 4, Integer.MAX_VALUE, 1000L,
+        SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN, () -> now);
+    writeOrder(writer, 1);
+    writeOrder(writer, 2);
+    assertEquals(0, writer.flushIfDue());
+    assertEquals(0, channel.writes);
+    now += 1000;
+    assertTrue(writer.flushIfDue() > 0);
+    assertEquals(1, channel.writes);
+    assertFrames(channel.out.toByteArray(), 2);
+  }
+
+  @Test
+  void testAbort() throws IOException {
+    SofhFrameWriter writer = new SofhFrameWriter(channel, 1024, 1, 1024, Long.MAX_VALUE);
+    writer.claim(128);
+    writer.abort();
+    writeOrder(writer, 1);
+    assertThrows(IllegalStateException.class, () -> writer.commit(10));
+    writer.flush();
+    assertFrames(channel.out.toByteArray(), 1);
+  }
+
+  @Test
+  void testCommitExceedsClaim() throws IOException {
+    SofhFrameWriter writer = new SofhFrameWriter(channel, 1024, 1, 1024, Long.MAX_VALUE);
+    writer.claim(64);
+    assertThrows(IllegalArgumentException.class, () -> writer.commit(65));
+    assertThrows(IllegalArgumentException.class, () -> writer.commit(-1));
+    writer.abort();
+    writeOrder(writer, 1);
+    writer.flush();
+    assertFrames(channel.out.toByteArray(), 1);
+  }
+
+  private void assertFrames(byte[] bytes, int expected) throws IOException {
+    final int[] count = new int[1];
+    SofhFrameDeframer deframer = new SofhFrameDeframer(1024, (buffer, offset, length) -> {
+      assertEquals(6 + MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH,
+          length);
+      count[0]++;
+    });
+    deframer.onBytes(new UnsafeBuffer(bytes), 0, bytes.length);
+    assertEquals(expected, count[0]);
+    assertEquals(0, deframer.bytesPending());
+  }
+
+  private void writeOrder(SofhFrameWriter writer, int orderQty) throws IOException {
+    int offset = writer.claim(MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH);
+    MutableDirectBuffer buffer = writer.buffer();
+    nosEncoder.wrapAndApplyHeader(buffer, offset, mhEncoder).side(SideEnum.Buy).orderQty()
+        .mantissa(orderQty);
+    writer.commit(MessageHeaderEncoder.ENCODED_LENGTH + nosEncoder.encodedLength());
+  }
+}
@@ -0,0 +1,203 @@
+package io.fixprotocol.sbe.interpret;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.messages.bigendian.BusinessMessageRejectDecoder;
+import io.fixprotocol.sbe.examples.messages.bigendian.ExecTypeEnum;
+import io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.bigendian.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.bigendian.NewOrderSingleDecoder;
+
+class EndianTranscoderTest {
+
+  private static final int MESSAGE_OFFSET = 6 + MessageHeaderDecoder.ENCODED_LENGTH;
+
+  @TempDir
+  Path tempDir;
+
+  private final ExampleDumper dumper = new ExampleDumper();
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+  private EndianTranscoder toBigEndian;
+  private EndianTranscoder toLittleEndian;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    toBigEndian =
+        EndianTranscoder.fromResource(MessageInterpreter.EXAMPLES_SCHEMA, ByteOrder.BIG_ENDIAN);
+    toLittleEndian =
+        EndianTranscoder.fromResource(MessageInterpreter.EXAMPLES_SCHEMA, ByteOrder.LITTLE_ENDIAN);
+  }
+
+  @Test
+  void testExecutionReport() throws IOException {
+    UnsafeBuffer buffer = new UnsafeBuffer(new byte[128]);
+    int size = dumper.encodeExecutionReport(buffer.byteArray());
+    assertEquals(size, toBigEndian.transcodeFrame(buffer, 0, size));
+
+    assertEquals(SofhFrameDecoder.SBE_1_0_BIG_ENDIAN, sofhDecoder.wrap(buffer, 0).encoding());
+    assertEquals(size, sofhDecoder.messageLength());
+    mhDecoder.wrap(buffer, 6);
+    assertEquals(ExecutionReportDecoder.TEMPLATE_ID, mhDecoder.templateId());
+    assertEquals(1, mhDecoder.numGroups());
+    ExecutionReportDecoder erDecoder = new ExecutionReportDecoder().wrap(buffer, MESSAGE_OFFSET,
+        mhDecoder.blockLength(), mhDecoder.version());
+    assertEquals("O0000001", erDecoder.orderID());
+    assertEquals(ExecTypeEnum.Trade, erDecoder.execType());
+    assertEquals(2014, erDecoder.maturityMonthYear().year());
+    assertEquals(1, erDecoder.leavesQty().mantissa());
+    assertEquals(6, erDecoder.cumQty().mantissa());
+    assertEquals(15989, erDecoder.tradeDate());
+    ExecutionReportDecoder.FillsGrpDecoder fills = erDecoder.fillsGrp();
+    assertEquals(2, fills.count());
+    assertEquals(99610, fills.next().fillPx().mantissa());
+    assertEquals(2, fills.fillQty().mantissa());
+    assertEquals(99620, fills.next().fillPx().mantissa());
+    assertEquals(4, fills.fillQty().mantissa());
+    assertEquals(size, MESSAGE_OFFSET + erDecoder.encodedLength());
+  }
+
+  @Test
+  void testBusinessMessageReject() throws IOException {
+    UnsafeBuffer buffer = new UnsafeBuffer(new byte[128]);
+    int size = dumper.encodeBusinessMessageReject(buffer.byteArray());
+    assertEquals(size, toBigEndian.transcodeFrame(buffer, 0, size));
+    BusinessMessageRejectDecoder bmrDecoder = new BusinessMessageRejectDecoder().wrap(buffer,
+        MESSAGE_OFFSET, BusinessMessageRejectDecoder.BLOCK_LENGTH, 0);
+    byte[] text = new byte[bmrDecoder.textLength()];
+    bmrDecoder.getText(text, 0, text.length);
+    assertEquals("Not authorized to trade that instrument",
+        new String(text, StandardCharsets.ISO_8859_1));
+  }
+
+  @Test
+  void testRoundTrip() throws IOException {
+    byte[] original = new byte[128];
+    for (int message = 0; message < 3; message++) {
+      Arrays.fill(original, (byte) 0);
+      int size = encode(message, original);
+      UnsafeBuffer buffer = new UnsafeBuffer(original.clone());
+      assertEquals(size, toBigEndian.transcodeFrame(buffer, 0, size));
+      assertFalse(Arrays.equals(original, buffer.byteArray()));
+      assertEquals(size, toLittleEndian.transcodeFrame(buffer, 0, size));
+      assertArrayEquals(original, buffer.byteArray());
+    }
+    assertEquals(3, toBigEndian.framesTranscoded());
+    assertEquals(3, toLittleEndian.framesTranscoded());
+  }
+
+  @Test
+  void testNewOrderSingleTransactTime() throws IOException {
+    UnsafeBuffer buffer = new UnsafeBuffer(new byte[128]);
+    int size = dumper.encodeOrderMsg(buffer.byteArray());
+    long time = buffer.getLong(MESSAGE_OFFSET + 25, ByteOrder.LITTLE_ENDIAN);
+    toBigEndian.transcodeFrame(buffer, 0, size);
+    NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder().wrap(buffer, MESSAGE_OFFSET,
+        NewOrderSingleDecoder.BLOCK_LENGTH, 0);
+    assertEquals(time, nosDecoder.transactTime().time());
+    assertEquals(99610, nosDecoder.price().mantissa());
+    assertEquals(7, nosDecoder.orderQty().mantissa());
+  }
+
+  @Test
+  void testAlreadyInTargetOrder() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeOrderMsg(bytes);
+    byte[] expected = bytes.clone();
+    assertEquals(size, toLittleEndian.transcodeFrame(new UnsafeBuffer(bytes), 0, size));
+    assertArrayEquals(expected, bytes);
+    assertEquals(1, toLittleEndian.framesUnchanged());
+  }
+
+  @Test
+  void testRejectedFramesUnchanged() throws IOException {
+    byte[] bytes = new byte[128];
+    UnsafeBuffer buffer = new UnsafeBuffer(bytes);
+    int size = dumper.encodeExecutionReport(bytes);
+    // more fills than the frame holds
+    buffer.putShort(MESSAGE_OFFSET + ExecutionReportDecoder.BLOCK_LENGTH + 2, (short) 3,
+        ByteOrder.LITTLE_ENDIAN);
+    byte[] expected = bytes.clone();
+    assertEquals(EndianTranscoder.REJECTED, toBigEndian.transcodeFrame(buffer, 0, size));
+    assertArrayEquals(expected, bytes);
+
+    size = dumper.encodeOrderMsg(bytes);
+    buffer.putShort(8, (short) 42, ByteOrder.LITTLE_ENDIAN);
+    expected = bytes.clone();
+    assertEquals(EndianTranscoder.REJECTED, toBigEndian.transcodeFrame(buffer, 0, size));
+    assertArrayEquals(expected, bytes);
+
+    buffer.putShort(4, (short) 0x1234, ByteOrder.BIG_ENDIAN);
+    assertEquals(EndianTranscoder.REJECTED, toBigEndian.transcodeFrame(buffer, 0, size));
+    assertEquals(3, toBigEndian.framesRejected());
+  }
+
+  @Test
+  void testCapture() throws IOException {
+    final int count = 3000;
+    byte[] frame = new byte[128];
+    byte[] capture = new byte[count * 128];
+    int position = 0;
+    for (int i = 0; i < count; i++) {
+      int size = encode(i % 3, frame);
+      System.arraycopy(frame, 0, capture, position, size);
+      position += size;
+    }
+    byte[] original = Arrays.copyOf(capture, position);
+    Path path = tempDir.resolve("capture.bin");
+    Files.write(path, original);
+
+    assertEquals(original.length, toBigEndian.transcodeCapture(path));
+    assertEquals(count, toBigEndian.framesTranscoded());
+    UnsafeBuffer transcoded = new UnsafeBuffer(Files.readAllBytes(path));
+    assertEquals(SofhFrameDecoder.SBE_1_0_BIG_ENDIAN, sofhDecoder.wrap(transcoded, 0).encoding());
+    assertEquals(NewOrderSingleDecoder.TEMPLATE_ID, mhDecoder.wrap(transcoded, 6).templateId());
+
+    assertEquals(original.length, toLittleEndian.transcodeCapture(path));
+    assertArrayEquals(original, Files.readAllBytes(path));
+  }
+
+  @Test
+  void testNoAllocation() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeExecutionReport(bytes);
+    UnsafeBuffer buffer = new UnsafeBuffer(bytes);
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    for (int i = 0; i < 20_000; i++) {
+      toBigEndian.transcodeFrame(buffer, 0, size);
+      toLittleEndian.transcodeFrame(buffer, 0, size);
+    }
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 10_000; i++) {
+      toBigEndian.transcodeFrame(buffer, 0, size);
+      toLittleEndian.transcodeFrame(buffer, 0, size);
+    }
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+    assertTrue(allocated < 1024, "Allocated " + allocated + " bytes");
+  }
+
+  private int encode(int message, byte[] bytes) throws IOException {
+    switch (message) {
+      case 0:
+        return dumper.encodeOrderMsg(bytes);
+      case 1:
+        return dumper.encodeExecutionReport(bytes);
+      default:
+        return dumper.encodeBusinessMessageReject(bytes);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package io.fixprotocol.sbe.interpret;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.messages.bigendian.ExecTypeEnum;
+import io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportEncoder;
+import io.fixprotocol.sbe.examples.messages.bigendian.MessageHeaderEncoder;
+
+class MessageInterpreterTest {
+
+  private static class RowCollector implements InterpretationHandler {
+    final List<String> rows = new ArrayList<>();
+
+    @Override
+    public void onRow(DirectBuffer buffer, int wireOffset, int fieldId, String name, int offset,
+        int length, DirectBuffer value, int valueLength) {
+      rows.add(name + "|" + offset + "|" + length + "|"
+          + value.getStringWithoutLengthAscii(0, valueLength));
+    }
+  }
+
+  private final ExampleDumper dumper = new ExampleDumper();
+  private MessageInterpreter interpreter;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    interpreter = MessageInterpreter.fromResource(MessageInterpreter.EXAMPLES_SCHEMA);
+  }
+
+  @Test
+  void testExecutionReport() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeExecutionReport(bytes);
+    RowCollector collector = new RowCollector();
+    assertEquals(size, interpreter.interpretFrame(new UnsafeBuffer(bytes), 0, collector));
+    List<String> rows = collector.rows;
+    assertTrue(rows.contains("OrderID|0|8|O0000001"));
+    assertTrue(rows.contains("ExecType|16|1|Trade"));
+    assertTrue(rows.contains("OrdStatus|17|1|PartialFilled"));
+    assertTrue(rows.contains("MaturityMonthYear|26|5|year=2014 month=6"));
+    assertTrue(rows.contains("TradeDate|40|2|2013-10-11"));
+    assertTrue(rows.contains("NumInGroup|2|2|2"));
+    assertTrue(rows.contains("FillPx|0|8|99.610"));
+    assertTrue(rows.contains("FillPx|0|8|99.620"));
+    assertTrue(rows.contains("FillQty|8|4|4"));
+  }
+
+  @Test
+  void testBigEndianFrame() {
+    UnsafeBuffer buffer = new UnsafeBuffer(new byte[128]);
+    ExecutionReportEncoder erEncoder =
+        new ExecutionReportEncoder().wrapAndApplyHeader(buffer, 6, new MessageHeaderEncoder());
+    erEncoder.orderID("O0000001").execType(ExecTypeEnum.Trade).tradeDate(15989)
+        .fillsGrpCount(1).next().fillQty().mantissa(4);
+    int size = 6 + MessageHeaderEncoder.ENCODED_LENGTH + erEncoder.encodedLength();
+    new SofhFrameEncoder().wrap(buffer, 0).encoding(SofhFrameEncoder.SBE_1_0_BIG_ENDIAN)
+        .messageLength(size);
+    RowCollector collector = new RowCollector();
+    assertEquals(size, interpreter.interpretFrame(buffer, 0, collector));
+    List<String> rows = collector.rows;
+    assertTrue(rows.contains("SOFH encoding|4|2|SBE big-endian"));
+    assertTrue(rows.contains("OrderID|0|8|O0000001"));
+    assertTrue(rows.contains("ExecType|16|1|Trade"));
+    assertTrue(rows.contains("TradeDate|40|2|2013-10-11"));
+    assertTrue(rows.contains("NumInGroup|2|2|1"));
+    assertTrue(rows.contains("FillQty|8|4|4"));
+  }
+
+  @Test
+  void testBusinessMessageReject() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeBusinessMessageReject(bytes);
+    RowCollector collector = new RowCollector();
+    assertEquals(size, interpreter.interpretFrame(new UnsafeBuffer(bytes), 0, collector));
+    assertTrue(collector.rows.contains("BusinessRejectReason|8|1|NotAuthorized"));
+    assertTrue(collector.rows.contains("Text|0|39|Not authorized to trade that instrument"));
+  }
+
+  @Test
+  void testOlderVersionShorterBlock() throws IOException {
+    byte[] bytes = new byte[128];
+    dumper.encodeOrderMsg(bytes);
+    UnsafeBuffer buffer = new UnsafeBuffer(bytes);
+    // a sender with a shorter root block that ends before Price
+    buffer.putShort(6, (short) 38);
+    RowCollector collector = new RowCollector();
+    assertEquals(12 + 38, interpreter.interpret(buffer, 6, collector));
+    assertTrue(collector.rows.contains("OrdType|37|1|Limit"));
+    assertFalse(collector.rows.stream().anyMatch(row -> row.startsWith("Price")));
+  }
+
+  @Test
+  void testUnknownTemplate() throws IOException {
+    byte[] bytes = new byte[128];
+    dumper.encodeOrderMsg(bytes);
+    UnsafeBuffer buffer = new UnsafeBuffer(bytes);
+    buffer.putShort(8, (short) 42);
+    RowCollector collector = new RowCollector();
+    assertEquals(-1, interpreter.interpretFrame(buffer, 0, collector));
+    assertEquals(8, collector.rows.size());
+  }
+
+  @Test
+  void testNoAllocation() throws IOException {
+    byte[] bytes = new byte[128];
+    dumper.encodeExecutionReport(bytes);
+    UnsafeBuffer buffer = new UnsafeBuffer(bytes);
+    InterpretationHandler handler = new InterpretationHandler() {
+      long total;
+
+      @Override
+      public void onRow(DirectBuffer buffer, int wireOffset, int fieldId, String name,
+          int offset, int length, DirectBuffer value, int valueLength) {
+        total += valueLength;
+      }
+    };
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    for (int i = 0; i < 20_000; i++) {
+      interpreter.interpretFrame(buffer, 0, handler);
+    }
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 10_000; i++) {
+      interpreter.interpretFrame(buffer, 0, handler);
+    }
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+    assertTrue(allocated < 1024, "Allocated " + allocated + " bytes");
+  }
+}
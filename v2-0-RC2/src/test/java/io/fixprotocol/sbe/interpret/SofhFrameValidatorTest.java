@@ -0,0 +1,147 @@
+package io.fixprotocol.sbe.interpret;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.interpret.SofhFrameValidator.Validity;
+
+class SofhFrameValidatorTest {
+
+  private static final int HEADER_OFFSET = 6;
+
+  private final ExampleDumper dumper = new ExampleDumper();
+  private final List<Integer> frameOffsets = new ArrayList<>();
+  private final List<Integer> offsets = new ArrayList<>();
+  private UnsafeBuffer stream;
+  private int streamLength;
+  private SofhFrameValidator validator;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    validator = SofhFrameValidator.fromResource(MessageInterpreter.EXAMPLES_SCHEMA, 1024,
+        this::onFrame);
+    stream = new UnsafeBuffer(new byte[128 * 30]);
+    byte[] frame = new byte[128];
+    int length = 0;
+    for (int i = 0; i < 30; i++) {
+      int size;
+      switch (i % 3) {
+        case 0:
+          size = dumper.encodeOrderMsg(frame);
+          break;
+        case 1:
+          size = dumper.encodeExecutionReport(frame);
+          break;
+        default:
+          size = dumper.encodeBusinessMessageReject(frame);
+      }
+      offsets.add(length);
+      stream.putBytes(length, frame, 0, size);
+      length += size;
+    }
+    streamLength = length;
+  }
+
+  @Test
+  void testValidStream() {
+    assertEquals(streamLength, validator.scan(stream, 0, streamLength));
+    assertEquals(offsets, frameOffsets);
+    assertEquals(30, validator.framesValid());
+    assertEquals(0, validator.resyncs());
+  }
+
+  @Test
+  void testIncompleteFrame() {
+    int end = offsets.get(5) + 10;
+    assertEquals(offsets.get(5), validator.scan(stream, 0, end));
+    assertEquals(5, validator.framesValid());
+    assertEquals(Validity.INCOMPLETE, validator.validate(stream, offsets.get(5), 3));
+    assertEquals(0, validator.resyncs());
+  }
+
+  @Test
+  void testLengthTooLong() {
+    stream.putInt(offsets.get(4), 1_000_000, ByteOrder.BIG_ENDIAN);
+    assertResynced(Validity.LENGTH_TOO_LONG, 4);
+  }
+
+  @Test
+  void testLengthTooShort() {
+    stream.putInt(offsets.get(7), 3, ByteOrder.BIG_ENDIAN);
+    assertResynced(Validity.LENGTH_TOO_SHORT, 7);
+  }
+
+  @Test
+  void testBadEncoding() {
+    stream.putShort(offsets.get(10) + 4, (short) 0x1234, ByteOrder.BIG_ENDIAN);
+    assertResynced(Validity.BAD_ENCODING, 10);
+  }
+
+  @Test
+  void testWrongSchema() {
+    stream.putShort(offsets.get(11) + HEADER_OFFSET + 4, (short) 92, ByteOrder.LITTLE_ENDIAN);
+    assertResynced(Validity.WRONG_SCHEMA, 11);
+  }
+
+  @Test
+  void testUnknownTemplate() {
+    stream.putShort(offsets.get(12) + HEADER_OFFSET + 2, (short) 42, ByteOrder.LITTLE_ENDIAN);
+    assertResynced(Validity.UNKNOWN_TEMPLATE, 12);
+  }
+
+  @Test
+  void testBadBlockLength() {
+    // ExecutionReport block cannot be shorter than its fields
+    stream.putShort(offsets.get(13) + HEADER_OFFSET, (short) 10, ByteOrder.LITTLE_ENDIAN);
+    assertResynced(Validity.BAD_BLOCK_LENGTH, 13);
+    // nor so long that the fills group dimension does not fit
+    stream.putShort(offsets.get(1) + HEADER_OFFSET, (short) 100, ByteOrder.LITTLE_ENDIAN);
+    assertEquals(Validity.BAD_BLOCK_LENGTH,
+        validator.validate(stream, offsets.get(1), streamLength - offsets.get(1)));
+  }
+
+  @Test
+  void testGarbageBetweenFrames() {
+    UnsafeBuffer dirty = new UnsafeBuffer(new byte[streamLength + 100]);
+    int split = offsets.get(15);
+    dirty.putBytes(0, stream, 0, split);
+    for (int i = 0; i < 100; i++) {
+      // includes bytes that resemble an encoding code
+      dirty.putByte(split + i, (byte) (i % 2 == 0 ? 0xEB : 0x50));
+    }
+    dirty.putBytes(split + 100, stream, split, streamLength - split);
+    assertEquals(streamLength + 100, validator.scan(dirty, 0, streamLength + 100));
+    assertEquals(30, validator.framesValid());
+    assertEquals(100, validator.bytesSkipped());
+  }
+
+  @Test
+  void testBigEndianFrame() throws IOException {
+    EndianTranscoder.fromResource(MessageInterpreter.EXAMPLES_SCHEMA, ByteOrder.BIG_ENDIAN)
+        .transcodeFrame(stream, offsets.get(1), offsets.get(2) - offsets.get(1));
+    assertEquals(Validity.VALID,
+        validator.validate(stream, offsets.get(1), streamLength - offsets.get(1)));
+  }
+
+  private void assertResynced(Validity reason, int corrupt) {
+    assertEquals(streamLength, validator.scan(stream, 0, streamLength));
+    assertEquals(1, validator.rejects(reason));
+    assertEquals(1, validator.resyncs());
+    assertEquals(29, validator.framesValid());
+    assertEquals(offsets.get(corrupt + 1) - offsets.get(corrupt), validator.bytesSkipped());
+    List<Integer> expected = new ArrayList<>(offsets);
+    expected.remove(corrupt);
+    assertEquals(expected, frameOffsets);
+  }
+
+  private void onFrame(DirectBuffer buffer, int offset, int length) {
+    frameOffsets.add(offset);
+  }
+}
@@ -0,0 +1,173 @@
+package io.fixprotocol.sbe.interpret;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+
+class SpecializedDecodersTest {
+
+  private static class FieldCollector implements FieldConsumer {
+    final List<String> fields = new ArrayList<>();
+
+    @Override
+    public void onBytes(int fieldId, DirectBuffer buffer, int index, int length) {
+      fields.add(fieldId + "=" + buffer.getStringWithoutLengthAscii(index, length).trim());
+    }
+
+    @Override
+    public void onDecimal(int fieldId, long mantissa, int exponent) {
+      fields.add(fieldId + "=" + mantissa + "E" + exponent);
+    }
+
+    @Override
+    public void onGroupBegin(int groupId, int numInGroup) {
+      fields.add(groupId + "[" + numInGroup);
+    }
+
+    @Override
+    public void onGroupEnd(int groupId) {
+      fields.add(groupId + "]");
+    }
+
+    @Override
+    public void onInteger(int fieldId, long value) {
+      fields.add(fieldId + "=" + value);
+    }
+
+    @Override
+    public void onMember(int fieldId, int member, long value) {
+      fields.add(fieldId + "." + member + "=" + value);
+    }
+
+    @Override
+    public void onTimestamp(int fieldId, long time, int unit) {
+      fields.add(fieldId + "@" + unit);
+    }
+  }
+
+  private final ExampleDumper dumper = new ExampleDumper();
+  private SpecializedDecoders decoders;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    decoders = SpecializedDecoders.fromResource(MessageInterpreter.EXAMPLES_SCHEMA);
+  }
+
+  @Test
+  void testNewOrderSingle() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeOrderMsg(bytes);
+    FieldCollector collector = new FieldCollector();
+    assertEquals(size - 6, decoders.decode(new UnsafeBuffer(bytes), 6, collector));
+    assertEquals("[11=ORD00001, 1=ACCT01, 55=GEM4, 54=49, 60@9, 38=7E0, 40=50, 44=99610E-3, "
+        + "99=" + Long.MIN_VALUE + "E-3]", collector.fields.toString());
+  }
+
+  @Test
+  void testExecutionReport() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeExecutionReport(bytes);
+    FieldCollector collector = new FieldCollector();
+    assertEquals(size - 6, decoders.decode(new UnsafeBuffer(bytes), 6, collector));
+    List<String> fields = collector.fields;
+    assertEquals("37=O0000001", fields.get(0));
+    assertTrue(fields.contains("150=70"));
+    assertTrue(fields.contains("200.0=2014"));
+    assertTrue(fields.contains("200.1=6"));
+    assertTrue(fields.contains("151=1E0"));
+    assertEquals(
+        "[2112[2, 1364=99610E-3, 1365=2E0, 1364=99620E-3, 1365=4E0, 2112]]",
+        fields.subList(fields.indexOf("2112[2"), fields.size()).toString());
+  }
+
+  @Test
+  void testBusinessMessageReject() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeBusinessMessageReject(bytes);
+    FieldCollector collector = new FieldCollector();
+    assertEquals(size - 6, decoders.decode(new UnsafeBuffer(bytes), 6, collector));
+    assertEquals("[379=ORD00001, 380=6, 58=Not authorized to trade that instrument]",
+        collector.fields.toString());
+  }
+
+  @Test
+  void testDecoderPerVersion() {
+    assertEquals(3, decoders.size());
+    SpecializedDecoder decoder = decoders.decoder(91, 99, 0);
+    assertEquals(99, decoder.templateId());
+    assertEquals(0, decoder.version());
+    assertSame(decoder, decoders.decoder(91, 99, 0));
+    assertSame(decoder, decoders.decoder(91, 99, 1));
+    assertNull(decoders.decoder(91, 99, -1));
+    assertNull(decoders.decoder(92, 99, 0));
+  }
+
+  @Test
+  void testNewerVersion() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeOrderMsg(bytes);
+    UnsafeBuffer buffer = new UnsafeBuffer(bytes);
+    // version 1 appends a field of 4 bytes to the block
+    buffer.putShort(6, (short) (buffer.getShort(6) + 4));
+    buffer.putShort(12, (short) 1);
+    FieldCollector collector = new FieldCollector();
+    assertEquals(size - 6 + 4, decoders.decode(buffer, 6, collector));
+    assertEquals("[11=ORD00001, 1=ACCT01, 55=GEM4, 54=49, 60@9, 38=7E0, 40=50, 44=99610E-3, "
+        + "99=" + Long.MIN_VALUE + "E-3]", collector.fields.toString());
+  }
+
+  @Test
+  void testUnknownTemplate() throws IOException {
+    byte[] bytes = new byte[128];
+    dumper.encodeOrderMsg(bytes);
+    UnsafeBuffer buffer = new UnsafeBuffer(bytes);
+    buffer.putShort(8, (short) 42);
+    FieldCollector collector = new FieldCollector();
+    assertEquals(-1, decoders.decode(buffer, 6, collector));
+    assertTrue(collector.fields.isEmpty());
+  }
+
+  @Test
+  void testNoAllocation() throws IOException {
+    byte[] bytes = new byte[128];
+    dumper.encodeExecutionReport(bytes);
+    UnsafeBuffer buffer = new UnsafeBuffer(bytes);
+    FieldConsumer consumer = new FieldConsumer() {
+      long total;
+
+      @Override
+      public void onBytes(int fieldId, DirectBuffer buffer, int index, int length) {
+        total += length;
+      }
+
+      @Override
+      public void onDecimal(int fieldId, long mantissa, int exponent) {
+        total += mantissa;
+      }
+
+      @Override
+      public void onInteger(int fieldId, long value) {
+        total += value;
+      }
+    };
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    for (int i = 0; i < 20_000; i++) {
+      decoders.decode(buffer, 6, consumer);
+    }
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 10_000; i++) {
+      decoders.decode(buffer, 6, consumer);
+    }
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+    assertTrue(allocated < 1024, "Allocated " + allocated + " bytes");
+  }
+}
@@ -0,0 +1,229 @@
+package io.fixprotocol.sbe.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.YieldingIdleStrategy;
+import org.junit.jupiter.api.Test;
+
+import io.fixprotocol.sbe.capture.IdIndex;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.messages.BusinessMessageRejectDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportEncoder;
+import io.fixprotocol.sbe.examples.messages.bigendian.MessageHeaderEncoder;
+
+class DecodePipelineTest {
+
+  private static final int MESSAGE_OFFSET = 6 + MessageHeaderDecoder.ENCODED_LENGTH;
+  private static final int SYMBOLS = 16;
+
+  @Test
+  void testOrderPreservedPerSymbol() throws UnsupportedEncodingException {
+    ExampleDumper dumper = new ExampleDumper();
+    UnsafeBuffer er = new UnsafeBuffer(new byte[128]);
+    int erLength = dumper.encodeExecutionReport(er.byteArray());
+    UnsafeBuffer nos = new UnsafeBuffer(new byte[128]);
+    int nosLength = dumper.encodeOrderMsg(nos.byteArray());
+    UnsafeBuffer bmr = new UnsafeBuffer(new byte[128]);
+    int bmrLength = dumper.encodeBusinessMessageReject(bmr.byteArray());
+
+    // Sequence number of each symbol is carried in LeavesQty of ExecutionReport
+    Map<String, String> threadsBySymbol = new ConcurrentHashMap<>();
+    AtomicReference<String> failure = new AtomicReference<>();
+    AtomicInteger orders = new AtomicInteger();
+    AtomicInteger rejects = new AtomicInteger();
+    final int perSymbol = 5000;
+    try (DecodePipeline pipeline = new DecodePipeline(4, 4096, worker -> new MessageHandler() {
+      final int[] lastSequence = new int[SYMBOLS];
+
+      @Override
+      public void onBusinessMessageReject(BusinessMessageRejectDecoder decoder) {
+        rejects.incrementAndGet();
+      }
+
+      @Override
+      public void onExecutionReport(ExecutionReportDecoder decoder) {
+        String symbol = decoder.symbol();
+        String thread = Thread.currentThread().getName();
+        if (!thread.equals(threadsBySymbol.computeIfAbsent(symbol, s -> thread))) {
+          failure.compareAndSet(null, symbol + " on two threads");
+        }
+        int s = Integer.parseInt(symbol.substring(1));
+        int sequence = decoder.leavesQty().mantissa();
+        if (sequence != lastSequence[s] + 1) {
+          failure.compareAndSet(null, symbol + " out of order at " + sequence);
+        }
+        lastSequence[s] = sequence;
+      }
+
+      @Override
+      public void onNewOrderSingle(NewOrderSingleDecoder decoder) {
+        orders.incrementAndGet();
+      }
+    }, YieldingIdleStrategy::new, e -> failure.compareAndSet(null, e.toString()))) {
+      pipeline.start();
+      for (int sequence = 1; sequence <= perSymbol; sequence++) {
+        for (int s = 0; s < SYMBOLS; s++) {
+          er.putLong(MESSAGE_OFFSET + ExecutionReportDecoder.symbolEncodingOffset(),
+              IdIndex.key(String.format("S%02d", s)), ByteOrder.LITTLE_ENDIAN);
+          er.putInt(MESSAGE_OFFSET + ExecutionReportDecoder.leavesQtyEncodingOffset(), sequence,
+              ByteOrder.LITTLE_ENDIAN);
+          pipeline.onFrame(er, 0, erLength);
+        }
+        if (sequence % 100 == 0) {
+          pipeline.onFrame(nos, 0, nosLength);
+          pipeline.onFrame(bmr, 0, bmrLength);
+        }
+      }
+      assertEquals(perSymbol * SYMBOLS + perSymbol / 50, pipeline.published());
+      pipeline.close();
+      long delivered = 0;
+      for (int w = 0; w < pipeline.workerCount(); w++) {
+        delivered += pipeline.delivered(w);
+      }
+      assertEquals(pipeline.published(), delivered);
+    }
+    assertNull(failure.get());
+    assertEquals(SYMBOLS, threadsBySymbol.size());
+    assertEquals(perSymbol / 100, orders.get());
+    assertEquals(perSymbol / 100, rejects.get());
+  }
+
+  @Test
+  void testWorkerIsStable() {
+    try (DecodePipeline pipeline = new DecodePipeline(3, worker -> new MessageHandler() {})) {
+      long symbol = IdIndex.key("GEM4");
+      int worker = pipeline.worker(symbol);
+      assertTrue(worker >= 0 && worker < 3);
+      assertEquals(worker, pipeline.worker(symbol));
+    }
+  }
+
+  @Test
+  void testMixedByteOrders() throws UnsupportedEncodingException {
+    UnsafeBuffer le = new UnsafeBuffer(new byte[128]);
+    int leLength = new ExampleDumper().encodeExecutionReport(le.byteArray());
+    UnsafeBuffer be = new UnsafeBuffer(new byte[128]);
+    ExecutionReportEncoder erEncoder =
+        new ExecutionReportEncoder().wrapAndApplyHeader(be, 6, new MessageHeaderEncoder());
+    erEncoder.symbol("GEM4").fillsGrpCount(0);
+    int beLength = MESSAGE_OFFSET + erEncoder.encodedLength();
+    new SofhFrameEncoder().wrap(be, 0).encoding(SofhFrameEncoder.SBE_1_0_BIG_ENDIAN)
+        .messageLength(beLength);
+
+    // LE and BE frames of one Symbol alternate, so sequence numbers must alternate too
+    AtomicReference<String> failure = new AtomicReference<>();
+    AtomicInteger littleEndian = new AtomicInteger();
+    AtomicInteger bigEndian = new AtomicInteger();
+    final int count = 10000;
+    try (DecodePipeline pipeline = new DecodePipeline(2, 4096, worker -> new MessageHandler() {
+      int lastSequence = 0;
+
+      @Override
+      public void onExecutionReport(ExecutionReportDecoder decoder) {
+        littleEndian.incrementAndGet();
+        check(decoder.leavesQty().mantissa(), decoder.symbol());
+      }
+
+      @Override
+      public void onExecutionReport(
+          io.fixprotocol.sbe.examples.messages.bigendian.ExecutionReportDecoder decoder) {
+        bigEndian.incrementAndGet();
+        check(decoder.leavesQty().mantissa(), decoder.symbol());
+      }
+
+      @Override
+      public void onOther(DirectBuffer buffer, int offset, int length) {
+        failure.compareAndSet(null, "Frame not decoded at " + lastSequence);
+      }
+
+      private void check(int sequence, String symbol) {
+        if (sequence != lastSequence + 1 || !"GEM4".equals(symbol)) {
+          failure.compareAndSet(null, symbol + " out of order at " + sequence);
+        }
+        lastSequence = sequence;
+      }
+    }, YieldingIdleStrategy::new, e -> failure.compareAndSet(null, e.toString()))) {
+      pipeline.start();
+      for (int sequence = 1; sequence <= count; sequence += 2) {
+        le.putInt(MESSAGE_OFFSET + ExecutionReportDecoder.leavesQtyEncodingOffset(), sequence,
+            ByteOrder.LITTLE_ENDIAN);
+        pipeline.onFrame(le, 0, leLength);
+        erEncoder.leavesQty().mantissa(sequence + 1);
+        pipeline.onFrame(be, 0, beLength);
+      }
+    }
+    assertNull(failure.get());
+    assertEquals(count / 2, littleEndian.get());
+    assertEquals(count / 2, bigEndian.get());
+  }
+
+  @Test
+  void testMixedDialects() throws UnsupportedEncodingException {
+    UnsafeBuffer rc2 = new UnsafeBuffer(new byte[128]);
+    int rc2Length = new ExampleDumper().encodeExecutionReport(rc2.byteArray());
+    UnsafeBuffer standard = new UnsafeBuffer(new byte[128]);
+    io.fixprotocol.sbe.examples.messages.v1_0.ExecutionReportEncoder erEncoder =
+        new io.fixprotocol.sbe.examples.messages.v1_0.ExecutionReportEncoder().wrapAndApplyHeader(
+            standard, 6, new io.fixprotocol.sbe.examples.messages.v1_0.MessageHeaderEncoder());
+    erEncoder.symbol("GEM4").fillsGrpCount(0);
+    int standardLength = erEncoder.limit();
+    new SofhFrameEncoder().wrap(standard, 0).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+        .messageLength(standardLength);
+
+    // frames of one Symbol from an SBE 2.0 RC2 source and an SBE 1.0 source alternate
+    AtomicReference<String> failure = new AtomicReference<>();
+    AtomicInteger standardCount = new AtomicInteger();
+    final int count = 10000;
+    try (DecodePipeline pipeline = new DecodePipeline(2, 4096, worker -> new MessageHandler() {
+      int lastSequence = 0;
+
+      @Override
+      public void onExecutionReport(ExecutionReportDecoder decoder) {
+        check(decoder.leavesQty().mantissa(), decoder.symbol());
+      }
+
+      @Override
+      public void onExecutionReport(
+          io.fixprotocol.sbe.examples.messages.v1_0.ExecutionReportDecoder decoder) {
+        standardCount.incrementAndGet();
+        check(decoder.leavesQty().mantissa(), decoder.symbol());
+      }
+
+      @Override
+      public void onOther(DirectBuffer buffer, int offset, int length) {
+        failure.compareAndSet(null, "Frame not decoded at " + lastSequence);
+      }
+
+      private void check(int sequence, String symbol) {
+        if (sequence != lastSequence + 1 || !"GEM4".equals(symbol)) {
+          failure.compareAndSet(null, symbol + " out of order at " + sequence);
+        }
+        lastSequence = sequence;
+      }
+    }, YieldingIdleStrategy::new, e -> failure.compareAndSet(null, e.toString()))) {
+      pipeline.start();
+      for (int sequence = 1; sequence <= count; sequence += 2) {
+        rc2.putInt(MESSAGE_OFFSET + ExecutionReportDecoder.leavesQtyEncodingOffset(), sequence,
+            ByteOrder.LITTLE_ENDIAN);
+        pipeline.onFrame(rc2, 0, rc2Length);
+        erEncoder.leavesQty().mantissa(sequence + 1);
+        pipeline.onFrame(SchemaDispatcher.Dialect.SBE_1_0, standard, 0, standardLength);
+      }
+    }
+    assertNull(failure.get());
+    assertEquals(count / 2, standardCount.get());
+  }
+}
@@ -0,0 +1,140 @@
+package io.fixprotocol.sbe.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.OrdTypeEnum;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+
+class FramePublisherTest {
+
+  private static final byte[] CL_ORD_ID = {'O', 'R', 'D', '0', '0', '0', '0', '1'};
+  private static final int FRAME_LENGTH =
+      6 + MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH;
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Encodes a NewOrderSingle in place; OrderQty carries the producer and TransactTime a sequence
+   */
+  private static boolean publish(FramePublisher publisher, SofhFrameEncoder sofhEncoder,
+      MessageHeaderEncoder mhEncoder, NewOrderSingleEncoder nosEncoder, int producer,
+      long sequence) {
+    final int offset = publisher.tryClaim(FRAME_LENGTH);
+    if (offset < 0) {
+      return false;
+    }
+    final MutableDirectBuffer buffer = publisher.buffer();
+    sofhEncoder.wrap(buffer, offset).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+        .messageLength(FRAME_LENGTH);
+    nosEncoder.wrapAndApplyHeader(buffer, offset + sofhEncoder.encodedLength(), mhEncoder);
+    nosEncoder.putClOrdId(CL_ORD_ID, 0);
+    nosEncoder.side(SideEnum.Buy).ordType(OrdTypeEnum.Market).orderQty().mantissa(producer);
+    nosEncoder.transactTime().time(sequence);
+    publisher.commit(offset);
+    return true;
+  }
+
+  @Test
+  void testConcurrentProducers() throws InterruptedException {
+    final int producers = 4;
+    final int perProducer = 20_000;
+    FramePublisher publisher = new FramePublisher(FramePublisher.newRingBuffer(16 * 1024));
+
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      final int producer = p;
+      threads.add(new Thread(() -> {
+        SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+        MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+        NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+        for (long sequence = 1; sequence <= perProducer; sequence++) {
+          while (!publish(publisher, sofhEncoder, mhEncoder, nosEncoder, producer, sequence)) {
+            Thread.yield();
+          }
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+
+    long[] lastSequence = new long[producers];
+    AtomicInteger outOfOrder = new AtomicInteger();
+    SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+    MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+    NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+    int received = 0;
+    while (received < producers * perProducer) {
+      received += publisher.drain((buffer, offset, length) -> {
+        assertEquals(FRAME_LENGTH, sofhDecoder.wrap(buffer, offset).messageLength());
+        mhDecoder.wrap(buffer, offset + sofhDecoder.encodedLength());
+        nosDecoder.wrap(buffer, offset + sofhDecoder.encodedLength() + mhDecoder.encodedLength(),
+            mhDecoder.blockLength(), mhDecoder.version());
+        int producer = nosDecoder.orderQty().mantissa();
+        long sequence = nosDecoder.transactTime().time();
+        if (sequence != lastSequence[producer] + 1) {
+          outOfOrder.incrementAndGet();
+        }
+        lastSequence[producer] = sequence;
+      }, 100);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, outOfOrder.get());
+    for (int p = 0; p < producers; p++) {
+      assertEquals(perProducer, lastSequence[p]);
+    }
+  }
+
+  @Test
+  void testAbortAndOffer() {
+    FramePublisher publisher = new FramePublisher(FramePublisher.newRingBuffer(1024));
+    int offset = publisher.tryClaim(FRAME_LENGTH);
+    assertTrue(offset >= 0);
+    publisher.abort(offset);
+    UnsafeBuffer frame = new UnsafeBuffer(new byte[FRAME_LENGTH]);
+    new SofhFrameEncoder().wrap(frame, 0).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+        .messageLength(FRAME_LENGTH);
+    assertTrue(publisher.offer(frame, 0, FRAME_LENGTH));
+    AtomicInteger frames = new AtomicInteger();
+    assertEquals(1, publisher.drain((buffer, o, length) -> {
+      assertEquals(FRAME_LENGTH, length);
+      frames.incrementAndGet();
+    }, 10));
+    assertEquals(1, frames.get());
+    assertThrows(IllegalArgumentException.class,
+        () -> publisher.tryClaim(publisher.maxFrameLength() + 1));
+  }
+
+  @Test
+  void testMappedRingBuffer() {
+    File file = tempDir.resolve("ring").toFile();
+    FramePublisher producer = new FramePublisher(FramePublisher.mapRingBuffer(file, 4096));
+    assertTrue(publish(producer, new SofhFrameEncoder(), new MessageHeaderEncoder(),
+        new NewOrderSingleEncoder(), 1, 7));
+    FramePublisher consumer = new FramePublisher(FramePublisher.mapRingBuffer(file, 4096));
+    NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+    assertEquals(1, consumer.drain((buffer, offset, length) -> {
+      nosDecoder.wrap(buffer, offset + 6 + MessageHeaderDecoder.ENCODED_LENGTH,
+          NewOrderSingleDecoder.BLOCK_LENGTH, 0);
+      assertEquals(7, nosDecoder.transactTime().time());
+    }, 10));
+  }
+}
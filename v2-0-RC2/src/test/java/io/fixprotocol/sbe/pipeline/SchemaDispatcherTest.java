@@ -0,0 +1,163 @@
+package io.fixprotocol.sbe.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.v1_0.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.pipeline.SchemaDispatcher.Dialect;
+
+class SchemaDispatcherTest {
+
+  private final List<String> received = new ArrayList<>();
+
+  private final MessageHandler handler = new MessageHandler() {
+
+    @Override
+    public void onExecutionReport(ExecutionReportDecoder decoder) {
+      received.add("RC2 " + decoder.orderID());
+    }
+
+    @Override
+    public void onExecutionReport(
+        io.fixprotocol.sbe.examples.messages.v2_0_rc1.ExecutionReportDecoder decoder) {
+      received.add("RC1 " + decoder.orderID() + " fills " + decoder.fillsGrp().count());
+    }
+
+    @Override
+    public void onNewOrderSingle(NewOrderSingleDecoder decoder) {
+      received.add("RC2 " + decoder.clOrdId());
+    }
+
+    @Override
+    public void onNewOrderSingle(
+        io.fixprotocol.sbe.examples.messages.bigendian.NewOrderSingleDecoder decoder) {
+      received.add("RC2 big-endian " + decoder.clOrdId());
+    }
+
+    @Override
+    public void onNewOrderSingle(
+        io.fixprotocol.sbe.examples.messages.v1_0.NewOrderSingleDecoder decoder) {
+      received.add("1.0 " + decoder.clOrdId() + " " + decoder.orderQty().mantissa());
+    }
+
+    @Override
+    public void onOther(DirectBuffer buffer, int offset, int length) {
+      received.add("other");
+    }
+  };
+
+  private final SchemaDispatcher dispatcher = new SchemaDispatcher(handler);
+
+  @Test
+  void testMixedVersions() throws UnsupportedEncodingException {
+    ExampleDumper dumper = new ExampleDumper();
+    UnsafeBuffer rc2 = new UnsafeBuffer(new byte[128]);
+    int rc2Length = dumper.encodeOrderMsg(rc2.byteArray());
+    UnsafeBuffer standard = new UnsafeBuffer(new byte[128]);
+    int standardLength = encodeStandardOrder(standard);
+    UnsafeBuffer rc1 = new UnsafeBuffer(new byte[128]);
+    int rc1Length = encodeRc1ExecutionReport(rc1);
+    UnsafeBuffer bigEndian = new UnsafeBuffer(new byte[128]);
+    int bigEndianLength = encodeBigEndianOrder(bigEndian);
+
+    dispatcher.onFrame(Dialect.SBE_1_0, standard, 0, standardLength);
+    dispatcher.onFrame(rc2, 0, rc2Length);
+    dispatcher.onFrame(Dialect.SBE_2_0_RC1, rc1, 0, rc1Length);
+    dispatcher.onFrame(bigEndian, 0, bigEndianLength);
+
+    assertEquals(4, received.size());
+    assertEquals("1.0 ORD00010 3", received.get(0));
+    assertEquals("RC2 ORD00001", received.get(1));
+    assertEquals("RC1 O0000020 fills 1", received.get(2));
+    assertEquals("RC2 big-endian ORD00030", received.get(3));
+  }
+
+  @Test
+  void testStandardSource() {
+    UnsafeBuffer standard = new UnsafeBuffer(new byte[128]);
+    int standardLength = encodeStandardOrder(standard);
+    // as sent by a counterparty: the schema ID is not renumbered
+    assertEquals(91, standard.getShort(6 + 4) & 0xFFFF);
+    SchemaDispatcher standardDispatcher = new SchemaDispatcher(handler, Dialect.SBE_1_0);
+    standardDispatcher.onFrame(standard, 0, standardLength);
+    assertEquals("1.0 ORD00010 3", received.get(0));
+
+    // no big-endian codecs of SBE 1.0
+    standard.putShort(4, SofhFrameEncoder.SBE_1_0_BIG_ENDIAN, ByteOrder.BIG_ENDIAN);
+    standardDispatcher.onFrame(standard, 0, standardLength);
+    assertEquals("other", received.get(1));
+  }
+
+  @Test
+  void testLaterVersion() throws UnsupportedEncodingException {
+    UnsafeBuffer buffer = new UnsafeBuffer(new byte[128]);
+    int length = new ExampleDumper().encodeOrderMsg(buffer.byteArray());
+    new MessageHeaderEncoder().wrap(buffer, 6).version(3);
+    dispatcher.onFrame(buffer, 0, length);
+    assertEquals("RC2 ORD00001", received.get(0));
+  }
+
+  @Test
+  void testUnknown() throws UnsupportedEncodingException {
+    UnsafeBuffer buffer = new UnsafeBuffer(new byte[128]);
+    int length = new ExampleDumper().encodeOrderMsg(buffer.byteArray());
+    MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder().wrap(buffer, 6);
+    mhEncoder.templateId(42);
+    dispatcher.onFrame(buffer, 0, length);
+    mhEncoder.templateId(NewOrderSingleDecoder.TEMPLATE_ID).schemaId(7);
+    dispatcher.onFrame(buffer, 0, length);
+    mhEncoder.schemaId(60_000);
+    dispatcher.onFrame(buffer, 0, length);
+    dispatcher.onFrame(buffer, 0, 10);
+    assertEquals(4, received.size());
+    received.forEach(r -> assertEquals("other", r));
+  }
+
+  private int encodeBigEndianOrder(UnsafeBuffer buffer) {
+    io.fixprotocol.sbe.examples.messages.bigendian.NewOrderSingleEncoder encoder =
+        new io.fixprotocol.sbe.examples.messages.bigendian.NewOrderSingleEncoder();
+    encoder.wrapAndApplyHeader(buffer, 6,
+        new io.fixprotocol.sbe.examples.messages.bigendian.MessageHeaderEncoder())
+        .clOrdId("ORD00030");
+    int length = encoder.limit();
+    new SofhFrameEncoder().wrap(buffer, 0).messageLength(length)
+        .encoding(SofhFrameEncoder.SBE_1_0_BIG_ENDIAN);
+    return length;
+  }
+
+  private int encodeRc1ExecutionReport(UnsafeBuffer buffer) {
+    io.fixprotocol.sbe.examples.messages.v2_0_rc1.ExecutionReportEncoder encoder =
+        new io.fixprotocol.sbe.examples.messages.v2_0_rc1.ExecutionReportEncoder();
+    encoder.wrapAndApplyHeader(buffer, 6,
+        new io.fixprotocol.sbe.examples.messages.v2_0_rc1.MessageHeaderEncoder())
+        .orderID("O0000020").fillsGrpCount(1).next().fillQty().mantissa(5);
+    int length = encoder.limit();
+    new SofhFrameEncoder().wrap(buffer, 0).messageLength(length)
+        .encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+    return length;
+  }
+
+  private int encodeStandardOrder(UnsafeBuffer buffer) {
+    NewOrderSingleEncoder encoder = new NewOrderSingleEncoder();
+    encoder.wrapAndApplyHeader(buffer, 6,
+        new io.fixprotocol.sbe.examples.messages.v1_0.MessageHeaderEncoder())
+        .clOrdId("ORD00010").orderQty().mantissa(3);
+    int length = encoder.limit();
+    new SofhFrameEncoder().wrap(buffer, 0).messageLength(length)
+        .encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN);
+    return length;
+  }
+}
@@ -0,0 +1,49 @@
+package io.fixprotocol.sbe.render;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.interpret.MessageInterpreter;
+
+class BinaryRendererTest {
+
+  @Test
+  void testRecords() throws IOException {
+    ExampleDumper dumper = new ExampleDumper();
+    MessageInterpreter interpreter =
+        MessageInterpreter.fromResource(MessageInterpreter.EXAMPLES_SCHEMA);
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeOrderMsg(bytes);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryRenderer renderer = new BinaryRenderer();
+    renderer.setOutput(out);
+    interpreter.interpretFrame(new UnsafeBuffer(bytes, 0, size), 0, renderer);
+    renderer.flush();
+
+    UnsafeBuffer records = new UnsafeBuffer(out.toByteArray());
+    int position = 0;
+    assertEquals(BinaryRenderer.MESSAGE, records.getByte(position));
+    assertEquals(99, records.getShort(position + 1, ByteOrder.LITTLE_ENDIAN));
+    position += 3;
+    int fields = 0;
+    String clOrdId = null;
+    while (records.getByte(position) == BinaryRenderer.FIELD) {
+      int fieldId = records.getShort(position + 1, ByteOrder.LITTLE_ENDIAN);
+      int length = records.getShort(position + 5, ByteOrder.LITTLE_ENDIAN);
+      int valueLength = records.getShort(position + 7 + length, ByteOrder.LITTLE_ENDIAN);
+      if (fieldId == 11) {
+        clOrdId = records.getStringWithoutLengthAscii(position + 9 + length, valueLength);
+      }
+      position += 9 + length + valueLength;
+      fields++;
+    }
+    assertEquals(BinaryRenderer.END, records.getByte(position));
+    assertEquals(out.size(), position + 1);
+    assertEquals(17, fields);
+    assertEquals("ORD00001", clOrdId);
+  }
+}
@@ -0,0 +1,37 @@
+package io.fixprotocol.sbe.render;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.interpret.MessageInterpreter;
+
+class CsvRendererTest {
+
+  @Test
+  void testRows() throws IOException {
+    ExampleDumper dumper = new ExampleDumper();
+    MessageInterpreter interpreter =
+        MessageInterpreter.fromResource(MessageInterpreter.EXAMPLES_SCHEMA);
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeBusinessMessageReject(bytes);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CsvRenderer renderer = new CsvRenderer();
+    renderer.setOutput(out);
+    interpreter.interpretFrame(new UnsafeBuffer(bytes, 0, size), 0, renderer);
+    interpreter.interpretFrame(new UnsafeBuffer(bytes, 0, size), 0, renderer);
+    renderer.flush();
+    String[] lines = new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+    assertEquals("Message,Template ID,Wire format,Field ID,Name,Offset,Length,Interpreted value",
+        lines[0]);
+    assertEquals("1,97,00000044,0,SOFH message length,0,4,68", lines[1]);
+    assertEquals("1,97,06,380,BusinessRejectReason,8,1,NotAuthorized", lines[10]);
+    assertTrue(lines[11].startsWith("1,97,4e6f7420"));
+    assertTrue(lines[11].endsWith(",58,Text,0,39,Not authorized to trade that instrument"));
+    assertEquals(23, lines.length);
+    assertTrue(lines[12].startsWith("2,97,"));
+  }
+}
@@ -0,0 +1,41 @@
+package io.fixprotocol.sbe.render;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.interpret.MessageInterpreter;
+
+class JsonLinesRendererTest {
+
+  @Test
+  void testMessages() throws IOException {
+    ExampleDumper dumper = new ExampleDumper();
+    MessageInterpreter interpreter =
+        MessageInterpreter.fromResource(MessageInterpreter.EXAMPLES_SCHEMA);
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeBusinessMessageReject(bytes);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JsonLinesRenderer renderer = new JsonLinesRenderer();
+    renderer.setOutput(out);
+    interpreter.interpretFrame(new UnsafeBuffer(bytes, 0, size), 0, renderer);
+    UnsafeBuffer unknown = new UnsafeBuffer(bytes, 0, size);
+    unknown.putShort(8, (short) 42);
+    interpreter.interpretFrame(unknown, 0, renderer);
+    renderer.flush();
+    String[] lines = new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].startsWith("{\"templateId\":97,\"name\":\"BusinessMessageReject\","
+        + "\"fields\":[{\"wire\":\"00000044\",\"id\":0,\"name\":\"SOFH message length\","
+        + "\"offset\":0,\"length\":4,\"value\":\"68\"},"));
+    assertTrue(lines[0].contains(
+        "{\"wire\":\"06\",\"id\":380,\"name\":\"BusinessRejectReason\",\"offset\":8,"
+            + "\"length\":1,\"value\":\"NotAuthorized\"}"));
+    assertTrue(lines[0].endsWith("\"value\":\"Not authorized to trade that instrument\"}]}"));
+    assertTrue(lines[1].startsWith("{\"templateId\":42,\"name\":null,\"fields\":["));
+    assertTrue(lines[1].endsWith("}]}"));
+  }
+}
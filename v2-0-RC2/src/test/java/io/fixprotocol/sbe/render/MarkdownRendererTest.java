@@ -0,0 +1,102 @@
+package io.fixprotocol.sbe.render;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.interpret.MessageInterpreter;
+
+class MarkdownRendererTest {
+
+  private final ExampleDumper dumper = new ExampleDumper();
+  private MessageInterpreter interpreter;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    interpreter = MessageInterpreter.fromResource(MessageInterpreter.EXAMPLES_SCHEMA);
+  }
+
+  @Test
+  void testTable() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeExecutionReport(bytes);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MarkdownRenderer renderer = new MarkdownRenderer();
+    renderer.setOutput(out);
+    interpreter.interpretFrame(new UnsafeBuffer(bytes, 0, size), 0, renderer);
+    assertEquals(0, out.size());
+    renderer.flush();
+    String[] lines = new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+    assertEquals("|Wire format|Field ID|Name|Offset|Length|Interpreted value|", lines[0]);
+    assertEquals("|-----------|-------:|----|-----:|-----:|-----------------|", lines[1]);
+    assertEquals("| `0000005c` |   | SOFH message length | 0 | 4 | 92 |", lines[2]);
+    assertEquals("| `4f30303030303031` | 37 | OrderID | 0 | 8 | O0000001 |", lines[10]);
+  }
+
+  @Test
+  void testStyle() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MarkdownRenderer renderer = new MarkdownRenderer();
+    renderer.setOutput(out);
+    renderer.setHeadingBegin("<h3>");
+    renderer.setHeadingEnd("</h3>");
+    renderer.heading("Wire format");
+    renderer.block(new UnsafeBuffer("GEM4".getBytes(StandardCharsets.US_ASCII)), 0, 4);
+    renderer.flush();
+    assertEquals("<h3>Wire format</h3>\n```\n47 45 4d 34 " + String.format("%36s", "")
+        + ":GEM4" + System.lineSeparator() + "```\n",
+        new String(out.toByteArray(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  void testSmallBlock() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeBusinessMessageReject(bytes);
+    ByteArrayOutputStream large = new ByteArrayOutputStream();
+    MarkdownRenderer renderer = new MarkdownRenderer();
+    renderer.setOutput(large);
+    interpreter.interpretFrame(new UnsafeBuffer(bytes, 0, size), 0, renderer);
+    renderer.flush();
+    ByteArrayOutputStream small = new ByteArrayOutputStream();
+    renderer = new MarkdownRenderer(64);
+    renderer.setOutput(small);
+    interpreter.interpretFrame(new UnsafeBuffer(bytes, 0, size), 0, renderer);
+    renderer.flush();
+    assertArrayEquals(large.toByteArray(), small.toByteArray());
+  }
+
+  @Test
+  void testNoAllocation() throws IOException {
+    byte[] bytes = new byte[128];
+    int size = dumper.encodeExecutionReport(bytes);
+    UnsafeBuffer buffer = new UnsafeBuffer(bytes, 0, size);
+    OutputStream sink = new OutputStream() {
+      @Override
+      public void write(int b) {}
+
+      @Override
+      public void write(byte[] b, int off, int len) {}
+    };
+    MarkdownRenderer renderer = new MarkdownRenderer();
+    renderer.setOutput(sink);
+    for (int i = 0; i < 20_000; i++) {
+      interpreter.interpretFrame(buffer, 0, renderer);
+    }
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 100_000; i++) {
+      interpreter.interpretFrame(buffer, 0, renderer);
+    }
+    renderer.flush();
+    long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+    assertTrue(allocated < 1024, "Allocated " + allocated + " bytes");
+  }
+}
@@ -0,0 +1,117 @@
+package io.fixprotocol.sbe.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+import io.fixprotocol.sbe.capture.IdIndex;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.OrdStatusEnum;
+import io.fixprotocol.sbe.state.OrderStateCache.WriterPolicy;
+
+class OrderStateCacheTest {
+
+  private static final byte FILLED = OrdStatusEnum.Filled.value();
+  private static final byte PARTIAL = OrdStatusEnum.PartialFilled.value();
+  private static final int ORDER_QTY = 1000;
+
+  @Test
+  void testUpdateFromDecoder() throws UnsupportedEncodingException {
+    byte[] frame = new byte[128];
+    new ExampleDumper().encodeExecutionReport(frame);
+    ExecutionReportDecoder decoder = new ExecutionReportDecoder();
+    decoder.wrap(new UnsafeBuffer(frame), 6 + MessageHeaderDecoder.ENCODED_LENGTH,
+        ExecutionReportDecoder.BLOCK_LENGTH, 0);
+
+    OrderStateCache cache = new OrderStateCache(4, WriterPolicy.STRIPED_LOCK);
+    assertTrue(cache.update(decoder));
+    OrderState state = new OrderState();
+    assertTrue(cache.get(IdIndex.key("O0000001"), state));
+    assertEquals("O0000001", OrderState.idString(state.orderId()));
+    assertEquals(decoder.ordStatus(), state.ordStatus());
+    assertEquals(decoder.leavesQty().mantissa(), state.leavesQty());
+    assertEquals(decoder.cumQty().mantissa(), state.cumQty());
+    assertEquals(decoder.execID(), OrderState.idString(state.lastExecId()));
+    assertFalse(cache.get(IdIndex.key("O0000002"), state));
+    assertFalse(cache.update(0, FILLED, 0, 0, 1));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void testGrow() {
+    OrderStateCache cache = new OrderStateCache(2, 8, WriterPolicy.SHARD_OWNER);
+    for (int i = 1; i <= 10_000; i++) {
+      cache.update(i, PARTIAL, ORDER_QTY - i % ORDER_QTY, i % ORDER_QTY, i);
+    }
+    for (int i = 1; i <= 10_000; i++) {
+      cache.update(i, FILLED, 0, ORDER_QTY, -i);
+    }
+    assertEquals(10_000, cache.size());
+    OrderState state = new OrderState();
+    for (int i = 1; i <= 10_000; i++) {
+      assertTrue(cache.get(i, state));
+      assertEquals(OrdStatusEnum.Filled, state.ordStatus());
+      assertEquals(ORDER_QTY, state.cumQty());
+      assertEquals(-i, state.lastExecId());
+    }
+  }
+
+  @Test
+  void testConcurrentReadersSeeConsistentState() throws InterruptedException {
+    final int orders = 1024;
+    final int writersCount = 4;
+    OrderStateCache cache = new OrderStateCache(8, 16, WriterPolicy.STRIPED_LOCK);
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<String> failure = new AtomicReference<>();
+
+    List<Thread> writers = new ArrayList<>();
+    for (int w = 0; w < writersCount; w++) {
+      final int writer = w;
+      writers.add(new Thread(() -> {
+        for (int fill = 0; fill <= ORDER_QTY; fill++) {
+          for (int order = 1 + writer; order <= orders; order += writersCount) {
+            // Every writer updates every shard; LeavesQty + CumQty always equals OrderQty
+            cache.update(order, fill == ORDER_QTY ? FILLED : PARTIAL, ORDER_QTY - fill, fill,
+                fill);
+          }
+        }
+      }));
+    }
+    Thread reader = new Thread(() -> {
+      OrderState state = new OrderState();
+      while (!done.get()) {
+        for (int order = 1; order <= orders; order++) {
+          if (cache.get(order, state) && (state.leavesQty() + state.cumQty() != ORDER_QTY
+              || state.lastExecId() != state.cumQty())) {
+            failure.compareAndSet(null, state.toString());
+          }
+        }
+      }
+    });
+    reader.start();
+    writers.forEach(Thread::start);
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    done.set(true);
+    reader.join();
+
+    assertNull(failure.get());
+    assertEquals(orders, cache.size());
+    OrderState state = new OrderState();
+    for (int order = 1; order <= orders; order++) {
+      assertTrue(cache.get(order, state));
+      assertEquals(OrdStatusEnum.Filled, state.ordStatus());
+      assertEquals(0, state.leavesQty());
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package io.fixprotocol.sbe.state;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.UnsupportedEncodingException;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+import io.fixprotocol.sbe.capture.IdIndex;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+
+class SymbolVwapAggregatorTest {
+
+  @Test
+  void testFrames() throws UnsupportedEncodingException {
+    ExampleDumper dumper = new ExampleDumper();
+    byte[] frame = new byte[128];
+    int length = dumper.encodeExecutionReport(frame);
+    byte[] order = new byte[128];
+    int orderLength = dumper.encodeOrderMsg(order);
+
+    SymbolVwapAggregator aggregator = new SymbolVwapAggregator(1000);
+    aggregator.onFrame(new UnsafeBuffer(frame), 0, length);
+    aggregator.onFrame(new UnsafeBuffer(order), 0, orderLength);
+    aggregator.onFrame(new UnsafeBuffer(frame), 0, length);
+
+    VwapSnapshot snapshot = aggregator.snapshot(1);
+    assertEquals(1, snapshot.size());
+    int gem4 = snapshot.indexOf(IdIndex.key("GEM4"));
+    assertEquals(0, gem4);
+    assertEquals(-3, snapshot.priceExponent());
+    assertEquals(0, snapshot.qtyExponent());
+    assertEquals(4, snapshot.fillCount(gem4));
+    assertEquals(12, snapshot.volume(gem4));
+    // (99.610 * 2 + 99.620 * 4) / 6 = 99.61666...
+    assertEquals(99616, snapshot.vwap(gem4));
+    assertEquals(99620, snapshot.high(gem4));
+    assertEquals(99610, snapshot.low(gem4));
+  }
+
+  @Test
+  void testExponentsAndNulls() {
+    long abc = IdIndex.key("ABC");
+    long xyz = IdIndex.key("XYZ");
+    SymbolVwapAggregator aggregator = new SymbolVwapAggregator(1000, -2, -1);
+    // 1.5 at exponent -1 is 1.50 at -2; quantity 3 at exponent 0 is 30 at -1
+    aggregator.addFill(abc, 15, -1, 3, 0);
+    aggregator.addFill(abc, 2501, -3, 10, -1);
+    aggregator.addFill(xyz, Long.MIN_VALUE, -3, 5, 0);
+
+    VwapSnapshot snapshot = aggregator.snapshot(0);
+    int i = snapshot.indexOf(abc);
+    assertEquals(40, snapshot.volume(i));
+    // (150 * 30 + 250 * 10) / 40 = 175
+    assertEquals(175, snapshot.vwap(i));
+    assertEquals(250, snapshot.high(i));
+    assertEquals(150, snapshot.low(i));
+
+    int j = snapshot.indexOf(xyz);
+    assertEquals(1, snapshot.fillCount(j));
+    assertEquals(50, snapshot.volume(j));
+    assertEquals(Long.MIN_VALUE, snapshot.vwap(j));
+    assertEquals(Long.MIN_VALUE, snapshot.high(j));
+    assertEquals(-1, snapshot.indexOf(IdIndex.key("NONE")));
+  }
+
+  @Test
+  void testNotionalBeyondLong() {
+    long symbol = IdIndex.key("BIG");
+    SymbolVwapAggregator aggregator = new SymbolVwapAggregator(1000);
+    long px = 4_000_000_000_000L;
+    for (int i = 0; i < 10; i++) {
+      aggregator.addFill(symbol, px, -3, Integer.MAX_VALUE, 0);
+      aggregator.addFill(symbol, px + 10, -3, Integer.MAX_VALUE, 0);
+    }
+    VwapSnapshot snapshot = aggregator.snapshot(0);
+    assertEquals(px + 5, snapshot.vwap(0));
+
+    assertEquals(-7, SymbolVwapAggregator.divide(-1, -15, 2));
+    assertEquals(Long.MAX_VALUE, SymbolVwapAggregator.divide(
+        SymbolVwapAggregator.multiplyHigh(Long.MAX_VALUE, 3), Long.MAX_VALUE * 3, 3));
+  }
+
+  @Test
+  void testPoll() {
+    SymbolVwapAggregator aggregator = new SymbolVwapAggregator(1000);
+    assertNull(aggregator.latestSnapshot());
+    assertTrue(aggregator.poll(5000));
+    assertEquals(0, aggregator.latestSnapshot().size());
+    aggregator.addFill(IdIndex.key("GEM4"), 99610, -3, 2, 0);
+    assertFalse(aggregator.poll(5999));
+    assertEquals(0, aggregator.latestSnapshot().size());
+    assertTrue(aggregator.poll(6000));
+    assertEquals(1, aggregator.latestSnapshot().size());
+    assertEquals(6000, aggregator.latestSnapshot().timestamp());
+  }
+}
@@ -0,0 +1,153 @@
+package io.fixprotocol.sbe.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.SofhFrameHandler;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+
+class SofhDatagramTest {
+
+  private static final int FRAME_LENGTH =
+      6 + MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH;
+
+  private final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+  private final NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+  private long now = 0;
+  private SofhDatagramReceiver receiver;
+  private DatagramChannel receiverChannel;
+  private DatagramChannel senderChannel;
+  private InetSocketAddress target;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    receiverChannel = DatagramChannel.open();
+    receiverChannel.setOption(StandardSocketOptions.SO_RCVBUF, 1024 * 1024);
+    receiverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    receiverChannel.configureBlocking(false);
+    target = (InetSocketAddress) receiverChannel.getLocalAddress();
+    receiver = new SofhDatagramReceiver(receiverChannel,
+        SofhDatagramPublisher.DEFAULT_MAX_DATAGRAM_LENGTH);
+    senderChannel = DatagramChannel.open();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    receiver.close();
+    senderChannel.close();
+  }
+
+  @Test
+  void testBatching() throws IOException {
+    SofhDatagramPublisher publisher = new SofhDatagramPublisher(senderChannel, target,
+        SofhDatagramPublisher.DEFAULT_MAX_DATAGRAM_LENGTH, Long.MAX_VALUE);
+    final long[] lastQty = new long[1];
+    final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+    final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+    final SofhFrameHandler handler = (buffer, offset, length) -> {
+      assertEquals(FRAME_LENGTH, length);
+      mhDecoder.wrap(buffer, offset + 6);
+      nosDecoder.wrap(buffer, offset + 6 + mhDecoder.encodedLength(), mhDecoder.blockLength(),
+          mhDecoder.version());
+      assertEquals(lastQty[0] + 1, nosDecoder.orderQty().mantissa());
+      lastQty[0]++;
+    };
+
+    final int frames = 1000;
+    for (int i = 1; i <= frames; i++) {
+      sendOrder(publisher, i);
+      // keep up with the sender so that the socket buffer cannot overflow
+      receive(publisher.framesSent(), handler);
+    }
+    publisher.flush();
+    receive(frames, handler);
+
+    final int framesPerDatagram = SofhDatagramPublisher.DEFAULT_MAX_DATAGRAM_LENGTH / FRAME_LENGTH;
+    assertEquals((frames + framesPerDatagram - 1) / framesPerDatagram, publisher.datagramsSent());
+    assertEquals(frames, publisher.framesSent());
+    assertEquals(0, publisher.datagramsDropped());
+    assertEquals(frames, lastQty[0]);
+    assertEquals(publisher.datagramsSent(), receiver.datagramsReceived());
+    assertEquals(0, receiver.malformedDatagrams());
+  }
+
+  @Test
+  void testTimeThreshold() throws IOException {
+    SofhDatagramPublisher publisher = new SofhDatagramPublisher(senderChannel, target,
+        SofhDatagramPublisher.DEFAULT_MAX_DATAGRAM_LENGTH,
+        SofhDatagramPublisher.DEFAULT_MAX_DATAGRAM_LENGTH, 1000L,
+        SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN, () -> now);
+    sendOrder(publisher, 1);
+    sendOrder(publisher, 2);
+    assertEquals(0, publisher.flushIfDue());
+    assertEquals(0, publisher.datagramsSent());
+    now += 1000;
+    assertEquals(2 * FRAME_LENGTH, publisher.flushIfDue());
+    assertEquals(1, publisher.datagramsSent());
+    receive(2);
+    assertEquals(1, receiver.datagramsReceived());
+  }
+
+  @Test
+  void testOversizedAndMalformed() throws IOException {
+    SofhDatagramPublisher publisher =
+        new SofhDatagramPublisher(senderChannel, target, 128, Long.MAX_VALUE);
+    assertThrows(IllegalArgumentException.class, () -> publisher.claim(128));
+    publisher.claim(64);
+    assertThrows(IllegalStateException.class, publisher::flush);
+    assertThrows(IllegalArgumentException.class, () -> publisher.commit(65));
+    publisher.abort();
+    assertThrows(IllegalStateException.class, () -> publisher.commit(10));
+
+    // second frame claims to extend past the end of the datagram
+    UnsafeBuffer frame = new UnsafeBuffer(new byte[2 * FRAME_LENGTH]);
+    SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+    sofhEncoder.wrap(frame, 0).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+        .messageLength(FRAME_LENGTH);
+    sofhEncoder.wrap(frame, FRAME_LENGTH).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+        .messageLength(FRAME_LENGTH + 1);
+    senderChannel.send(ByteBuffer.wrap(frame.byteArray()), target);
+    receive(1);
+    assertEquals(1, receiver.malformedDatagrams());
+  }
+
+  private void receive(long expectedFrames) throws IOException {
+    receive(expectedFrames, (buffer, offset, length) -> {});
+  }
+
+  private void receive(long expectedFrames, SofhFrameHandler handler) throws IOException {
+    final long deadline = System.nanoTime() + 5_000_000_000L;
+    while (receiver.framesReceived() < expectedFrames) {
+      if (receiver.poll(handler) < 0) {
+        assertTrue(System.nanoTime() < deadline, "timed out");
+        Thread.yield();
+      }
+    }
+  }
+
+  private void sendOrder(SofhDatagramPublisher publisher, int orderQty) throws IOException {
+    int offset =
+        publisher.claim(MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH);
+    MutableDirectBuffer buffer = publisher.buffer();
+    nosEncoder.wrapAndApplyHeader(buffer, offset, mhEncoder).side(SideEnum.Buy).orderQty()
+        .mantissa(orderQty);
+    publisher.commit(MessageHeaderEncoder.ENCODED_LENGTH + nosEncoder.encodedLength());
+  }
+}
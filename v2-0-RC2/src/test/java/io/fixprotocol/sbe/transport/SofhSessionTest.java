@@ -0,0 +1,314 @@
+package io.fixprotocol.sbe.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.fixprotocol.sbe.examples.SofhFrameDeframer;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.messages.ExecTypeEnum;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportEncoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.OrdStatusEnum;
+import io.fixprotocol.sbe.examples.messages.OrdTypeEnum;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+
+class SofhSessionTest {
+
+  private static final int ER_LENGTH = MessageHeaderEncoder.ENCODED_LENGTH
+      + ExecutionReportEncoder.BLOCK_LENGTH + ExecutionReportEncoder.FillsGrpEncoder.HEADER_SIZE;
+  private static final int NOS_LENGTH =
+      MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH;
+
+  /**
+   * Acknowledges each NewOrderSingle with an ExecutionReport whose OrderID is the ClOrdId
+   */
+  static class OrderServerHandler implements SessionHandler {
+    final ExecutionReportEncoder erEncoder = new ExecutionReportEncoder();
+    final byte[] id = new byte[8];
+    final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+    final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+    final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+
+    @Override
+    public void onFrame(SofhSession session, DirectBuffer buffer, int offset, int length) {
+      mhDecoder.wrap(buffer, offset + 6);
+      nosDecoder.wrap(buffer, offset + 6 + mhDecoder.encodedLength(), mhDecoder.blockLength(),
+          mhDecoder.version());
+      nosDecoder.getClOrdId(id, 0);
+      final int position = session.claim(ER_LENGTH);
+      assertNotEquals(SofhSession.BACK_PRESSURED, position);
+      erEncoder.wrapAndApplyHeader(session.buffer(), position, mhEncoder).putOrderID(id, 0)
+          .putExecID(id, 0).execType(ExecTypeEnum.New).ordStatus(OrdStatusEnum.New)
+          .side(nosDecoder.side()).fillsGrpCount(0);
+      // the claim stands after a commit longer than claimed is refused
+      assertThrows(IllegalArgumentException.class, () -> session.commit(ER_LENGTH + 1));
+      session.commit(mhEncoder.encodedLength() + erEncoder.encodedLength());
+    }
+  }
+
+  /**
+   * Keeps a window of orders outstanding and records the round-trip time of each
+   */
+  static class OrderClientHandler implements SessionHandler {
+    final CountDownLatch done = new CountDownLatch(1);
+    final ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+    final UnsafeBuffer id = new UnsafeBuffer(new byte[8]);
+    final long[] latencies;
+    final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+    final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+    final NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+    int outOfOrder = 0;
+    int received = 0;
+    final long[] sendNanos;
+    int sent = 0;
+    final int window;
+
+    OrderClientHandler(int orders, int window) {
+      this.latencies = new long[orders];
+      this.sendNanos = new long[orders];
+      this.window = window;
+    }
+
+    @Override
+    public void onConnected(SofhSession session) {
+      for (int i = 0; i < window; i++) {
+        send(session);
+      }
+    }
+
+    @Override
+    public void onFrame(SofhSession session, DirectBuffer buffer, int offset, int length) {
+      final long now = System.nanoTime();
+      mhDecoder.wrap(buffer, offset + 6);
+      erDecoder.wrap(buffer, offset + 6 + mhDecoder.encodedLength(), mhDecoder.blockLength(),
+          mhDecoder.version());
+      erDecoder.getOrderID(id.byteArray(), 0);
+      final int sequence = (int) id.getLong(0);
+      if (sequence != received) {
+        outOfOrder++;
+      }
+      latencies[sequence] = now - sendNanos[sequence];
+      received++;
+      send(session);
+      if (received == latencies.length) {
+        done.countDown();
+      }
+    }
+
+    void send(SofhSession session) {
+      if (sent == sendNanos.length) {
+        return;
+      }
+      final int position = session.claim(NOS_LENGTH);
+      assertNotEquals(SofhSession.BACK_PRESSURED, position);
+      id.putLong(0, sent);
+      nosEncoder.wrapAndApplyHeader(session.buffer(), position, mhEncoder)
+          .putClOrdId(id.byteArray(), 0).side(SideEnum.Buy).ordType(OrdTypeEnum.Limit);
+      nosEncoder.orderQty().mantissa(100);
+      sendNanos[sent++] = System.nanoTime();
+      session.commit(mhEncoder.encodedLength() + nosEncoder.encodedLength());
+    }
+  }
+
+  private SofhClient client;
+  private SofhServer server;
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (client != null) {
+      client.close();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  void testOrderRoundTrip() throws Exception {
+    server = startServer(2, OrderServerHandler::new, SofhEventLoop.DEFAULT_MAX_QUEUED_BYTES);
+    client = new SofhClient(1);
+    final int connections = 4;
+    final int orders = 25_000;
+    List<OrderClientHandler> handlers = new ArrayList<>();
+    final long start = System.nanoTime();
+    for (int i = 0; i < connections; i++) {
+      OrderClientHandler handler = new OrderClientHandler(orders, 32);
+      handlers.add(handler);
+      client.connect(server.localAddress(), handler);
+    }
+    for (OrderClientHandler handler : handlers) {
+      assertTrue(handler.done.await(30, TimeUnit.SECONDS));
+    }
+    final long elapsedNanos = System.nanoTime() - start;
+
+    long[] latencies = new long[connections * orders];
+    for (int i = 0; i < connections; i++) {
+      assertEquals(0, handlers.get(i).outOfOrder);
+      System.arraycopy(handlers.get(i).latencies, 0, latencies, i * orders, orders);
+    }
+    Arrays.sort(latencies);
+    final long p999Nanos = latencies[(int) (latencies.length * 0.999)];
+    final double ordersPerSecond = latencies.length * 1e9 / elapsedNanos;
+    assertTrue(latencies[0] > 0);
+    assertTrue(p999Nanos >= latencies[latencies.length / 2]);
+    assertTrue(ordersPerSecond > 0);
+
+    // connections are balanced across the server's event loops
+    assertEquals(connections / 2, server.loop(0).sessionCount());
+    assertEquals(connections / 2, server.loop(1).sessionCount());
+  }
+
+  @Test
+  void testPartialFrames() throws Exception {
+    server = startServer(1, OrderServerHandler::new, SofhEventLoop.DEFAULT_MAX_QUEUED_BYTES);
+    UnsafeBuffer frames = new UnsafeBuffer(ByteBuffer.allocate(2 * (6 + NOS_LENGTH)));
+    SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+    NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+    MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+    for (int i = 0; i < 2; i++) {
+      final int offset = i * (6 + NOS_LENGTH);
+      sofhEncoder.wrap(frames, offset).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+          .messageLength(6 + NOS_LENGTH);
+      nosEncoder.wrapAndApplyHeader(frames, offset + 6, mhEncoder).clOrdId("ORD" + i)
+          .side(SideEnum.Sell);
+    }
+
+    try (SocketChannel channel = SocketChannel.open(server.localAddress())) {
+      final ByteBuffer bytes = frames.byteBuffer();
+      // split inside the first framing header and in the middle of the second frame
+      for (int limit : new int[] {3, 6 + NOS_LENGTH + 20, bytes.capacity()}) {
+        bytes.limit(limit);
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+        Thread.sleep(20);
+      }
+
+      List<String> orderIds = new ArrayList<>();
+      ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+      SofhFrameDeframer deframer = new SofhFrameDeframer(1024, (buffer, offset, length) -> {
+        assertEquals(6 + ER_LENGTH, length);
+        erDecoder.wrap(buffer, offset + 6 + MessageHeaderDecoder.ENCODED_LENGTH,
+            ExecutionReportDecoder.BLOCK_LENGTH, 0);
+        orderIds.add(erDecoder.orderID());
+      });
+      while (orderIds.size() < 2) {
+        assertTrue(deframer.read(channel) >= 0);
+      }
+      assertEquals(Arrays.asList("ORD0", "ORD1"), orderIds);
+    }
+  }
+
+  @Test
+  void testBackPressure() throws Exception {
+    final int total = 20_000;
+    final int maxQueuedBytes = 128 * 1024;
+    final AtomicBoolean readPaused = new AtomicBoolean();
+    final AtomicInteger writable = new AtomicInteger();
+    final AtomicInteger refusals = new AtomicInteger();
+
+    // floods ExecutionReports in response to one request, resuming when writable
+    server = startServer(1, () -> new SessionHandler() {
+      final ExecutionReportEncoder erEncoder = new ExecutionReportEncoder();
+      final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+      int sent = 0;
+
+      @Override
+      public void onFrame(SofhSession session, DirectBuffer buffer, int offset, int length) {
+        flood(session);
+      }
+
+      @Override
+      public void onWritable(SofhSession session) {
+        writable.incrementAndGet();
+        flood(session);
+      }
+
+      void flood(SofhSession session) {
+        while (sent < total) {
+          final int position = session.claim(ER_LENGTH);
+          if (position == SofhSession.BACK_PRESSURED) {
+            refusals.incrementAndGet();
+            readPaused.compareAndSet(false, session.isReadPaused());
+            assertTrue(session.queuedBytes() <= maxQueuedBytes);
+            return;
+          }
+          erEncoder.wrapAndApplyHeader(session.buffer(), position, mhEncoder).fillsGrpCount(0);
+          session.commit(mhEncoder.encodedLength() + erEncoder.encodedLength());
+          sent++;
+        }
+      }
+    }, maxQueuedBytes);
+
+    try (SocketChannel channel = SocketChannel.open(server.localAddress())) {
+      UnsafeBuffer request = new UnsafeBuffer(ByteBuffer.allocate(6 + NOS_LENGTH));
+      new SofhFrameEncoder().wrap(request, 0).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+          .messageLength(6 + NOS_LENGTH);
+      new NewOrderSingleEncoder().wrapAndApplyHeader(request, 6, new MessageHeaderEncoder());
+      channel.write(request.byteBuffer());
+      // a slow consumer
+      Thread.sleep(200);
+
+      final int[] received = new int[1];
+      SofhFrameDeframer deframer =
+          new SofhFrameDeframer(64 * 1024, (buffer, offset, length) -> received[0]++);
+      while (received[0] < total) {
+        assertTrue(deframer.read(channel) >= 0);
+      }
+    }
+    assertTrue(refusals.get() > 0);
+    assertTrue(readPaused.get());
+    assertEquals(refusals.get(), writable.get());
+  }
+
+  @Test
+  void testTaskError() throws Exception {
+    List<Throwable> errors = new ArrayList<>();
+    server = new SofhServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1,
+        OrderServerHandler::new, SofhEventLoop.DEFAULT_READ_BUFFER_LENGTH,
+        SofhEventLoop.DEFAULT_SEGMENT_LENGTH, SofhEventLoop.DEFAULT_MAX_QUEUED_BYTES,
+        errors::add);
+    server.start();
+    SofhEventLoop loop = server.loop(0);
+    loop.execute(() -> {
+      throw new IllegalStateException("task failed");
+    });
+    // the loop reports the error and keeps running tasks
+    CountDownLatch done = new CountDownLatch(1);
+    loop.execute(done::countDown);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(1, errors.size());
+    assertEquals("task failed", errors.get(0).getMessage());
+  }
+
+  private static SofhServer startServer(int loops, Supplier<SessionHandler> factory,
+      int maxQueuedBytes) throws IOException {
+    SofhServer server = new SofhServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+        loops, factory, SofhEventLoop.DEFAULT_READ_BUFFER_LENGTH,
+        SofhEventLoop.DEFAULT_SEGMENT_LENGTH, maxQueuedBytes);
+    server.start();
+    return server;
+  }
+}
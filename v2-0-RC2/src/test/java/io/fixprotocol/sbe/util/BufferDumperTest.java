@@ -0,0 +1,59 @@
+package io.fixprotocol.sbe.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+class BufferDumperTest {
+
+  private static final String NL = System.lineSeparator();
+  private static final byte[] BYTES = "ORD00001\u0000\u0001GEM4 ~\u007fÿ!"
+      .getBytes(StandardCharsets.ISO_8859_1);
+  private static final String EXPECTED =
+      "4f 52 44 30 30 30 30 31 00 01 47 45 4d 34 20 7e :ORD00001  GEM4 ~" + NL
+          + "7f ff 21                                        :  !" + NL;
+
+  @Test
+  void testByteArray() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PrintStream out = new PrintStream(bytes);
+    BufferDumper.print(BYTES, 16, BYTES.length, out, StandardCharsets.ISO_8859_1);
+    out.flush();
+    assertEquals(EXPECTED, bytes.toString("ISO-8859-1"));
+  }
+
+  @Test
+  void testMultiByteCharset() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PrintStream out = new PrintStream(bytes);
+    BufferDumper.print(BYTES, 16, BYTES.length, out, StandardCharsets.UTF_8);
+    out.flush();
+    assertEquals(EXPECTED, bytes.toString("ISO-8859-1"));
+  }
+
+  @Test
+  void testDirectByteBuffer() throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+    buffer.position(10);
+    buffer.put(BYTES);
+    buffer.limit(buffer.position()).position(10);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PrintStream out = new PrintStream(bytes);
+    BufferDumper.print(buffer, 16, out, StandardCharsets.ISO_8859_1);
+    out.flush();
+    assertEquals(EXPECTED, bytes.toString("ISO-8859-1"));
+    assertEquals(10, buffer.position());
+  }
+
+  @Test
+  void testAppendable() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    new BufferDumper().print(new UnsafeBuffer(BYTES), 0, BYTES.length, sb);
+    assertEquals(EXPECTED, sb.toString());
+  }
+}
@@ -0,0 +1,29 @@
+package io.fixprotocol.sbe.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+class Crc32cTest {
+
+  private static final byte[] CHECK = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+  @Test
+  void testHeapBuffer() {
+    byte[] bytes = new byte[CHECK.length + 3];
+    System.arraycopy(CHECK, 0, bytes, 3, CHECK.length);
+    assertEquals(0xE3069283, new Crc32c().compute(new UnsafeBuffer(bytes), 3, CHECK.length));
+  }
+
+  @Test
+  void testDirectBuffer() {
+    ByteBuffer direct = ByteBuffer.allocateDirect(64);
+    UnsafeBuffer buffer = new UnsafeBuffer(direct, 8, 32);
+    buffer.putBytes(5, CHECK);
+    Crc32c crc = new Crc32c();
+    assertEquals(0xE3069283, crc.compute(buffer, 5, CHECK.length));
+    assertEquals(0xE3069283, crc.compute(buffer, 5, CHECK.length));
+  }
+}
@@ -0,0 +1,78 @@
+package io.fixprotocol.sbe.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import io.fixprotocol.sbe.examples.ExampleDumper;
+
+class StreamingHexDumperTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testOffsetsAcrossChunks() throws IOException {
+    byte[] data = new byte[100];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) ('A' + i % 26);
+    }
+    Path path = tempDir.resolve("data.bin");
+    Files.write(path, data);
+
+    // chunk and sink smaller than the input force several reads and writes
+    StreamingHexDumper dumper = new StreamingHexDumper(16, 40, 64);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+      assertEquals(70, dumper.dumpRange(in, 20, 90, Channels.newChannel(bytes)));
+    }
+
+    String[] lines = bytes.toString("ISO-8859-1").split(System.lineSeparator());
+    assertEquals(5, lines.length);
+    StringBuilder expected = new StringBuilder();
+    new BufferDumper(16).print(new UnsafeBuffer(data), 20, 70, expected);
+    String[] expectedLines = expected.toString().split(System.lineSeparator());
+    for (int i = 0; i < lines.length; i++) {
+      assertEquals(String.format("%016x  ", 20 + i * 16) + expectedLines[i], lines[i]);
+    }
+  }
+
+  @Test
+  void testFrameRange() throws IOException {
+    ExampleDumper exampleDumper = new ExampleDumper();
+    byte[] frame = new byte[128];
+    List<Long> offsets = new ArrayList<>();
+    long position = 0;
+    Path path = tempDir.resolve("capture.bin");
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      for (int i = 0; i < 10; i++) {
+        int size = exampleDumper.encodeOrderMsg(frame);
+        offsets.add(position);
+        channel.write(ByteBuffer.wrap(frame, 0, size));
+        position += size;
+      }
+    }
+    offsets.add(position);
+
+    StreamingHexDumper dumper = new StreamingHexDumper(16, 4096, 4096);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+      assertEquals(offsets.get(5).longValue(), StreamingHexDumper.skipFrames(in, 0, 5));
+      assertEquals(offsets.get(10).longValue(), StreamingHexDumper.skipFrames(in, 0, 20));
+      assertEquals(offsets.get(6) - offsets.get(3),
+          dumper.dumpFrames(in, 3, 3, Channels.newChannel(bytes)));
+    }
+    assertTrue(bytes.toString("ISO-8859-1").startsWith(String.format("%016x  ", offsets.get(3))));
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.IOException;
+
+import org.agrona.DirectBuffer;
+
+/**
+ * Receives the events of a {@link BlockingSofhSession}
+ * <p>
+ * All methods are invoked on the virtual thread of the session, which may respond by claiming and
+ * committing frames on the session.
+ *
+ * @author Don Mendelson
+ *
+ */
+@FunctionalInterface
+public interface BlockingSessionHandler {
+
+  /**
+   * Invoked once before the first read
+   *
+   * @param session new session
+   * @throws IOException if a response cannot be written
+   */
+  default void onConnected(BlockingSofhSession session) throws IOException {}
+
+  /**
+   * Invoked once when a session ends, by either peer or on error
+   *
+   * @param session closed session
+   * @param cause exception that closed the session, or {@code null} for an orderly close
+   */
+  default void onDisconnected(BlockingSofhSession session, Throwable cause) {}
+
+  /**
+   * Receives a complete frame, including its Simple Open Framing Header. The buffer is only valid
+   * during the call.
+   *
+   * @param session session on which the frame was received
+   * @param buffer buffer containing the frame
+   * @param offset offset of the framing header
+   * @param length length of the frame, including the framing header
+   * @throws IOException if a response cannot be written
+   */
+  void onFrame(BlockingSofhSession session, DirectBuffer buffer, int offset, int length)
+      throws IOException;
+}
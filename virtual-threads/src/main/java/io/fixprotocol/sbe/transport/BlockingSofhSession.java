@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+import org.agrona.MutableDirectBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDeframer;
+import io.fixprotocol.sbe.examples.SofhFrameWriter;
+
+/**
+ * A TCP connection that exchanges frames with a Simple Open Framing Header using blocking I/O on a
+ * thread of its own, intended to be a virtual thread
+ * <p>
+ * {@link #run()} reads into the reusable buffer of a {@link SofhFrameDeframer}, which holds a
+ * partial frame until the rest arrives and delivers complete frames to a
+ * {@link BlockingSessionHandler}. Responses are encoded in place with a {@link SofhFrameWriter}:
+ * {@link #claim(int)}, encode into {@link #buffer()}, then {@link #commit(int)}. Responses to the
+ * frames of one read are written together after the read is handled.
+ * <p>
+ * A slow peer simply blocks the write, and so the thread of its own session; no other session is
+ * affected, and no request is read from that peer until the write completes. Not thread-safe.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class BlockingSofhSession implements Runnable, AutoCloseable {
+
+  private final SocketChannel channel;
+  private final SofhFrameDeframer deframer;
+  private long framesReceived = 0;
+  private final BlockingSessionHandler handler;
+  private final SofhFrameWriter writer;
+
+  /**
+   * Constructor
+   *
+   * @param channel connected channel in blocking mode
+   * @param handler receives the events of the session
+   * @param readBufferLength size of the receive buffer, bounding the largest frame
+   * @param writeBufferLength size of the send buffer; responses are written when it is full
+   */
+  public BlockingSofhSession(SocketChannel channel, BlockingSessionHandler handler,
+      int readBufferLength, int writeBufferLength) {
+    this.channel = channel;
+    this.handler = handler;
+    this.writer = new SofhFrameWriter(channel, writeBufferLength, 1, writeBufferLength,
+        Long.MAX_VALUE);
+    this.deframer = new SofhFrameDeframer(readBufferLength, (buffer, offset, length) -> {
+      try {
+        handler.onFrame(this, buffer, offset, length);
+      } catch (final IOException e) {
+        throw new HandlerIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Abandons the frame in progress
+   */
+  public void abort() {
+    writer.abort();
+  }
+
+  /**
+   * @return buffer in which the claimed frame is encoded. Only valid between {@link #claim(int)}
+   *         and {@link #commit(int)}.
+   */
+  public MutableDirectBuffer buffer() {
+    return writer.buffer();
+  }
+
+  /**
+   * Reserves space for a frame and writes its framing header. May block to write pending frames.
+   *
+   * @param maxMessageLength maximum length of the SBE message, including its message header
+   * @return offset in {@link #buffer()} at which to encode the SBE message header
+   * @throws IOException if pending frames must be written and the write fails
+   */
+  public int claim(int maxMessageLength) throws IOException {
+    return writer.claim(maxMessageLength);
+  }
+
+  /**
+   * Closes the connection. A blocked read or write fails, ending {@link #run()}.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Completes the claimed frame; it is written after the current read is handled
+   *
+   * @param messageLength actual length of the SBE message, including its message header
+   * @throws IOException if a write fails
+   */
+  public void commit(int messageLength) throws IOException {
+    writer.commit(messageLength);
+  }
+
+  /**
+   * @return number of frames delivered to the handler
+   */
+  public long framesReceived() {
+    return framesReceived;
+  }
+
+  /**
+   * @return number of frames committed
+   */
+  public long framesSent() {
+    return writer.frames();
+  }
+
+  /**
+   * Reads and handles frames until the peer closes the connection or an error occurs
+   */
+  @Override
+  public void run() {
+    Throwable cause = null;
+    try {
+      handler.onConnected(this);
+      writer.flush();
+      int frames;
+      while ((frames = deframer.read(channel)) >= 0) {
+        framesReceived += frames;
+        writer.flush();
+      }
+    } catch (final HandlerIOException e) {
+      cause = e.getCause();
+    } catch (final Exception e) {
+      cause = e;
+    } finally {
+      try {
+        channel.close();
+      } catch (final IOException e) {
+        // already failed
+      }
+      handler.onDisconnected(this, cause);
+    }
+  }
+
+  /**
+   * Carries an exception of the handler out of the deframer callback
+   */
+  private static final class HandlerIOException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    HandlerIOException(IOException cause) {
+      super(cause);
+    }
+  }
+}
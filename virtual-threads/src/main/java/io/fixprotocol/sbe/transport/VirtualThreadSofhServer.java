@@ -0,0 +1,216 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.agrona.ErrorHandler;
+
+/**
+ * Accepts TCP connections that exchange frames with a Simple Open Framing Header and serves each
+ * one with blocking I/O on a virtual thread of its own
+ * <p>
+ * This is the thread-per-connection counterpart of {@link SofhServer}. Code in a
+ * {@link BlockingSessionHandler} is written as if it had a platform thread to itself, while a
+ * blocked read or write only parks its virtual thread and releases the carrier thread.
+ * <p>
+ * If accept fails, for example when the process runs out of file descriptors, the error is reported
+ * and the acceptor retries after a short pause. A connection whose setup fails is closed.
+ *
+ * @author Don Mendelson
+ *
+ */
+public class VirtualThreadSofhServer implements AutoCloseable {
+
+  /**
+   * Default size of the receive buffer of each session, bounding the largest frame
+   */
+  public static final int DEFAULT_READ_BUFFER_LENGTH = 64 * 1024;
+
+  /**
+   * Default size of the send buffer of each session
+   */
+  public static final int DEFAULT_WRITE_BUFFER_LENGTH = 64 * 1024;
+
+  private static final long ACCEPT_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private Thread acceptor;
+  private final SocketAddress bindAddress;
+  private final ErrorHandler errorHandler;
+  private ExecutorService executor;
+  private final Supplier<BlockingSessionHandler> handlerFactory;
+  private final int readBufferLength;
+  private ServerSocketChannel serverChannel;
+  private final Set<BlockingSofhSession> sessions = ConcurrentHashMap.newKeySet();
+  private final int writeBufferLength;
+
+  /**
+   * Creates a server with default buffer sizes and errors printed to standard error
+   *
+   * @param bindAddress local address to listen on; port 0 selects an ephemeral port
+   * @param handlerFactory supplies a handler for each connection
+   */
+  public VirtualThreadSofhServer(SocketAddress bindAddress,
+      Supplier<BlockingSessionHandler> handlerFactory) {
+    this(bindAddress, handlerFactory, DEFAULT_READ_BUFFER_LENGTH, DEFAULT_WRITE_BUFFER_LENGTH);
+  }
+
+  /**
+   * Creates a server with errors printed to standard error. It does not listen until
+   * {@link #start()}.
+   *
+   * @param bindAddress local address to listen on; port 0 selects an ephemeral port
+   * @param handlerFactory supplies a handler for each connection
+   * @param readBufferLength size of the receive buffer of each session
+   * @param writeBufferLength size of the send buffer of each session
+   */
+  public VirtualThreadSofhServer(SocketAddress bindAddress,
+      Supplier<BlockingSessionHandler> handlerFactory, int readBufferLength,
+      int writeBufferLength) {
+    this(bindAddress, handlerFactory, readBufferLength, writeBufferLength,
+        Throwable::printStackTrace);
+  }
+
+  /**
+   * Creates a server. It does not listen until {@link #start()}.
+   *
+   * @param bindAddress local address to listen on; port 0 selects an ephemeral port
+   * @param handlerFactory supplies a handler for each connection
+   * @param readBufferLength size of the receive buffer of each session
+   * @param writeBufferLength size of the send buffer of each session
+   * @param errorHandler receives failures to accept or to set up a connection
+   */
+  public VirtualThreadSofhServer(SocketAddress bindAddress,
+      Supplier<BlockingSessionHandler> handlerFactory, int readBufferLength,
+      int writeBufferLength, ErrorHandler errorHandler) {
+    this.bindAddress = bindAddress;
+    this.handlerFactory = handlerFactory;
+    this.errorHandler = errorHandler;
+    this.readBufferLength = readBufferLength;
+    this.writeBufferLength = writeBufferLength;
+  }
+
+  /**
+   * Stops accepting, closes all sessions and waits for their threads to end
+   *
+   * @throws IOException if the listening channel fails to close
+   * @throws InterruptedException if interrupted while waiting for threads to stop
+   */
+  @Override
+  public void close() throws IOException, InterruptedException {
+    if (serverChannel != null) {
+      serverChannel.close();
+      acceptor.join();
+      serverChannel = null;
+      for (final BlockingSofhSession session : sessions) {
+        session.close();
+      }
+      executor.close();
+    }
+  }
+
+  /**
+   * @return address on which the server listens
+   * @throws IOException if the address cannot be obtained
+   */
+  public InetSocketAddress localAddress() throws IOException {
+    return (InetSocketAddress) serverChannel.getLocalAddress();
+  }
+
+  /**
+   * @return number of open sessions. May be called by any thread.
+   */
+  public int sessionCount() {
+    return sessions.size();
+  }
+
+  /**
+   * Binds the listening socket and starts accepting on a virtual thread
+   *
+   * @throws IOException if the socket cannot be bound
+   * @throws IllegalStateException if already started
+   */
+  public void start() throws IOException {
+    if (serverChannel != null) {
+      throw new IllegalStateException("Already started");
+    }
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(bindAddress, 1024);
+    executor =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sofh-vt-", 0).factory());
+    acceptor = Thread.ofVirtual().name("sofh-vt-acceptor").start(this::accept);
+  }
+
+  private void accept() {
+    final ServerSocketChannel channel = serverChannel;
+    while (true) {
+      final SocketChannel socketChannel;
+      try {
+        socketChannel = channel.accept();
+      } catch (final ClosedChannelException e) {
+        // server closed
+        return;
+      } catch (final IOException e) {
+        // such as too many open files; retry once some may have been released
+        errorHandler.onError(e);
+        LockSupport.parkNanos(ACCEPT_RETRY_NANOS);
+        continue;
+      }
+      try {
+        serve(socketChannel);
+      } catch (final IOException | RuntimeException e) {
+        // such as a connection reset by the peer before it was set up
+        errorHandler.onError(e);
+        try {
+          socketChannel.close();
+        } catch (final IOException e1) {
+          // already failed
+        }
+      }
+    }
+  }
+
+  private void serve(SocketChannel socketChannel) throws IOException {
+    socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    final BlockingSofhSession session = new BlockingSofhSession(socketChannel,
+        handlerFactory.get(), readBufferLength, writeBufferLength);
+    sessions.add(session);
+    try {
+      executor.execute(() -> {
+        try {
+          session.run();
+        } finally {
+          sessions.remove(session);
+        }
+      });
+    } catch (final RuntimeException e) {
+      sessions.remove(session);
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport.harness;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.agrona.DirectBuffer;
+
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.OrdTypeEnum;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+import io.fixprotocol.sbe.transport.SessionHandler;
+import io.fixprotocol.sbe.transport.SofhEventLoop;
+import io.fixprotocol.sbe.transport.SofhSession;
+
+/**
+ * Compares {@link io.fixprotocol.sbe.transport.SofhServer} with
+ * {@link io.fixprotocol.sbe.transport.VirtualThreadSofhServer} as the number of concurrent
+ * loopback connections grows
+ * <p>
+ * For each server kind and connection count, the server runs in a child JVM started by
+ * {@link HarnessServer}. Every connection keeps one NewOrderSingle outstanding; the send time
+ * travels in the ClOrdId and returns in the OrderID of the ExecutionReport, so round-trip latency
+ * is recorded without per-order state. After a warm-up period, the harness reports throughput,
+ * latency percentiles, and the server's heap plus direct memory per connection, measured idle
+ * after all connections are established. Memory per connection is only meaningful when the number
+ * of connections is large enough to swamp a few hundred kilobytes of measurement noise.
+ * <p>
+ * Options, with defaults: {@code --servers eventloop,virtual}, {@code --connections 10,1000,50000},
+ * {@code --warmup 5}, {@code --duration 10} (seconds), {@code --server-loops} and
+ * {@code --client-loops} (available processors), {@code --buffer 4096} (bytes per session buffer),
+ * and {@code --server-jvm "-Xmx4g"}.
+ * <p>
+ * More than about 28,000 connections exceed the default ephemeral port range of one source
+ * address, so connections are spread over source addresses 127.0.0.1, 127.0.0.2 and so on, which
+ * Linux routes over loopback. 50,000 connections need an open file limit above 100,000, for
+ * example {@code ulimit -n 200000}.
+ *
+ * @author Don Mendelson
+ *
+ */
+public final class ConnectionScalingHarness {
+
+  /**
+   * Keeps one order outstanding on a session and records round-trip times
+   */
+  private static final class ClientHandler implements SessionHandler {
+    private final int loopIndex;
+    private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+    private final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+    private final NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+    private final Recorder recorder;
+    private final Run run;
+    private SofhSession session;
+
+    ClientHandler(Run run, Recorder recorder, int loopIndex) {
+      this.run = run;
+      this.recorder = recorder;
+      this.loopIndex = loopIndex;
+    }
+
+    @Override
+    public void onConnected(SofhSession session) {
+      this.session = session;
+      run.connected(this);
+    }
+
+    @Override
+    public void onDisconnected(SofhSession session, Throwable cause) {
+      if (cause != null && run.running) {
+        System.err.println("Connection lost: " + cause);
+      }
+    }
+
+    @Override
+    public void onFrame(SofhSession session, DirectBuffer buffer, int offset, int length) {
+      final long now = System.nanoTime();
+      mhDecoder.wrap(buffer, offset + 6);
+      final long sendNanos = buffer.getLong(offset + 6 + mhDecoder.encodedLength()
+          + ExecutionReportDecoder.orderIDEncodingOffset(), ByteOrder.LITTLE_ENDIAN);
+      recorder.recordValue(now - sendNanos);
+      if (run.running) {
+        send();
+      }
+    }
+
+    void send() {
+      final int position =
+          session.claim(MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH);
+      if (position == SofhSession.BACK_PRESSURED) {
+        return;
+      }
+      nosEncoder.wrapAndApplyHeader(session.buffer(), position, mhEncoder).side(SideEnum.Buy)
+          .ordType(OrdTypeEnum.Limit).orderQty().mantissa(100);
+      session.buffer().putLong(position + mhEncoder.encodedLength()
+          + NewOrderSingleEncoder.clOrdIdEncodingOffset(), System.nanoTime(),
+          ByteOrder.LITTLE_ENDIAN);
+      session.commit(mhEncoder.encodedLength() + nosEncoder.encodedLength());
+    }
+  }
+
+  /**
+   * One measurement of a server kind at a connection count
+   */
+  private static final class Run {
+    final AtomicInteger connected = new AtomicInteger();
+    final List<List<ClientHandler>> handlersByLoop = new ArrayList<>();
+    final SofhEventLoop[] loops;
+    volatile boolean running = true;
+
+    Run(SofhEventLoop[] loops) {
+      this.loops = loops;
+      for (int i = 0; i < loops.length; i++) {
+        handlersByLoop.add(new ArrayList<>());
+      }
+    }
+
+    /**
+     * Invoked on the thread of the handler's loop, which alone uses its list
+     */
+    void connected(ClientHandler handler) {
+      handlersByLoop.get(handler.loopIndex).add(handler);
+      connected.incrementAndGet();
+    }
+
+    void start() {
+      for (int i = 0; i < loops.length; i++) {
+        final List<ClientHandler> handlers = handlersByLoop.get(i);
+        loops[i].execute(() -> handlers.forEach(ClientHandler::send));
+      }
+    }
+  }
+
+  private static final int CONNECTIONS_PER_SOURCE_ADDRESS = 20_000;
+
+  public static void main(String[] args) throws Exception {
+    final int processors = Runtime.getRuntime().availableProcessors();
+    String[] servers = {"eventloop", "virtual"};
+    int[] connectionCounts = {10, 1_000, 50_000};
+    int warmupSeconds = 5;
+    int durationSeconds = 10;
+    int serverLoops = processors;
+    int clientLoops = processors;
+    int bufferLength = 4096;
+    String serverJvm = "-Xmx4g";
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      final String value = args[i + 1];
+      switch (args[i]) {
+        case "--servers" -> servers = value.split(",");
+        case "--connections" -> connectionCounts =
+            Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+        case "--warmup" -> warmupSeconds = Integer.parseInt(value);
+        case "--duration" -> durationSeconds = Integer.parseInt(value);
+        case "--server-loops" -> serverLoops = Integer.parseInt(value);
+        case "--client-loops" -> clientLoops = Integer.parseInt(value);
+        case "--buffer" -> bufferLength = Integer.parseInt(value);
+        case "--server-jvm" -> serverJvm = value;
+        default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+
+    System.out.printf("%-10s %11s %12s %9s %9s %9s %9s %10s %10s %14s %8s%n", "server",
+        "connections", "msgs/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "p99.99 us",
+        "max us", "bytes/conn", "threads");
+    for (final String server : servers) {
+      for (final int connections : connectionCounts) {
+        measure(server, connections, warmupSeconds, durationSeconds, serverLoops, clientLoops,
+            bufferLength, serverJvm);
+      }
+    }
+  }
+
+  private static void measure(String kind, int connections, int warmupSeconds,
+      int durationSeconds, int serverLoops, int clientLoops, int bufferLength, String serverJvm)
+      throws Exception {
+    final List<String> command = new ArrayList<>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    command.addAll(Arrays.asList(serverJvm.trim().split("\\s+")));
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(HarnessServer.class.getName());
+    command.add(kind);
+    command.add(Integer.toString(serverLoops));
+    command.add(Integer.toString(bufferLength));
+    final Process process =
+        new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    final BufferedReader serverOut =
+        new BufferedReader(new InputStreamReader(process.getInputStream()));
+    final PrintWriter serverIn = new PrintWriter(process.getOutputStream(), true);
+
+    final SofhEventLoop[] loops = new SofhEventLoop[clientLoops];
+    try {
+      final int port = Integer.parseInt(serverOut.readLine().split(" ")[1]);
+      final long[] idle = memory(serverIn, serverOut);
+
+      final Recorder recorder = new Recorder(3);
+      for (int i = 0; i < clientLoops; i++) {
+        loops[i] = new SofhEventLoop("client-" + i, bufferLength, bufferLength,
+            SofhEventLoop.DEFAULT_MAX_QUEUED_BYTES);
+        loops[i].start();
+      }
+      final Run run = new Run(loops);
+      final InetSocketAddress remote =
+          new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+      for (int i = 0; i < connections; i++) {
+        final SocketChannel channel = SocketChannel.open();
+        final int source = 1 + i / CONNECTIONS_PER_SOURCE_ADDRESS;
+        channel.bind(new InetSocketAddress(InetAddress.getByName("127.0.0." + source), 0));
+        channel.connect(remote);
+        final int loopIndex = i % clientLoops;
+        loops[loopIndex].register(channel, new ClientHandler(run, recorder, loopIndex));
+      }
+
+      long[] connected;
+      do {
+        Thread.sleep(100);
+        connected = memory(serverIn, serverOut);
+      } while (connected[3] < connections || run.connected.get() < connections);
+      final long bytesPerConnection =
+          (connected[0] + connected[1] - idle[0] - idle[1]) / connections;
+
+      run.start();
+      Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+      recorder.getIntervalHistogram();
+      final long start = System.nanoTime();
+      Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+      final Histogram histogram = recorder.getIntervalHistogram();
+      final long elapsed = System.nanoTime() - start;
+      run.running = false;
+
+      System.out.printf("%-10s %11d %12.0f %9.1f %9.1f %9.1f %9.1f %10.1f %10.1f %14d %8d%n", kind,
+          connections, histogram.getTotalCount() * 1e9 / elapsed, micros(histogram, 50.0),
+          micros(histogram, 90.0), micros(histogram, 99.0), micros(histogram, 99.9),
+          micros(histogram, 99.99), histogram.getMaxValue() / 1000.0, bytesPerConnection,
+          connected[2]);
+    } finally {
+      for (final SofhEventLoop loop : loops) {
+        if (loop != null) {
+          loop.close();
+        }
+      }
+      serverIn.println("quit");
+      if (!process.waitFor(30, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    }
+  }
+
+  private static long[] memory(PrintWriter serverIn, BufferedReader serverOut)
+      throws IOException {
+    serverIn.println("memory");
+    final String[] fields = serverOut.readLine().split(" ");
+    final long[] values = new long[fields.length - 1];
+    for (int i = 1; i < fields.length; i++) {
+      values[i - 1] = Long.parseLong(fields[i]);
+    }
+    return values;
+  }
+
+  private static double micros(Histogram histogram, double percentile) {
+    return histogram.getValueAtPercentile(percentile) / 1000.0;
+  }
+
+  private ConnectionScalingHarness() {}
+}
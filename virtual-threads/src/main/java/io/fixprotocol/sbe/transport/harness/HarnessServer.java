@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport.harness;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.function.IntSupplier;
+
+import io.fixprotocol.sbe.transport.SofhEventLoop;
+import io.fixprotocol.sbe.transport.SofhServer;
+import io.fixprotocol.sbe.transport.VirtualThreadSofhServer;
+
+/**
+ * Server process of {@link ConnectionScalingHarness}, kept apart so that its memory is measured
+ * without the client's
+ * <p>
+ * Arguments: server kind ({@code eventloop} or {@code virtual}), number of event loops, and buffer
+ * length. Prints {@code port <n>} when listening, then answers commands on standard input:
+ * {@code memory} prints {@code memory <heap bytes> <direct bytes> <threads> <sessions>} after a
+ * garbage collection, and {@code quit} stops the server.
+ *
+ * @author Don Mendelson
+ *
+ */
+public final class HarnessServer {
+
+  public static void main(String[] args) throws Exception {
+    final String kind = args[0];
+    final int loops = Integer.parseInt(args[1]);
+    final int bufferLength = Integer.parseInt(args[2]);
+    final InetSocketAddress bindAddress =
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+    final AutoCloseable server;
+    final InetSocketAddress localAddress;
+    final IntSupplier sessionCount;
+    if ("virtual".equals(kind)) {
+      final VirtualThreadSofhServer vtServer = new VirtualThreadSofhServer(bindAddress,
+          OrderAcknowledger::virtualThreadHandler, bufferLength, bufferLength);
+      vtServer.start();
+      server = vtServer;
+      localAddress = vtServer.localAddress();
+      sessionCount = vtServer::sessionCount;
+    } else {
+      // segments are pooled per loop, so the queue limit does not add to memory per connection
+      final SofhServer elServer = new SofhServer(bindAddress, loops,
+          OrderAcknowledger::eventLoopHandler, bufferLength, bufferLength,
+          SofhEventLoop.DEFAULT_MAX_QUEUED_BYTES);
+      elServer.start();
+      server = elServer;
+      localAddress = elServer.localAddress();
+      sessionCount = () -> {
+        int count = 0;
+        for (int i = 0; i < elServer.loopCount(); i++) {
+          count += elServer.loop(i).sessionCount();
+        }
+        return count;
+      };
+    }
+
+    System.out.println("port " + localAddress.getPort());
+    final BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+    String command;
+    while ((command = in.readLine()) != null && !"quit".equals(command)) {
+      if ("memory".equals(command)) {
+        System.gc();
+        Thread.sleep(100);
+        System.gc();
+        final long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long direct = 0;
+        for (final BufferPoolMXBean pool : ManagementFactory
+            .getPlatformMXBeans(BufferPoolMXBean.class)) {
+          if ("direct".equals(pool.getName())) {
+            direct = pool.getMemoryUsed();
+          }
+        }
+        final int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        System.out.printf("memory %d %d %d %d%n", heap, direct, threads, sessionCount.getAsInt());
+      }
+    }
+    server.close();
+  }
+
+  private HarnessServer() {}
+}
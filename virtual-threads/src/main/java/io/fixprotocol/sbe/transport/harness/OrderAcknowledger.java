@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package io.fixprotocol.sbe.transport.harness;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import io.fixprotocol.sbe.examples.SofhFrameDecoder;
+import io.fixprotocol.sbe.examples.messages.ExecTypeEnum;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportEncoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleDecoder;
+import io.fixprotocol.sbe.examples.messages.OrdStatusEnum;
+import io.fixprotocol.sbe.transport.BlockingSessionHandler;
+import io.fixprotocol.sbe.transport.SessionHandler;
+import io.fixprotocol.sbe.transport.SofhSession;
+
+/**
+ * Acknowledges a NewOrderSingle with an ExecutionReport whose OrderID and ExecID are the ClOrdId,
+ * the same work for either server under test
+ *
+ * @author Don Mendelson
+ *
+ */
+public class OrderAcknowledger {
+
+  /**
+   * Length of an acknowledgement, including its message header
+   */
+  public static final int RESPONSE_LENGTH = MessageHeaderEncoder.ENCODED_LENGTH
+      + ExecutionReportEncoder.BLOCK_LENGTH + ExecutionReportEncoder.FillsGrpEncoder.HEADER_SIZE;
+
+  /**
+   * @return a handler for a session of the event loop server
+   */
+  public static SessionHandler eventLoopHandler() {
+    final OrderAcknowledger acknowledger = new OrderAcknowledger();
+    return (session, buffer, offset, length) -> {
+      final int position = session.claim(RESPONSE_LENGTH);
+      if (position != SofhSession.BACK_PRESSURED) {
+        final int responseLength =
+            acknowledger.acknowledge(buffer, offset, session.buffer(), position);
+        if (responseLength > 0) {
+          session.commit(responseLength);
+        } else {
+          session.abort();
+        }
+      }
+    };
+  }
+
+  /**
+   * @return a handler for a session of the virtual thread server
+   */
+  public static BlockingSessionHandler virtualThreadHandler() {
+    final OrderAcknowledger acknowledger = new OrderAcknowledger();
+    return (session, buffer, offset, length) -> {
+      final int position = session.claim(RESPONSE_LENGTH);
+      final int responseLength =
+          acknowledger.acknowledge(buffer, offset, session.buffer(), position);
+      if (responseLength > 0) {
+        session.commit(responseLength);
+      } else {
+        session.abort();
+      }
+    };
+  }
+
+  private final ExecutionReportEncoder erEncoder = new ExecutionReportEncoder();
+  private final byte[] id = new byte[8];
+  private final MessageHeaderDecoder mhDecoder = new MessageHeaderDecoder();
+  private final MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+  private final NewOrderSingleDecoder nosDecoder = new NewOrderSingleDecoder();
+  private final SofhFrameDecoder sofhDecoder = new SofhFrameDecoder();
+
+  /**
+   * Encodes an acknowledgement
+   *
+   * @param buffer buffer containing a request frame
+   * @param offset offset of the framing header of the request
+   * @param out buffer in which to encode the response
+   * @param outOffset offset at which to encode the message header of the response
+   * @return length of the response including its message header, or {@code 0} if the request is
+   *         not a NewOrderSingle
+   */
+  public int acknowledge(DirectBuffer buffer, int offset, MutableDirectBuffer out, int outOffset) {
+    mhDecoder.wrap(buffer, offset + sofhDecoder.encodedLength());
+    if (mhDecoder.schemaId() != NewOrderSingleDecoder.SCHEMA_ID
+        || mhDecoder.templateId() != NewOrderSingleDecoder.TEMPLATE_ID) {
+      return 0;
+    }
+    nosDecoder.wrap(buffer, offset + sofhDecoder.encodedLength() + mhDecoder.encodedLength(),
+        mhDecoder.blockLength(), mhDecoder.version());
+    nosDecoder.getClOrdId(id, 0);
+    erEncoder.wrapAndApplyHeader(out, outOffset, mhEncoder).putOrderID(id, 0).putExecID(id, 0)
+        .execType(ExecTypeEnum.New).ordStatus(OrdStatusEnum.New).side(nosDecoder.side())
+        .fillsGrpCount(0);
+    return mhEncoder.encodedLength() + erEncoder.encodedLength();
+  }
+}
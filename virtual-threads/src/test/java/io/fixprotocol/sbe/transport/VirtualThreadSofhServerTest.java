@@ -0,0 +1,140 @@
+package io.fixprotocol.sbe.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.fixprotocol.sbe.examples.SofhFrameDeframer;
+import io.fixprotocol.sbe.examples.SofhFrameEncoder;
+import io.fixprotocol.sbe.examples.messages.ExecutionReportDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderDecoder;
+import io.fixprotocol.sbe.examples.messages.MessageHeaderEncoder;
+import io.fixprotocol.sbe.examples.messages.NewOrderSingleEncoder;
+import io.fixprotocol.sbe.examples.messages.SideEnum;
+import io.fixprotocol.sbe.transport.harness.OrderAcknowledger;
+
+class VirtualThreadSofhServerTest {
+
+  private static final int NOS_FRAME_LENGTH =
+      6 + MessageHeaderEncoder.ENCODED_LENGTH + NewOrderSingleEncoder.BLOCK_LENGTH;
+
+  private VirtualThreadSofhServer server;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = new VirtualThreadSofhServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+        OrderAcknowledger::virtualThreadHandler, 4096, 4096);
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    server.close();
+  }
+
+  @Test
+  void testManyConnections() throws Exception {
+    final int connections = 200;
+    List<SocketChannel> channels = new ArrayList<>();
+    for (int i = 0; i < connections; i++) {
+      channels.add(SocketChannel.open(server.localAddress()));
+    }
+    for (int i = 0; i < connections; i++) {
+      ByteBuffer frame = orders(1, "C" + i);
+      while (frame.hasRemaining()) {
+        channels.get(i).write(frame);
+      }
+    }
+    for (int i = 0; i < connections; i++) {
+      assertEquals(List.of("C" + i), receive(channels.get(i), 1));
+    }
+    assertEquals(connections, server.sessionCount());
+    for (SocketChannel channel : channels) {
+      channel.close();
+    }
+  }
+
+  @Test
+  void testSetupFailure() throws Exception {
+    server.close();
+    List<Throwable> errors = new CopyOnWriteArrayList<>();
+    AtomicInteger handlers = new AtomicInteger();
+    server = new VirtualThreadSofhServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+        () -> {
+          if (handlers.getAndIncrement() == 0) {
+            throw new IllegalStateException("no handler");
+          }
+          return OrderAcknowledger.virtualThreadHandler();
+        }, 4096, 4096, errors::add);
+    server.start();
+    // the connection that failed is closed, and the next one is served
+    try (SocketChannel failed = SocketChannel.open(server.localAddress());
+        SocketChannel served = SocketChannel.open(server.localAddress())) {
+      assertEquals(-1, failed.read(ByteBuffer.allocate(16)));
+      ByteBuffer frame = orders(1, "S");
+      while (frame.hasRemaining()) {
+        served.write(frame);
+      }
+      assertEquals(List.of("S"), receive(served, 1));
+    }
+    assertEquals(1, errors.size());
+    assertEquals("no handler", errors.get(0).getMessage());
+  }
+
+  @Test
+  void testPartialFrames() throws Exception {
+    try (SocketChannel channel = SocketChannel.open(server.localAddress())) {
+      ByteBuffer frames = orders(2, "P");
+      // split inside the first framing header and in the middle of the second frame
+      for (int limit : new int[] {3, NOS_FRAME_LENGTH + 20, frames.capacity()}) {
+        frames.limit(limit);
+        while (frames.hasRemaining()) {
+          channel.write(frames);
+        }
+        Thread.sleep(20);
+      }
+      assertEquals(List.of("P0", "P1"), receive(channel, 2));
+    }
+  }
+
+  private static ByteBuffer orders(int count, String prefix) {
+    UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocate(count * NOS_FRAME_LENGTH));
+    SofhFrameEncoder sofhEncoder = new SofhFrameEncoder();
+    MessageHeaderEncoder mhEncoder = new MessageHeaderEncoder();
+    NewOrderSingleEncoder nosEncoder = new NewOrderSingleEncoder();
+    for (int i = 0; i < count; i++) {
+      final int offset = i * NOS_FRAME_LENGTH;
+      sofhEncoder.wrap(buffer, offset).encoding(SofhFrameEncoder.SBE_1_0_LITTLE_ENDIAN)
+          .messageLength(NOS_FRAME_LENGTH);
+      nosEncoder.wrapAndApplyHeader(buffer, offset + 6, mhEncoder)
+          .clOrdId(count == 1 ? prefix : prefix + i).side(SideEnum.Buy);
+    }
+    return buffer.byteBuffer();
+  }
+
+  private static List<String> receive(SocketChannel channel, int count) throws Exception {
+    List<String> orderIds = new ArrayList<>();
+    ExecutionReportDecoder erDecoder = new ExecutionReportDecoder();
+    SofhFrameDeframer deframer = new SofhFrameDeframer(1024, (buffer, offset, length) -> {
+      erDecoder.wrap(buffer, offset + 6 + MessageHeaderDecoder.ENCODED_LENGTH,
+          ExecutionReportDecoder.BLOCK_LENGTH, 0);
+      orderIds.add(erDecoder.orderID());
+    });
+    while (orderIds.size() < count) {
+      assertTrue(deframer.read(channel) >= 0);
+    }
+    return orderIds;
+  }
+}